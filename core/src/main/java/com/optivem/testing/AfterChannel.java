@@ -0,0 +1,29 @@
+package com.optivem.testing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to mark a static method that tears down a channel once its {@link ChannelScope scope} ends.
+ * <p>
+ * The method runs once for every channel that was used in the scope, with
+ * {@link com.optivem.testing.contexts.ChannelContext} set to that channel. The method may declare
+ * a single {@code String} parameter to receive the channel name.
+ * <p>
+ * The teardowns of a channel all run, even when some of them fail. Should a {@link BeforeChannel @BeforeChannel}
+ * method fail, the teardowns of the classes whose setups already ran are run right away, so a teardown
+ * should cope with a channel that was only partly set up.
+ *
+ * @see BeforeChannel
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AfterChannel {
+    /**
+     * The scope at whose end the channel is torn down.
+     * @return the channel scope, {@link ChannelScope#CLASS} by default
+     */
+    ChannelScope scope() default ChannelScope.CLASS;
+}
@@ -0,0 +1,369 @@
+package com.optivem.testing;
+
+import com.optivem.testing.contexts.ChannelContext;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Polls a condition until it holds, as a replacement for fixed sleeps while waiting for eventual consistency.
+ * <p>
+ * The poll interval, its backoff and the timeout are taken from the {@link Profile} of the current channel
+ * ({@link ChannelContext#get()}), so that a fast API channel is polled more often and given up on sooner than
+ * a slow UI channel. Profiles are registered with {@link #profile(String, Profile)}, or set per channel with
+ * the system properties {@code optivem.await.<channel>.interval}, {@code .maxInterval} and {@code .timeout}
+ * (ISO-8601 durations).
+ * <p>
+ * With {@code -Doptivem.await.history=<path>}, the time each wait took to settle is remembered per channel
+ * and wait across runs, and a wait sleeps until its typical settle time before the second poll, instead of
+ * polling a condition that is known not to hold yet. The settle time follows a wait that settles sooner than
+ * it used to as well, since it is taken from the last poll that did not hold yet.
+ * <p>
+ * Example usage:
+ * <pre>
+ * Await.until("order shipped", () -&gt; orderApi.getOrder(orderId).isShipped());
+ *
+ * Order order = Await.until(() -&gt; orderApi.getOrder(orderId), Order::isShipped);
+ * </pre>
+ */
+public final class Await {
+
+    /**
+     * System property with the path of the settle time history file.
+     */
+    public static final String HISTORY_PROPERTY = "optivem.await.history";
+
+    private static final String PROPERTY_PREFIX = "optivem.await.";
+    private static final Profile DEFAULT_PROFILE =
+            new Profile(Duration.ofMillis(10), Duration.ofSeconds(1), Duration.ofSeconds(30));
+
+    private static final Map<String, Profile> PROFILES = new ConcurrentHashMap<>();
+
+    private Await() {
+        // Utility class with static methods
+    }
+
+    /**
+     * Registers the wait profile of a channel, taking precedence over its system properties.
+     * @param channel the channel name
+     * @param profile the wait profile
+     */
+    public static void profile(String channel, Profile profile) {
+        PROFILES.put(channel, profile);
+    }
+
+    /**
+     * Returns the wait profile of a channel.
+     * @param channel the channel name, or null for the default profile
+     * @return the registered profile, or the profile configured with system properties
+     */
+    public static Profile profileOf(String channel) {
+        if (channel == null) {
+            return DEFAULT_PROFILE;
+        }
+        Profile registered = PROFILES.get(channel);
+        if (registered != null) {
+            return registered;
+        }
+        String prefix = PROPERTY_PREFIX + channel + ".";
+        return new Profile(
+                durationProperty(prefix + "interval", DEFAULT_PROFILE.interval()),
+                durationProperty(prefix + "maxInterval", DEFAULT_PROFILE.maxInterval()),
+                durationProperty(prefix + "timeout", DEFAULT_PROFILE.timeout()));
+    }
+
+    /**
+     * Waits until the condition holds on the current channel.
+     * The wait is identified by its calling class and method for the settle time history, so a method
+     * that waits more than once should name its waits.
+     * @param condition the condition to poll
+     * @throws AssertionError if the condition does not hold within the timeout of the channel
+     */
+    public static void until(BooleanSupplier condition) {
+        until(callSite(), condition);
+    }
+
+    /**
+     * Waits until the condition holds on the current channel.
+     * @param name the name of the wait, for the failure message and the settle time history
+     * @param condition the condition to poll
+     * @throws AssertionError if the condition does not hold within the timeout of the channel
+     */
+    public static void until(String name, BooleanSupplier condition) {
+        until(name, () -> condition.getAsBoolean(), Boolean.TRUE::equals);
+    }
+
+    /**
+     * Waits until the supplied value matches the predicate on the current channel, and returns it.
+     * The wait is identified by its calling class and method for the settle time history, so a method
+     * that waits more than once should name its waits.
+     * @param supplier the supplier of the value to poll
+     * @param predicate the predicate the value has to match
+     * @param <T> the type of the value
+     * @return the first value that matches
+     * @throws AssertionError if no value matches within the timeout of the channel
+     */
+    public static <T> T until(Supplier<T> supplier, Predicate<? super T> predicate) {
+        return until(callSite(), supplier, predicate);
+    }
+
+    /**
+     * Waits until the supplied value matches the predicate on the current channel, and returns it.
+     * Exceptions thrown by the supplier or the predicate count as not matching yet.
+     * @param name the name of the wait, for the failure message and the settle time history
+     * @param supplier the supplier of the value to poll
+     * @param predicate the predicate the value has to match
+     * @param <T> the type of the value
+     * @return the first value that matches
+     * @throws AssertionError if no value matches within the timeout of the channel
+     */
+    public static <T> T until(String name, Supplier<T> supplier, Predicate<? super T> predicate) {
+        String channel = ChannelContext.get();
+        Profile profile = profileOf(channel);
+        History history = History.get();
+        String key = (channel != null ? channel : "") + "|" + name;
+
+        long start = System.nanoTime();
+        long deadline = start + profile.timeout().toNanos();
+        long interval = profile.interval().toNanos();
+        // Skip the polls that past runs show would fail anyway
+        long nextSleep = history != null ? Math.max(interval, history.typicalSettleNanos(key)) : interval;
+        Throwable lastFailure = null;
+        T lastValue = null;
+        // The settle time is recorded as the last poll that did not hold yet, which is never later than the actual
+        // settle time, so that neither the sleep above nor the backoff make the typical settle time only grow
+        long lastUnsettled = -1;
+
+        while (true) {
+            long poll = System.nanoTime();
+            try {
+                lastValue = supplier.get();
+                if (predicate.test(lastValue)) {
+                    if (history != null) {
+                        history.record(key, lastUnsettled >= 0 ? lastUnsettled - start : 0);
+                    }
+                    return lastValue;
+                }
+                lastFailure = null;
+            } catch (RuntimeException | AssertionError e) {
+                lastFailure = e;
+            }
+            lastUnsettled = poll;
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new AssertionError("Condition '" + name + "' not met" + (channel != null ? " on channel " + channel : "")
+                        + " within " + profile.timeout() + ", last value: " + lastValue, lastFailure);
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(nextSleep, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for condition '" + name + "'", e);
+            }
+            interval = Math.min((long) (interval * profile.backoff()), profile.maxInterval().toNanos());
+            nextSleep = interval;
+        }
+    }
+
+    /**
+     * Returns the calling class and method. The line number is left out, so that the settle time history
+     * is kept when the code around the wait changes.
+     */
+    private static String callSite() {
+        return StackWalker.getInstance()
+                .walk(frames -> frames
+                        .filter(frame -> !frame.getClassName().equals(Await.class.getName()))
+                        .findFirst()
+                        .map(frame -> frame.getClassName() + "#" + frame.getMethodName())
+                        .orElse("unknown"));
+    }
+
+    private static Duration durationProperty(String name, Duration defaultValue) {
+        String value = System.getProperty(name);
+        return value != null && !value.isEmpty() ? Duration.parse(value) : defaultValue;
+    }
+
+    /**
+     * How a condition is polled on a channel.
+     *
+     * @param interval the first poll interval
+     * @param maxInterval the poll interval the backoff grows to at most
+     * @param timeout how long the condition is polled before the wait fails
+     * @param backoff the factor by which the poll interval grows after each poll
+     */
+    public record Profile(Duration interval, Duration maxInterval, Duration timeout, double backoff) {
+
+        /**
+         * Validates the profile, so that a wait can neither poll in a busy loop nor stop backing off.
+         * @throws IllegalArgumentException if an interval or the timeout is not positive, or the backoff is 1 or less
+         */
+        public Profile {
+            requirePositive("Interval", interval);
+            requirePositive("Max interval", maxInterval);
+            requirePositive("Timeout", timeout);
+            if (maxInterval.compareTo(interval) < 0) {
+                throw new IllegalArgumentException("Max interval " + maxInterval + " must not be less than interval " + interval);
+            }
+            if (!(backoff > 1.0)) {
+                throw new IllegalArgumentException("Backoff must be greater than 1, but was " + backoff);
+            }
+        }
+
+        /**
+         * Creates a profile that doubles the poll interval after each poll.
+         * @param interval the first poll interval
+         * @param maxInterval the poll interval the backoff grows to at most
+         * @param timeout how long the condition is polled before the wait fails
+         */
+        public Profile(Duration interval, Duration maxInterval, Duration timeout) {
+            this(interval, maxInterval, timeout, 2.0);
+        }
+
+        private static void requirePositive(String name, Duration duration) {
+            if (duration == null || duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException(name + " must be positive, but was " + duration);
+            }
+        }
+    }
+
+    /**
+     * Typical settle times of the waits, kept in a local properties file across runs.
+     * <p>
+     * The history is written when the JVM exits. Like the histories of the extensions, JVMs that exit at the same
+     * time merge their settle times into the file one after the other, under a lock of the {@code <history>.lock}
+     * file next to it, and replace the file atomically.
+     */
+    private static class History {
+
+        private static final String LOCK_SUFFIX = ".lock";
+
+        private static volatile History instance;
+
+        private final Path file;
+        private final Map<String, Long> settleMillis = new ConcurrentHashMap<>();
+        private final Map<String, Long> measuredMillis = new ConcurrentHashMap<>();
+
+        private History(Path file) {
+            this.file = file;
+        }
+
+        /**
+         * Returns the history of the current run, or null if no history file has been configured.
+         */
+        static History get() {
+            String path = System.getProperty(HISTORY_PROPERTY);
+            if (path == null || path.isEmpty()) {
+                return null;
+            }
+            Path file = Path.of(path);
+            History history = instance;
+            if (history == null || !history.file.equals(file)) {
+                synchronized (History.class) {
+                    history = instance;
+                    if (history == null || !history.file.equals(file)) {
+                        history = load(file);
+                        Runtime.getRuntime().addShutdownHook(new Thread(history::save, "optivem-await-history"));
+                        instance = history;
+                    }
+                }
+            }
+            return history;
+        }
+
+        long typicalSettleNanos(String key) {
+            Long millis = measuredMillis.getOrDefault(key, settleMillis.get(key));
+            return millis != null ? TimeUnit.MILLISECONDS.toNanos(millis) : 0;
+        }
+
+        void record(String key, long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            // Smooth with the typical settle time so that a single slow wait does not dominate, while a wait that
+            // settles sooner than it used to halves the distance to its new settle time with every wait
+            measuredMillis.compute(key, (k, previous) -> {
+                Long typical = previous != null ? previous : settleMillis.get(k);
+                return typical != null ? (typical + millis) / 2 : millis;
+            });
+        }
+
+        private void save() {
+            // A directory removed before the JVM exits, e.g. a temporary one, is not created again
+            Path directory = file.toAbsolutePath().getParent();
+            if (measuredMillis.isEmpty() || !Files.isDirectory(directory)) {
+                return;
+            }
+            // File locks are held by the JVM, so the histories of earlier paths in the same JVM take turns first
+            synchronized (History.class) {
+                Path lockFile = file.resolveSibling(file.getFileName() + LOCK_SUFFIX);
+                try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    FileLock lock = channel.lock();
+                    try {
+                        merge(directory);
+                    } finally {
+                        lock.release();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to write await history: " + file, e);
+                }
+            }
+        }
+
+        /**
+         * Merges the settle times of this run into the latest history file.
+         */
+        private void merge(Path directory) throws IOException {
+            Properties properties = read(file);
+            measuredMillis.forEach((key, millis) -> properties.setProperty(key, String.valueOf(millis)));
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(temporary)) {
+                    properties.store(writer, "Typical settle time in milliseconds per channel and wait");
+                }
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private static History load(Path file) {
+            History history = new History(file);
+            read(file).forEach((key, value) -> {
+                // A malformed value is left out, so that it cannot fail the waits of the run
+                try {
+                    history.settleMillis.put((String) key, Long.parseLong(((String) value).trim()));
+                } catch (NumberFormatException e) {
+                    // Learned again by the next wait
+                }
+            });
+            return history;
+        }
+
+        private static Properties read(Path file) {
+            Properties properties = new Properties();
+            if (Files.exists(file)) {
+                try (Reader reader = Files.newBufferedReader(file)) {
+                    properties.load(reader);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read await history: " + file, e);
+                }
+            }
+            return properties;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.optivem.testing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to hand the data rows of a {@link Channel @Channel} test to the test in batches,
+ * instead of running one invocation per row.
+ * <p>
+ * Consecutive rows are grouped per channel into batches of at most {@link #size()} rows, which the test
+ * receives as a {@code List<DataRow>} parameter. Each row is checked with {@link DataRow#verify}, so that
+ * results and failures are still reported per row.
+ * <p>
+ * Example usage:
+ * <pre>
+ * &#64;TestTemplate
+ * &#64;Channel({ChannelType.API})
+ * &#64;MethodSource("orders")
+ * &#64;Batched(size = 500)
+ * void shouldImportOrders(List&lt;DataRow&gt; rows) {
+ *     var results = orderApi.importAll(rows.stream().map(row -&gt; row.get(0, String.class)).toList());
+ *     for (DataRow row : rows) {
+ *         row.verify(() -&gt; assertTrue(results.get(row.index()).isAccepted()));
+ *     }
+ * }
+ * </pre>
+ * <p>
+ * Batching does not apply to {@link ChannelMode#FAN_OUT} templates or in load mode.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Batched {
+    /**
+     * Maximum number of rows handed to a single invocation.
+     * @return the batch size
+     */
+    int size();
+}
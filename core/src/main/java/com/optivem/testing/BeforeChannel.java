@@ -0,0 +1,35 @@
+package com.optivem.testing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to mark a static method that sets up a channel (e.g. logging in, seeding data,
+ * opening a browser) before the first test invocation of that channel.
+ * <p>
+ * Unlike {@code @BeforeEach}, the method runs exactly once per channel per {@link ChannelScope scope},
+ * even when invocations are executed in parallel. {@link com.optivem.testing.contexts.ChannelContext}
+ * is set to the channel while the method runs. The method may declare a single {@code String}
+ * parameter to receive the channel name.
+ * <p>
+ * Example usage:
+ * <pre>
+ * &#64;BeforeChannel(scope = ChannelScope.RUN)
+ * static void logIn(String channel) {
+ *     // Runs once for UI and once for API, no matter how many tests use them
+ * }
+ * </pre>
+ *
+ * @see AfterChannel
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BeforeChannel {
+    /**
+     * The scope in which the setup is shared.
+     * @return the channel scope, {@link ChannelScope#CLASS} by default
+     */
+    ChannelScope scope() default ChannelScope.CLASS;
+}
@@ -18,5 +18,13 @@ public @interface Channel {
      * @return array of channel names
      */
     String[] value();
+
+    /**
+     * How the test is expanded across the channels.
+     * With {@link ChannelMode#FAN_OUT}, a single invocation runs the arrange step once
+     * and then the test body for all channels concurrently.
+     * @return the channel mode, {@link ChannelMode#PER_CHANNEL} by default
+     */
+    ChannelMode mode() default ChannelMode.PER_CHANNEL;
 }
 
@@ -0,0 +1,58 @@
+package com.optivem.testing;
+
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.util.List;
+
+/**
+ * Arguments of a provider row that only apply to some channels.
+ * <p>
+ * Rows returned from {@code @MethodSource} or {@code @ArgumentsSource} providers are combined with every channel
+ * of the test. Returning {@code ChannelArguments} instead restricts a row to the given channels, so that it is
+ * never expanded for the others.
+ * <p>
+ * Example usage:
+ * <pre>
+ * static Stream&lt;Arguments&gt; quantities() {
+ *     return Stream.of(
+ *             Arguments.of("3.5"),
+ *             ChannelArguments.of(List.of(ChannelType.API), ""));
+ * }
+ * </pre>
+ */
+public final class ChannelArguments implements Arguments {
+
+    private final List<String> channels;
+    private final Object[] arguments;
+
+    private ChannelArguments(List<String> channels, Object[] arguments) {
+        this.channels = List.copyOf(channels);
+        this.arguments = arguments;
+    }
+
+    /**
+     * Creates the arguments of a row that only applies to the given channels.
+     * @param channels the channels the row applies to
+     * @param arguments the argument values of the row
+     * @return the channel arguments
+     */
+    public static ChannelArguments of(List<String> channels, Object... arguments) {
+        if (channels.isEmpty()) {
+            throw new IllegalArgumentException("At least one channel is required, use Arguments.of for all channels");
+        }
+        return new ChannelArguments(channels, arguments);
+    }
+
+    /**
+     * Returns the channels the row applies to.
+     * @return the channel names
+     */
+    public List<String> channels() {
+        return channels;
+    }
+
+    @Override
+    public Object[] get() {
+        return arguments;
+    }
+}
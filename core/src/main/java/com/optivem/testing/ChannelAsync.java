@@ -0,0 +1,70 @@
+package com.optivem.testing;
+
+import com.optivem.testing.contexts.ChannelContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous stages of a {@link Channel @Channel} test invocation, injected as a test method parameter.
+ * <p>
+ * JUnit requires test templates to return {@code void}, so instead of returning a {@code CompletableFuture},
+ * the test starts its asynchronous operations with {@link #start} and hands the stages it depends on to
+ * {@link #await}. After the test method returns, the invocation waits for all of them, and fails with the
+ * failures of the stages that failed. Should the test method itself fail, the invocation still waits for its
+ * stages, and adds their failures to the failure of the test method as suppressed.
+ * <p>
+ * The stages of all invocations are completed by a central scheduler: at most {@code -Doptivem.async.concurrency}
+ * operations are in flight at once across the run, and their continuations run on a small shared pool of
+ * {@code -Doptivem.async.threads} threads with the {@link ChannelContext} of the thread that started them.
+ * Operations beyond the limit are queued rather than blocking, so {@code start} can also be called from a
+ * continuation. In {@link ChannelMode#FAN_OUT} mode, the bodies of all channels share the parameter, and each
+ * of their stages keeps the channel of the body that started it.
+ * <p>
+ * The thread of the invocation still waits for its stages after the test method returns, so invocations only
+ * overlap with parallel execution; within an invocation, the stages run concurrently.
+ * <p>
+ * Example usage, checking every row of a batch concurrently:
+ * <pre>
+ * &#64;TestTemplate
+ * &#64;Channel({ChannelType.API})
+ * &#64;MethodSource("skus")
+ * &#64;Batched(size = 1000)
+ * void shouldPriceEverySku(List&lt;DataRow&gt; rows, ChannelAsync async) {
+ *     for (DataRow row : rows) {
+ *         async.await(async.start(() -&gt; pricingApi.priceAsync(row.get(0, String.class)))
+ *                 .thenAccept(price -&gt; row.verify(() -&gt; assertTrue(price.isPositive()))));
+ *     }
+ * }
+ * </pre>
+ * Declare the parameter after the data parameters of the test.
+ */
+public interface ChannelAsync {
+
+    /**
+     * Starts an asynchronous operation, or queues it until the scheduler has capacity for it.
+     * The returned future completes on the shared pool, so its continuations keep the channel context.
+     * It also fails if the operation itself throws.
+     * @param operation the operation, e.g. a call to an asynchronous channel driver
+     * @param <T> the result type of the operation
+     * @return the future of the operation, which the invocation waits for
+     */
+    <T> CompletableFuture<T> start(Supplier<? extends CompletionStage<T>> operation);
+
+    /**
+     * Makes the invocation wait for a stage, e.g. the continuation that checks the result of an operation.
+     * @param stage the stage to wait for
+     * @param <T> the result type of the stage
+     * @return the stage as a future
+     */
+    <T> CompletableFuture<T> await(CompletionStage<T> stage);
+
+    /**
+     * Returns the executor of the shared pool, which runs tasks with the channel context of the calling thread.
+     * Use it for the {@code ...Async} continuations of the stages.
+     * @return the executor
+     */
+    Executor executor();
+}
@@ -0,0 +1,28 @@
+package com.optivem.testing;
+
+/**
+ * How a {@link Channel @Channel} test template is expanded into invocations.
+ */
+public enum ChannelMode {
+    /**
+     * One invocation per channel (and data row). Each invocation runs the whole test,
+     * including {@code @BeforeEach} methods, with the channel set in the channel context.
+     */
+    PER_CHANNEL,
+
+    /**
+     * One invocation per data row. The {@code @BeforeEach} methods (the arrange step) run once,
+     * then the test body runs concurrently for every channel, each on its own thread with its own
+     * channel context. The result of each channel is reported separately, and the invocation fails
+     * if any channel fails.
+     * <p>
+     * A fan-out invocation holds a concurrency slot of each of its channels and is recorded in the event
+     * journal, the invocation history and the result cache under the joined channel names, e.g. {@code UI+API}.
+     * The arrange step runs without a channel context, and the per-channel features of an invocation, i.e.
+     * {@code @ChannelTimeout} deadlines, {@code @ChannelRetry}, exported traces, {@code @Batched} and load mode,
+     * do not apply to fan-out invocations. The body of each channel still has a trace of its own, so that its
+     * drivers can send a correlation ID, but the traces are not exported.
+     * A {@link ChannelAsync} parameter is shared by the bodies, and the invocation waits for the stages of all of them.
+     */
+    FAN_OUT
+}
@@ -0,0 +1,61 @@
+package com.optivem.testing;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation to retry a failing invocation of a {@link Channel @Channel} test on a channel.
+ * <p>
+ * Only the failing channel × row invocation is retried, with its {@code @AfterEach} and {@code @BeforeEach}
+ * methods run again in between. An invocation that passes on a retry is reported as flaky. All retries of a run
+ * are drawn from a retry budget, {@code -Doptivem.retry.budget=10} by default, and optionally from a budget per
+ * channel, {@code -Doptivem.retry.budget.<channel>=N}. Once a budget is used up, failures are reported as they are,
+ * so that retries cannot hide a systemic failure.
+ * <p>
+ * The retry runs the parameterless {@code @AfterEach} and {@code @BeforeEach} methods itself, so an invocation
+ * with retries fails fast if these methods take parameters, or if the test registers extensions with before or
+ * after callbacks, since neither can be run again. {@link Batched @Batched} invocations are not retried, since
+ * their rows report their failures after the test method. A pass on a retry is never kept by the result cache.
+ * <p>
+ * Annotations on the method take precedence over those on the class, and an annotation for a specific
+ * channel over one for all channels. Without an annotation, the retries of a channel can be set for the
+ * whole run with {@code -Doptivem.retry.<channel>=2}, or for all channels with {@code -Doptivem.retry=2}.
+ * <p>
+ * Example usage:
+ * <pre>
+ * &#64;TestTemplate
+ * &#64;Channel({ChannelType.UI, ChannelType.API})
+ * &#64;ChannelRetry(channel = ChannelType.UI, value = 2)
+ * void shouldPlaceOrder() {
+ *     // Failing UI invocations are retried up to twice, API invocations are not retried
+ * }
+ * </pre>
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(ChannelRetry.Container.class)
+public @interface ChannelRetry {
+    /**
+     * The maximum number of retries of a failing invocation.
+     * @return number of retries
+     */
+    int value();
+
+    /**
+     * The channel the retries apply to.
+     * @return the channel name, or an empty string for all channels of the test
+     */
+    String channel() default "";
+
+    /**
+     * Container annotation for repeated @ChannelRetry annotations.
+     */
+    @Target({ElementType.METHOD, ElementType.TYPE})
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Container {
+        /**
+         * Container for multiple ChannelRetry annotations.
+         * @return array of ChannelRetry annotations
+         */
+        ChannelRetry[] value();
+    }
+}
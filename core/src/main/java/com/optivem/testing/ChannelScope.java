@@ -0,0 +1,19 @@
+package com.optivem.testing;
+
+/**
+ * Scope of a {@link BeforeChannel @BeforeChannel} / {@link AfterChannel @AfterChannel} hook,
+ * i.e. how long the per-channel setup is kept before it is torn down again.
+ */
+public enum ChannelScope {
+    /**
+     * The hook runs once per channel for each test class, before the first invocation of that
+     * channel in the class. The matching teardown runs after all tests of the class have finished.
+     */
+    CLASS,
+
+    /**
+     * The hook runs once per channel for the whole test run, before the first invocation of that
+     * channel in any test class that inherits the hook. The matching teardown runs at the end of the run.
+     */
+    RUN
+}
@@ -0,0 +1,69 @@
+package com.optivem.testing;
+
+import org.junit.jupiter.api.Timeout;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation to give each invocation of a {@link Channel @Channel} test a deadline on a channel.
+ * <p>
+ * Like {@link org.junit.jupiter.api.Timeout @Timeout}, the test method runs on the same thread by default, so
+ * that thread-locals set by {@code @BeforeEach} methods and extensions are kept. When the deadline expires, a
+ * watchdog interrupts the thread and the invocation fails with a timeout, so that the {@code @AfterEach} methods
+ * and channel hooks still release the resources of the channel. A test method that ignores the interrupt runs
+ * to its end before it fails. With {@code threadMode = SEPARATE_THREAD}, the test method runs on a thread of its
+ * own instead, which is abandoned if it ignores the interrupt, at the cost of its thread-locals.
+ * <p>
+ * Annotations on the method take precedence over those on the class, and an annotation for a specific
+ * channel over one for all channels. Without an annotation, the deadline of a channel can be set for the
+ * whole run with {@code -Doptivem.timeout.<channel>=PT30S}, or for all channels with {@code -Doptivem.timeout=PT30S}.
+ * The thread mode of these deadlines, and of annotations with the {@code INFERRED} mode, is set with
+ * {@code -Doptivem.timeout.threadMode=SEPARATE_THREAD}.
+ * <p>
+ * Example usage:
+ * <pre>
+ * &#64;TestTemplate
+ * &#64;Channel({ChannelType.UI, ChannelType.API})
+ * &#64;ChannelTimeout(channel = ChannelType.UI, value = "PT30S")
+ * &#64;ChannelTimeout(channel = ChannelType.API, value = "PT5S")
+ * void shouldPlaceOrder() {
+ *     // Fails after 30 seconds on UI, and after 5 seconds on API
+ * }
+ * </pre>
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(ChannelTimeout.Container.class)
+public @interface ChannelTimeout {
+    /**
+     * The deadline of a single invocation (ISO-8601 duration).
+     * @return deadline in ISO-8601 format
+     */
+    String value();
+
+    /**
+     * The channel the deadline applies to.
+     * @return the channel name, or an empty string for all channels of the test
+     */
+    String channel() default "";
+
+    /**
+     * The thread the test method runs on under the deadline.
+     * @return the thread mode, {@code INFERRED} by default, which is the same thread unless set otherwise
+     *         with {@code -Doptivem.timeout.threadMode}
+     */
+    Timeout.ThreadMode threadMode() default Timeout.ThreadMode.INFERRED;
+
+    /**
+     * Container annotation for repeated @ChannelTimeout annotations.
+     */
+    @Target({ElementType.METHOD, ElementType.TYPE})
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Container {
+        /**
+         * Container for multiple ChannelTimeout annotations.
+         * @return array of ChannelTimeout annotations
+         */
+        ChannelTimeout[] value();
+    }
+}
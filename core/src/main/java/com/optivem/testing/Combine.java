@@ -0,0 +1,55 @@
+package com.optivem.testing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.function.Predicate;
+
+/**
+ * Annotation to declare how the data sources of a {@link Channel @Channel} test template are combined.
+ * <p>
+ * Every data source on the method ({@code @DataSource}, {@code @ValueSource}, {@code @MethodSource}, ...)
+ * is a lazy stage of the data pipeline, in declaration order. Without this annotation the stages are
+ * concatenated. The combined rows are then filtered, deduplicated and limited, in that order. Rows are
+ * evaluated as a stream, so provider methods can produce large inputs without materializing them.
+ * <p>
+ * Example usage:
+ * <pre>
+ * &#64;TestTemplate
+ * &#64;Channel({ChannelType.API})
+ * &#64;ValueSource(strings = {"EUR", "USD"})
+ * &#64;MethodSource("quantities")
+ * &#64;Combine(value = CombineMode.CROSS, filter = NonZeroQuantity.class, limit = 1000)
+ * void shouldPriceOrder(String currency, int quantity) {
+ *     // Runs for every currency and quantity pair, up to 1000 pairs
+ * }
+ * </pre>
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Combine {
+    /**
+     * How the rows of the data sources are combined.
+     * @return the combine mode, {@link CombineMode#CONCAT} by default
+     */
+    CombineMode value() default CombineMode.CONCAT;
+
+    /**
+     * Predicates that the combined rows must satisfy. Each class needs a no-argument constructor.
+     * @return the filter classes
+     */
+    Class<? extends Predicate<Object[]>>[] filter() default {};
+
+    /**
+     * Whether duplicate rows are dropped. Deduplication keeps the distinct rows seen so far in memory.
+     * @return true to drop duplicate rows
+     */
+    boolean distinct() default false;
+
+    /**
+     * Maximum number of rows.
+     * @return the limit, or -1 for no limit
+     */
+    long limit() default -1;
+}
@@ -0,0 +1,22 @@
+package com.optivem.testing;
+
+/**
+ * How the data sources of a {@link Channel @Channel} test template are combined, see {@link Combine @Combine}.
+ */
+public enum CombineMode {
+    /**
+     * The rows of all sources, one source after the other.
+     */
+    CONCAT,
+
+    /**
+     * The first rows of all sources joined into one row, then the second rows, and so on,
+     * until the shortest source is exhausted.
+     */
+    ZIP,
+
+    /**
+     * Every row of the first source joined with every row of the second source, and so on.
+     */
+    CROSS
+}
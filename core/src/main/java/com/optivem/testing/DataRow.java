@@ -0,0 +1,123 @@
+package com.optivem.testing;
+
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.Arrays;
+
+/**
+ * A single data row of a {@link Batched @Batched} test invocation.
+ * <p>
+ * Assertions about a row are made with {@link #verify(Executable)}, which records a failure against the row
+ * instead of aborting the whole batch. After the invocation, every row is reported as passed or failed,
+ * and the invocation fails if any of its rows failed.
+ */
+public final class DataRow {
+
+    private final int index;
+    private final Object[] values;
+    private Throwable failure;
+
+    /**
+     * Creates a data row.
+     * @param index the index of the row in the data of the test template
+     * @param values the argument values of the row
+     */
+    public DataRow(int index, Object[] values) {
+        this.index = index;
+        this.values = values.clone();
+    }
+
+    /**
+     * Returns the index of the row in the data of the test template.
+     * @return the row index, starting at 0
+     */
+    public int index() {
+        return index;
+    }
+
+    /**
+     * Returns the argument values of the row.
+     * @return a copy of the values
+     */
+    public Object[] values() {
+        return values.clone();
+    }
+
+    /**
+     * Returns the value of a column.
+     * @param column the column index
+     * @return the value
+     */
+    public Object get(int column) {
+        return values[column];
+    }
+
+    /**
+     * Returns the value of a column converted to the given type.
+     * String values are converted to numbers, booleans and enum constants.
+     * @param column the column index
+     * @param type the target type
+     * @param <T> the target type
+     * @return the converted value
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> T get(int column, Class<T> type) {
+        Object value = values[column];
+        if (value == null || type.isInstance(value) || !(value instanceof String string)) {
+            return (T) value;
+        }
+        if (type == int.class || type == Integer.class) {
+            return (T) Integer.valueOf(string);
+        } else if (type == long.class || type == Long.class) {
+            return (T) Long.valueOf(string);
+        } else if (type == boolean.class || type == Boolean.class) {
+            return (T) Boolean.valueOf(string);
+        } else if (type == double.class || type == Double.class) {
+            return (T) Double.valueOf(string);
+        } else if (type.isEnum()) {
+            return (T) Enum.valueOf((Class<? extends Enum>) type, string);
+        }
+        throw new IllegalArgumentException("Cannot convert \"" + string + "\" to " + type.getName());
+    }
+
+    /**
+     * Runs an assertion about this row, recording its failure against the row.
+     * @param assertion the assertion
+     */
+    public void verify(Executable assertion) {
+        try {
+            assertion.execute();
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    /**
+     * Marks this row as failed.
+     * @param message the failure message
+     */
+    public void fail(String message) {
+        fail(new AssertionError(message));
+    }
+
+    private synchronized void fail(Throwable t) {
+        if (failure == null) {
+            failure = t;
+        } else {
+            failure.addSuppressed(t);
+        }
+    }
+
+    /**
+     * Returns the failure recorded against this row.
+     * @return the first failure, with later failures suppressed, or null if the row passed
+     */
+    public synchronized Throwable failure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return "row " + index + " " + Arrays.toString(values);
+    }
+}
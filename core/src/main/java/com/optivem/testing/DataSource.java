@@ -28,6 +28,17 @@ import java.lang.annotation.*;
  *     // Each annotation provides all 3 parameters
  * }
  * </pre>
+ * <p>
+ * Example with a row that only applies to some channels:
+ * <pre>
+ * &#64;TestTemplate
+ * &#64;Channel({ChannelType.UI, ChannelType.API})
+ * &#64;DataSource("3.5")
+ * &#64;DataSource(value = "", channels = {ChannelType.API})
+ * void shouldRejectOrderWithInvalidQuantity(String quantity) {
+ *     // This test will run 3 times: UI with "3.5", API with "3.5", API with ""
+ * }
+ * </pre>
  */
 @Target({ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
@@ -39,6 +50,12 @@ public @interface DataSource {
      */
     String[] value();
 
+    /**
+     * The channels this row applies to. The row is not combined with any other channel.
+     * @return array of channel names, or an empty array for all channels of the test
+     */
+    String[] channels() default {};
+
     /**
      * Container annotation for repeated @DataSource annotations.
      */
@@ -0,0 +1,54 @@
+package com.optivem.testing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to provide generated data rows to a {@link Channel @Channel} test template.
+ * <p>
+ * The rows are generated lazily while the invocations are expanded, so large counts are never held in
+ * memory. Every channel gets the same rows for the same seed. When a row fails on a channel, its value is
+ * shrunk to the smallest input found that still fails on that channel, and the failure reports the seed
+ * and the shrunk value. Shrinking re-invokes the test method directly, without the {@code @BeforeEach} and
+ * {@code @AfterEach} methods of the test class. In {@link ChannelMode#FAN_OUT} mode, each failing channel
+ * shrinks the value on its own, with its channel context.
+ * <p>
+ * Example usage:
+ * <pre>
+ * &#64;TestTemplate
+ * &#64;Channel({ChannelType.UI, ChannelType.API})
+ * &#64;GeneratedSource(generator = Quantities.class, count = 500)
+ * void shouldAcceptAnyQuantity(int quantity) {
+ *     // Runs for 500 generated quantities on each channel
+ * }
+ * </pre>
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GeneratedSource {
+    /**
+     * The generator of the values. It needs a no-argument constructor.
+     * @return the generator class
+     */
+    Class<? extends Generator<?>> generator();
+
+    /**
+     * Number of rows to generate.
+     * @return the row count
+     */
+    int count() default 100;
+
+    /**
+     * Seed of the random source, to reproduce a failing run.
+     * @return the seed, or 0 for a new seed every run
+     */
+    long seed() default 0;
+
+    /**
+     * Maximum number of candidates tried while shrinking a failing value.
+     * @return the shrink budget, or 0 to report failures unshrunk
+     */
+    int shrinks() default 100;
+}
@@ -0,0 +1,48 @@
+package com.optivem.testing;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generator of the values of a {@link GeneratedSource @GeneratedSource}.
+ * <p>
+ * Each generated value becomes an argument of a data row, the first one unless the source is joined behind other
+ * sources with {@link Combine @Combine}. When a row fails on a channel, the value is shrunk by trying the
+ * candidates of {@link #shrink} and keeping the first one that still fails, until no candidate fails or the
+ * shrink budget of the source is used up.
+ * <p>
+ * Example implementation:
+ * <pre>
+ * public class Quantities implements Generator&lt;Integer&gt; {
+ *     &#64;Override
+ *     public Integer generate(Random random) {
+ *         return random.nextInt(1_000_000);
+ *     }
+ *
+ *     &#64;Override
+ *     public Stream&lt;Integer&gt; shrink(Integer value) {
+ *         return value == 0 ? Stream.empty() : Stream.of(0, value / 2, value - 1);
+ *     }
+ * }
+ * </pre>
+ *
+ * @param <T> the type of the generated values
+ */
+public interface Generator<T> {
+
+    /**
+     * Generates a single value.
+     * @param random the random source, seeded by the {@link GeneratedSource#seed()} of the source
+     * @return the generated value
+     */
+    T generate(Random random);
+
+    /**
+     * Returns smaller candidates for a failing value, most promising first.
+     * @param value the failing value
+     * @return the candidates, none by default
+     */
+    default Stream<T> shrink(T value) {
+        return Stream.empty();
+    }
+}
@@ -37,6 +37,14 @@ import java.lang.annotation.Target;
  *   <li>Eclipse: Run Configurations → Test → Tags</li>
  *   <li>VS Code: Test Explorer should show tags</li>
  * </ul>
+ *
+ * <h2>Parallel Execution</h2>
+ *
+ * When channel invocations run in parallel, e.g. with the {@code optivem} test engine, an isolated invocation
+ * runs alone. With {@link #keys()}, it only waits for the other invocations that hold one of its keys:
+ * <pre>
+ * &#64;Isolated(value = "Deletes all orders", keys = "orders")
+ * </pre>
  */
 @Target({ElementType.TYPE, ElementType.METHOD})
 @Retention(RetentionPolicy.RUNTIME)
@@ -47,4 +55,10 @@ public @interface Isolated {
      * @return description of isolation requirement, empty string if not specified
      */
     String value() default "";
+
+    /**
+     * Optional keys of the shared resources the test needs exclusive access to.
+     * @return the isolation keys, empty to run isolated from all other tests
+     */
+    String[] keys() default {};
 }
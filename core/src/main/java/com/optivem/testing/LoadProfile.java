@@ -0,0 +1,77 @@
+package com.optivem.testing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to reuse a {@link Channel @Channel} acceptance test as a load generator.
+ * <p>
+ * The profile is only applied when load mode is enabled with {@code -Doptivem.load=true};
+ * otherwise the test runs as a normal functional test. In load mode, each channel and data row
+ * invocation repeatedly runs the test body from {@link #users()} concurrent virtual users for
+ * the given {@link #duration()}, and reports throughput and latency percentiles.
+ * The invocation fails if any of the configured service level objectives is breached.
+ * <p>
+ * Example usage:
+ * <pre>
+ * &#64;TestTemplate
+ * &#64;Channel({ChannelType.API})
+ * &#64;LoadProfile(users = 50, duration = "PT2M", rampUp = "PT30S", maxP95Millis = 300)
+ * void shouldPlaceOrder() {
+ *     // Runs once in functional runs, and for two minutes from 50 users in load runs
+ * }
+ * </pre>
+ * <p>
+ * The first virtual user runs on the test instance of the invocation. Every other user gets a test instance of
+ * its own, created with the no-argument constructor and set up and torn down with the {@code @BeforeEach} and
+ * {@code @AfterEach} methods of the class. Extensions and lifecycle methods with parameters cannot be run for these
+ * instances, so a profile with several users fails on classes with lifecycle methods that take parameters.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LoadProfile {
+    /**
+     * Number of concurrent virtual users.
+     * @return number of users
+     */
+    int users() default 1;
+
+    /**
+     * How long the load is generated, including ramp-up (ISO-8601 duration).
+     * @return duration in ISO-8601 format
+     */
+    String duration() default "PT30S";
+
+    /**
+     * How long it takes until all users have started (ISO-8601 duration).
+     * Users are started at even intervals within this time.
+     * @return ramp-up time in ISO-8601 format
+     */
+    String rampUp() default "PT0S";
+
+    /**
+     * Maximum allowed 95th percentile latency in milliseconds.
+     * @return latency limit, 0 if not checked
+     */
+    long maxP95Millis() default 0;
+
+    /**
+     * Maximum allowed 99th percentile latency in milliseconds.
+     * @return latency limit, 0 if not checked
+     */
+    long maxP99Millis() default 0;
+
+    /**
+     * Minimum required throughput in invocations per second.
+     * @return throughput limit, 0 if not checked
+     */
+    double minThroughput() default 0;
+
+    /**
+     * Maximum allowed ratio of failed invocations, between 0 and 1.
+     * @return error rate limit, 0 by default so that any failure breaks the profile
+     */
+    double maxErrorRate() default 0;
+}
@@ -0,0 +1,32 @@
+package com.optivem.testing;
+
+/**
+ * Service provider interface that identifies the build of the system under test, for the result cache.
+ * <p>
+ * The result cache is enabled with {@code -Doptivem.cache=<directory>}. An invocation that passed before
+ * is reported as a cached pass instead of being run again, as long as the bytecode of its test class,
+ * its data row, its channel and the fingerprints of the system under test are unchanged.
+ * <p>
+ * Implementations are looked up with {@link java.util.ServiceLoader}, so they have to be registered in
+ * {@code META-INF/services/com.optivem.testing.SutFingerprintProvider}.
+ * <p>
+ * Example implementation:
+ * <pre>
+ * public class DeployedVersionFingerprint implements SutFingerprintProvider {
+ *     &#64;Override
+ *     public String fingerprint(String channel) {
+ *         return HttpClient.get(baseUrl + "/version").body();
+ *     }
+ * }
+ * </pre>
+ */
+public interface SutFingerprintProvider {
+
+    /**
+     * Returns the fingerprint of the system under test as seen through the given channel,
+     * e.g. the deployed version or image digest.
+     * @param channel the channel of the invocation
+     * @return the fingerprint, or null if the build cannot be identified, in which case nothing is cached
+     */
+    String fingerprint(String channel);
+}
@@ -1,13 +1,21 @@
 package com.optivem.testing.contexts;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
 /**
  * Thread-local context holder for the current channel being tested.
  * Used by the ChannelExtension to set the channel for each test invocation,
  * and by DriverFactory to determine which driver implementation to create.
+ * <p>
+ * Each invocation also has an {@link InvocationTrace} with a correlation ID that channel drivers can attach
+ * to outgoing requests, and {@link Span spans} that time the named steps of the test.
  */
 public class ChannelContext {
 
     private static final ThreadLocal<String> channelThreadLocal = new ThreadLocal<>();
+    private static final ThreadLocal<InvocationTrace> traceThreadLocal = new ThreadLocal<>();
+    private static final ThreadLocal<Span> spanThreadLocal = new ThreadLocal<>();
 
     /**
      * Creates a new ChannelContext.
@@ -34,10 +42,162 @@ public class ChannelContext {
     }
 
     /**
-     * Clear the channel context for the current thread.
+     * Set the current channel and the trace of the invocation for the current thread.
+     * @param channel the channel name to set for the current thread
+     * @param trace the trace of the invocation
+     */
+    public static void set(String channel, InvocationTrace trace) {
+        channelThreadLocal.set(channel);
+        traceThreadLocal.set(trace);
+        spanThreadLocal.remove();
+    }
+
+    /**
+     * Get the trace of the current invocation.
+     * @return the trace, or null if no invocation is running on the current thread
+     */
+    public static InvocationTrace getTrace() {
+        return traceThreadLocal.get();
+    }
+
+    /**
+     * Get the correlation ID of the current invocation, e.g. for an {@code X-Correlation-ID} request header.
+     * @return the correlation ID, or null if no invocation is running on the current thread
+     */
+    public static String getCorrelationId() {
+        InvocationTrace trace = traceThreadLocal.get();
+        return trace != null ? trace.correlationId() : null;
+    }
+
+    /**
+     * Get the W3C trace context of the current invocation and span, for a {@code traceparent} request header.
+     * @return the header value, or null if no invocation is running on the current thread
+     */
+    public static String getTraceparent() {
+        InvocationTrace trace = traceThreadLocal.get();
+        if (trace == null) {
+            return null;
+        }
+        Span span = spanThreadLocal.get();
+        return "00-" + trace.correlationId() + "-" + (span != null ? span.spanId() : trace.rootSpanId()) + "-01";
+    }
+
+    /**
+     * Start timing a named step of the current invocation, nested in the current span of the thread.
+     * Outside an invocation, the span is recorded in a trace of its own.
+     * @param name the name of the step
+     * @return the started span, to be closed when the step ends
+     */
+    public static Span span(String name) {
+        InvocationTrace trace = traceThreadLocal.get();
+        Span span = new Span(trace != null ? trace : new InvocationTrace(), spanThreadLocal.get(), name);
+        spanThreadLocal.set(span);
+        return span;
+    }
+
+    /**
+     * Wrap a task so that it runs with the channel, trace and current span of the calling thread,
+     * e.g. when the test hands work to an executor.
+     * @param task the task to wrap
+     * @param <T> the result type of the task
+     * @return the wrapped task
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        String channel = channelThreadLocal.get();
+        InvocationTrace trace = traceThreadLocal.get();
+        Span span = spanThreadLocal.get();
+        return () -> {
+            String previousChannel = channelThreadLocal.get();
+            InvocationTrace previousTrace = traceThreadLocal.get();
+            Span previousSpan = spanThreadLocal.get();
+            restore(channel, trace, span);
+            try {
+                return task.call();
+            } finally {
+                restore(previousChannel, previousTrace, previousSpan);
+            }
+        };
+    }
+
+    /**
+     * Wrap a task so that it runs with the channel, trace and current span of the calling thread.
+     * @param task the task to wrap
+     * @return the wrapped task
+     */
+    public static Runnable wrap(Runnable task) {
+        Callable<Void> wrapped = wrap(() -> {
+            task.run();
+            return null;
+        });
+        return () -> {
+            try {
+                wrapped.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                // Unreachable, since the wrapped task is a Runnable
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * Wrap an executor so that its tasks run with the channel, trace and current span of the calling thread
+     * at the time of wrapping, whichever thread submits them later.
+     * @param executor the executor to wrap
+     * @return the wrapped executor
+     */
+    public static Executor wrap(Executor executor) {
+        String channel = channelThreadLocal.get();
+        InvocationTrace trace = traceThreadLocal.get();
+        Span span = spanThreadLocal.get();
+        return task -> executor.execute(() -> {
+            String previousChannel = channelThreadLocal.get();
+            InvocationTrace previousTrace = traceThreadLocal.get();
+            Span previousSpan = spanThreadLocal.get();
+            restore(channel, trace, span);
+            try {
+                task.run();
+            } finally {
+                restore(previousChannel, previousTrace, previousSpan);
+            }
+        });
+    }
+
+    /**
+     * Clear the channel context, including the trace and span, for the current thread.
      */
     public static void clear() {
         channelThreadLocal.remove();
+        traceThreadLocal.remove();
+        spanThreadLocal.remove();
+    }
+
+    /**
+     * Makes the parent of an ended span the current span again, if the span is the current span of the thread.
+     */
+    static void ended(Span span) {
+        if (spanThreadLocal.get() == span) {
+            if (span.parent() != null) {
+                spanThreadLocal.set(span.parent());
+            } else {
+                spanThreadLocal.remove();
+            }
+        }
+    }
+
+    private static void restore(String channel, InvocationTrace trace, Span span) {
+        set(channelThreadLocal, channel);
+        set(traceThreadLocal, trace);
+        set(spanThreadLocal, span);
+    }
+
+    private static <T> void set(ThreadLocal<T> threadLocal, T value) {
+        if (value != null) {
+            threadLocal.set(value);
+        } else {
+            threadLocal.remove();
+        }
     }
 }
 
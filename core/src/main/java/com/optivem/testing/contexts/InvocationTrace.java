@@ -0,0 +1,100 @@
+package com.optivem.testing.contexts;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Trace of a single channel invocation: its correlation ID and the spans of the steps timed inside it.
+ * <p>
+ * The correlation ID is a W3C trace ID, so that the requests a channel driver sends with
+ * {@link ChannelContext#getTraceparent()} can be found in the logs and traces of the system under test.
+ */
+public final class InvocationTrace {
+
+    private final String traceId;
+    private final String rootSpanId;
+    private final long startEpochNanos;
+    private final int attempt;
+    private final List<Span> finishedSpans = new ArrayList<>();
+
+    /**
+     * Starts the trace of an invocation with a new random correlation ID.
+     */
+    public InvocationTrace() {
+        this(1);
+    }
+
+    /**
+     * Starts the trace of an attempt of an invocation with a new random correlation ID, so that the calls of a
+     * retry can be told apart from those of the attempts before it.
+     * @param attempt the attempt, 1 for the first one
+     */
+    public InvocationTrace(int attempt) {
+        this.traceId = randomHex(16);
+        this.rootSpanId = randomHex(8);
+        this.startEpochNanos = epochNanos();
+        this.attempt = attempt;
+    }
+
+    /**
+     * Returns the correlation ID of the invocation.
+     * @return the trace ID, as 32 hex characters
+     */
+    public String correlationId() {
+        return traceId;
+    }
+
+    /**
+     * Returns the ID of the span of the invocation itself, which is the parent of its outermost spans.
+     * @return the span ID, as 16 hex characters
+     */
+    public String rootSpanId() {
+        return rootSpanId;
+    }
+
+    /**
+     * Returns the start time of the invocation.
+     * @return nanoseconds since the epoch
+     */
+    public long startEpochNanos() {
+        return startEpochNanos;
+    }
+
+    /**
+     * Returns the attempt of the invocation that this trace covers.
+     * @return 1 for the first attempt, more for a retry
+     */
+    public int attempt() {
+        return attempt;
+    }
+
+    /**
+     * Returns the spans that have ended so far, in the order they ended.
+     * @return a copy of the finished spans
+     */
+    public List<Span> finishedSpans() {
+        synchronized (finishedSpans) {
+            return new ArrayList<>(finishedSpans);
+        }
+    }
+
+    void finished(Span span) {
+        synchronized (finishedSpans) {
+            finishedSpans.add(span);
+        }
+    }
+
+    static String randomHex(int bytes) {
+        byte[] id = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(id);
+        return HexFormat.of().formatHex(id);
+    }
+
+    static long epochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+}
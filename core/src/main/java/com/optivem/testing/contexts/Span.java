@@ -0,0 +1,131 @@
+package com.optivem.testing.contexts;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timing span of a named step inside a channel invocation, started with {@link ChannelContext#span(String)}.
+ * <p>
+ * Spans are closed with try-with-resources, and nest within the spans open on the same thread:
+ * <pre>
+ * try (Span span = ChannelContext.span("place order")) {
+ *     span.setAttribute("sku", sku);
+ *     orderApi.placeOrder(sku, quantity);
+ * }
+ * </pre>
+ */
+public final class Span implements AutoCloseable {
+
+    private final InvocationTrace trace;
+    private final Span parent;
+    private final String spanId;
+    private final String name;
+    private final long startEpochNanos;
+    private final Map<String, String> attributes = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile long endEpochNanos;
+    private volatile boolean failed;
+
+    Span(InvocationTrace trace, Span parent, String name) {
+        this.trace = trace;
+        this.parent = parent;
+        this.spanId = InvocationTrace.randomHex(8);
+        this.name = name;
+        this.startEpochNanos = InvocationTrace.epochNanos();
+    }
+
+    /**
+     * Returns the ID of this span, as 16 hex characters.
+     * @return the span ID
+     */
+    public String spanId() {
+        return spanId;
+    }
+
+    /**
+     * Returns the ID of the enclosing span, or of the invocation if this span is not nested.
+     * @return the parent span ID
+     */
+    public String parentSpanId() {
+        return parent != null ? parent.spanId : trace.rootSpanId();
+    }
+
+    /**
+     * Returns the name of the step.
+     * @return the span name
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the start time of the span.
+     * @return nanoseconds since the epoch
+     */
+    public long startEpochNanos() {
+        return startEpochNanos;
+    }
+
+    /**
+     * Returns the end time of the span.
+     * @return nanoseconds since the epoch, or 0 if the span is still open
+     */
+    public long endEpochNanos() {
+        return endEpochNanos;
+    }
+
+    /**
+     * Returns the attributes of the span.
+     * @return a copy of the attributes
+     */
+    public Map<String, String> attributes() {
+        synchronized (attributes) {
+            return new LinkedHashMap<>(attributes);
+        }
+    }
+
+    /**
+     * Returns whether the step has been marked as failed.
+     * @return true if {@link #fail()} was called
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Adds an attribute to the span, e.g. the ID of the entity a SUT call created.
+     * @param key the attribute key
+     * @param value the attribute value
+     * @return this span
+     */
+    public Span setAttribute(String key, Object value) {
+        attributes.put(key, String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Marks the step as failed.
+     * @return this span
+     */
+    public Span fail() {
+        failed = true;
+        return this;
+    }
+
+    Span parent() {
+        return parent;
+    }
+
+    /**
+     * Ends the span and makes its parent the current span of the thread again.
+     */
+    @Override
+    public void close() {
+        if (endEpochNanos != 0) {
+            return;
+        }
+        endEpochNanos = InvocationTrace.epochNanos();
+        trace.finished(this);
+        ChannelContext.ended(this);
+    }
+}
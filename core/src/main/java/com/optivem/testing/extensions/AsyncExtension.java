@@ -0,0 +1,131 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.ChannelAsync;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+import org.opentest4j.MultipleFailuresError;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Extension for channel invocations with a {@link ChannelAsync} parameter.
+ * It resolves the parameter, and after the test method returns or fails, waits for the stages the test handed to it.
+ */
+class AsyncExtension implements ParameterResolver, InvocationInterceptor {
+
+    /**
+     * System property with the maximum number of asynchronous operations in flight across the run.
+     */
+    static final String CONCURRENCY_PROPERTY = "optivem.async.concurrency";
+
+    /**
+     * System property with the number of threads that complete the asynchronous stages.
+     */
+    static final String THREADS_PROPERTY = "optivem.async.threads";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(AsyncExtension.class);
+
+    private static final String ASYNC_KEY = "async";
+
+    /**
+     * Returns whether the test method takes a {@link ChannelAsync} parameter.
+     */
+    static boolean isAsync(Method testMethod) {
+        for (Class<?> parameterType : testMethod.getParameterTypes()) {
+            if (parameterType == ChannelAsync.class) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == ChannelAsync.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        Scheduler scheduler = Scheduler.get(extensionContext);
+        AsyncStages async = new AsyncStages(scheduler.executor, scheduler.limit);
+        extensionContext.getStore(NAMESPACE).put(ASYNC_KEY, async);
+        return async;
+    }
+
+    @Override
+    public void interceptTestTemplateMethod(Invocation<Void> invocation,
+                                            ReflectiveInvocationContext<Method> invocationContext,
+                                            ExtensionContext extensionContext) throws Throwable {
+        Throwable failure = null;
+        try {
+            invocation.proceed();
+        } catch (Throwable t) {
+            failure = t;
+        }
+
+        AsyncStages async = extensionContext.getStore(NAMESPACE).get(ASYNC_KEY, AsyncStages.class);
+        if (async == null) {
+            if (failure != null) {
+                throw failure;
+            }
+            return;
+        }
+
+        // The thread of the invocation blocks until the stages complete. The stages of a failed test method are
+        // waited for as well, so that they neither run on into the next invocation nor keep their place in the limit
+        List<Throwable> failures;
+        try {
+            failures = async.awaitAll();
+        } catch (InterruptedException e) {
+            if (failure != null) {
+                e.addSuppressed(failure);
+            }
+            throw e;
+        }
+
+        if (failure != null) {
+            failures.forEach(failure::addSuppressed);
+            throw failure;
+        }
+        if (failures.size() == 1) {
+            throw failures.get(0);
+        }
+        if (!failures.isEmpty()) {
+            throw new MultipleFailuresError(extensionContext.getRequiredTestMethod().getName() + " failed on "
+                    + failures.size() + " of " + async.pending().size() + " asynchronous stages", failures);
+        }
+    }
+
+    /**
+     * Central scheduler that completes the asynchronous stages of all invocations of the run.
+     */
+    private static class Scheduler implements ExtensionContext.Store.CloseableResource {
+
+        private final ExecutorService executor;
+        private final AsyncStages.Limit limit;
+
+        private Scheduler() {
+            int threads = Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+            this.executor = Executors.newFixedThreadPool(Math.max(1, threads),
+                    Thread.ofPlatform().daemon().name("optivem-async-", 0).factory());
+            this.limit = new AsyncStages.Limit(Math.max(1, Integer.getInteger(CONCURRENCY_PROPERTY, 1000)));
+        }
+
+        static Scheduler get(ExtensionContext context) {
+            return context.getRoot().getStore(NAMESPACE)
+                    .getOrComputeIfAbsent(Scheduler.class, key -> new Scheduler(), Scheduler.class);
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+        }
+    }
+}
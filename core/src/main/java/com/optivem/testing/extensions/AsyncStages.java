@@ -0,0 +1,167 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.ChannelAsync;
+import com.optivem.testing.contexts.ChannelContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * The {@link ChannelAsync} of an invocation, created by {@link AsyncExtension} on the shared pool and limit of the run.
+ */
+final class AsyncStages implements ChannelAsync {
+
+    private final Executor executor;
+    private final Limit limit;
+    private final List<CompletableFuture<?>> pending = new ArrayList<>();
+
+    AsyncStages(Executor executor, Limit limit) {
+        this.executor = executor;
+        this.limit = limit;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> start(Supplier<? extends CompletionStage<T>> operation) {
+        Executor contextExecutor = executor();
+        CompletableFuture<T> result = await(new CompletableFuture<>());
+        limit.submit(() -> launch(operation, result, contextExecutor), contextExecutor);
+        return result;
+    }
+
+    private <T> void launch(Supplier<? extends CompletionStage<T>> operation, CompletableFuture<T> result,
+                            Executor contextExecutor) {
+        if (result.isDone()) {
+            // Cancelled while queued, e.g. at the deadline of the invocation
+            limit.release();
+            return;
+        }
+        CompletionStage<T> stage;
+        try {
+            stage = operation.get();
+        } catch (RuntimeException | Error e) {
+            limit.release();
+            result.completeExceptionally(e);
+            return;
+        }
+        stage.whenComplete((value, failure) -> {
+            // Released on the thread that completes the operation, so that no thread waits for a permit
+            limit.release();
+            contextExecutor.execute(() -> {
+                if (failure != null) {
+                    result.completeExceptionally(failure);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<T> await(CompletionStage<T> stage) {
+        CompletableFuture<T> future = stage.toCompletableFuture();
+        synchronized (pending) {
+            pending.add(future);
+        }
+        return future;
+    }
+
+    @Override
+    public Executor executor() {
+        return ChannelContext.wrap(executor);
+    }
+
+    /**
+     * Waits for all stages, including those handed over while waiting, and returns the failures of those that failed.
+     * Should the wait be interrupted, e.g. at the deadline of the invocation, the stages still pending are cancelled,
+     * and queued operations are not started anymore.
+     */
+    List<Throwable> awaitAll() throws InterruptedException {
+        // Continuations may hand further stages to the invocation while it waits, so wait until none are added
+        List<Throwable> failures = new ArrayList<>();
+        int waited = 0;
+        List<CompletableFuture<?>> stages = pending();
+        try {
+            while (stages.size() > waited) {
+                for (CompletableFuture<?> stage : stages.subList(waited, stages.size())) {
+                    try {
+                        stage.get();
+                    } catch (ExecutionException e) {
+                        failures.add(e.getCause());
+                    } catch (CancellationException e) {
+                        failures.add(e);
+                    }
+                }
+                waited = stages.size();
+                stages = pending();
+            }
+        } catch (InterruptedException e) {
+            pending().forEach(stage -> stage.cancel(false));
+            throw e;
+        }
+        return failures;
+    }
+
+    /**
+     * Returns the stages the invocation waits for.
+     */
+    List<CompletableFuture<?>> pending() {
+        synchronized (pending) {
+            return new ArrayList<>(pending);
+        }
+    }
+
+    /**
+     * Limit of the operations in flight across all invocations of a run.
+     * Operations beyond the limit are queued, and started in order as operations in flight complete.
+     */
+    static final class Limit {
+
+        private final int maxInFlight;
+        private final Queue<Runnable> queued = new ArrayDeque<>();
+        private int inFlight;
+
+        Limit(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("At least one operation must be allowed in flight, but was " + maxInFlight);
+            }
+            this.maxInFlight = maxInFlight;
+        }
+
+        /**
+         * Starts the operation on the current thread if the limit allows, or queues it to be started on the executor.
+         */
+        void submit(Runnable launch, Executor executor) {
+            synchronized (this) {
+                if (inFlight >= maxInFlight) {
+                    queued.add(() -> executor.execute(launch));
+                    return;
+                }
+                inFlight++;
+            }
+            launch.run();
+        }
+
+        /**
+         * Ends an operation in flight, handing its place to the next queued operation, if any.
+         */
+        void release() {
+            Runnable next;
+            synchronized (this) {
+                next = queued.poll();
+                if (next == null) {
+                    inFlight--;
+                    return;
+                }
+            }
+            next.run();
+        }
+    }
+}
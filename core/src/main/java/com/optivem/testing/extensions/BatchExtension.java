@@ -0,0 +1,62 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.DataRow;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.opentest4j.MultipleFailuresError;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extension for {@link com.optivem.testing.Batched @Batched} invocations.
+ * It resolves the {@code List<DataRow>} parameter with the rows of the batch, and afterwards reports
+ * every row as passed or failed, failing the invocation with the failures of the failed rows.
+ */
+class BatchExtension implements ParameterResolver, AfterTestExecutionCallback {
+
+    private final List<DataRow> rows;
+
+    BatchExtension(List<DataRow> rows) {
+        this.rows = rows;
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        Type type = parameterContext.getParameter().getParameterizedType();
+        return type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() == List.class
+                && parameterized.getActualTypeArguments()[0] == DataRow.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return rows;
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        // If the invocation itself failed, no row can be reported as passed
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        List<Throwable> failures = new ArrayList<>();
+        for (DataRow row : rows) {
+            Throwable failure = row.failure();
+            context.publishReportEntry("row." + row.index(), failure == null ? "passed" : "failed: " + failure);
+            if (failure != null) {
+                failures.add(new AssertionError(row + " failed: " + failure.getMessage(), failure));
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new MultipleFailuresError(context.getRequiredTestMethod().getName() + " failed on " + failures.size()
+                    + " of " + rows.size() + " rows", failures);
+        }
+    }
+}
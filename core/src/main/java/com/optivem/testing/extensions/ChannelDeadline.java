@@ -0,0 +1,319 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.ChannelTimeout;
+import com.optivem.testing.contexts.ChannelContext;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+import org.opentest4j.TestAbortedException;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Extension that runs a channel invocation under the deadline of its channel, see {@link ChannelTimeout @ChannelTimeout}.
+ * <p>
+ * Like {@code @Timeout} of Jupiter, the test method runs on the same thread by default, so that its thread-locals
+ * are kept, and a watchdog interrupts it when the deadline expires. With {@link Timeout.ThreadMode#SEPARATE_THREAD},
+ * it runs on a thread of its own instead, which can be abandoned if it ignores the interrupt.
+ * <p>
+ * The time used by the invocations of each channel is also counted against the time budget of the channel for the
+ * whole run, set with {@code -Doptivem.budget.<channel>=PT20M}. The deadline of an invocation never exceeds the
+ * remaining budget, and once the budget is used up, the remaining invocations of the channel are aborted.
+ */
+class ChannelDeadline implements InvocationInterceptor {
+
+    /**
+     * System property with the default deadline of an invocation, optionally suffixed with {@code .<channel>}.
+     */
+    static final String TIMEOUT_PROPERTY = "optivem.timeout";
+
+    /**
+     * System property prefix of the time budget of a channel for the whole run, suffixed with {@code .<channel>}.
+     */
+    static final String BUDGET_PROPERTY = "optivem.budget";
+
+    /**
+     * System property with the thread mode of deadlines that do not declare one, {@code SAME_THREAD} by default.
+     */
+    static final String THREAD_MODE_PROPERTY = "optivem.timeout.threadMode";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(ChannelDeadline.class);
+
+    /**
+     * How long an interrupted test method is given to stop before its thread is abandoned.
+     */
+    private static final Duration INTERRUPT_GRACE = Duration.ofSeconds(1);
+
+    private final String channel;
+
+    ChannelDeadline(String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void interceptTestTemplateMethod(Invocation<Void> invocation,
+                                            ReflectiveInvocationContext<Method> invocationContext,
+                                            ExtensionContext extensionContext) throws Throwable {
+        Deadline deadline = deadlineOf(extensionContext.getRequiredTestMethod(), extensionContext.getRequiredTestClass(), channel);
+        Duration timeout = deadline != null ? deadline.timeout() : null;
+        Budgets budgets = Budgets.get(extensionContext);
+        Duration budget = budgets.budgetOf(channel);
+        if (timeout == null && budget == null) {
+            invocation.proceed();
+            return;
+        }
+
+        boolean limitedByBudget = false;
+        if (budget != null) {
+            Duration remaining = budget.minus(budgets.usedBy(channel));
+            if (remaining.isNegative() || remaining.isZero()) {
+                invocation.skip();
+                throw new TestAbortedException("Time budget " + budget + " of channel " + channel + " is used up");
+            }
+            if (timeout == null || remaining.compareTo(timeout) < 0) {
+                timeout = remaining;
+                limitedByBudget = true;
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (threadModeOf(deadline) == Timeout.ThreadMode.SEPARATE_THREAD) {
+                proceedOnSeparateThread(invocation, timeout, limitedByBudget, extensionContext);
+            } else {
+                proceedOnSameThread(invocation, timeout, limitedByBudget, extensionContext);
+            }
+        } finally {
+            budgets.add(channel, System.nanoTime() - start);
+            extensionContext.publishReportEntry("channel.time", budgets.usageOf(channel));
+        }
+    }
+
+    /**
+     * Runs the test method on the current thread, and has a watchdog interrupt it when the deadline expires.
+     * An invocation that outlives its deadline fails with a timeout, even if it ignored the interrupt and passed.
+     */
+    private void proceedOnSameThread(Invocation<Void> invocation, Duration timeout, boolean limitedByBudget,
+                                     ExtensionContext extensionContext) throws Throwable {
+        Thread testThread = Thread.currentThread();
+        Object lock = new Object();
+        boolean[] finished = {false};
+        boolean[] expired = {false};
+        ScheduledFuture<?> watchdog = Watchdog.get(extensionContext).schedule(() -> {
+            synchronized (lock) {
+                if (!finished[0]) {
+                    expired[0] = true;
+                    testThread.interrupt();
+                }
+            }
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+
+        Throwable failure = null;
+        try {
+            invocation.proceed();
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            watchdog.cancel(false);
+        }
+        synchronized (lock) {
+            finished[0] = true;
+        }
+
+        if (expired[0]) {
+            // The interrupt was meant for the test method only, not for the callbacks that follow it
+            Thread.interrupted();
+            TimeoutException timeoutException = timedOut(timeout, limitedByBudget, extensionContext);
+            if (failure != null) {
+                timeoutException.addSuppressed(failure);
+            }
+            throw timeoutException;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Runs the test method on a separate thread, and interrupts or abandons it when the deadline expires.
+     */
+    private void proceedOnSeparateThread(Invocation<Void> invocation, Duration timeout, boolean limitedByBudget,
+                               ExtensionContext extensionContext) throws Throwable {
+        Callable<Void> body = () -> {
+            try {
+                invocation.proceed();
+                return null;
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new ExecutionException(t);
+            }
+        };
+        // The thread carries on the channel and trace of the invocation
+        FutureTask<Void> task = new FutureTask<>(ChannelContext.wrap(body));
+        Thread thread = Thread.ofPlatform()
+                .daemon()
+                .name("optivem-deadline-" + channel)
+                .start(task);
+
+        try {
+            task.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof ExecutionException && cause.getCause() != null ? cause.getCause() : cause;
+        } catch (TimeoutException e) {
+            thread.interrupt();
+            if (!thread.join(INTERRUPT_GRACE)) {
+                // The thread ignores the interrupt, so it is left behind and does not hold up the lane
+                extensionContext.publishReportEntry("channel.timeout.abandoned", thread.getName());
+            }
+            throw timedOut(timeout, limitedByBudget, extensionContext);
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            throw e;
+        }
+    }
+
+    private TimeoutException timedOut(Duration timeout, boolean limitedByBudget, ExtensionContext extensionContext) {
+        Budgets.get(extensionContext).timedOut(channel);
+        return new TimeoutException(extensionContext.getRequiredTestMethod().getName() + "() timed out on channel "
+                + channel + " after " + timeout + (limitedByBudget ? " (remaining time budget of the channel)" : ""));
+    }
+
+    /**
+     * Returns the deadline of an invocation on the channel, or null if it has none.
+     */
+    static Deadline deadlineOf(Method testMethod, Class<?> testClass, String channel) {
+        ChannelTimeout annotation = timeoutOf(testMethod.getAnnotationsByType(ChannelTimeout.class), channel);
+        if (annotation == null) {
+            annotation = timeoutOf(testClass.getAnnotationsByType(ChannelTimeout.class), channel);
+        }
+        if (annotation != null) {
+            return new Deadline(Duration.parse(annotation.value()), annotation.threadMode());
+        }
+        String timeout = System.getProperty(TIMEOUT_PROPERTY + "." + channel, System.getProperty(TIMEOUT_PROPERTY));
+        return timeout != null && !timeout.isEmpty()
+                ? new Deadline(Duration.parse(timeout), Timeout.ThreadMode.INFERRED)
+                : null;
+    }
+
+    private static ChannelTimeout timeoutOf(ChannelTimeout[] annotations, String channel) {
+        ChannelTimeout forAllChannels = null;
+        for (ChannelTimeout annotation : annotations) {
+            if (annotation.channel().equalsIgnoreCase(channel)) {
+                return annotation;
+            }
+            if (annotation.channel().isEmpty()) {
+                forAllChannels = annotation;
+            }
+        }
+        return forAllChannels;
+    }
+
+    /**
+     * Returns the thread mode of the deadline, inferring it from {@code -Doptivem.timeout.threadMode} if not declared.
+     */
+    private static Timeout.ThreadMode threadModeOf(Deadline deadline) {
+        if (deadline != null && deadline.threadMode() != Timeout.ThreadMode.INFERRED) {
+            return deadline.threadMode();
+        }
+        String threadMode = System.getProperty(THREAD_MODE_PROPERTY);
+        return threadMode != null && !threadMode.isEmpty()
+                ? Timeout.ThreadMode.valueOf(threadMode.toUpperCase(Locale.ROOT))
+                : Timeout.ThreadMode.SAME_THREAD;
+    }
+
+    /**
+     * Deadline of an invocation and the thread it runs on.
+     */
+    record Deadline(Duration timeout, Timeout.ThreadMode threadMode) {
+    }
+
+    /**
+     * Scheduler of the watchdogs that interrupt the test methods running on the same thread, shared by the run.
+     */
+    private static class Watchdog implements ExtensionContext.Store.CloseableResource {
+
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                runnable -> Thread.ofPlatform().daemon().name("optivem-deadline-watchdog").unstarted(runnable));
+
+        static Watchdog get(ExtensionContext context) {
+            return context.getRoot().getStore(NAMESPACE)
+                    .getOrComputeIfAbsent(Watchdog.class, key -> new Watchdog(), Watchdog.class);
+        }
+
+        ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+            return scheduler.schedule(task, delay, unit);
+        }
+
+        @Override
+        public void close() {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Time used by each channel in the current run, against the budgets of the channels.
+     */
+    private static class Budgets {
+
+        private final Map<String, LongAdder> usedNanos = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> timeouts = new ConcurrentHashMap<>();
+
+        static Budgets get(ExtensionContext context) {
+            return context.getRoot().getStore(NAMESPACE)
+                    .getOrComputeIfAbsent(Budgets.class, key -> new Budgets(), Budgets.class);
+        }
+
+        Duration budgetOf(String channel) {
+            String budget = System.getProperty(BUDGET_PROPERTY + "." + channel);
+            return budget != null && !budget.isEmpty() ? Duration.parse(budget) : null;
+        }
+
+        Duration usedBy(String channel) {
+            LongAdder used = usedNanos.get(channel);
+            return Duration.ofNanos(used != null ? used.sum() : 0);
+        }
+
+        void add(String channel, long nanos) {
+            usedNanos.computeIfAbsent(channel, key -> new LongAdder()).add(nanos);
+        }
+
+        void timedOut(String channel) {
+            timeouts.computeIfAbsent(channel, key -> new LongAdder()).increment();
+        }
+
+        /**
+         * Describes the time used by the channel so far, and how much of its budget that is.
+         */
+        String usageOf(String channel) {
+            Duration used = usedBy(channel);
+            Duration budget = budgetOf(channel);
+            LongAdder timedOut = timeouts.get(channel);
+            StringBuilder usage = new StringBuilder(channel).append(" used ").append(used);
+            if (budget != null) {
+                usage.append(" of ").append(budget)
+                        .append(" (").append(used.toMillis() * 100 / Math.max(1, budget.toMillis())).append("%)");
+            }
+            if (timedOut != null) {
+                usage.append(", ").append(timedOut.sum()).append(" timed out");
+            }
+            return usage.toString();
+        }
+    }
+}
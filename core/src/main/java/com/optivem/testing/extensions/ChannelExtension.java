@@ -1,17 +1,34 @@
 package com.optivem.testing.extensions;
 
+import com.optivem.testing.Batched;
 import com.optivem.testing.Channel;
+import com.optivem.testing.ChannelArguments;
+import com.optivem.testing.ChannelAsync;
+import com.optivem.testing.ChannelMode;
+import com.optivem.testing.Combine;
+import com.optivem.testing.DataRow;
 import com.optivem.testing.DataSource;
+import com.optivem.testing.GeneratedSource;
+import com.optivem.testing.LoadProfile;
 import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.contexts.InvocationTrace;
 import org.junit.jupiter.api.extension.*;
 import org.junit.jupiter.params.provider.*;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * JUnit Jupiter extension that enables running tests across multiple channels.
@@ -19,8 +36,38 @@ import java.util.stream.Stream;
  * creates separate test invocations for each specified channel (e.g., UI, API).
  * <p>
  * Also supports @DataSource, @ValueSource, @MethodSource, and @ArgumentsSource to combine channel types with test data.
+ * All data sources on a method are streamed lazily and concatenated, or combined as declared with {@code @Combine}.
+ * Test methods with a {@code ChannelAsync} parameter wait for their asynchronous stages after they return.
+ * Invocations run under the deadline of their channel, see {@code @ChannelTimeout}.
+ * {@code @GeneratedSource} generates the rows lazily and shrinks the values of rows that fail.
+ * With {@code @Batched}, the data rows are handed to the test in batches instead of one invocation per row.
+ * <p>
+ * Expensive per-channel setup can be placed in static {@code @BeforeChannel} / {@code @AfterChannel} methods,
+ * which run once per channel for the test class or for the whole run instead of once per invocation.
+ * <p>
+ * When load mode is enabled with {@code -Doptivem.load=true}, templates annotated with {@code @LoadProfile}
+ * are run as load generators instead of once per invocation.
+ * <p>
+ * Test classes compiled with {@code ChannelIndexProcessor} are looked up in the compile-time channel index
+ * instead of being reflected over.
+ * <p>
+ * With {@code -Doptivem.plan=true}, templates are only expanded into a plan of invocation counts and estimated
+ * durations (see {@code -Doptivem.history}), without running them.
+ * <p>
+ * With {@code -Doptivem.impact=record|select}, the classes covered per template and channel are recorded,
+ * or only the invocations affected by the changes since the last commit are run.
+ * <p>
+ * With {@code -Doptivem.cache=<directory>}, invocations that passed against the same build of the system under
+ * test (see {@link com.optivem.testing.SutFingerprintProvider}) are reported as cached passes without running.
+ * <p>
+ * Failing invocations are retried as declared with {@code @ChannelRetry}, within the retry budgets of the run.
+ * With {@code -Doptivem.flakiness=<path>}, invocations that are flaky too often are quarantined into a
+ * non-blocking lane.
  */
-public class ChannelExtension implements TestTemplateInvocationContextProvider {
+public class ChannelExtension implements TestTemplateInvocationContextProvider, ExecutionCondition {
+
+    private static final ExtensionContext.Namespace PIPELINE_NAMESPACE =
+            ExtensionContext.Namespace.create(DataPipeline.class);
 
     /**
      * Creates a new ChannelExtension.
@@ -32,15 +79,45 @@ public class ChannelExtension implements TestTemplateInvocationContextProvider {
     @Override
     public boolean supportsTestTemplate(ExtensionContext context) {
         return context.getTestMethod()
-                .map(method -> method.isAnnotationPresent(Channel.class))
+                .map(method -> {
+                    // Prefer the compile-time index, falling back to reflection for classes that were not indexed
+                    ChannelIndex index = ChannelIndex.of(method);
+                    return index != null
+                            ? index.get(method) != null
+                            : method.isAnnotationPresent(Channel.class);
+                })
                 .orElse(false);
     }
 
+    @Override
+    public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+        // In dry-run planning only the channel templates are expanded, all other tests are skipped
+        if (ExecutionPlan.isEnabled() && context.getTestMethod().isPresent() && !supportsTestTemplate(context)) {
+            return ConditionEvaluationResult.disabled("Dry-run planning");
+        }
+        // The quarantine lane only runs the quarantined channel invocations
+        if (FlakyRetry.isQuarantineLane() && context.getTestMethod().isPresent() && !supportsTestTemplate(context)) {
+            return ConditionEvaluationResult.disabled("Not a channel invocation, runs outside the quarantine lane");
+        }
+        return ConditionEvaluationResult.enabled("Runs in this lane");
+    }
+
     @Override
     public Stream<TestTemplateInvocationContext> provideTestTemplateInvocationContexts(ExtensionContext context) {
         Method testMethod = context.getRequiredTestMethod();
-        Channel channelAnnotation = testMethod.getAnnotation(Channel.class);
-        String[] channels = channelAnnotation.value();
+        ChannelIndex index = ChannelIndex.of(testMethod);
+        ChannelIndex.IndexedTemplate indexed = index != null ? index.get(testMethod) : null;
+
+        String[] channels;
+        ChannelMode mode;
+        if (indexed != null) {
+            channels = indexed.channels();
+            mode = indexed.mode();
+        } else {
+            Channel channelAnnotation = testMethod.getAnnotation(Channel.class);
+            channels = channelAnnotation.value();
+            mode = channelAnnotation.mode();
+        }
 
         // Filter channels based on system property if set
         String channelFilter = System.getProperty("channel");
@@ -56,181 +133,323 @@ public class ChannelExtension implements TestTemplateInvocationContextProvider {
             }
         }
 
-        List<Object[]> dataRows = new ArrayList<>();
-
-        // Check if the method has @ArgumentsSource annotation
-        ArgumentsSource argumentsSourceAnnotation = testMethod.getAnnotation(ArgumentsSource.class);
-        if (argumentsSourceAnnotation != null) {
-            // Handle @ArgumentsSource - instantiate the provider class
-            Class<? extends ArgumentsProvider> providerClass = argumentsSourceAnnotation.value();
-            try {
-                ArgumentsProvider provider = providerClass.getDeclaredConstructor().newInstance();
-                provider.provideArguments(context).forEach(arg -> {
-                    Object[] arguments = arg.get();
-                    dataRows.add(arguments);
-                });
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to instantiate @ArgumentsSource provider: " + providerClass.getName(), e);
+        // Only keep the channels whose recorded coverage is affected by the changes
+        if (TestImpact.isSelecting()) {
+            TestImpact impact = TestImpact.get(context);
+            Class<?> testClass = context.getRequiredTestClass();
+            String[] unfiltered = channels;
+            channels = mode == ChannelMode.FAN_OUT
+                    ? (impact.isAffected(testClass, testMethod, InvocationKeys.fanOutChannelOf(channels)) ? channels : new String[0])
+                    : Arrays.stream(channels)
+                            .filter(channel -> impact.isAffected(testClass, testMethod, channel))
+                            .toArray(String[]::new);
+            if (channels.length == 0 && unfiltered.length > 0) {
+                return Stream.of(new DisabledInvocationContext(testMethod.getName(),
+                        "Not affected by the changes since " + impact.base()));
             }
         }
-        // Check if the method has @MethodSource annotation
-        else if (testMethod.isAnnotationPresent(MethodSource.class)) {
-            MethodSource methodSourceAnnotation = testMethod.getAnnotation(MethodSource.class);
-            // Handle @MethodSource - invoke the provider method
-            String[] methodNames = methodSourceAnnotation.value();
-            if (methodNames.length == 0) {
-                // Default: use test method name
-                methodNames = new String[]{testMethod.getName()};
-            }
 
-            for (String methodName : methodNames) {
-                try {
-                    Method providerMethod = context.getRequiredTestClass().getDeclaredMethod(methodName);
-                    providerMethod.setAccessible(true);
-                    Object result = providerMethod.invoke(null);
-
-                    if (result instanceof Stream) {
-                        ((Stream<?>) result).forEach(arg -> {
-                            if (arg instanceof org.junit.jupiter.params.provider.Arguments) {
-                                Object[] arguments = ((org.junit.jupiter.params.provider.Arguments) arg).get();
-                                dataRows.add(arguments);
-                            }
-                        });
-                    }
-                } catch (Exception e) {
-                    throw new RuntimeException("Failed to invoke @MethodSource provider: " + methodName, e);
-                }
-            }
+        DataPipeline pipeline = pipelineOf(testMethod, context, indexed);
+        // The provider streams stay open while the invocations are streamed, and are closed with the template
+        context.getStore(PIPELINE_NAMESPACE).put(DataPipeline.class, pipeline);
+        Supplier<Stream<DataPipeline.Row>> rows = pipeline.isEmpty()
+                ? null
+                : pipeline.build(indexed != null
+                        ? indexed.combination()
+                        : DataPipeline.Combination.of(testMethod.getAnnotation(Combine.class)));
+        String[] selectedChannels = channels;
+
+        // In load mode, each invocation becomes a load generator for its channel and data row
+        LoadProfile loadProfile = LoadExtension.isEnabled() && (indexed == null || indexed.loadProfiled())
+                ? testMethod.getAnnotation(LoadProfile.class)
+                : null;
+
+        // Batched templates get consecutive rows per invocation instead of a single row
+        Integer batchSize = mode != ChannelMode.FAN_OUT && loadProfile == null ? batchSizeOf(testMethod, indexed) : null;
+
+        if (ExecutionPlan.isEnabled()) {
+            return Stream.of(plan(context, testMethod, selectedChannels, mode, rows, batchSize));
         }
-        // Check if the method has @ValueSource annotation
-        else if (testMethod.isAnnotationPresent(ValueSource.class)) {
-            ValueSource valueSourceAnnotation = testMethod.getAnnotation(ValueSource.class);
-            extractValuesFromValueSource(valueSourceAnnotation, dataRows);
-        }
-        // Check if the method has @CsvSource annotation
-        else if (testMethod.isAnnotationPresent(CsvSource.class)) {
-            CsvSource csvSourceAnnotation = testMethod.getAnnotation(CsvSource.class);
-            extractValuesFromCsvSource(csvSourceAnnotation, dataRows);
-        }
-        // Check if the method has @EnumSource annotation
-        else if (testMethod.isAnnotationPresent(EnumSource.class)) {
-            EnumSource enumSourceAnnotation = testMethod.getAnnotation(EnumSource.class);
-            extractValuesFromEnumSource(enumSourceAnnotation, dataRows);
-        }
-        // Check if the method has @NullAndEmptySource annotation
-        else if (testMethod.isAnnotationPresent(NullAndEmptySource.class)) {
-            extractValuesFromNullAndEmptySource(testMethod, dataRows);
-            // Also check for @ValueSource to combine
-            if (testMethod.isAnnotationPresent(ValueSource.class)) {
-                ValueSource valueSourceAnnotation = testMethod.getAnnotation(ValueSource.class);
-                extractValuesFromValueSource(valueSourceAnnotation, dataRows);
+
+        // Load runs measure the system under test, so they are never answered from the result cache
+        ResultCache cache = ResultCache.isEnabled() && !LoadExtension.isEnabled() ? ResultCache.get(context) : null;
+
+        if (mode == ChannelMode.FAN_OUT) {
+            if (FlakyRetry.isQuarantineLane()) {
+                return Stream.of(new DisabledInvocationContext(testMethod.getName(),
+                        "Fan-out invocations are not quarantined"));
             }
+            // One invocation per data row, fanning out to all channels inside the invocation
+            if (rows == null) {
+                return Stream.of(cached(cache, context, new FanOutInvocationContext(selectedChannels, null, -1, testMethod),
+                        InvocationKeys.fanOutChannelOf(selectedChannels), null));
+            }
+            // Restricted rows only fan out to their own channels
+            int[] nextIndex = {0};
+            return orNoApplicableRows(rows.get().flatMap(row -> {
+                int rowIndex = nextIndex[0]++;
+                String[] rowChannels = Arrays.stream(selectedChannels).filter(row::appliesTo).toArray(String[]::new);
+                return rowChannels.length == 0
+                        ? Stream.empty()
+                        : Stream.of(cached(cache, context, new FanOutInvocationContext(rowChannels, row, rowIndex, testMethod),
+                                InvocationKeys.fanOutChannelOf(rowChannels), row));
+            }), testMethod, selectedChannels);
+        }
+
+        if (rows == null) {
+            // No data annotations, just run for each channel
+            return Arrays.stream(selectedChannels)
+                    .map(channel -> cached(cache, context,
+                            new ChannelInvocationContext(channel, null, -1, testMethod, loadProfile), channel, null));
+        }
+
+        if (batchSize != null) {
+            return orNoApplicableRows(DataPipeline.concatLazily(Arrays.asList(selectedChannels).iterator(),
+                    channel -> DataPipeline.batches(rows.get(), batchSize, channel)
+                            .map(batch -> cached(cache, context, new BatchInvocationContext(channel, batch, testMethod),
+                                    channel, new DataPipeline.Row(batch.stream().map(DataRow::values).toArray(), null)))),
+                    testMethod, selectedChannels);
+        }
+
+        // Combine channels with the data rows that apply to them, streaming the rows once per channel
+        return orNoApplicableRows(DataPipeline.concatLazily(Arrays.asList(selectedChannels).iterator(), channel -> {
+                    // Rows keep their index in the pipeline, like the rows of batches
+                    int[] nextIndex = {0};
+                    return rows.get().<TestTemplateInvocationContext>mapMulti((row, invocations) -> {
+                        int rowIndex = nextIndex[0]++;
+                        if (row.appliesTo(channel)) {
+                            invocations.accept(cached(cache, context,
+                                    new ChannelInvocationContext(channel, row, rowIndex, testMethod, loadProfile),
+                                    channel, row));
+                        }
+                    });
+                }),
+                testMethod, selectedChannels);
+    }
+
+    /**
+     * Returns the @Batched size of the template, or null if it is not batched.
+     */
+    private static Integer batchSizeOf(Method testMethod, ChannelIndex.IndexedTemplate indexed) {
+        Integer batchSize;
+        if (indexed != null) {
+            batchSize = indexed.batchSize();
+        } else {
+            Batched batched = testMethod.getAnnotation(Batched.class);
+            batchSize = batched != null ? batched.size() : null;
         }
-        // Check if the method has @NullSource annotation
-        else if (testMethod.isAnnotationPresent(NullSource.class)) {
-            dataRows.add(new Object[]{null});
+        if (batchSize != null && batchSize < 1) {
+            throw new IllegalStateException("@Batched size must be at least 1: " + testMethod);
         }
-        // Check if the method has @EmptySource annotation
-        else if (testMethod.isAnnotationPresent(EmptySource.class)) {
-            extractValuesFromEmptySource(testMethod, dataRows);
-        } else {
-            // Check if the method has DataSource annotations
-            DataSource.Container containerAnnotation =
-                    testMethod.getAnnotation(DataSource.Container.class);
-            DataSource singleAnnotation =
-                    testMethod.getAnnotation(DataSource.class);
-
-            if (containerAnnotation != null) {
-                // Multiple @DataSource annotations
-                for (DataSource annotation : containerAnnotation.value()) {
-                    dataRows.addAll(extractArgumentsFromAnnotation(annotation, context));
-                }
-            } else if (singleAnnotation != null) {
-                // Single @DataSource annotation
-                dataRows.addAll(extractArgumentsFromAnnotation(singleAnnotation, context));
+        return batchSize;
+    }
+
+    /**
+     * Turns every data source annotation of the method into a lazy stage of the data pipeline, in declaration order.
+     */
+    private DataPipeline pipelineOf(Method testMethod, ExtensionContext context, ChannelIndex.IndexedTemplate indexed) {
+        DataPipeline pipeline = new DataPipeline();
+
+        // Use the inline @DataSource rows recorded at compile time if available
+        if (indexed != null && indexed.rows() != null) {
+            List<DataPipeline.Row> rows = new ArrayList<>();
+            for (int i = 0; i < indexed.rows().size(); i++) {
+                rows.add(new DataPipeline.Row(indexed.rows().get(i), indexed.rowChannels().get(i)));
             }
+            pipeline.add(rows::stream);
+            return pipeline;
+        }
+        // Only sources that are resolved at runtime need the annotations themselves
+        if (indexed != null && !indexed.runtimeSources()) {
+            return pipeline;
         }
 
-        if (dataRows.isEmpty()) {
-            // No data annotations, just run for each channel
-            return Arrays.stream(channels)
-                    .map(channel -> new ChannelInvocationContext(channel, null, testMethod));
-        } else {
-            // Combine channels with data rows
-            List<TestTemplateInvocationContext> contexts = new ArrayList<>();
-            for (String channel : channels) {
-                for (Object[] dataRow : dataRows) {
-                    contexts.add(new ChannelInvocationContext(channel, dataRow, testMethod));
+        for (Annotation annotation : testMethod.getDeclaredAnnotations()) {
+            if (annotation instanceof ArgumentsSource argumentsSource) {
+                pipeline.addOnce(() -> rowsOf(argumentsSource, context));
+            } else if (annotation instanceof ArgumentsSources argumentsSources) {
+                for (ArgumentsSource argumentsSource : argumentsSources.value()) {
+                    pipeline.addOnce(() -> rowsOf(argumentsSource, context));
                 }
+            } else if (annotation instanceof MethodSource methodSource) {
+                pipeline.addOnce(() -> rowsOf(methodSource, testMethod, context));
+            } else if (annotation instanceof ValueSource valueSource) {
+                // Scalar values stay in a primitive column that is shared by the channels
+                DataColumn column = DataColumn.of(valueSource);
+                pipeline.add(column != null ? column::rows : Stream::empty);
+            } else if (annotation instanceof CsvSource csvSource) {
+                pipeline.add(() -> rowsOf(dataRows -> extractValuesFromCsvSource(csvSource, dataRows)));
+            } else if (annotation instanceof EnumSource enumSource) {
+                pipeline.add(() -> rowsOf(dataRows -> extractValuesFromEnumSource(enumSource, dataRows)));
+            } else if (annotation instanceof NullAndEmptySource) {
+                pipeline.add(() -> rowsOf(dataRows -> extractValuesFromNullAndEmptySource(testMethod, dataRows)));
+            } else if (annotation instanceof NullSource) {
+                pipeline.add(() -> Stream.of(new DataPipeline.Row(new Object[]{null}, null)));
+            } else if (annotation instanceof EmptySource) {
+                pipeline.add(() -> rowsOf(dataRows -> extractValuesFromEmptySource(testMethod, dataRows)));
+            } else if (annotation instanceof GeneratedSource generatedSource) {
+                GeneratedRows generated = new GeneratedRows(generatedSource);
+                pipeline.add(generated::rows);
+            } else if (annotation instanceof DataSource dataSource) {
+                pipeline.add(() -> Stream.of(rowOf(dataSource)));
+            } else if (annotation instanceof DataSource.Container container) {
+                pipeline.add(() -> Arrays.stream(container.value()).map(this::rowOf));
             }
-            return contexts.stream();
         }
+        return pipeline;
     }
 
     /**
-     * Extracts arguments from a single @DataSource annotation.
+     * Streams the rows of an @ArgumentsSource provider.
      */
-    private List<Object[]> extractArgumentsFromAnnotation(DataSource annotation, ExtensionContext context) {
-        List<Object[]> results = new ArrayList<>();
+    private Stream<DataPipeline.Row> rowsOf(ArgumentsSource annotation, ExtensionContext context) {
+        // Handle @ArgumentsSource - instantiate the provider class
+        Class<? extends ArgumentsProvider> providerClass = annotation.value();
+        try {
+            ArgumentsProvider provider = providerClass.getDeclaredConstructor().newInstance();
+            return provider.provideArguments(context).map(ChannelExtension::rowOf);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to instantiate @ArgumentsSource provider: " + providerClass.getName(), e);
+        }
+    }
 
-        // Use inline values
-        String[] values = annotation.value();
-        Object[] row = new Object[values.length];
-        for (int i = 0; i < values.length; i++) {
-            row[i] = values[i];
+    /**
+     * Streams the rows of the @MethodSource provider methods.
+     */
+    private Stream<DataPipeline.Row> rowsOf(MethodSource annotation, Method testMethod, ExtensionContext context) {
+        String[] methodNames = annotation.value();
+        if (methodNames.length == 0) {
+            // Default: use test method name
+            methodNames = new String[]{testMethod.getName()};
         }
-        results.add(row);
 
-        return results;
+        return DataPipeline.concatLazily(Arrays.asList(methodNames).iterator(), methodName -> {
+            try {
+                Method providerMethod = context.getRequiredTestClass().getDeclaredMethod(methodName);
+                providerMethod.setAccessible(true);
+                Object result = providerMethod.invoke(null);
+
+                if (result instanceof Stream<?> stream) {
+                    return stream
+                            .filter(org.junit.jupiter.params.provider.Arguments.class::isInstance)
+                            .map(arg -> rowOf((org.junit.jupiter.params.provider.Arguments) arg));
+                }
+                return Stream.empty();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to invoke @MethodSource provider: " + methodName, e);
+            }
+        });
     }
 
     /**
-     * Extracts arguments from a @ValueSource annotation.
-     * Supports strings, ints, longs, doubles, floats, shorts, bytes, chars, booleans, and classes.
+     * Streams the rows collected by one of the extract methods.
      */
-    private void extractValuesFromValueSource(ValueSource annotation, List<Object[]> dataRows) {
-        // Check each type of value in @ValueSource
-        if (annotation.strings().length > 0) {
-            for (String value : annotation.strings()) {
-                dataRows.add(new Object[]{value});
-            }
-        } else if (annotation.ints().length > 0) {
-            for (int value : annotation.ints()) {
-                dataRows.add(new Object[]{value});
-            }
-        } else if (annotation.longs().length > 0) {
-            for (long value : annotation.longs()) {
-                dataRows.add(new Object[]{value});
-            }
-        } else if (annotation.doubles().length > 0) {
-            for (double value : annotation.doubles()) {
-                dataRows.add(new Object[]{value});
-            }
-        } else if (annotation.floats().length > 0) {
-            for (float value : annotation.floats()) {
-                dataRows.add(new Object[]{value});
-            }
-        } else if (annotation.shorts().length > 0) {
-            for (short value : annotation.shorts()) {
-                dataRows.add(new Object[]{value});
-            }
-        } else if (annotation.bytes().length > 0) {
-            for (byte value : annotation.bytes()) {
-                dataRows.add(new Object[]{value});
-            }
-        } else if (annotation.chars().length > 0) {
-            for (char value : annotation.chars()) {
-                dataRows.add(new Object[]{value});
-            }
-        } else if (annotation.booleans().length > 0) {
-            for (boolean value : annotation.booleans()) {
-                dataRows.add(new Object[]{value});
+    private static Stream<DataPipeline.Row> rowsOf(Consumer<List<Object[]>> extractor) {
+        List<Object[]> dataRows = new ArrayList<>();
+        extractor.accept(dataRows);
+        return dataRows.stream().map(values -> new DataPipeline.Row(values, null));
+    }
+
+    private static DataPipeline.Row rowOf(org.junit.jupiter.params.provider.Arguments arguments) {
+        return new DataPipeline.Row(arguments.get(), arguments instanceof ChannelArguments channelArguments
+                ? Set.copyOf(channelArguments.channels())
+                : null);
+    }
+
+    /**
+     * Returns the invocations, or a disabled invocation if no data row applies to any of the channels.
+     */
+    private static Stream<TestTemplateInvocationContext> orNoApplicableRows(Stream<TestTemplateInvocationContext> contexts,
+                                                                            Method testMethod, String[] channels) {
+        Iterator<TestTemplateInvocationContext> iterator = contexts.iterator();
+        if (!iterator.hasNext()) {
+            contexts.close();
+            return Stream.of(new DisabledInvocationContext(testMethod.getName(),
+                    "No data rows apply to channels " + String.join(", ", channels)));
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(contexts::close);
+    }
+
+    /**
+     * Answers the invocation from the result cache if it passed before, or records it in the cache when it passes.
+     */
+    private static TestTemplateInvocationContext cached(ResultCache cache, ExtensionContext context,
+                                                        TestTemplateInvocationContext invocation,
+                                                        String channel, DataPipeline.Row row) {
+        if (cache == null) {
+            return invocation;
+        }
+        String key = cache.keyOf(context.getRequiredTestClass(), context.getRequiredTestMethod(), channel,
+                row != null ? row.values() : null);
+        return key != null
+                ? new CachedInvocationContext(invocation, key, cache.contains(key))
+                : invocation;
+    }
+
+    /**
+     * Records the invocations of a template in the dry-run plan instead of running them.
+     * Batched templates are planned with one invocation per batch of rows.
+     */
+    private TestTemplateInvocationContext plan(ExtensionContext context, Method testMethod, String[] channels,
+                                               ChannelMode mode, Supplier<Stream<DataPipeline.Row>> rows,
+                                               Integer batchSize) {
+        InvocationHistory history = InvocationHistory.get(context);
+        ExecutionPlan plan = ExecutionPlan.get(context);
+        Class<?> testClass = context.getRequiredTestClass();
+
+        String[] plannedChannels = mode == ChannelMode.FAN_OUT
+                ? new String[]{InvocationKeys.fanOutChannelOf(channels)}
+                : channels;
+        int invocations = 0;
+        for (String channel : plannedChannels) {
+            // A fan-out row is planned when it applies to any of the channels
+            String[] rowChannels = mode == ChannelMode.FAN_OUT ? channels : new String[]{channel};
+            int invocationsOfChannel = rows == null
+                    ? 1
+                    : countRows(rows.get().filter(row -> Arrays.stream(rowChannels).anyMatch(row::appliesTo)), testMethod);
+            if (batchSize != null) {
+                invocationsOfChannel = Math.ceilDiv(invocationsOfChannel, batchSize);
             }
-        } else if (annotation.classes().length > 0) {
-            for (Class<?> value : annotation.classes()) {
-                dataRows.add(new Object[]{value});
+            if (invocationsOfChannel == 0) {
+                continue;
             }
+            Long averageMillis = history != null
+                    ? history.averageMillis(InvocationKeys.keyOf(testClass, testMethod, channel))
+                    : null;
+            plan.add(testClass.getName(), InvocationKeys.signatureOf(testMethod), channel, invocationsOfChannel, averageMillis);
+            invocations += invocationsOfChannel;
+        }
+
+        return new DisabledInvocationContext(testMethod.getName(), "Planned " + invocations + " invocations");
+    }
+
+    /**
+     * Counts the planned rows, failing instead of hanging on an infinite source without a {@code @Combine} limit.
+     */
+    private static int countRows(Stream<DataPipeline.Row> rows, Method testMethod) {
+        long maxRows = Long.getLong(ExecutionPlan.MAX_ROWS_PROPERTY, ExecutionPlan.DEFAULT_MAX_ROWS);
+        long count = rows.limit(maxRows + 1).count();
+        if (count > maxRows) {
+            throw new IllegalStateException("Cannot plan more than " + maxRows + " rows per channel (-D"
+                    + ExecutionPlan.MAX_ROWS_PROPERTY + "), bound the data sources with @Combine(limit = ...): " + testMethod);
+        }
+        return (int) count;
+    }
+
+    /**
+     * Creates the row of a single @DataSource annotation.
+     */
+    private DataPipeline.Row rowOf(DataSource annotation) {
+        // Use inline values
+        String[] values = annotation.value();
+        Object[] row = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            row[i] = values[i];
         }
+        return new DataPipeline.Row(row, annotation.channels().length > 0
+                ? Set.copyOf(Arrays.asList(annotation.channels()))
+                : null);
     }
 
     /**
@@ -370,93 +589,261 @@ public class ChannelExtension implements TestTemplateInvocationContextProvider {
     private static class ChannelInvocationContext implements TestTemplateInvocationContext {
 
         private final String channel;
-        private final Object[] testData;
+        private final DataPipeline.Row testData;
+        private final int rowIndex;
         private final Method testMethod;
+        private final LoadProfile loadProfile;
 
-        public ChannelInvocationContext(String channel, Object[] testData, Method testMethod) {
+        public ChannelInvocationContext(String channel, DataPipeline.Row testData, int rowIndex, Method testMethod,
+                                        LoadProfile loadProfile) {
             this.channel = channel;
             this.testData = testData;
+            this.rowIndex = rowIndex;
             this.testMethod = testMethod;
+            this.loadProfile = loadProfile;
         }
 
         @Override
         public String getDisplayName(int invocationIndex) {
-            String methodName = testMethod.getName();
-            if (testData == null || testData.length == 0) {
-                return methodName + " [Channel: " + channel + "]";
-            } else {
-                StringBuilder sb = new StringBuilder(methodName + " [Channel: " + channel);
+            return formatDisplayName(testMethod, "Channel: " + channel, testData);
+        }
 
-                java.lang.reflect.Parameter[] parameters = testMethod.getParameters();
-                int displayCount = Math.min(parameters.length, testData.length);
+        @Override
+        public List<Extension> getAdditionalExtensions() {
+            List<Extension> extensions = new ArrayList<>();
+            extensions.add(new ChannelSetupExtension(channel, rowIndex));
+
+            // Add TestDataParameterResolver if we have test data
+            // (either from @ChannelArgumentsSource or extracted from @MethodSource)
+            if (testData != null && testData.size() > 0) {
+                extensions.add(new TestDataParameterResolver(testData));
+            }
 
-                for (int i = 0; i < displayCount; i++) {
-                    String paramName = parameters[i].getName();
-                    String paramValue = formatParameterValue(testData[i]);
-                    sb.append(", ").append(paramName).append(": ").append(paramValue);
+            if (loadProfile != null) {
+                extensions.add(new LoadExtension(loadProfile, channel));
+            } else {
+                if (testData != null && testData.generatedBy() != null) {
+                    extensions.add(testData.generatedBy().shrinker(channel, testData.generatedPosition()));
+                }
+                extensions.add(new ChannelDeadline(channel));
+                if (AsyncExtension.isAsync(testMethod)) {
+                    extensions.add(new AsyncExtension());
                 }
-                sb.append("]");
-                return sb.toString();
             }
+            // Registered last, so that retries run inside the deadline of the invocation
+            extensions.add(new FlakyRetry(channel, rowIndex, loadProfile == null && !AsyncExtension.isAsync(testMethod)));
+
+            return extensions;
         }
+    }
+
+    /**
+     * Builds the display name of an invocation from the channel label and the test data.
+     */
+    private static String formatDisplayName(Method testMethod, String channelLabel, DataPipeline.Row testData) {
+        String methodName = testMethod.getName();
+        if (testData == null || testData.size() == 0) {
+            return methodName + " [" + channelLabel + "]";
+        } else {
+            StringBuilder sb = new StringBuilder(methodName + " [" + channelLabel);
+
+            java.lang.reflect.Parameter[] parameters = testMethod.getParameters();
+            int displayCount = Math.min(parameters.length, testData.size());
 
-        /**
-         * Format a parameter value for display, making empty/whitespace strings more readable.
-         */
-        private String formatParameterValue(Object value) {
-            if (value == null) {
-                return "<null>";
+            for (int i = 0; i < displayCount; i++) {
+                String paramName = parameters[i].getName();
+                String paramValue = formatParameterValue(testData.get(i));
+                sb.append(", ").append(paramName).append(": ").append(paramValue);
             }
+            sb.append("]");
+            return sb.toString();
+        }
+    }
 
-            if (value instanceof String) {
-                String str = (String) value;
-                if (str.isEmpty()) {
-                    return "<empty>";
-                }
-                if (str.trim().isEmpty()) {
-                    return "<whitespace>";
-                }
+    /**
+     * Format a parameter value for display, making empty/whitespace strings more readable.
+     */
+    private static String formatParameterValue(Object value) {
+        if (value == null) {
+            return "<null>";
+        }
+
+        if (value instanceof String) {
+            String str = (String) value;
+            if (str.isEmpty()) {
+                return "<empty>";
+            }
+            if (str.trim().isEmpty()) {
+                return "<whitespace>";
             }
+        }
+
+        return String.valueOf(value);
+    }
+
+    /**
+     * Inner class representing a single test invocation context that runs the test body for all channels at once.
+     */
+    private static class FanOutInvocationContext implements TestTemplateInvocationContext {
+
+        private final String[] channels;
+        private final DataPipeline.Row testData;
+        private final int rowIndex;
+        private final Method testMethod;
+
+        public FanOutInvocationContext(String[] channels, DataPipeline.Row testData, int rowIndex, Method testMethod) {
+            this.channels = channels;
+            this.testData = testData;
+            this.rowIndex = rowIndex;
+            this.testMethod = testMethod;
+        }
 
-            return String.valueOf(value);
+        @Override
+        public String getDisplayName(int invocationIndex) {
+            return formatDisplayName(testMethod, "Channels: " + String.join(", ", channels), testData);
         }
 
         @Override
         public List<Extension> getAdditionalExtensions() {
             List<Extension> extensions = new ArrayList<>();
-            extensions.add(new ChannelSetupExtension(channel));
-
-            // Add TestDataParameterResolver if we have test data
-            // (either from @ChannelArgumentsSource or extracted from @MethodSource)
-            if (testData != null && testData.length > 0) {
+            // Registered first, so that the stages of all channel bodies are waited for once they have returned
+            if (AsyncExtension.isAsync(testMethod)) {
+                extensions.add(new AsyncExtension());
+            }
+            // A failing generated row is shrunk by FanOutExtension for every channel, since it runs the bodies itself
+            extensions.add(testData != null && testData.generatedBy() != null
+                    ? new FanOutExtension(channels, rowIndex, testData.generatedBy(), testData.generatedPosition())
+                    : new FanOutExtension(channels, rowIndex, null, -1));
+            if (testData != null && testData.size() > 0) {
                 extensions.add(new TestDataParameterResolver(testData));
             }
+            return extensions;
+        }
+    }
+
+    /**
+     * Inner class representing a single test invocation context for a batch of data rows on a specific channel.
+     */
+    private static class BatchInvocationContext implements TestTemplateInvocationContext {
+
+        private final String channel;
+        private final List<DataRow> rows;
+        private final Method testMethod;
+
+        public BatchInvocationContext(String channel, List<DataRow> rows, Method testMethod) {
+            this.channel = channel;
+            this.rows = rows;
+            this.testMethod = testMethod;
+        }
+
+        @Override
+        public String getDisplayName(int invocationIndex) {
+            return formatDisplayName(testMethod, "Channel: " + channel + ", rows " + rows.get(0).index()
+                    + "-" + rows.get(rows.size() - 1).index(), null);
+        }
+
+        @Override
+        public List<Extension> getAdditionalExtensions() {
+            List<Extension> extensions = new ArrayList<>();
+            extensions.add(new ChannelSetupExtension(channel, rows.get(0).index()));
+            extensions.add(new BatchExtension(rows));
+            extensions.add(new ChannelDeadline(channel));
+            if (AsyncExtension.isAsync(testMethod)) {
+                extensions.add(new AsyncExtension());
+            }
+            // Not retryable, since the rows report their failures only after the test method, outside the retry
+            extensions.add(new FlakyRetry(channel, rows.get(0).index(), false));
+            return extensions;
+        }
+    }
+
+    /**
+     * Inner class wrapping an invocation context that takes part in the result cache.
+     */
+    private static class CachedInvocationContext implements TestTemplateInvocationContext {
+
+        private final TestTemplateInvocationContext invocation;
+        private final String key;
+        private final boolean hit;
+
+        public CachedInvocationContext(TestTemplateInvocationContext invocation, String key, boolean hit) {
+            this.invocation = invocation;
+            this.key = key;
+            this.hit = hit;
+        }
+
+        @Override
+        public String getDisplayName(int invocationIndex) {
+            String displayName = invocation.getDisplayName(invocationIndex);
+            return hit ? displayName + " (cached)" : displayName;
+        }
 
+        @Override
+        public List<Extension> getAdditionalExtensions() {
+            List<Extension> extensions = new ArrayList<>();
+            if (hit) {
+                // Only the parameters are still resolved, since nothing is run against the channel
+                extensions.add(new ResultCache.CachedPass(key));
+                invocation.getAdditionalExtensions().stream()
+                        .filter(ParameterResolver.class::isInstance)
+                        .forEach(extensions::add);
+            } else {
+                extensions.addAll(invocation.getAdditionalExtensions());
+                extensions.add(new ResultCache.PassRecorder(key));
+            }
             return extensions;
         }
     }
 
     /**
-     * Extension that sets up the channel context before each test invocation.
+     * Extension that sets up the channel context before each test invocation,
+     * and runs the {@code @BeforeChannel} hooks the first time a channel is used.
      */
     private static class ChannelSetupExtension implements
             org.junit.jupiter.api.extension.BeforeEachCallback,
+            org.junit.jupiter.api.extension.BeforeTestExecutionCallback,
+            org.junit.jupiter.api.extension.AfterTestExecutionCallback,
             org.junit.jupiter.api.extension.AfterEachCallback {
 
         private final String channel;
+        private final int rowIndex;
 
-        public ChannelSetupExtension(String channel) {
+        public ChannelSetupExtension(String channel, int rowIndex) {
             this.channel = channel;
+            this.rowIndex = rowIndex;
         }
 
         @Override
-        public void beforeEach(ExtensionContext context) {
-            ChannelContext.set(channel);
+        public void beforeEach(ExtensionContext context) throws InterruptedException {
+            ChannelSlots.acquire(context, channel);
+            EventJournal.start(context, channel, rowIndex);
+            ChannelContext.set(channel, new InvocationTrace());
+            ChannelLifecycle.start(channel, context);
+            InvocationHistory.start(context);
+            TestImpact.start(context);
         }
 
         @Override
         public void afterEach(ExtensionContext context) {
-            ChannelContext.clear();
+            try {
+                TestImpact.finish(context, channel);
+                InvocationHistory.finish(context, channel);
+                TraceExporter.finish(context, channel, FlakyRetry.traceOf(context));
+                ChannelContext.clear();
+                EventJournal.finish(context);
+            } finally {
+                ChannelSlots.release(context);
+            }
+        }
+
+        @Override
+        public void beforeTestExecution(ExtensionContext context) {
+            EventJournal.bodyStarted(context);
+        }
+
+        @Override
+        public void afterTestExecution(ExtensionContext context) {
+            EventJournal.bodyFinished(context);
         }
     }
 
@@ -465,9 +852,9 @@ public class ChannelExtension implements TestTemplateInvocationContextProvider {
      */
     private static class TestDataParameterResolver implements ParameterResolver {
 
-        private final Object[] testData;
+        private final DataPipeline.Row testData;
 
-        public TestDataParameterResolver(Object[] testData) {
+        public TestDataParameterResolver(DataPipeline.Row testData) {
             this.testData = testData;
         }
 
@@ -475,16 +862,22 @@ public class ChannelExtension implements TestTemplateInvocationContextProvider {
         public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
             // Support parameters that are not injected by other means (like @BeforeEach dependencies)
             int index = parameterContext.getIndex();
-            return index < testData.length;
+            return index < testData.size() && parameterContext.getParameter().getType() != ChannelAsync.class;
         }
 
         @Override
         public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
             int index = parameterContext.getIndex();
-            if (index < testData.length) {
-                Object value = testData[index];
+            if (index < testData.size()) {
                 Class<?> targetType = parameterContext.getParameter().getType();
 
+                // Column values are known to fit without inspecting the boxed value
+                if (testData.isAssignableTo(index, targetType)) {
+                    return testData.get(index);
+                }
+
+                Object value = testData.get(index);
+
                 // If value is already the correct type (from provider), return it directly
                 if (value != null && targetType.isAssignableFrom(value.getClass())) {
                     return value;
@@ -0,0 +1,177 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.ChannelMode;
+import com.optivem.testing.CombineMode;
+import com.optivem.testing.processing.ChannelIndexProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Runtime view of the index generated by {@link ChannelIndexProcessor}.
+ * <p>
+ * The index files on the classpath are loaded and parsed once per class loader. Classes that were not compiled
+ * with the processor are not indexed, in which case ChannelExtension falls back to reflection.
+ */
+class ChannelIndex {
+
+    private static final Map<ClassLoader, Map<String, ChannelIndex>> LOADED =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final ClassValue<ChannelIndex> BY_CLASS = new ClassValue<>() {
+        @Override
+        protected ChannelIndex computeValue(Class<?> type) {
+            return load(type.getClassLoader()).get(type.getName());
+        }
+    };
+
+    private final Map<String, IndexedTemplate> templates;
+
+    private ChannelIndex(Map<String, IndexedTemplate> templates) {
+        this.templates = templates;
+    }
+
+    /**
+     * Returns the index of the class declaring the given method, or null if that class was not indexed.
+     */
+    static ChannelIndex of(Method method) {
+        return BY_CLASS.get(method.getDeclaringClass());
+    }
+
+    /**
+     * Returns the indexed template for the given method, or null if the method is not a channel template.
+     */
+    IndexedTemplate get(Method method) {
+        // The processor records the signatures in the format of the invocation history keys
+        return templates.get(InvocationKeys.signatureOf(method));
+    }
+
+    private static Map<String, ChannelIndex> load(ClassLoader classLoader) {
+        ClassLoader loader = classLoader != null ? classLoader : ClassLoader.getSystemClassLoader();
+        synchronized (LOADED) {
+            return LOADED.computeIfAbsent(loader, key -> {
+                Properties properties = new Properties();
+                try {
+                    Enumeration<URL> resources = key.getResources(ChannelIndexProcessor.INDEX_RESOURCE);
+                    while (resources.hasMoreElements()) {
+                        try (InputStream input = resources.nextElement().openStream()) {
+                            properties.load(input);
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to load channel index", e);
+                }
+                return parse(properties, key);
+            });
+        }
+    }
+
+    /**
+     * Parses the templates of all indexed classes, keyed by class name and then by method signature.
+     */
+    static Map<String, ChannelIndex> parse(Properties properties, ClassLoader loader) {
+        Map<String, Map<String, IndexedTemplate>> templatesByClass = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.endsWith(".indexed") && Boolean.parseBoolean(properties.getProperty(name))) {
+                templatesByClass.computeIfAbsent(name.substring(0, name.length() - ".indexed".length()), key -> new HashMap<>());
+            }
+        }
+        for (String name : properties.stringPropertyNames()) {
+            int hash = name.indexOf('#');
+            if (hash > 0 && name.endsWith(".channels") && name.indexOf(')', hash) == name.length() - ".channels".length() - 1) {
+                String key = name.substring(0, name.length() - ".channels".length());
+                Map<String, IndexedTemplate> templates = templatesByClass.get(name.substring(0, hash));
+                if (templates != null) {
+                    templates.put(key.substring(hash + 1), templateOf(properties, key, loader));
+                }
+            }
+        }
+
+        Map<String, ChannelIndex> indexes = new HashMap<>();
+        templatesByClass.forEach((className, templates) -> indexes.put(className, new ChannelIndex(Map.copyOf(templates))));
+        return indexes;
+    }
+
+    private static IndexedTemplate templateOf(Properties properties, String key, ClassLoader loader) {
+        String channels = properties.getProperty(key + ".channels");
+
+        List<Object[]> rows = null;
+        List<Set<String>> rowChannels = null;
+        String rowCount = properties.getProperty(key + ".rows");
+        if (rowCount != null) {
+            rows = new ArrayList<>();
+            rowChannels = new ArrayList<>();
+            for (int i = 0; i < Integer.parseInt(rowCount); i++) {
+                Object[] row = new Object[Integer.parseInt(properties.getProperty(key + ".row." + i))];
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = properties.getProperty(key + ".row." + i + "." + j);
+                }
+                rows.add(row);
+                String channelsOfRow = properties.getProperty(key + ".row." + i + ".channels");
+                rowChannels.add(channelsOfRow != null ? Set.copyOf(Arrays.asList(channelsOfRow.split(","))) : null);
+            }
+        }
+
+        String batchSize = properties.getProperty(key + ".batched");
+        return new IndexedTemplate(
+                channels.isEmpty() ? new String[0] : channels.split(","),
+                ChannelMode.valueOf(properties.getProperty(key + ".mode", ChannelMode.PER_CHANNEL.name())),
+                rows,
+                rowChannels,
+                Boolean.parseBoolean(properties.getProperty(key + ".sources")),
+                combinationOf(properties, key, loader),
+                batchSize != null ? Integer.valueOf(batchSize) : null,
+                Boolean.parseBoolean(properties.getProperty(key + ".load")));
+    }
+
+    private static DataPipeline.Combination combinationOf(Properties properties, String key, ClassLoader loader) {
+        String mode = properties.getProperty(key + ".combine");
+        if (mode == null) {
+            return null;
+        }
+        List<Class<?>> filters = new ArrayList<>();
+        String filterNames = properties.getProperty(key + ".combine.filter", "");
+        for (String filterName : filterNames.isEmpty() ? new String[0] : filterNames.split(",")) {
+            try {
+                filters.add(Class.forName(filterName, false, loader));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Failed to load @Combine filter of " + key + ": " + filterName, e);
+            }
+        }
+        return new DataPipeline.Combination(
+                CombineMode.valueOf(mode),
+                List.copyOf(filters),
+                Boolean.parseBoolean(properties.getProperty(key + ".combine.distinct")),
+                Long.parseLong(properties.getProperty(key + ".combine.limit", "-1")));
+    }
+
+    /**
+     * A channel test template as recorded at compile time.
+     *
+     * @param channels the channels of the {@code @Channel} annotation
+     * @param mode the channel mode
+     * @param rows the inline {@code @DataSource} rows, or null if the data has to be resolved at runtime
+     * @param rowChannels the channels each row is restricted to, with null for rows that apply to all channels
+     * @param runtimeSources whether the template has data sources that are resolved at runtime
+     * @param combination the declared {@code @Combine}, or null if the stages are concatenated
+     * @param batchSize the {@code @Batched} size, or null if the template is not batched
+     * @param loadProfiled whether the template declares a {@code @LoadProfile}
+     */
+    record IndexedTemplate(String[] channels, ChannelMode mode, List<Object[]> rows, List<Set<String>> rowChannels,
+                           boolean runtimeSources, DataPipeline.Combination combination, Integer batchSize,
+                           boolean loadProfiled) {
+    }
+}
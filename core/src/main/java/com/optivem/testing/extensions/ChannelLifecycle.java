@@ -0,0 +1,262 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.AfterChannel;
+import com.optivem.testing.BeforeChannel;
+import com.optivem.testing.ChannelScope;
+import com.optivem.testing.contexts.ChannelContext;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Runs {@link BeforeChannel @BeforeChannel} methods once per channel and scope, and registers
+ * the matching {@link AfterChannel @AfterChannel} methods to run when the scope is closed.
+ * <p>
+ * Each started channel is kept as a closeable resource in the JUnit store of the scope
+ * (the test class context or the root context), so JUnit guarantees that the setup runs
+ * only once even under parallel execution, and that the teardown runs when the scope ends.
+ * Should a setup fail, the teardowns declared by the classes whose setups already ran are run right away,
+ * since no channel is kept to tear down later. All teardowns run even when some of them fail.
+ * <p>
+ * In watch mode ({@code -Doptivem.watch=true}) run-scoped channels are instead kept warm across the
+ * runs of the same JVM, and torn down when the JVM exits. A channel stays warm as long as the class declaring
+ * its hooks is not reloaded. Once the watcher reloads that class, the channel is torn down with the hooks of the
+ * previous version of the class and set up again with those of the new one, whose static state starts empty.
+ */
+class ChannelLifecycle implements ExtensionContext.Store.CloseableResource {
+
+    /**
+     * System property set by the watch mode to keep run-scoped channels alive across runs.
+     */
+    static final String WATCH_PROPERTY = "optivem.watch";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(ChannelLifecycle.class);
+
+    private static final Map<String, ChannelLifecycle> WARM_CHANNELS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean WARM_SHUTDOWN_HOOK = new AtomicBoolean();
+
+    private static final ClassValue<List<Method>> DECLARED_HOOKS = new ClassValue<>() {
+        @Override
+        protected List<Method> computeValue(Class<?> type) {
+            List<Method> hooks = new ArrayList<>();
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.isSynthetic()
+                        || !(method.isAnnotationPresent(BeforeChannel.class) || method.isAnnotationPresent(AfterChannel.class))) {
+                    continue;
+                }
+                validate(method);
+                method.setAccessible(true);
+                hooks.add(method);
+            }
+            return List.copyOf(hooks);
+        }
+    };
+
+    private final Class<?> owner;
+    private final String channel;
+    private final List<Method> afterMethods;
+
+    private ChannelLifecycle(Class<?> owner, String channel, List<Method> afterMethods) {
+        this.owner = owner;
+        this.channel = channel;
+        this.afterMethods = afterMethods;
+    }
+
+    /**
+     * Makes sure the given channel has been set up for the test class of the context and for the run.
+     * Must be called with {@link ChannelContext} already set to the channel.
+     */
+    static void start(String channel, ExtensionContext context) {
+        List<Class<?>> hierarchy = hierarchyOf(context.getRequiredTestClass());
+
+        // Run-scoped hooks are shared by every test class inheriting them, so they are keyed by declaring class
+        for (Class<?> type : hierarchy) {
+            if (Boolean.getBoolean(WATCH_PROPERTY)) {
+                startWarm(type, channel);
+            } else {
+                List<Method> beforeMethods = hooks(List.of(type), BeforeChannel.class, BeforeChannel::scope, ChannelScope.RUN);
+                List<Method> afterMethods = hooks(List.of(type), AfterChannel.class, AfterChannel::scope, ChannelScope.RUN);
+                start(context.getRoot(), new Key(ChannelScope.RUN, type, channel), beforeMethods, afterMethods);
+            }
+        }
+
+        List<Method> beforeMethods = hooks(hierarchy, BeforeChannel.class, BeforeChannel::scope, ChannelScope.CLASS);
+        List<Method> afterMethods = hooks(hierarchy, AfterChannel.class, AfterChannel::scope, ChannelScope.CLASS);
+        start(classContextOf(context), new Key(ChannelScope.CLASS, context.getRequiredTestClass(), channel),
+                beforeMethods, afterMethods);
+    }
+
+    private static void start(ExtensionContext scopeContext, Key key,
+                              List<Method> beforeMethods, List<Method> afterMethods) {
+        if (beforeMethods.isEmpty() && afterMethods.isEmpty()) {
+            return;
+        }
+        scopeContext.getStore(NAMESPACE).getOrComputeIfAbsent(key,
+                k -> open(k.owner(), k.channel(), beforeMethods, afterMethods), ChannelLifecycle.class);
+    }
+
+    /**
+     * Starts a run-scoped channel that outlives the current run. Warm channels are keyed by class name, and
+     * reused as long as the class with that name is the same. A reloaded class gets a channel of its own, after the
+     * channel of its previous version has been torn down, so that no hooks of a discarded class loader are kept.
+     */
+    static void startWarm(Class<?> owner, String channel) {
+        List<Method> beforeMethods = hooks(List.of(owner), BeforeChannel.class, BeforeChannel::scope, ChannelScope.RUN);
+        List<Method> afterMethods = hooks(List.of(owner), AfterChannel.class, AfterChannel::scope, ChannelScope.RUN);
+        if (beforeMethods.isEmpty() && afterMethods.isEmpty()) {
+            return;
+        }
+        if (WARM_SHUTDOWN_HOOK.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> WARM_CHANNELS.values().forEach(ChannelLifecycle::close)));
+        }
+        WARM_CHANNELS.compute(owner.getName() + "[" + channel + "]", (key, warm) -> {
+            if (warm != null && warm.owner == owner) {
+                return warm;
+            }
+            if (warm != null) {
+                warm.close();
+            }
+            return open(owner, channel, beforeMethods, afterMethods);
+        });
+    }
+
+    private static ChannelLifecycle open(Class<?> owner, String channel,
+                                         List<Method> beforeMethods, List<Method> afterMethods) {
+        List<Method> reversed = new ArrayList<>(afterMethods);
+        Collections.reverse(reversed);
+        Set<Class<?>> setUp = new HashSet<>();
+        for (Method method : beforeMethods) {
+            try {
+                invoke(method, channel);
+            } catch (RuntimeException e) {
+                // No lifecycle is kept for a failed setup, so whatever the completed setups started is torn down now
+                RuntimeException teardownFailure = tearDown(channel,
+                        reversed.stream().filter(after -> setUp.contains(after.getDeclaringClass())).toList());
+                if (teardownFailure != null) {
+                    e.addSuppressed(teardownFailure);
+                }
+                throw e;
+            }
+            setUp.add(method.getDeclaringClass());
+        }
+        return new ChannelLifecycle(owner, channel, reversed);
+    }
+
+    @Override
+    public void close() {
+        String previousChannel = ChannelContext.get();
+        ChannelContext.set(channel);
+        try {
+            RuntimeException failure = tearDown(channel, afterMethods);
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            if (previousChannel != null) {
+                ChannelContext.set(previousChannel);
+            } else {
+                ChannelContext.clear();
+            }
+        }
+    }
+
+    /**
+     * Runs all given teardowns, even when some of them fail, and returns the first failure with the others
+     * suppressed, or null if all of them succeeded.
+     */
+    private static RuntimeException tearDown(String channel, List<Method> afterMethods) {
+        RuntimeException failure = null;
+        for (Method method : afterMethods) {
+            try {
+                invoke(method, channel);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        return failure;
+    }
+
+    /**
+     * Collects the hooks of the given scope, superclass methods first.
+     */
+    private static <A extends Annotation> List<Method> hooks(List<Class<?>> hierarchy, Class<A> annotationType,
+                                                              Function<A, ChannelScope> scopeOf, ChannelScope scope) {
+        List<Method> result = new ArrayList<>();
+        for (Class<?> type : hierarchy) {
+            for (Method method : DECLARED_HOOKS.get(type)) {
+                A annotation = method.getAnnotation(annotationType);
+                if (annotation != null && scopeOf.apply(annotation) == scope) {
+                    result.add(method);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the class hierarchy of the test class, from the top-most superclass down to the test class.
+     */
+    private static List<Class<?>> hierarchyOf(Class<?> testClass) {
+        List<Class<?>> hierarchy = new ArrayList<>();
+        for (Class<?> type = testClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            hierarchy.add(0, type);
+        }
+        return hierarchy;
+    }
+
+    /**
+     * Walks up from the invocation context to the context of the test class.
+     */
+    private static ExtensionContext classContextOf(ExtensionContext context) {
+        ExtensionContext current = context;
+        while (current.getTestMethod().isPresent() && current.getParent().isPresent()) {
+            current = current.getParent().get();
+        }
+        return current;
+    }
+
+    private static void validate(Method method) {
+        if (!Modifier.isStatic(method.getModifiers())) {
+            throw new IllegalStateException("@BeforeChannel/@AfterChannel method must be static: " + method);
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length > 1 || (parameterTypes.length == 1 && parameterTypes[0] != String.class)) {
+            throw new IllegalStateException(
+                    "@BeforeChannel/@AfterChannel method must declare no parameters or a single String channel parameter: " + method);
+        }
+    }
+
+    private static void invoke(Method method, String channel) {
+        try {
+            if (method.getParameterCount() == 1) {
+                method.invoke(null, channel);
+            } else {
+                method.invoke(null);
+            }
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Channel hook " + method.getName() + " failed for channel " + channel, e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to invoke channel hook: " + method.getName(), e);
+        }
+    }
+
+    private record Key(ChannelScope scope, Class<?> owner, String channel) {
+    }
+}
@@ -0,0 +1,192 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.Isolated;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Admission of channel invocations that run in parallel, e.g. on the work-stealing pool of the {@code optivem} engine.
+ * <p>
+ * Invocations of a channel wait for a slot while {@code -Doptivem.concurrency.<channel>} of them are already running,
+ * so a handful of browsers or a rate-limited API are never overloaded while other channels use the remaining threads.
+ * {@link Isolated @Isolated} invocations with keys wait for the running invocations that hold one of their keys, and
+ * {@code @Isolated} invocations without keys run alone. Waiting threads of a fork-join pool are compensated, so the
+ * pool keeps running the invocations that are admitted. Each compensation adds a thread to the pool, so at most
+ * {@code optivem.concurrency.compensation} waiting threads (one per CPU by default) are compensated at once, and
+ * further invocations wait on their thread.
+ */
+class ChannelSlots {
+
+    /**
+     * System property prefix of the maximum number of concurrent invocations of a channel, suffixed with {@code .<channel>}.
+     */
+    static final String CONCURRENCY_PROPERTY = "optivem.concurrency";
+
+    /**
+     * Configuration parameter with the maximum number of waiting threads that are compensated at once.
+     */
+    static final String COMPENSATION_PARAMETER = "optivem.concurrency.compensation";
+
+    private static final String PARALLEL_PARAMETER = "junit.jupiter.execution.parallel.enabled";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(ChannelSlots.class);
+
+    // Fair, so that an isolated invocation is not starved by the invocations admitted after it
+    private final ReentrantReadWriteLock isolation = new ReentrantReadWriteLock(true);
+    private final Map<String, Lock> keys = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger compensated = new AtomicInteger();
+    private final int maxCompensated;
+
+    private ChannelSlots(int maxCompensated) {
+        this.maxCompensated = maxCompensated;
+    }
+
+    /**
+     * Waits until the invocation may run on its channels, if invocations run in parallel.
+     * Fan-out invocations hold a slot of each of their channels.
+     */
+    static void acquire(ExtensionContext context, String... channels) throws InterruptedException {
+        boolean parallel = context.getConfigurationParameter(PARALLEL_PARAMETER).map(Boolean::parseBoolean).orElse(false);
+        if (!parallel) {
+            return;
+        }
+        ChannelSlots slots = context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(ChannelSlots.class, key -> new ChannelSlots(context
+                        .getConfigurationParameter(COMPENSATION_PARAMETER).map(value -> Integer.parseInt(value.trim()))
+                        .orElse(Runtime.getRuntime().availableProcessors())), ChannelSlots.class);
+
+        Isolated isolated = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), Isolated.class)
+                .or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), Isolated.class))
+                .orElse(null);
+        List<Lock> held = new ArrayList<>();
+        List<Semaphore> permits = new ArrayList<>();
+        try {
+            // Always in the same order, so that invocations never wait for each other in a cycle
+            boolean exclusive = isolated != null && isolated.keys().length == 0;
+            held.add(slots.block(exclusive ? slots.isolation.writeLock() : slots.isolation.readLock()));
+            if (isolated != null) {
+                for (String key : Arrays.stream(isolated.keys()).sorted().distinct().toList()) {
+                    held.add(slots.block(slots.keys.computeIfAbsent(key, k -> new ReentrantLock(true))));
+                }
+            }
+            for (String channel : Arrays.stream(channels).sorted().distinct().toList()) {
+                Semaphore channelPermits = slots.permitsOf(channel);
+                if (channelPermits != null) {
+                    slots.block(channelPermits);
+                    permits.add(channelPermits);
+                }
+            }
+            context.getStore(NAMESPACE).put(Held.class, new Held(held, permits));
+        } catch (InterruptedException | RuntimeException e) {
+            new Held(held, permits).release();
+            throw e;
+        }
+    }
+
+    /**
+     * Lets the next invocations run, after the invocation admitted with {@link #acquire} has ended.
+     */
+    static void release(ExtensionContext context) {
+        Held held = context.getStore(NAMESPACE).remove(Held.class, Held.class);
+        if (held != null) {
+            held.release();
+        }
+    }
+
+    private Semaphore permitsOf(String channel) {
+        String concurrency = System.getProperty(CONCURRENCY_PROPERTY + "." + channel);
+        if (concurrency == null || concurrency.isEmpty()) {
+            return null;
+        }
+        return channels.computeIfAbsent(channel, key -> new Semaphore(Math.max(1, Integer.parseInt(concurrency.trim())), true));
+    }
+
+    private Lock block(Lock lock) throws InterruptedException {
+        await(new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+                lock.lockInterruptibly();
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                // Unlike tryLock(), a timed tryLock respects the fair order of the waiting invocations
+                try {
+                    return lock.tryLock(0, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        });
+        return lock;
+    }
+
+    private void block(Semaphore permits) throws InterruptedException {
+        await(new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+                permits.acquire();
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                try {
+                    return permits.tryAcquire(0, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits through the fork-join pool, so that it compensates the waiting thread, unless too many threads are
+     * compensated already. Then the thread waits without compensation, and the pool runs with fewer threads.
+     */
+    private void await(ForkJoinPool.ManagedBlocker blocker) throws InterruptedException {
+        if (compensated.incrementAndGet() <= maxCompensated) {
+            try {
+                ForkJoinPool.managedBlock(blocker);
+                return;
+            } finally {
+                compensated.decrementAndGet();
+            }
+        }
+        compensated.decrementAndGet();
+        if (!blocker.isReleasable()) {
+            blocker.block();
+        }
+    }
+
+    /**
+     * Locks and channel slots held by a running invocation.
+     */
+    private record Held(List<Lock> locks, List<Semaphore> permits) {
+
+        void release() {
+            permits.forEach(Semaphore::release);
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+}
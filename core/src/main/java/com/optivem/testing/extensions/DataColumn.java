@@ -0,0 +1,141 @@
+package com.optivem.testing.extensions;
+
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.invoke.MethodType;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Single column of data rows, kept in a primitive array where the values are primitives.
+ * <p>
+ * The rows of a column are flyweight {@link DataPipeline.Row} views holding the column and an index, so
+ * expanding a {@code @ValueSource} allocates neither an argument array nor a boxed value per row. A value
+ * is only boxed when JUnit resolves the parameter, or when the row has to be materialized, e.g. for the
+ * result cache or a {@code @Combine} filter.
+ */
+abstract class DataColumn {
+
+    /**
+     * Returns the column of the values declared by a @ValueSource annotation, or null if it declares none.
+     */
+    static DataColumn of(ValueSource annotation) {
+        if (annotation.strings().length > 0) {
+            return new ObjectColumn(annotation.strings());
+        } else if (annotation.ints().length > 0) {
+            int[] values = annotation.ints();
+            return new DataColumn(int.class, values.length) {
+                @Override
+                Object get(int index) {
+                    return values[index];
+                }
+            };
+        } else if (annotation.longs().length > 0) {
+            long[] values = annotation.longs();
+            return new DataColumn(long.class, values.length) {
+                @Override
+                Object get(int index) {
+                    return values[index];
+                }
+            };
+        } else if (annotation.doubles().length > 0) {
+            double[] values = annotation.doubles();
+            return new DataColumn(double.class, values.length) {
+                @Override
+                Object get(int index) {
+                    return values[index];
+                }
+            };
+        } else if (annotation.floats().length > 0) {
+            float[] values = annotation.floats();
+            return new DataColumn(float.class, values.length) {
+                @Override
+                Object get(int index) {
+                    return values[index];
+                }
+            };
+        } else if (annotation.shorts().length > 0) {
+            short[] values = annotation.shorts();
+            return new DataColumn(short.class, values.length) {
+                @Override
+                Object get(int index) {
+                    return values[index];
+                }
+            };
+        } else if (annotation.bytes().length > 0) {
+            byte[] values = annotation.bytes();
+            return new DataColumn(byte.class, values.length) {
+                @Override
+                Object get(int index) {
+                    return values[index];
+                }
+            };
+        } else if (annotation.chars().length > 0) {
+            char[] values = annotation.chars();
+            return new DataColumn(char.class, values.length) {
+                @Override
+                Object get(int index) {
+                    return values[index];
+                }
+            };
+        } else if (annotation.booleans().length > 0) {
+            boolean[] values = annotation.booleans();
+            return new DataColumn(boolean.class, values.length) {
+                @Override
+                Object get(int index) {
+                    return values[index];
+                }
+            };
+        } else if (annotation.classes().length > 0) {
+            return new ObjectColumn(annotation.classes());
+        }
+        return null;
+    }
+
+    private final Class<?> type;
+    private final Class<?> boxedType;
+    private final int size;
+
+    private DataColumn(Class<?> type, int size) {
+        this.type = type;
+        this.boxedType = MethodType.methodType(type).wrap().returnType();
+        this.size = size;
+    }
+
+    /**
+     * Returns the value at the given row, boxed if the column is primitive.
+     */
+    abstract Object get(int index);
+
+    /**
+     * Returns whether the values of the column can be passed to a parameter of the given type without conversion.
+     */
+    boolean isAssignableTo(Class<?> targetType) {
+        return targetType == type || targetType.isAssignableFrom(boxedType);
+    }
+
+    /**
+     * Streams a flyweight row view for every value of the column.
+     */
+    Stream<DataPipeline.Row> rows() {
+        return IntStream.range(0, size).mapToObj(index -> new DataPipeline.Row(this, index));
+    }
+
+    /**
+     * Column of reference values, such as the strings or classes of a @ValueSource.
+     */
+    private static class ObjectColumn extends DataColumn {
+
+        private final Object[] values;
+
+        private ObjectColumn(Object[] values) {
+            super(values.getClass().getComponentType(), values.length);
+            this.values = values;
+        }
+
+        @Override
+        Object get(int index) {
+            return values[index];
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.Combine;
+import com.optivem.testing.CombineMode;
+import com.optivem.testing.DataRow;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy pipeline of the data rows of a channel test template.
+ * <p>
+ * Each data source is a stage that supplies a fresh stream of rows every time the pipeline is evaluated,
+ * so that the rows can be streamed once per channel instead of being materialized up front.
+ * <p>
+ * Sources backed by user code, such as provider methods and {@code ArgumentsProvider}s, are only invoked once
+ * per template, as with {@code @ParameterizedTest}. Their rows are kept as they are streamed and replayed when the
+ * pipeline is evaluated again, for the next channel or for the next left row of a cross join. The streams of these
+ * sources are closed with the pipeline.
+ */
+class DataPipeline implements ExtensionContext.Store.CloseableResource {
+
+    private final List<Supplier<Stream<Row>>> stages = new ArrayList<>();
+    private final List<Replayed> replayed = new ArrayList<>();
+
+    /**
+     * Adds a data source stage.
+     */
+    void add(Supplier<Stream<Row>> stage) {
+        stages.add(stage);
+    }
+
+    /**
+     * Adds a data source stage backed by user code, which is invoked at most once and then replayed.
+     */
+    void addOnce(Supplier<Stream<Row>> source) {
+        Replayed stage = new Replayed(source);
+        replayed.add(stage);
+        stages.add(stage::stream);
+    }
+
+    /**
+     * Returns whether the template declares no data source at all.
+     */
+    boolean isEmpty() {
+        return stages.isEmpty();
+    }
+
+    /**
+     * Combines the stages as declared by the {@code @Combine} annotation, or concatenates them if it is null.
+     */
+    Supplier<Stream<Row>> build(Combination combination) {
+        CombineMode mode = combination != null ? combination.mode() : CombineMode.CONCAT;
+        Supplier<Stream<Row>> combined = stages.get(0);
+        for (Supplier<Stream<Row>> stage : stages.subList(1, stages.size())) {
+            combined = switch (mode) {
+                case CONCAT -> concat(combined, stage);
+                case ZIP -> zip(combined, stage);
+                case CROSS -> cross(combined, stage);
+            };
+        }
+        if (combination == null) {
+            return combined;
+        }
+
+        Predicate<Object[]> filter = filterOf(combination);
+        Supplier<Stream<Row>> source = combined;
+        return () -> {
+            Stream<Row> rows = source.get().filter(row -> filter.test(row.values()));
+            if (combination.distinct()) {
+                Set<List<Object>> seen = new HashSet<>();
+                rows = rows.filter(row -> seen.add(Arrays.asList(Arrays.asList(row.values()), row.channels())));
+            }
+            return combination.limit() >= 0 ? rows.limit(combination.limit()) : rows;
+        };
+    }
+
+    /**
+     * Groups the consecutive rows that apply to the channel into batches, keeping the index of each row in the pipeline.
+     */
+    static Stream<List<DataRow>> batches(Stream<Row> rows, int size, String channel) {
+        Iterator<Row> iterator = rows.iterator();
+        Spliterator<List<DataRow>> batches = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            private int index;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super List<DataRow>> action) {
+                List<DataRow> batch = new ArrayList<>();
+                while (batch.size() < size && iterator.hasNext()) {
+                    Row row = iterator.next();
+                    if (row.appliesTo(channel)) {
+                        batch.add(new DataRow(index, row.values()));
+                    }
+                    index++;
+                }
+                if (batch.isEmpty()) {
+                    return false;
+                }
+                action.accept(batch);
+                return true;
+            }
+        };
+        return StreamSupport.stream(batches, false).onClose(rows::close);
+    }
+
+    /**
+     * Concatenates the streams of the sources, creating each stream only when the previous one is exhausted.
+     * Unlike {@link Stream#flatMap}, this never buffers a whole inner stream when the result is consumed
+     * through an iterator, as JUnit does with the invocation contexts.
+     */
+    static <S, T> Stream<T> concatLazily(Iterator<S> sources, Function<S, Stream<T>> streamOf) {
+        List<Stream<T>> opened = new ArrayList<>();
+        Spliterator<T> concatenated = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            private Spliterator<T> current;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                while (current == null || !current.tryAdvance(action)) {
+                    if (!sources.hasNext()) {
+                        return false;
+                    }
+                    Stream<T> stream = streamOf.apply(sources.next());
+                    opened.add(stream);
+                    current = stream.spliterator();
+                }
+                return true;
+            }
+        };
+        return StreamSupport.stream(concatenated, false).onClose(() -> opened.forEach(Stream::close));
+    }
+
+    private static Supplier<Stream<Row>> concat(Supplier<Stream<Row>> first, Supplier<Stream<Row>> second) {
+        return () -> concatLazily(List.of(first, second).iterator(), Supplier::get);
+    }
+
+    private static Supplier<Stream<Row>> cross(Supplier<Stream<Row>> first, Supplier<Stream<Row>> second) {
+        // The second stage is streamed again for every row of the first, replaying user sources instead of invoking them again
+        return () -> {
+            Stream<Row> leftStream = first.get();
+            return concatLazily(leftStream.iterator(), left -> second.get().map(left::join).filter(row -> !row.isEmpty()))
+                    .onClose(leftStream::close);
+        };
+    }
+
+    private static Supplier<Stream<Row>> zip(Supplier<Stream<Row>> first, Supplier<Stream<Row>> second) {
+        return () -> {
+            Stream<Row> leftStream = first.get();
+            Stream<Row> rightStream = second.get();
+            Iterator<Row> left = leftStream.iterator();
+            Iterator<Row> right = rightStream.iterator();
+            Spliterator<Row> zipped = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Row> action) {
+                    if (!left.hasNext() || !right.hasNext()) {
+                        return false;
+                    }
+                    action.accept(left.next().join(right.next()));
+                    return true;
+                }
+            };
+            return StreamSupport.stream(zipped, false)
+                    .filter(row -> !row.isEmpty())
+                    .onClose(leftStream::close)
+                    .onClose(rightStream::close);
+        };
+    }
+
+    @Override
+    public void close() {
+        replayed.forEach(Replayed::close);
+    }
+
+    private static Predicate<Object[]> filterOf(Combination combination) {
+        Predicate<Object[]> filter = values -> true;
+        for (Class<?> filterClass : combination.filters()) {
+            try {
+                var constructor = filterClass.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                @SuppressWarnings("unchecked")
+                Predicate<Object[]> instance = (Predicate<Object[]>) constructor.newInstance();
+                filter = filter.and(instance);
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new RuntimeException("Failed to instantiate @Combine filter: " + filterClass.getName(), e);
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Source that is invoked on the first evaluation, keeping its rows as far as they have been streamed,
+     * so that later evaluations replay them before streaming further rows of the same invocation.
+     */
+    private static final class Replayed {
+
+        private final Supplier<Stream<Row>> source;
+        private final List<Row> rows = new ArrayList<>();
+        private Stream<Row> stream;
+        private Iterator<Row> iterator;
+
+        Replayed(Supplier<Stream<Row>> source) {
+            this.source = source;
+        }
+
+        Stream<Row> stream() {
+            Spliterator<Row> replay = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+                private int position;
+
+                @Override
+                public boolean tryAdvance(Consumer<? super Row> action) {
+                    Row row = rowAt(position);
+                    if (row == null) {
+                        return false;
+                    }
+                    position++;
+                    action.accept(row);
+                    return true;
+                }
+            };
+            return StreamSupport.stream(replay, false);
+        }
+
+        private Row rowAt(int position) {
+            if (position < rows.size()) {
+                return rows.get(position);
+            }
+            if (iterator == null) {
+                stream = source.get();
+                iterator = stream.iterator();
+            }
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            Row row = iterator.next();
+            rows.add(row);
+            return row;
+        }
+
+        void close() {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    /**
+     * How the stages are combined, as declared by {@code @Combine} or recorded in the channel index.
+     *
+     * @param mode how the rows of the stages are combined
+     * @param filters the predicate classes the combined rows must pass
+     * @param distinct whether duplicate rows are dropped
+     * @param limit the maximum number of rows, or -1 for no limit
+     */
+    record Combination(CombineMode mode, List<Class<?>> filters, boolean distinct, long limit) {
+
+        /**
+         * Returns the combination declared by the annotation, or null if there is none.
+         */
+        static Combination of(Combine combine) {
+            return combine != null
+                    ? new Combination(combine.value(), List.of(combine.filter()), combine.distinct(), combine.limit())
+                    : null;
+        }
+    }
+
+    /**
+     * A single data row and the channels it is restricted to.
+     * <p>
+     * A row either holds its argument values, or is a flyweight view of one value of a {@link DataColumn}
+     * that only boxes the value when it is read.
+     */
+    static final class Row {
+
+        private final Object[] values;
+        private final DataColumn column;
+        private final int index;
+        private final Set<String> channels;
+        private final GeneratedRows generatedBy;
+        private final int generatedPosition;
+
+        private Row(Object[] values, DataColumn column, int index, Set<String> channels,
+                    GeneratedRows generatedBy, int generatedPosition) {
+            this.values = values;
+            this.column = column;
+            this.index = index;
+            this.channels = channels;
+            this.generatedBy = generatedBy;
+            this.generatedPosition = generatedPosition;
+        }
+
+        /**
+         * Creates a row of argument values.
+         *
+         * @param values the argument values
+         * @param channels the channels the row applies to, or null for all channels
+         */
+        Row(Object[] values, Set<String> channels) {
+            this(values, null, -1, channels, null, -1);
+        }
+
+        /**
+         * Creates a view of a single value of a column, applying to all channels.
+         */
+        Row(DataColumn column, int index) {
+            this(null, column, index, null, null, -1);
+        }
+
+        /**
+         * Creates a row whose first value was generated, applying to all channels.
+         */
+        static Row generated(Object[] values, GeneratedRows generatedBy) {
+            return new Row(values, null, -1, null, generatedBy, 0);
+        }
+
+        /**
+         * Returns the argument values, materializing them if the row is a column view.
+         */
+        Object[] values() {
+            return values != null ? values : new Object[]{column.get(index)};
+        }
+
+        /**
+         * Returns the channels the row applies to, or null for all channels.
+         */
+        Set<String> channels() {
+            return channels;
+        }
+
+        /**
+         * Returns the generated source of a value of the row, or null if none was generated.
+         */
+        GeneratedRows generatedBy() {
+            return generatedBy;
+        }
+
+        /**
+         * Returns the position of the generated value among the argument values, or -1 if none was generated.
+         */
+        int generatedPosition() {
+            return generatedPosition;
+        }
+
+        /**
+         * Returns the number of argument values.
+         */
+        int size() {
+            return values != null ? values.length : 1;
+        }
+
+        /**
+         * Returns a single argument value.
+         */
+        Object get(int position) {
+            return values != null ? values[position] : column.get(index);
+        }
+
+        /**
+         * Returns whether an argument value can be passed to a parameter of the given type as it is.
+         * Only known without boxing for column views, otherwise false.
+         */
+        boolean isAssignableTo(int position, Class<?> targetType) {
+            return values == null && column.isAssignableTo(targetType);
+        }
+
+        /**
+         * Returns whether the row applies to the given channel.
+         */
+        boolean appliesTo(String channel) {
+            return channels == null || channels.stream().anyMatch(channel::equalsIgnoreCase);
+        }
+
+        /**
+         * Returns whether the row is restricted to no channel at all, which can be the result of a join.
+         */
+        boolean isEmpty() {
+            return channels != null && channels.isEmpty();
+        }
+
+        /**
+         * Joins the values of both rows, restricted to the channels both rows apply to.
+         */
+        Row join(Row other) {
+            Object[] left = values();
+            Object[] right = other.values();
+            Object[] joined = Arrays.copyOf(left, left.length + right.length);
+            System.arraycopy(right, 0, joined, left.length, right.length);
+
+            Set<String> joinedChannels;
+            if (channels == null) {
+                joinedChannels = other.channels;
+            } else if (other.channels == null) {
+                joinedChannels = channels;
+            } else {
+                joinedChannels = new HashSet<>();
+                for (String channel : channels) {
+                    if (other.appliesTo(channel)) {
+                        joinedChannels.add(channel);
+                    }
+                }
+            }
+            // A generated value keeps its source, and moves behind the values of this row if it was on the right
+            if (generatedBy != null || other.generatedBy == null) {
+                return new Row(joined, null, -1, joinedChannels, generatedBy, generatedPosition);
+            }
+            return new Row(joined, null, -1, joinedChannels, other.generatedBy, left.length + other.generatedPosition);
+        }
+    }
+}
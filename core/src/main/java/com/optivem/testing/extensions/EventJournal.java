@@ -0,0 +1,147 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.journal.JournalRecord;
+import com.optivem.testing.journal.JournalWriter;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.TestAbortedException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Records the start and end of every channel invocation in the binary event journal, see {@link JournalWriter}.
+ * <p>
+ * The journal is enabled by pointing {@code -Doptivem.journal} to the journal file. Unlike report entries and
+ * listeners, recording an invocation only appends two fixed-size records to a memory-mapped file, so it can be
+ * left enabled for suites with tens of thousands of invocations and appended to run after run.
+ */
+class EventJournal implements ExtensionContext.Store.CloseableResource {
+
+    /**
+     * System property with the path of the journal file.
+     */
+    static final String JOURNAL_PROPERTY = "optivem.journal";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(EventJournal.class);
+
+    private final JournalWriter writer;
+
+    private EventJournal(JournalWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Returns the journal of the current run, or null if no journal file has been configured.
+     */
+    static EventJournal get(ExtensionContext context) {
+        String path = System.getProperty(JOURNAL_PROPERTY);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        return context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(EventJournal.class, key -> {
+                    try {
+                        return new EventJournal(JournalWriter.open(Path.of(path)));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to open journal: " + path, e);
+                    }
+                }, EventJournal.class);
+    }
+
+    /**
+     * Records the start of an invocation, before its setup.
+     */
+    static void start(ExtensionContext context, String channel, int rowIndex) {
+        EventJournal journal = get(context);
+        if (journal == null) {
+            return;
+        }
+        Invocation invocation = new Invocation(journal.writer.nextInvocation(), channel, rowIndex, System.nanoTime());
+        context.getStore(NAMESPACE).put(Invocation.class, invocation);
+        journal.writer.append(new JournalRecord(JournalRecord.Type.START, journal.writer.run(), invocation.number,
+                testOf(context), channel, rowIndex, epochNanos(), JournalRecord.Outcome.NONE, 0, 0, 0, 0,
+                Thread.currentThread().threadId()));
+    }
+
+    /**
+     * Marks the end of the setup of an invocation, right before its test method.
+     */
+    static void bodyStarted(ExtensionContext context) {
+        Invocation invocation = context.getStore(NAMESPACE).get(Invocation.class, Invocation.class);
+        if (invocation != null) {
+            invocation.bodyStarted = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the start of the teardown of an invocation, right after its test method.
+     */
+    static void bodyFinished(ExtensionContext context) {
+        Invocation invocation = context.getStore(NAMESPACE).get(Invocation.class, Invocation.class);
+        if (invocation != null) {
+            invocation.bodyFinished = System.nanoTime();
+        }
+    }
+
+    /**
+     * Records the end of an invocation, with its outcome and the time spent in each phase.
+     */
+    static void finish(ExtensionContext context) {
+        Invocation invocation = context.getStore(NAMESPACE).remove(Invocation.class, Invocation.class);
+        EventJournal journal = invocation != null ? get(context) : null;
+        if (journal == null) {
+            return;
+        }
+        long finished = System.nanoTime();
+        // An invocation that fails in its setup never reaches its test method
+        long bodyStarted = invocation.bodyStarted != 0 ? invocation.bodyStarted : finished;
+        long bodyFinished = invocation.bodyFinished != 0 ? invocation.bodyFinished : bodyStarted;
+
+        JournalRecord.Outcome outcome = context.getExecutionException()
+                .map(failure -> failure instanceof TestAbortedException
+                        ? JournalRecord.Outcome.ABORTED
+                        : JournalRecord.Outcome.FAILED)
+                .orElse(JournalRecord.Outcome.PASSED);
+        journal.writer.append(new JournalRecord(JournalRecord.Type.END, journal.writer.run(), invocation.number,
+                testOf(context), invocation.channel, invocation.rowIndex, epochNanos(), outcome,
+                FlakyRetry.attemptsOf(context), bodyStarted - invocation.started, bodyFinished - bodyStarted,
+                finished - bodyFinished, Thread.currentThread().threadId()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static String testOf(ExtensionContext context) {
+        return context.getRequiredTestClass().getName() + "#" + context.getRequiredTestMethod().getName();
+    }
+
+    private static long epochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    /**
+     * Phase timestamps of a running invocation, in {@link System#nanoTime()}.
+     */
+    private static class Invocation {
+
+        private final int number;
+        private final String channel;
+        private final int rowIndex;
+        private final long started;
+        private long bodyStarted;
+        private long bodyFinished;
+
+        Invocation(int number, String channel, int rowIndex, long started) {
+            this.number = number;
+            this.channel = channel;
+            this.rowIndex = rowIndex;
+            this.started = started;
+        }
+    }
+}
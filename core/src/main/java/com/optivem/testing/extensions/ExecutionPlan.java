@@ -0,0 +1,229 @@
+package com.optivem.testing.extensions;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the invocations that the channel templates of a dry run expand to, and writes them
+ * as a machine-readable plan with invocation counts and estimated durations when the run ends.
+ * <p>
+ * Dry-run planning is enabled with {@code -Doptivem.plan=true}. The plan is written to
+ * {@code -Doptivem.plan.file} (default {@value #DEFAULT_PLAN_FILE}). Durations are estimated from the
+ * invocation history configured with {@code -Doptivem.history}. With {@code -Doptivem.plan.shards=N},
+ * the test classes are also distributed over N shards of balanced estimated duration. Templates with more
+ * than {@code -Doptivem.plan.maxRows} (default {@value #DEFAULT_MAX_ROWS}) rows per channel fail the plan, since
+ * their sources are likely infinite.
+ */
+class ExecutionPlan implements ExtensionContext.Store.CloseableResource {
+
+    /**
+     * System property that enables dry-run planning.
+     */
+    static final String PLAN_PROPERTY = "optivem.plan";
+
+    /**
+     * System property with the path of the plan file.
+     */
+    static final String PLAN_FILE_PROPERTY = "optivem.plan.file";
+
+    /**
+     * System property with the number of shards to plan for.
+     */
+    static final String SHARDS_PROPERTY = "optivem.plan.shards";
+
+    /**
+     * System property with the maximum number of rows planned per template and channel, which guards against
+     * infinite data sources.
+     */
+    static final String MAX_ROWS_PROPERTY = "optivem.plan.maxRows";
+
+    static final String DEFAULT_PLAN_FILE = "build/optivem-plan.json";
+    static final long DEFAULT_MAX_ROWS = 1_000_000;
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(ExecutionPlan.class);
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Returns whether dry-run planning has been enabled for this run.
+     */
+    static boolean isEnabled() {
+        return Boolean.getBoolean(PLAN_PROPERTY);
+    }
+
+    /**
+     * Returns the plan of the current run.
+     */
+    static ExecutionPlan get(ExtensionContext context) {
+        return context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(ExecutionPlan.class, key -> new ExecutionPlan(), ExecutionPlan.class);
+    }
+
+    /**
+     * Adds the invocations of a test template for one channel.
+     *
+     * @param averageMillis the average duration of a single invocation, or null if unknown
+     */
+    synchronized void add(String className, String methodName, String channel, int invocations, Long averageMillis) {
+        entries.add(new Entry(className, methodName, channel, invocations,
+                averageMillis != null ? averageMillis * invocations : null));
+    }
+
+    @Override
+    public synchronized void close() {
+        Path file = Path.of(System.getProperty(PLAN_FILE_PROPERTY, DEFAULT_PLAN_FILE));
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.writeString(file, toJson());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write execution plan: " + file, e);
+        }
+    }
+
+    private String toJson() {
+        Map<String, Total> channels = new TreeMap<>();
+        Map<String, Total> classes = new TreeMap<>();
+        Total total = new Total();
+        for (Entry entry : entries) {
+            total.add(entry);
+            channels.computeIfAbsent(entry.channel(), key -> new Total()).add(entry);
+            classes.computeIfAbsent(entry.className(), key -> new Total()).add(entry);
+        }
+
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"total\": ").append(total.toJson()).append(",\n");
+        json.append("  \"channels\": ").append(toJson(channels)).append(",\n");
+        json.append("  \"classes\": ").append(toJson(classes)).append(",\n");
+
+        int shardCount = Integer.getInteger(SHARDS_PROPERTY, 0);
+        if (shardCount > 0) {
+            json.append("  \"shards\": [");
+            List<Total> shards = planShards(classes, shardCount);
+            for (int i = 0; i < shards.size(); i++) {
+                json.append(i == 0 ? "\n" : ",\n").append("    ").append(shards.get(i).toJson());
+            }
+            json.append("\n  ],\n");
+        }
+
+        json.append("  \"templates\": [");
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"class\": ").append(quote(entry.className()))
+                    .append(", \"method\": ").append(quote(entry.methodName()))
+                    .append(", \"channel\": ").append(quote(entry.channel()))
+                    .append(", \"invocations\": ").append(entry.invocations())
+                    .append(", \"estimatedMillis\": ").append(entry.estimatedMillis())
+                    .append("}");
+        }
+        json.append("\n  ]\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Distributes the classes over the shards, longest estimated class first onto the least loaded shard.
+     */
+    private static List<Total> planShards(Map<String, Total> classes, int shardCount) {
+        List<Total> shards = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Total());
+        }
+        classes.entrySet().stream()
+                .sorted(Map.Entry.<String, Total>comparingByValue(Comparator.comparingLong(t -> t.estimatedMillis)).reversed())
+                .forEach(entry -> {
+                    Total shard = shards.stream().min(Comparator.comparingLong(t -> t.estimatedMillis)).orElseThrow();
+                    shard.add(entry.getValue());
+                    shard.classes.add(entry.getKey());
+                });
+        return shards;
+    }
+
+    private static String toJson(Map<String, Total> totals) {
+        StringBuilder json = new StringBuilder("{");
+        boolean first = true;
+        for (Map.Entry<String, Total> entry : totals.entrySet()) {
+            json.append(first ? "\n" : ",\n").append("    ").append(quote(entry.getKey())).append(": ")
+                    .append(entry.getValue().toJson());
+            first = false;
+        }
+        return json.append("\n  }").toString();
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Planned invocations of a single test template for one channel.
+     */
+    private record Entry(String className, String methodName, String channel, int invocations, Long estimatedMillis) {
+    }
+
+    /**
+     * Sum of planned invocations and their estimated durations.
+     */
+    private static class Total {
+        private long invocations;
+        private long estimatedMillis;
+        private long unestimatedInvocations;
+        private final List<String> classes = new ArrayList<>();
+
+        void add(Entry entry) {
+            invocations += entry.invocations();
+            if (entry.estimatedMillis() != null) {
+                estimatedMillis += entry.estimatedMillis();
+            } else {
+                unestimatedInvocations += entry.invocations();
+            }
+        }
+
+        void add(Total other) {
+            invocations += other.invocations;
+            estimatedMillis += other.estimatedMillis;
+            unestimatedInvocations += other.unestimatedInvocations;
+        }
+
+        String toJson() {
+            StringBuilder json = new StringBuilder("{\"invocations\": ").append(invocations)
+                    .append(", \"estimatedMillis\": ").append(estimatedMillis)
+                    .append(", \"unestimatedInvocations\": ").append(unestimatedInvocations);
+            if (!classes.isEmpty()) {
+                json.append(", \"classes\": [");
+                for (int i = 0; i < classes.size(); i++) {
+                    json.append(i == 0 ? "" : ", ").append(quote(classes.get(i)));
+                }
+                json.append("]");
+            }
+            return json.append("}").toString();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.contexts.InvocationTrace;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+import org.opentest4j.MultipleFailuresError;
+import org.opentest4j.TestAbortedException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Extension for {@link com.optivem.testing.ChannelMode#FAN_OUT} invocations.
+ * Instead of running the test method once, it runs the test body concurrently for every channel,
+ * each on its own thread with its own channel context and trace, after the arrange step has run once.
+ * A generated row that fails is shrunk for every channel that fails, on the thread of that channel.
+ * See {@link com.optivem.testing.ChannelMode#FAN_OUT} for the channel features that apply to fan-out invocations.
+ */
+class FanOutExtension implements BeforeEachCallback, BeforeTestExecutionCallback, AfterTestExecutionCallback,
+        AfterEachCallback, InvocationInterceptor {
+
+    private final String[] channels;
+    private final int rowIndex;
+    private final GeneratedRows generatedBy;
+    private final int generatedPosition;
+
+    /**
+     * @param generatedBy the generated rows the row of the invocation was taken from, or null if it was not generated
+     * @param generatedPosition the position of the generated argument, to shrink when the body of a channel fails
+     */
+    FanOutExtension(String[] channels, int rowIndex, GeneratedRows generatedBy, int generatedPosition) {
+        this.channels = channels;
+        this.rowIndex = rowIndex;
+        this.generatedBy = generatedBy;
+        this.generatedPosition = generatedPosition;
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws InterruptedException {
+        // The invocation holds a slot of every channel it fans out to
+        ChannelSlots.acquire(context, channels);
+        EventJournal.start(context, InvocationKeys.fanOutChannelOf(channels), rowIndex);
+
+        // Channel setup is still done once per channel, before the shared arrange step
+        for (String channel : channels) {
+            ChannelContext.set(channel);
+            try {
+                ChannelLifecycle.start(channel, context);
+            } finally {
+                ChannelContext.clear();
+            }
+        }
+        InvocationHistory.start(context);
+        TestImpact.start(context);
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        EventJournal.bodyStarted(context);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        EventJournal.bodyFinished(context);
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) {
+        try {
+            TestImpact.finish(context, InvocationKeys.fanOutChannelOf(channels));
+            InvocationHistory.finish(context, InvocationKeys.fanOutChannelOf(channels));
+            EventJournal.finish(context);
+        } finally {
+            ChannelSlots.release(context);
+        }
+    }
+
+    @Override
+    public void interceptTestTemplateMethod(Invocation<Void> invocation,
+                                            ReflectiveInvocationContext<Method> invocationContext,
+                                            ExtensionContext extensionContext) throws Throwable {
+        invocation.skip();
+
+        Method method = invocationContext.getExecutable();
+        Object target = invocationContext.getTarget().orElse(null);
+        Object[] arguments = invocationContext.getArguments().toArray();
+        method.setAccessible(true);
+
+        Map<String, Future<?>> results = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String channel : channels) {
+                results.put(channel, executor.submit(() -> {
+                    // Every body gets a correlation ID of its own for its drivers, although the traces are not exported
+                    ChannelContext.set(channel, new InvocationTrace());
+                    try {
+                        method.invoke(target, arguments);
+                        return null;
+                    } catch (InvocationTargetException e) {
+                        if (generatedBy == null || e.getCause() instanceof TestAbortedException) {
+                            throw e;
+                        }
+                        // Shrink on the thread of the channel, so that the candidates run with its context
+                        throw generatedBy.shrink(e.getCause(), method, target, arguments, channel, generatedPosition).failure();
+                    } finally {
+                        ChannelContext.clear();
+                    }
+                }));
+            }
+        }
+
+        List<Throwable> failures = new ArrayList<>();
+        for (Map.Entry<String, Future<?>> result : results.entrySet()) {
+            String channel = result.getKey();
+            try {
+                result.getValue().get();
+                extensionContext.publishReportEntry("channel." + channel, "passed");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof InvocationTargetException
+                        ? e.getCause().getCause()
+                        : e.getCause();
+                extensionContext.publishReportEntry("channel." + channel, "failed: " + cause);
+                failures.add(new AssertionError("Channel " + channel + " failed: " + cause.getMessage(), cause));
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            throw new MultipleFailuresError(method.getName() + " failed on " + failures.size()
+                    + " of " + channels.length + " channels", failures);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.optivem.testing.extensions;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * History of the outcomes of channel invocations over the recent runs, kept in a local properties file.
+ * <p>
+ * Recording is enabled by pointing {@code -Doptivem.flakiness} to the history file. For every channel × row
+ * invocation, the file keeps the outcomes of the last {@value #WINDOW} runs as a string such as {@code PPFPX},
+ * where {@code P} is a pass, {@code F} a pass on a retry and {@code X} a failure after all retries.
+ * Invocations that were flaky in at least {@code -Doptivem.quarantine.threshold} (default 3) of these runs are
+ * quarantined, and are released again once their flaky runs have left the window.
+ * <p>
+ * Runs that end at the same time, e.g. parallel lanes, merge their outcomes into the file one after the other,
+ * see {@link HistoryFile}.
+ */
+class FlakinessHistory implements ExtensionContext.Store.CloseableResource {
+
+    /**
+     * System property with the path of the history file.
+     */
+    static final String FLAKINESS_PROPERTY = "optivem.flakiness";
+
+    /**
+     * System property with the number of flaky runs within the window that quarantines an invocation.
+     */
+    static final String THRESHOLD_PROPERTY = "optivem.quarantine.threshold";
+
+    /**
+     * Number of recent runs kept per invocation.
+     */
+    static final int WINDOW = 20;
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(FlakinessHistory.class);
+
+    /**
+     * Outcome of an invocation in a single run.
+     */
+    enum Outcome {
+        PASSED('P'), FLAKY('F'), FAILED('X');
+
+        private final char code;
+
+        Outcome(char code) {
+            this.code = code;
+        }
+    }
+
+    private final Path file;
+    private final Map<String, String> recentOutcomes;
+    private final int threshold;
+    private final Map<String, Outcome> outcomes = new ConcurrentHashMap<>();
+
+    private FlakinessHistory(Path file, Map<String, String> recentOutcomes) {
+        this.file = file;
+        this.recentOutcomes = recentOutcomes;
+        this.threshold = Math.max(1, Integer.getInteger(THRESHOLD_PROPERTY, 3));
+    }
+
+    /**
+     * Returns the history of the current run, or null if no history file has been configured.
+     */
+    static FlakinessHistory get(ExtensionContext context) {
+        String path = System.getProperty(FLAKINESS_PROPERTY);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        return context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(FlakinessHistory.class, key -> open(Path.of(path)), FlakinessHistory.class);
+    }
+
+    /**
+     * Returns the key under which the outcomes of a channel × row invocation are kept.
+     */
+    static String keyOf(Class<?> testClass, Method testMethod, String channel, int rowIndex) {
+        String key = InvocationKeys.keyOf(testClass, testMethod, channel);
+        return rowIndex >= 0 ? key + "[" + rowIndex + "]" : key;
+    }
+
+    /**
+     * Returns the number of recent runs in which the invocation passed only on a retry.
+     */
+    int flakyRunsOf(String key) {
+        String recent = recentOutcomes.get(key);
+        return recent == null ? 0 : (int) recent.chars().filter(code -> code == Outcome.FLAKY.code).count();
+    }
+
+    /**
+     * Returns whether the invocation has been flaky often enough to be quarantined.
+     */
+    boolean isQuarantined(String key) {
+        return flakyRunsOf(key) >= threshold;
+    }
+
+    /**
+     * Records the outcome of an invocation in the current run.
+     */
+    void record(String key, Outcome outcome) {
+        // Should an invocation run more than once, the worst outcome is kept
+        outcomes.merge(key, outcome, (previous, latest) -> previous.compareTo(latest) >= 0 ? previous : latest);
+    }
+
+    @Override
+    public void close() {
+        if (outcomes.isEmpty()) {
+            return;
+        }
+
+        HistoryFile.update(file, "flakiness history", "Outcomes of the last " + WINDOW
+                        + " runs per channel invocation: P passed, F passed on a retry, X failed",
+                entries -> outcomes.forEach((key, outcome) -> {
+                    String recent = entries.getOrDefault(key, "") + outcome.code;
+                    entries.put(key, recent.substring(Math.max(0, recent.length() - WINDOW)));
+                }));
+    }
+
+    private static FlakinessHistory open(Path file) {
+        return new FlakinessHistory(file, new ConcurrentHashMap<>(HistoryFile.read(file, "flakiness history")));
+    }
+}
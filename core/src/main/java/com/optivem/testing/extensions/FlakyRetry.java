@@ -0,0 +1,378 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.ChannelRetry;
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.contexts.InvocationTrace;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.support.HierarchyTraversalMode;
+import org.opentest4j.TestAbortedException;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Extension that retries a failing channel invocation, see {@link ChannelRetry @ChannelRetry}, and quarantines
+ * invocations that are flaky too often.
+ * <p>
+ * Retries run within the deadline of the invocation and are drawn from the retry budget of the run and of the
+ * channel. With {@code -Doptivem.flakiness}, the outcome of every invocation is recorded in the
+ * {@link FlakinessHistory}. Quarantined invocations are retried without drawing from the budgets, and their
+ * failures are reported as aborted, so that they do not block the run. {@code -Doptivem.quarantine=skip} leaves
+ * them out of the run, and {@code -Doptivem.quarantine=only} runs nothing but them, as a separate lane.
+ * <p>
+ * Every retry runs with an {@link InvocationTrace} of its own, so that the calls of each attempt get their own
+ * correlation ID. The trace of a failed attempt is exported before the retry, and the event journal records the
+ * number of attempts of the invocation.
+ */
+class FlakyRetry implements InvocationInterceptor, ExecutionCondition {
+
+    /**
+     * System property with the default number of retries, optionally suffixed with {@code .<channel>}.
+     */
+    static final String RETRY_PROPERTY = "optivem.retry";
+
+    /**
+     * System property with the number of retries for the whole run, optionally suffixed with {@code .<channel>}.
+     */
+    static final String BUDGET_PROPERTY = "optivem.retry.budget";
+
+    /**
+     * System property selecting how quarantined invocations are run: {@code run}, {@code skip} or {@code only}.
+     */
+    static final String QUARANTINE_PROPERTY = "optivem.quarantine";
+
+    private static final int DEFAULT_BUDGET = 10;
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(FlakyRetry.class);
+
+    private static final String PASSED_ON_RETRY_KEY = "passedOnRetry";
+    private static final String TRACE_KEY = "trace";
+
+    /**
+     * Callbacks around the test method that a retry would have to run again, but cannot.
+     */
+    private static final List<Class<?>> UNREPLAYABLE_CALLBACKS = List.of(BeforeEachCallback.class,
+            AfterEachCallback.class, BeforeTestExecutionCallback.class, AfterTestExecutionCallback.class);
+
+    private final String channel;
+    private final int rowIndex;
+    private final boolean retryable;
+
+    /**
+     * Creates the extension for an invocation. Invocations that are not retryable, such as load generators and
+     * tests that wait for asynchronous stages, are only kept in or out of the quarantine lane.
+     */
+    FlakyRetry(String channel, int rowIndex, boolean retryable) {
+        this.channel = channel;
+        this.rowIndex = rowIndex;
+        this.retryable = retryable;
+    }
+
+    /**
+     * Returns whether the invocation passed only on a retry, so that its pass is not cached.
+     */
+    static boolean passedOnRetry(ExtensionContext context) {
+        return Boolean.TRUE.equals(context.getStore(NAMESPACE).get(PASSED_ON_RETRY_KEY, Boolean.class));
+    }
+
+    /**
+     * Returns the trace of the latest attempt of the invocation. A retry may run on the thread of a deadline, so
+     * the thread that ends the invocation may still hold the trace of the first attempt.
+     */
+    static InvocationTrace traceOf(ExtensionContext context) {
+        InvocationTrace trace = context.getStore(NAMESPACE).get(TRACE_KEY, InvocationTrace.class);
+        return trace != null ? trace : ChannelContext.getTrace();
+    }
+
+    /**
+     * Returns the number of attempts of the invocation, 1 unless it was retried.
+     */
+    static int attemptsOf(ExtensionContext context) {
+        InvocationTrace trace = context.getStore(NAMESPACE).get(TRACE_KEY, InvocationTrace.class);
+        return trace != null ? trace.attempt() : 1;
+    }
+
+    /**
+     * Returns whether this run is the quarantine lane, which only runs the quarantined invocations.
+     */
+    static boolean isQuarantineLane() {
+        return "only".equalsIgnoreCase(System.getProperty(QUARANTINE_PROPERTY));
+    }
+
+    @Override
+    public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+        String mode = System.getProperty(QUARANTINE_PROPERTY, "run");
+        if (mode.equalsIgnoreCase("run")) {
+            return ConditionEvaluationResult.enabled("Quarantined invocations are run");
+        }
+
+        FlakinessHistory history = FlakinessHistory.get(context);
+        boolean quarantined = retryable && history != null && history.isQuarantined(keyOf(context));
+        if (quarantined && mode.equalsIgnoreCase("skip")) {
+            return ConditionEvaluationResult.disabled("Quarantined as flaky, runs in the quarantine lane");
+        }
+        if (!quarantined && mode.equalsIgnoreCase("only")) {
+            return ConditionEvaluationResult.disabled("Not quarantined");
+        }
+        return ConditionEvaluationResult.enabled("Runs in this lane");
+    }
+
+    @Override
+    public void interceptTestTemplateMethod(Invocation<Void> invocation,
+                                            ReflectiveInvocationContext<Method> invocationContext,
+                                            ExtensionContext extensionContext) throws Throwable {
+        if (!retryable) {
+            invocation.proceed();
+            return;
+        }
+
+        int retries = retriesOf(extensionContext.getRequiredTestMethod(), extensionContext.getRequiredTestClass(), channel);
+        FlakinessHistory history = FlakinessHistory.get(extensionContext);
+        if (retries == 0 && history == null) {
+            invocation.proceed();
+            return;
+        }
+
+        if (retries > 0) {
+            requireReplayableFixture(extensionContext);
+        }
+
+        String key = keyOf(extensionContext);
+        boolean quarantined = history != null && history.isQuarantined(key);
+        Throwable failure;
+        try {
+            invocation.proceed();
+            record(history, key, FlakinessHistory.Outcome.PASSED);
+            return;
+        } catch (TestAbortedException e) {
+            throw e;
+        } catch (Throwable t) {
+            failure = t;
+        }
+
+        Budgets budgets = Budgets.get(extensionContext);
+        int attempt = 1;
+        while (attempt <= retries && isRetryable(failure)) {
+            // Quarantined invocations do not block the run, so their retries are free
+            if (!quarantined && !budgets.tryAcquire(channel)) {
+                extensionContext.publishReportEntry("retry.budget", budgets.usageOf(channel));
+                break;
+            }
+            attempt++;
+            TraceExporter.finish(extensionContext, channel, traceOf(extensionContext), failure);
+            InvocationTrace trace = new InvocationTrace(attempt);
+            extensionContext.getStore(NAMESPACE).put(TRACE_KEY, trace);
+            ChannelContext.set(channel, trace);
+            try {
+                retry(invocationContext, extensionContext);
+                extensionContext.getStore(NAMESPACE).put(PASSED_ON_RETRY_KEY, true);
+                record(history, key, FlakinessHistory.Outcome.FLAKY);
+                extensionContext.publishReportEntry("flaky", "passed on attempt " + attempt + " after: " + failure);
+                return;
+            } catch (TestAbortedException e) {
+                throw e;
+            } catch (Throwable t) {
+                if (t != failure) {
+                    t.addSuppressed(failure);
+                }
+                failure = t;
+            }
+        }
+
+        record(history, key, FlakinessHistory.Outcome.FAILED);
+        if (quarantined) {
+            throw new TestAbortedException("Quarantined as flaky in " + history.flakyRunsOf(key) + " of the last "
+                    + FlakinessHistory.WINDOW + " runs, failed with: " + failure, failure);
+        }
+        throw failure;
+    }
+
+    /**
+     * Fails fast if a retry could not set the fixture up again the way Jupiter did: the retry runs the
+     * {@code @AfterEach} and {@code @BeforeEach} methods itself, so it cannot resolve their parameters or run the
+     * callbacks of other extensions. Extensions registered automatically or in other ways are not detected.
+     */
+    private static void requireReplayableFixture(ExtensionContext context) {
+        Class<?> testClass = context.getRequiredTestClass();
+        List<String> unreplayable = new ArrayList<>();
+        for (Class<? extends Annotation> lifecycle : List.of(BeforeEach.class, AfterEach.class)) {
+            for (Method method : AnnotationSupport.findAnnotatedMethods(testClass, lifecycle, HierarchyTraversalMode.TOP_DOWN)) {
+                if (method.getParameterCount() > 0) {
+                    unreplayable.add("@" + lifecycle.getSimpleName() + " " + method.getName() + " with parameters");
+                }
+            }
+        }
+        List<Class<?>> extensions = new ArrayList<>();
+        for (AnnotatedElement element : List.of(testClass, context.getRequiredTestMethod())) {
+            for (ExtendWith extendWith : AnnotationSupport.findRepeatableAnnotations(element, ExtendWith.class)) {
+                extensions.addAll(List.of(extendWith.value()));
+            }
+        }
+        for (Field field : AnnotationSupport.findAnnotatedFields(testClass, RegisterExtension.class)) {
+            extensions.add(field.getType());
+        }
+        for (Class<?> extension : extensions) {
+            if (UNREPLAYABLE_CALLBACKS.stream().anyMatch(callback -> callback.isAssignableFrom(extension))) {
+                unreplayable.add("callbacks of " + extension.getSimpleName());
+            }
+        }
+        if (!unreplayable.isEmpty()) {
+            throw new ExtensionConfigurationException("@ChannelRetry cannot set up the fixture of "
+                    + context.getRequiredTestMethod().getName() + " again for a retry: " + String.join(", ", unreplayable)
+                    + ". Remove the retries, or set the fixture up in parameterless @BeforeEach methods.");
+        }
+    }
+
+    /**
+     * Runs the test method again on the same test instance, after tearing down and setting up its fixture again.
+     * Only parameterless lifecycle methods are run, see {@link #requireReplayableFixture}.
+     */
+    private static void retry(ReflectiveInvocationContext<Method> invocationContext, ExtensionContext context)
+            throws Throwable {
+        Object target = invocationContext.getTarget().orElse(null);
+        Class<?> testClass = context.getRequiredTestClass();
+        for (Method method : AnnotationSupport.findAnnotatedMethods(testClass, AfterEach.class, HierarchyTraversalMode.BOTTOM_UP)) {
+            if (method.getParameterCount() == 0) {
+                invoke(method, target);
+            }
+        }
+        for (Method method : AnnotationSupport.findAnnotatedMethods(testClass, BeforeEach.class, HierarchyTraversalMode.TOP_DOWN)) {
+            if (method.getParameterCount() == 0) {
+                invoke(method, target);
+            }
+        }
+        invoke(invocationContext.getExecutable(), target, invocationContext.getArguments().toArray());
+    }
+
+    private static void invoke(Method method, Object target, Object... arguments) throws Throwable {
+        method.setAccessible(true);
+        try {
+            method.invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns whether a failure may be retried. Interrupted invocations, e.g. on an expired deadline, are not.
+     */
+    private static boolean isRetryable(Throwable failure) {
+        return !(failure instanceof InterruptedException) && !Thread.currentThread().isInterrupted();
+    }
+
+    private static void record(FlakinessHistory history, String key, FlakinessHistory.Outcome outcome) {
+        if (history != null) {
+            history.record(key, outcome);
+        }
+    }
+
+    private String keyOf(ExtensionContext context) {
+        return FlakinessHistory.keyOf(context.getRequiredTestClass(), context.getRequiredTestMethod(), channel, rowIndex);
+    }
+
+    /**
+     * Returns the number of retries of a failing invocation on the channel, 0 if it is not retried.
+     */
+    static int retriesOf(Method testMethod, Class<?> testClass, String channel) {
+        Integer retries = retriesOf(testMethod.getAnnotationsByType(ChannelRetry.class), channel);
+        if (retries == null) {
+            retries = retriesOf(testClass.getAnnotationsByType(ChannelRetry.class), channel);
+        }
+        if (retries == null) {
+            retries = Integer.getInteger(RETRY_PROPERTY + "." + channel, Integer.getInteger(RETRY_PROPERTY, 0));
+        }
+        return Math.max(0, retries);
+    }
+
+    private static Integer retriesOf(ChannelRetry[] annotations, String channel) {
+        Integer forAllChannels = null;
+        for (ChannelRetry annotation : annotations) {
+            if (annotation.channel().equalsIgnoreCase(channel)) {
+                return annotation.value();
+            }
+            if (annotation.channel().isEmpty()) {
+                forAllChannels = annotation.value();
+            }
+        }
+        return forAllChannels;
+    }
+
+    /**
+     * Retries used in the current run, against the budget of the run and the budgets of the channels.
+     */
+    private static class Budgets {
+
+        private final AtomicInteger used = new AtomicInteger();
+        private final Map<String, AtomicInteger> usedByChannel = new ConcurrentHashMap<>();
+
+        static Budgets get(ExtensionContext context) {
+            return context.getRoot().getStore(NAMESPACE)
+                    .getOrComputeIfAbsent(Budgets.class, key -> new Budgets(), Budgets.class);
+        }
+
+        /**
+         * Takes a retry from the budget of the run and of the channel, if both have one left.
+         */
+        boolean tryAcquire(String channel) {
+            if (!tryIncrement(used, Integer.getInteger(BUDGET_PROPERTY, DEFAULT_BUDGET))) {
+                return false;
+            }
+            Integer channelBudget = Integer.getInteger(BUDGET_PROPERTY + "." + channel);
+            if (channelBudget != null
+                    && !tryIncrement(usedByChannel.computeIfAbsent(channel, key -> new AtomicInteger()), channelBudget)) {
+                used.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        private static boolean tryIncrement(AtomicInteger counter, int limit) {
+            int current;
+            do {
+                current = counter.get();
+                if (current >= limit) {
+                    return false;
+                }
+            } while (!counter.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        /**
+         * Describes the retries used so far, by the run and by the channel.
+         */
+        String usageOf(String channel) {
+            StringBuilder usage = new StringBuilder("retries used ").append(used.get()).append(" of ")
+                    .append(Integer.getInteger(BUDGET_PROPERTY, DEFAULT_BUDGET));
+            Integer channelBudget = Integer.getInteger(BUDGET_PROPERTY + "." + channel);
+            if (channelBudget != null) {
+                AtomicInteger usedByThisChannel = usedByChannel.get(channel);
+                usage.append(", ").append(channel).append(" used ")
+                        .append(usedByThisChannel != null ? usedByThisChannel.get() : 0).append(" of ").append(channelBudget);
+            }
+            return usage.toString();
+        }
+    }
+}
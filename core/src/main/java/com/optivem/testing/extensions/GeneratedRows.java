@@ -0,0 +1,128 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.GeneratedSource;
+import com.optivem.testing.Generator;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+import org.opentest4j.TestAbortedException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Data rows of a {@link GeneratedSource @GeneratedSource}, and the shrinking of the rows that fail.
+ * <p>
+ * A single instance is created per test template, so that every channel streams the same rows from the same seed.
+ */
+class GeneratedRows {
+
+    private final GeneratedSource annotation;
+    private final Generator<Object> generator;
+    private final long seed;
+
+    @SuppressWarnings("unchecked")
+    GeneratedRows(GeneratedSource annotation) {
+        this.annotation = annotation;
+        try {
+            var constructor = annotation.generator().getDeclaredConstructor();
+            constructor.setAccessible(true);
+            this.generator = (Generator<Object>) constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to instantiate @GeneratedSource generator: "
+                    + annotation.generator().getName(), e);
+        }
+        this.seed = annotation.seed() != 0 ? annotation.seed() : ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * Streams freshly generated rows, which are the same every time for the seed of the template.
+     */
+    Stream<DataPipeline.Row> rows() {
+        Random random = new Random(seed);
+        return Stream.generate(() -> DataPipeline.Row.generated(new Object[]{generator.generate(random)}, this))
+                .limit(Math.max(0, annotation.count()));
+    }
+
+    /**
+     * Returns the extension that shrinks the generated argument at the given position of an invocation when it fails.
+     */
+    InvocationInterceptor shrinker(String channel, int position) {
+        return new InvocationInterceptor() {
+            @Override
+            public void interceptTestTemplateMethod(Invocation<Void> invocation,
+                                                    ReflectiveInvocationContext<Method> invocationContext,
+                                                    ExtensionContext extensionContext) throws Throwable {
+                try {
+                    invocation.proceed();
+                } catch (TestAbortedException e) {
+                    throw e;
+                } catch (Throwable failure) {
+                    Counterexample counterexample = shrink(failure, invocationContext.getExecutable(),
+                            invocationContext.getTarget().orElse(null), invocationContext.getArguments().toArray(), channel, position);
+                    extensionContext.publishReportEntry("shrunk", String.valueOf(counterexample.value()));
+                    throw counterexample.failure();
+                }
+            }
+        };
+    }
+
+    /**
+     * Shrinks the generated argument at the given position of a failed invocation, by invoking the test method
+     * again with smaller candidates on the current thread.
+     */
+    Counterexample shrink(Throwable failure, Method method, Object target, Object[] arguments, String channel, int position) {
+        Object[] candidateArguments = arguments.clone();
+        method.setAccessible(true);
+
+        // Greedy search: move to the first candidate that still fails, until none does or the budget is used up
+        Object smallest = candidateArguments[position];
+        Throwable smallestFailure = failure;
+        int attempts = 0;
+        int steps = 0;
+        boolean shrunk = true;
+        while (shrunk && attempts < annotation.shrinks()) {
+            shrunk = false;
+            Iterator<Object> candidates = generator.shrink(smallest).iterator();
+            while (candidates.hasNext() && attempts < annotation.shrinks()) {
+                Object candidate = candidates.next();
+                attempts++;
+                candidateArguments[position] = candidate;
+                Throwable candidateFailure = invoke(method, target, candidateArguments);
+                if (candidateFailure != null) {
+                    smallest = candidate;
+                    smallestFailure = candidateFailure;
+                    steps++;
+                    shrunk = true;
+                    break;
+                }
+            }
+        }
+
+        return new Counterexample(smallest, new AssertionError("Generated row failed on channel " + channel + " (seed "
+                + seed + "), shrunk in " + steps + " steps to: " + smallest, smallestFailure));
+    }
+
+    private static Throwable invoke(Method method, Object target, Object[] arguments) {
+        try {
+            method.invoke(target, arguments);
+            return null;
+        } catch (InvocationTargetException e) {
+            // A candidate that violates an assumption of the test does not count as failing
+            return e.getCause() instanceof TestAbortedException ? null : e.getCause();
+        } catch (IllegalAccessException | IllegalArgumentException e) {
+            // The candidate does not fit the parameter
+            return null;
+        }
+    }
+
+    /**
+     * The smallest generated value found to fail, and the failure to report for it.
+     */
+    record Counterexample(Object value, AssertionError failure) {
+    }
+}
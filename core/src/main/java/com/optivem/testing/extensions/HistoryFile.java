@@ -0,0 +1,104 @@
+package com.optivem.testing.extensions;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Properties file kept across runs, such as the invocation history or the test impact map.
+ * <p>
+ * Runs that end at the same time, e.g. parallel lanes, forks or launcher workers, update the file one after
+ * the other, under a lock of the {@code <file>.lock} file next to it, and each merges into the latest content
+ * of the file rather than into what it read when it started. The file is replaced atomically, so that a run
+ * reading it meanwhile sees either the previous or the new content, never a half-written file.
+ */
+final class HistoryFile {
+
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private HistoryFile() {
+        // Utility class with static methods
+    }
+
+    /**
+     * Reads the entries of the file, or none if it does not exist yet.
+     */
+    static Map<String, String> read(Path file, String description) {
+        Map<String, String> entries = new TreeMap<>();
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + description + ": " + file, e);
+            }
+            for (String key : properties.stringPropertyNames()) {
+                entries.put(key, properties.getProperty(key).trim());
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Lets the merge function update the latest entries of the file, and writes them back, all under the lock of the file.
+     */
+    static void update(Path file, String description, String comment, Consumer<Map<String, String>> merge) {
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            // File locks are held by the JVM, so updates of nested runs in the same JVM take turns first
+            synchronized (HistoryFile.class) {
+                Path lockFile = file.resolveSibling(file.getFileName() + LOCK_SUFFIX);
+                try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    FileLock lock = channel.lock();
+                    try {
+                        Map<String, String> entries = read(file, description);
+                        merge.accept(entries);
+                        write(file, directory, entries, comment);
+                    } finally {
+                        lock.release();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + description + ": " + file, e);
+        }
+    }
+
+    /**
+     * Returns the value of an entry as a number, or null if it is not one, e.g. in a file that was edited by hand.
+     */
+    static Long parseLong(String value) {
+        try {
+            return value != null ? Long.parseLong(value.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static void write(Path file, Path directory, Map<String, String> entries, String comment) throws IOException {
+        Properties properties = new Properties();
+        entries.forEach(properties::setProperty);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), TEMPORARY_SUFFIX);
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary)) {
+                properties.store(writer, comment);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.optivem.testing.extensions;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * History of invocation durations per test template and channel, kept in a local properties file under the
+ * {@link InvocationKeys} of the templates.
+ * <p>
+ * Recording is enabled by pointing {@code -Doptivem.history} to the history file. Durations measured
+ * in a run are merged into the file when the run ends, and are used to estimate the cost of future runs.
+ * Parallel lanes, forks and launcher workers that share the file merge their durations one after the other,
+ * see {@link HistoryFile}.
+ */
+class InvocationHistory implements ExtensionContext.Store.CloseableResource {
+
+    /**
+     * System property with the path of the history file.
+     */
+    static final String HISTORY_PROPERTY = "optivem.history";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(InvocationHistory.class);
+
+    private static final String START_KEY = "start";
+
+    private final Path file;
+    private final Map<String, Long> averageMillis;
+    private final Map<String, Measurement> measurements = new ConcurrentHashMap<>();
+
+    private InvocationHistory(Path file, Map<String, Long> averageMillis) {
+        this.file = file;
+        this.averageMillis = averageMillis;
+    }
+
+    /**
+     * Returns the history of the current run, or null if no history file has been configured.
+     */
+    static InvocationHistory get(ExtensionContext context) {
+        String path = System.getProperty(HISTORY_PROPERTY);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        return context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(InvocationHistory.class, key -> load(Path.of(path)), InvocationHistory.class);
+    }
+
+    /**
+     * Marks the start of an invocation, to be called before the test method runs.
+     */
+    static void start(ExtensionContext context) {
+        if (get(context) != null) {
+            context.getStore(NAMESPACE).put(START_KEY, System.nanoTime());
+        }
+    }
+
+    /**
+     * Records the duration of an invocation started with {@link #start(ExtensionContext)}.
+     */
+    static void finish(ExtensionContext context, String channel) {
+        InvocationHistory history = get(context);
+        Long start = context.getStore(NAMESPACE).get(START_KEY, Long.class);
+        if (history != null && start != null) {
+            String key = InvocationKeys.keyOf(context.getRequiredTestClass(), context.getRequiredTestMethod(), channel);
+            history.measurements.computeIfAbsent(key, k -> new Measurement()).add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the average duration of a single invocation of the given key, or null if it has never been recorded.
+     */
+    Long averageMillis(String key) {
+        return averageMillis.get(key);
+    }
+
+    @Override
+    public void close() {
+        if (measurements.isEmpty()) {
+            return;
+        }
+
+        HistoryFile.update(file, "invocation history", "Average invocation duration in milliseconds per test template and channel",
+                entries -> measurements.forEach((key, measurement) -> {
+                    long current = measurement.averageMillis();
+                    Long previous = HistoryFile.parseLong(entries.get(key));
+                    // Smooth with the previous average so that a single slow run does not dominate the estimate
+                    entries.put(key, String.valueOf(previous != null ? (previous + current) / 2 : current));
+                }));
+    }
+
+    private static InvocationHistory load(Path file) {
+        Map<String, Long> averageMillis = new ConcurrentHashMap<>();
+        HistoryFile.read(file, "invocation history").forEach((key, value) -> {
+            // A malformed value is left out, so that it cannot fail the tests of the run
+            Long millis = HistoryFile.parseLong(value);
+            if (millis != null) {
+                averageMillis.put(key, millis);
+            }
+        });
+        return new InvocationHistory(file, averageMillis);
+    }
+
+    /**
+     * Durations measured in the current run for a single key.
+     */
+    private static class Measurement {
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder count = new LongAdder();
+
+        void add(long nanos) {
+            totalNanos.add(nanos);
+            count.increment();
+        }
+
+        long averageMillis() {
+            return totalNanos.sum() / Math.max(1, count.sum()) / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.optivem.testing.extensions;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Keys under which the invocation history, the flakiness history and the test impact map keep test methods,
+ * such as {@code com.example.OrderTest#shouldPlaceOrder(java.lang.String)[API]}.
+ * <p>
+ * The scheduling engine and the multi-JVM launcher read the invocation history with the same keys as the
+ * extensions write it.
+ */
+public final class InvocationKeys {
+
+    private static final String FAN_OUT_SEPARATOR = "+";
+
+    private InvocationKeys() {
+        // Utility class with static methods
+    }
+
+    /**
+     * Returns the key of a test template and channel. The parameter types keep overloaded templates apart.
+     * @param testClass the class the test runs in, which may inherit the template
+     * @param testMethod the test template
+     * @param channel the channel, or the joined channels of a fan-out template
+     * @return the key of the template and channel
+     */
+    public static String keyOf(Class<?> testClass, Method testMethod, String channel) {
+        return keyOf(testClass, testMethod) + "[" + channel + "]";
+    }
+
+    /**
+     * Returns the key of a test method regardless of channels, such as the key of a plain test.
+     * @param testClass the class the test runs in, which may inherit the method
+     * @param testMethod the test method
+     * @return the key of the method
+     */
+    public static String keyOf(Class<?> testClass, Method testMethod) {
+        return testClass.getName() + "#" + signatureOf(testMethod);
+    }
+
+    /**
+     * Returns the channel under which the invocations of a fan-out template are kept, since each of them runs
+     * on all of its channels, such as {@code API+UI}.
+     * @param channels the channels of the fan-out template
+     * @return the joined channels
+     */
+    public static String fanOutChannelOf(String... channels) {
+        return String.join(FAN_OUT_SEPARATOR, channels);
+    }
+
+    /**
+     * Returns the method name and parameter type names, such as {@code shouldPlaceOrder(java.lang.String)}.
+     * @param method the test method
+     * @return the signature of the method
+     */
+    public static String signatureOf(Method method) {
+        return method.getName() + "("
+                + Arrays.stream(method.getParameterTypes()).map(Class::getTypeName).collect(Collectors.joining(",")) + ")";
+    }
+}
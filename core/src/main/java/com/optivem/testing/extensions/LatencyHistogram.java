@@ -0,0 +1,77 @@
+package com.optivem.testing.extensions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds with a fixed size, shared by the virtual users of a load invocation.
+ * <p>
+ * Latencies below {@value #SUB_BUCKETS} nanoseconds are counted exactly. Larger latencies are counted in buckets of
+ * {@value #SUB_BUCKETS} per power of two, so percentiles are at most about 3% above the recorded latency, however long
+ * the load runs. The maximum is kept exactly.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a single latency.
+     */
+    void record(long latencyNanos) {
+        long latency = Math.max(0, latencyNanos);
+        counts.incrementAndGet(indexOf(latency));
+        count.incrementAndGet();
+        max.accumulateAndGet(latency, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     */
+    long count() {
+        return count.get();
+    }
+
+    /**
+     * Returns the latency below or at which the given percentage of the recorded latencies lie, 0 if none were recorded.
+     */
+    long valueAtPercentile(double percentile) {
+        long total = count.get();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int index = 0; index < counts.length(); index++) {
+            seen += counts.get(index);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(index), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private static int indexOf(long latency) {
+        if (latency < SUB_BUCKETS) {
+            return (int) latency;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(latency);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (latency >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lowest = (SUB_BUCKETS + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,266 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.LoadProfile;
+import com.optivem.testing.contexts.ChannelContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.junit.platform.commons.support.HierarchyTraversalMode;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Extension that turns a channel invocation into a load test according to its {@link LoadProfile}.
+ * The test body is invoked repeatedly by concurrent virtual users, each on its own test instance,
+ * and the collected latencies are checked against the service level objectives of the profile.
+ */
+class LoadExtension implements InvocationInterceptor {
+
+    /**
+     * System property that enables load mode.
+     */
+    static final String LOAD_PROPERTY = "optivem.load";
+
+    private final LoadProfile profile;
+    private final String channel;
+
+    LoadExtension(LoadProfile profile, String channel) {
+        this.profile = profile;
+        this.channel = channel;
+    }
+
+    /**
+     * Returns whether load mode has been enabled for this run.
+     */
+    static boolean isEnabled() {
+        return Boolean.getBoolean(LOAD_PROPERTY);
+    }
+
+    @Override
+    public void interceptTestTemplateMethod(Invocation<Void> invocation,
+                                            ReflectiveInvocationContext<Method> invocationContext,
+                                            ExtensionContext extensionContext) throws Throwable {
+        invocation.skip();
+
+        Method method = invocationContext.getExecutable();
+        Object target = invocationContext.getTarget().orElse(null);
+        Object[] arguments = invocationContext.getArguments().toArray();
+        method.setAccessible(true);
+
+        int users = Math.max(1, profile.users());
+        Fixture fixture = users > 1 ? Fixture.of(extensionContext.getRequiredTestClass()) : null;
+        long durationNanos = Duration.parse(profile.duration()).toNanos();
+        long rampUpNanos = Duration.parse(profile.rampUp()).toNanos();
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+
+        LoadResult result = new LoadResult();
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < users; user++) {
+                long userStart = start + rampUpNanos * user / users;
+                // The first user runs on the test instance of the invocation, the others on instances of their own
+                boolean ownInstance = user > 0;
+                futures.add(executor.submit(() -> {
+                    runUser(method, target, arguments, userStart, end, result, ownInstance ? fixture : null);
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+        result.elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        extensionContext.publishReportEntry(result.toReportEntry(channel));
+
+        List<String> breaches = result.breaches(profile);
+        if (!breaches.isEmpty()) {
+            throw new AssertionError("Load profile breached on channel " + channel + ": "
+                    + String.join("; ", breaches), result.firstError.get());
+        }
+    }
+
+    private void runUser(Method method, Object sharedTarget, Object[] arguments, long userStart, long end,
+                         LoadResult result, Fixture fixture) throws Exception {
+        long delay = userStart - System.nanoTime();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+
+        ChannelContext.set(channel);
+        Object target = fixture != null ? fixture.setUp() : sharedTarget;
+        try {
+            while (System.nanoTime() < end) {
+                long invocationStart = System.nanoTime();
+                Throwable error = null;
+                try {
+                    method.invoke(target, arguments);
+                } catch (Exception e) {
+                    error = e.getCause() != null ? e.getCause() : e;
+                }
+                result.record(System.nanoTime() - invocationStart, error);
+            }
+        } finally {
+            ChannelContext.clear();
+            if (fixture != null) {
+                fixture.tearDown(target);
+            }
+        }
+    }
+
+    /**
+     * Creates and sets up the test instances of the virtual users after the first one.
+     * Only the {@code @BeforeEach}/{@code @AfterEach} methods of the class are run for them, so the class must
+     * not rely on lifecycle methods with parameters.
+     */
+    private record Fixture(Constructor<?> constructor, List<Method> beforeMethods, List<Method> afterMethods) {
+
+        static Fixture of(Class<?> testClass) {
+            Constructor<?> constructor;
+            try {
+                constructor = testClass.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Load profiles with several users need a no-argument constructor, "
+                        + "so that every user gets its own test instance: " + testClass.getName(), e);
+            }
+            List<Method> beforeMethods = AnnotationSupport.findAnnotatedMethods(testClass, BeforeEach.class,
+                    HierarchyTraversalMode.TOP_DOWN);
+            List<Method> afterMethods = AnnotationSupport.findAnnotatedMethods(testClass, AfterEach.class,
+                    HierarchyTraversalMode.BOTTOM_UP);
+            for (Method method : concat(beforeMethods, afterMethods)) {
+                if (method.getParameterCount() > 0) {
+                    throw new IllegalStateException("Load profiles with several users cannot set up the test instances "
+                            + "of the users with lifecycle methods that take parameters: " + method);
+                }
+                method.setAccessible(true);
+            }
+            return new Fixture(constructor, beforeMethods, afterMethods);
+        }
+
+        Object setUp() throws Exception {
+            Object instance = invoke(() -> constructor.newInstance());
+            for (Method method : beforeMethods) {
+                invoke(() -> method.invoke(instance));
+            }
+            return instance;
+        }
+
+        void tearDown(Object instance) throws Exception {
+            for (Method method : afterMethods) {
+                invoke(() -> method.invoke(instance));
+            }
+        }
+
+        private static List<Method> concat(List<Method> first, List<Method> second) {
+            List<Method> all = new ArrayList<>(first);
+            all.addAll(second);
+            return all;
+        }
+
+        private static Object invoke(Callable<Object> call) throws Exception {
+            try {
+                return call.call();
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+    }
+
+    /**
+     * Aggregated result of all virtual users of an invocation. The latencies are kept in a histogram of a fixed
+     * size, so long load runs do not grow the heap.
+     */
+    static class LoadResult {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+        private double elapsedSeconds;
+
+        /**
+         * Records a single invocation, with the error it failed with, or null if it passed.
+         */
+        void record(long latencyNanos, Throwable error) {
+            latencies.record(latencyNanos);
+            if (error != null) {
+                errors.increment();
+                firstError.compareAndSet(null, error);
+            }
+        }
+
+        long count() {
+            return latencies.count();
+        }
+
+        double throughput() {
+            return elapsedSeconds > 0 ? count() / elapsedSeconds : 0;
+        }
+
+        double errorRate() {
+            return count() > 0 ? (double) errors.sum() / count() : 0;
+        }
+
+        long percentileMillis(double percentile) {
+            return TimeUnit.NANOSECONDS.toMillis(latencies.valueAtPercentile(percentile));
+        }
+
+        List<String> breaches(LoadProfile profile) {
+            List<String> breaches = new ArrayList<>();
+            if (count() == 0) {
+                breaches.add("no invocations completed");
+            }
+            if (profile.maxP95Millis() > 0 && percentileMillis(95) > profile.maxP95Millis()) {
+                breaches.add("p95 " + percentileMillis(95) + "ms > " + profile.maxP95Millis() + "ms");
+            }
+            if (profile.maxP99Millis() > 0 && percentileMillis(99) > profile.maxP99Millis()) {
+                breaches.add("p99 " + percentileMillis(99) + "ms > " + profile.maxP99Millis() + "ms");
+            }
+            if (profile.minThroughput() > 0 && throughput() < profile.minThroughput()) {
+                breaches.add(String.format("throughput %.2f/s < %.2f/s", throughput(), profile.minThroughput()));
+            }
+            if (errorRate() > profile.maxErrorRate()) {
+                breaches.add(String.format("error rate %.4f > %.4f", errorRate(), profile.maxErrorRate()));
+            }
+            return breaches;
+        }
+
+        Map<String, String> toReportEntry(String channel) {
+            Map<String, String> entry = new LinkedHashMap<>();
+            entry.put("load.channel", channel);
+            entry.put("load.invocations", String.valueOf(count()));
+            entry.put("load.errors", String.valueOf(errors.sum()));
+            entry.put("load.throughput", String.format("%.2f/s", throughput()));
+            entry.put("load.p50", percentileMillis(50) + "ms");
+            entry.put("load.p95", percentileMillis(95) + "ms");
+            entry.put("load.p99", percentileMillis(99) + "ms");
+            entry.put("load.max", percentileMillis(100) + "ms");
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.Channel;
+import org.junit.platform.engine.FilterResult;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.PostDiscoveryFilter;
+
+/**
+ * Discovery filter that leaves the tests without {@code @Channel} out of a run with
+ * {@code -Doptivem.plainTests=skip}.
+ * <p>
+ * Plain tests do not depend on a channel, so when a suite is split into a lane per channel, only one of the lanes
+ * needs to run them. The filter is registered with the JUnit Platform launcher through the service loader, and
+ * includes everything unless the property is set.
+ */
+public class PlainTestFilter implements PostDiscoveryFilter {
+
+    /**
+     * System property selecting whether plain tests are run: {@code run} (default) or {@code skip}.
+     */
+    static final String PLAIN_TESTS_PROPERTY = "optivem.plainTests";
+
+    /**
+     * Creates a new PlainTestFilter.
+     */
+    public PlainTestFilter() {
+        // Instantiated by the JUnit Platform launcher through the service loader
+    }
+
+    @Override
+    public FilterResult apply(TestDescriptor descriptor) {
+        if (!"skip".equalsIgnoreCase(System.getProperty(PLAIN_TESTS_PROPERTY))
+                || !(descriptor.getSource().orElse(null) instanceof MethodSource source)) {
+            return FilterResult.included("Not a test method to filter");
+        }
+        return source.getJavaMethod().isAnnotationPresent(Channel.class)
+                ? FilterResult.included("Channel test")
+                : FilterResult.excluded("Plain test, runs in another lane");
+    }
+}
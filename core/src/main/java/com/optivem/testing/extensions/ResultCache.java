@@ -0,0 +1,297 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.SutFingerprintProvider;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.jupiter.api.extension.ReflectiveInvocationContext;
+import org.junit.jupiter.api.extension.TestWatcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalAmount;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local directory cache of passed invocations, keyed by everything that can change their result.
+ * <p>
+ * The cache is enabled with {@code -Doptivem.cache=<directory>}. The key of an invocation is the hash of the
+ * bytecode of the test class and its superclasses, the test method, the data row, the channel and the
+ * fingerprints of the system under test supplied by the {@link SutFingerprintProvider} services.
+ * Invocations whose key is found are reported as cached passes without running, and invocations that
+ * pass are added to the cache.
+ * <p>
+ * Data rows are keyed by the type and string form of their values, which is only stable across runs for
+ * values such as strings, numbers, enums, {@code java.time} values and UUIDs, and for arrays, lists and records
+ * of these. Other values, e.g. objects whose {@code toString} contains an identity hash, leave the invocation
+ * uncached.
+ */
+class ResultCache {
+
+    /**
+     * System property with the directory of the cache.
+     */
+    static final String CACHE_PROPERTY = "optivem.cache";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(ResultCache.class);
+
+    private static final Set<Class<?>> STABLE_TYPES = Set.of(String.class, Boolean.class, Character.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+            BigInteger.class, BigDecimal.class, UUID.class);
+
+    private static final ClassValue<Optional<String>> BYTECODE_HASHES = new ClassValue<>() {
+        @Override
+        protected Optional<String> computeValue(Class<?> type) {
+            String fileName = type.getName().substring(type.getName().lastIndexOf('.') + 1) + ".class";
+            try (InputStream input = type.getResourceAsStream(fileName)) {
+                return input != null ? Optional.of(hash(input.readAllBytes())) : Optional.empty();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read bytecode of " + type.getName(), e);
+            }
+        }
+    };
+
+    private final Path directory;
+    private final List<SutFingerprintProvider> providers;
+    private final Map<String, Optional<String>> fingerprints = new ConcurrentHashMap<>();
+
+    ResultCache(Path directory, List<SutFingerprintProvider> providers) {
+        this.directory = directory;
+        this.providers = providers;
+    }
+
+    /**
+     * Returns whether the result cache has been enabled for this run.
+     */
+    static boolean isEnabled() {
+        String directory = System.getProperty(CACHE_PROPERTY);
+        return directory != null && !directory.isEmpty();
+    }
+
+    /**
+     * Returns the result cache of the current run.
+     */
+    static ResultCache get(ExtensionContext context) {
+        return context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(ResultCache.class, key -> create(), ResultCache.class);
+    }
+
+    /**
+     * Returns the cache key of an invocation, or null if the invocation cannot be cached.
+     */
+    String keyOf(Class<?> testClass, Method testMethod, String channel, Object[] dataRow) {
+        StringBuilder input = new StringBuilder();
+        for (Class<?> type = testClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            Optional<String> bytecodeHash = BYTECODE_HASHES.get(type);
+            if (bytecodeHash.isEmpty()) {
+                return null;
+            }
+            input.append(type.getName()).append('=').append(bytecodeHash.get()).append('\n');
+        }
+
+        // The system under test is fingerprinted once per channel and run
+        Optional<String> fingerprint = fingerprints.computeIfAbsent(channel, this::fingerprint);
+        if (fingerprint.isEmpty()) {
+            return null;
+        }
+
+        input.append(testMethod.toGenericString()).append('\n')
+                .append(channel).append('\n');
+        if (dataRow != null && !appendStable(input, dataRow)) {
+            return null;
+        }
+        input.append('\n').append(fingerprint.get());
+        return hash(input.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Appends a value of a data row with its type and length, so that no two rows share a key, or returns false
+     * if the value has no string form that is stable across runs.
+     */
+    private static boolean appendStable(StringBuilder input, Object value) {
+        if (value == null) {
+            input.append("null;");
+            return true;
+        }
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            int length = Array.getLength(value);
+            input.append('[').append(length).append(';');
+            for (int i = 0; i < length; i++) {
+                if (!appendStable(input, Array.get(value, i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof List<?> list) {
+            input.append("List").append(list.size()).append(';');
+            for (Object element : list) {
+                if (!appendStable(input, element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (type.isRecord()) {
+            input.append(type.getName()).append('(');
+            for (RecordComponent component : type.getRecordComponents()) {
+                try {
+                    Method accessor = component.getAccessor();
+                    accessor.setAccessible(true);
+                    if (!appendStable(input, accessor.invoke(value))) {
+                        return false;
+                    }
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    return false;
+                }
+            }
+            input.append(')');
+            return true;
+        }
+        if (!isStable(value)) {
+            return false;
+        }
+        String text = value instanceof Enum<?> constant ? constant.name() : value.toString();
+        input.append(type.getName()).append(':').append(text.length()).append(':').append(text).append(';');
+        return true;
+    }
+
+    private static boolean isStable(Object value) {
+        return STABLE_TYPES.contains(value.getClass())
+                || value instanceof Enum<?>
+                || (value instanceof TemporalAccessor || value instanceof TemporalAmount)
+                && value.getClass().getName().startsWith("java.time.");
+    }
+
+    /**
+     * Returns whether an invocation with the given key has passed before.
+     */
+    boolean contains(String key) {
+        return Files.exists(fileOf(key));
+    }
+
+    /**
+     * Adds a passed invocation to the cache.
+     */
+    void put(String key, String displayName) {
+        Path file = fileOf(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, displayName + "\n" + Instant.now() + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write result cache entry: " + file, e);
+        }
+    }
+
+    private Path fileOf(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private Optional<String> fingerprint(String channel) {
+        StringBuilder combined = new StringBuilder();
+        for (SutFingerprintProvider provider : providers) {
+            String fingerprint = provider.fingerprint(channel);
+            if (fingerprint == null) {
+                return Optional.empty();
+            }
+            combined.append(provider.getClass().getName()).append('=').append(fingerprint).append('\n');
+        }
+        return Optional.of(combined.toString());
+    }
+
+    private static ResultCache create() {
+        List<SutFingerprintProvider> providers = new ArrayList<>();
+        ServiceLoader.load(SutFingerprintProvider.class).forEach(providers::add);
+        if (providers.isEmpty()) {
+            throw new IllegalStateException("The result cache requires a " + SutFingerprintProvider.class.getName()
+                    + " service, since cached results are only valid for an unchanged system under test");
+        }
+        providers.sort(Comparator.comparing(provider -> provider.getClass().getName()));
+        return new ResultCache(Path.of(System.getProperty(CACHE_PROPERTY)), providers);
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Adds the invocation to the cache when it passes.
+     */
+    static class PassRecorder implements TestWatcher {
+
+        private final String key;
+
+        PassRecorder(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void testSuccessful(ExtensionContext context) {
+            // A pass that needed a retry is flaky, and has to run again next time
+            if (!FlakyRetry.passedOnRetry(context)) {
+                get(context).put(key, context.getDisplayName());
+            }
+        }
+    }
+
+    /**
+     * Reports a cached pass instead of running the invocation and its {@code @BeforeEach}/{@code @AfterEach} methods.
+     */
+    static class CachedPass implements InvocationInterceptor {
+
+        private final String key;
+
+        CachedPass(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void interceptBeforeEachMethod(Invocation<Void> invocation,
+                                              ReflectiveInvocationContext<Method> invocationContext,
+                                              ExtensionContext extensionContext) {
+            invocation.skip();
+        }
+
+        @Override
+        public void interceptTestTemplateMethod(Invocation<Void> invocation,
+                                                ReflectiveInvocationContext<Method> invocationContext,
+                                                ExtensionContext extensionContext) {
+            invocation.skip();
+            extensionContext.publishReportEntry("cache", "cached pass " + key);
+        }
+
+        @Override
+        public void interceptAfterEachMethod(Invocation<Void> invocation,
+                                             ReflectiveInvocationContext<Method> invocationContext,
+                                             ExtensionContext extensionContext) {
+            invocation.skip();
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.optivem.testing.extensions;
+
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Map of the classes covered by each test template and channel, used to run only the invocations
+ * affected by a change.
+ * <p>
+ * With {@code -Doptivem.impact=record}, the coverage of every invocation is read from the JaCoCo agent
+ * and saved to {@code -Doptivem.impact.file} (default {@value #DEFAULT_IMPACT_FILE}) when the run ends.
+ * Since the agent collects coverage for the whole JVM, recording runs the invocations one at a time.
+ * Parallel lanes that record at the same time merge their coverage into the map one after the other,
+ * see {@link HistoryFile}.
+ * <p>
+ * With {@code -Doptivem.impact=select}, the files changed since {@code -Doptivem.impact.base} (default
+ * {@code HEAD}) are taken from {@code git diff}, together with the untracked files, and only the invocations
+ * covering a changed class, declared in a changed test class or not recorded yet are run. Changes to resources
+ * or build scripts select all invocations.
+ * <p>
+ * Only the coverage of the test JVM is recorded. Acceptance tests that drive a system under test running in
+ * another process, e.g. through its API or UI, are mapped to the test classes, drivers and clients they run,
+ * but never to the production classes of that system. Changes to the system under test only select these
+ * tests if the test run also attaches the agent to the system under test and merges its coverage, which is not
+ * supported; run all tests for such changes instead.
+ */
+class TestImpact implements ExtensionContext.Store.CloseableResource {
+
+    /**
+     * System property with the impact mode, either {@value #RECORD} or {@value #SELECT}.
+     */
+    static final String IMPACT_PROPERTY = "optivem.impact";
+
+    /**
+     * System property with the path of the impact map.
+     */
+    static final String IMPACT_FILE_PROPERTY = "optivem.impact.file";
+
+    /**
+     * System property with the git revision that changes are selected against.
+     */
+    static final String BASE_PROPERTY = "optivem.impact.base";
+
+    static final String RECORD = "record";
+    static final String SELECT = "select";
+    static final String DEFAULT_IMPACT_FILE = "build/optivem-impact.properties";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(TestImpact.class);
+
+    private static final String RECORDING_KEY = "recording";
+
+    // Block types of the JaCoCo execution data format
+    private static final int BLOCK_HEADER = 0x01;
+    private static final int BLOCK_SESSION_INFO = 0x10;
+    private static final int BLOCK_EXECUTION_DATA = 0x11;
+
+    private static final Pattern SOURCE_FILE = Pattern.compile("(?:^|/)src/[^/]+/(?:java|kotlin|groovy)/(.+)\\.(?:java|kt|groovy)$");
+    private static final Set<String> BUILD_FILES = Set.of("build.gradle", "build.gradle.kts", "settings.gradle",
+            "settings.gradle.kts", "gradle.properties", "pom.xml");
+
+    // Coverage is collected for the whole JVM, so only one invocation can be recorded at a time
+    private static final ReentrantLock RECORDING_LOCK = new ReentrantLock();
+
+    private final Path file;
+    private final Map<String, Set<String>> coveredClasses;
+    private final Map<String, Set<String>> recorded = new ConcurrentHashMap<>();
+    private final Set<String> changedClasses;
+
+    TestImpact(Path file, Map<String, Set<String>> coveredClasses, Set<String> changedClasses) {
+        this.file = file;
+        this.coveredClasses = coveredClasses;
+        this.changedClasses = changedClasses;
+    }
+
+    /**
+     * Returns whether the coverage of the invocations is recorded in this run.
+     */
+    static boolean isRecording() {
+        return RECORD.equalsIgnoreCase(System.getProperty(IMPACT_PROPERTY));
+    }
+
+    /**
+     * Returns whether only the invocations affected by the changes are selected in this run.
+     */
+    static boolean isSelecting() {
+        return SELECT.equalsIgnoreCase(System.getProperty(IMPACT_PROPERTY));
+    }
+
+    /**
+     * Returns the impact map of the current run.
+     */
+    static TestImpact get(ExtensionContext context) {
+        return context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(TestImpact.class, key -> load(), TestImpact.class);
+    }
+
+    /**
+     * Starts recording the coverage of an invocation, to be called before the test method runs.
+     */
+    static void start(ExtensionContext context) {
+        if (!isRecording()) {
+            return;
+        }
+        get(context);
+        RECORDING_LOCK.lock();
+        context.getStore(NAMESPACE).put(RECORDING_KEY, Boolean.TRUE);
+        invokeAgent("reset");
+    }
+
+    /**
+     * Records the classes covered by an invocation started with {@link #start(ExtensionContext)}.
+     */
+    static void finish(ExtensionContext context, String channel) {
+        if (context.getStore(NAMESPACE).remove(RECORDING_KEY, Boolean.class) == null) {
+            return;
+        }
+        try {
+            byte[] executionData = (byte[]) invokeAgent("getExecutionData", false);
+            String key = InvocationKeys.keyOf(context.getRequiredTestClass(), context.getRequiredTestMethod(), channel);
+            get(context).record(key, coveredClassesOf(executionData));
+        } finally {
+            RECORDING_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Records classes covered by the invocations of a test template and channel in this run.
+     */
+    void record(String key, Set<String> classes) {
+        recorded.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).addAll(classes);
+    }
+
+    /**
+     * Returns whether the invocations of a test template for one channel are affected by the changes.
+     */
+    boolean isAffected(Class<?> testClass, Method testMethod, String channel) {
+        if (changedClasses == null) {
+            return true;
+        }
+        for (Class<?> type = testClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            if (changedClasses.contains(topLevelNameOf(type.getName()))) {
+                return true;
+            }
+        }
+        Set<String> covered = coveredClasses.get(InvocationKeys.keyOf(testClass, testMethod, channel));
+        return covered == null || covered.stream().anyMatch(changedClasses::contains);
+    }
+
+    /**
+     * Returns the revision that changes are selected against.
+     */
+    String base() {
+        return System.getProperty(BASE_PROPERTY, "HEAD");
+    }
+
+    @Override
+    public void close() {
+        if (recorded.isEmpty()) {
+            return;
+        }
+
+        // Lanes recording at the same time each replace only the coverage of the invocations they ran
+        HistoryFile.update(file, "test impact map", "Classes covered per test template and channel",
+                entries -> recorded.forEach((key, classes) -> entries.put(key, String.join(",", new TreeSet<>(classes)))));
+    }
+
+    private static TestImpact load() {
+        Path file = Path.of(System.getProperty(IMPACT_FILE_PROPERTY, DEFAULT_IMPACT_FILE));
+        Map<String, Set<String>> coveredClasses = new ConcurrentHashMap<>();
+        HistoryFile.read(file, "test impact map").forEach((key, classes) ->
+                coveredClasses.put(key, classes.isEmpty() ? Set.of() : Set.of(classes.split(","))));
+        Set<String> changedClasses = isSelecting()
+                ? changedClassesSince(System.getProperty(BASE_PROPERTY, "HEAD"))
+                : null;
+        return new TestImpact(file, coveredClasses, changedClasses);
+    }
+
+    /**
+     * Returns the top-level classes whose sources changed since the given revision,
+     * or null if a change may affect any class.
+     */
+    private static Set<String> changedClassesSince(String base) {
+        Set<String> changedFiles = new TreeSet<>(git("diff", "--name-only", base));
+        changedFiles.addAll(git("ls-files", "--others", "--exclude-standard"));
+        return changedClassesOf(changedFiles);
+    }
+
+    /**
+     * Returns the top-level classes of the given changed files, or null if a change may affect any class.
+     */
+    static Set<String> changedClassesOf(Set<String> changedFiles) {
+        Set<String> changedClasses = new HashSet<>();
+        for (String path : changedFiles) {
+            Matcher matcher = SOURCE_FILE.matcher(path);
+            if (matcher.find()) {
+                changedClasses.add(matcher.group(1).replace('/', '.'));
+            } else if (path.startsWith("src/") || path.contains("/src/")
+                    || BUILD_FILES.contains(path.substring(path.lastIndexOf('/') + 1))) {
+                return null;
+            }
+        }
+        return changedClasses;
+    }
+
+    private static Set<String> git(String... arguments) {
+        String command = "git " + String.join(" ", arguments);
+        try {
+            Process process = new ProcessBuilder(Stream.concat(Stream.of("git"), Arrays.stream(arguments)).toList())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            Set<String> files = new TreeSet<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        files.add(line.trim());
+                    }
+                }
+            }
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IllegalStateException(command + " failed with exit code " + exitCode);
+            }
+            return files;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to run " + command, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running " + command, e);
+        }
+    }
+
+    /**
+     * Calls the JaCoCo agent of this JVM through its runtime API, which is only available when the agent is attached.
+     */
+    private static Object invokeAgent(String methodName, Object... arguments) {
+        try {
+            Object agent = Class.forName("org.jacoco.agent.rt.RT").getMethod("getAgent").invoke(null);
+            Class<?>[] parameterTypes = Arrays.stream(arguments).map(argument -> boolean.class).toArray(Class<?>[]::new);
+            return Class.forName("org.jacoco.agent.rt.IAgent").getMethod(methodName, parameterTypes).invoke(agent, arguments);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Recording test impact requires the JaCoCo agent, e.g. the Gradle jacoco plugin", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("JaCoCo agent call " + methodName + " failed", e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to call JaCoCo agent: " + methodName, e);
+        }
+    }
+
+    /**
+     * Reads the top-level classes with at least one executed probe from JaCoCo execution data.
+     */
+    static Set<String> coveredClassesOf(byte[] executionData) {
+        Set<String> classes = new TreeSet<>();
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(executionData))) {
+            int blockType;
+            while ((blockType = input.read()) != -1) {
+                switch (blockType) {
+                    case BLOCK_HEADER -> {
+                        input.readChar();
+                        input.readChar();
+                    }
+                    case BLOCK_SESSION_INFO -> {
+                        input.readUTF();
+                        input.readLong();
+                        input.readLong();
+                    }
+                    case BLOCK_EXECUTION_DATA -> {
+                        input.readLong();
+                        String name = input.readUTF();
+                        if (readProbes(input)) {
+                            classes.add(topLevelNameOf(name.replace('/', '.')));
+                        }
+                    }
+                    default -> throw new IllegalStateException("Unknown JaCoCo execution data block: " + blockType);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read JaCoCo execution data", e);
+        }
+        return classes;
+    }
+
+    /**
+     * Reads a packed probe array and returns whether any of the probes was executed.
+     */
+    private static boolean readProbes(DataInputStream input) throws IOException {
+        int length = readVarInt(input);
+        boolean executed = false;
+        for (int i = 0; i < (length + 7) / 8; i++) {
+            executed |= input.readByte() != 0;
+        }
+        return executed;
+    }
+
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private static String topLevelNameOf(String className) {
+        int nested = className.indexOf('$');
+        return nested >= 0 ? className.substring(0, nested) : className;
+    }
+}
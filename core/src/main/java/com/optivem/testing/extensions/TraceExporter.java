@@ -0,0 +1,170 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.contexts.InvocationTrace;
+import com.optivem.testing.contexts.Span;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exporter of the traces of channel invocations to a local file, in the OpenTelemetry OTLP/JSON file format.
+ * <p>
+ * Export is enabled by pointing {@code -Doptivem.trace} to the file. Every invocation is written as one line
+ * holding an OTLP trace export request, with a span for the invocation and the spans timed inside it, so the file
+ * can be loaded by an OpenTelemetry collector's file receiver or any tool that reads OTLP JSON lines. Every attempt
+ * of a retried invocation has a trace and a line of its own, told apart by the {@code test.attempt} attribute.
+ * <p>
+ * Lines are appended to the file, so parallel lanes and forked test JVMs can share it. Each line is written
+ * under a lock on the file, so that the lines of different processes never interleave.
+ */
+class TraceExporter implements ExtensionContext.Store.CloseableResource {
+
+    /**
+     * System property with the path of the trace file.
+     */
+    static final String TRACE_PROPERTY = "optivem.trace";
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(TraceExporter.class);
+
+    private static final int STATUS_OK = 1;
+    private static final int STATUS_ERROR = 2;
+    private static final int KIND_INTERNAL = 1;
+
+    private final Path file;
+    private FileChannel channel;
+
+    private TraceExporter(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the exporter of the current run, or null if no trace file has been configured.
+     */
+    static TraceExporter get(ExtensionContext context) {
+        String path = System.getProperty(TRACE_PROPERTY);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        return context.getRoot().getStore(NAMESPACE)
+                .getOrComputeIfAbsent(TraceExporter.class, key -> new TraceExporter(Path.of(path)), TraceExporter.class);
+    }
+
+    /**
+     * Exports the trace of an invocation that has just ended, if a trace file has been configured.
+     */
+    static void finish(ExtensionContext context, String channel, InvocationTrace trace) {
+        finish(context, channel, trace, context.getExecutionException().orElse(null));
+    }
+
+    /**
+     * Exports the trace of an invocation, or of an attempt of it that failed and is about to be retried, with its
+     * failure, or null if it passed.
+     */
+    static void finish(ExtensionContext context, String channel, InvocationTrace trace, Throwable failure) {
+        TraceExporter exporter = get(context);
+        if (exporter == null || trace == null) {
+            return;
+        }
+        Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put("test.class", context.getRequiredTestClass().getName());
+        attributes.put("test.method", context.getRequiredTestMethod().getName());
+        attributes.put("test.channel", channel);
+        attributes.put("test.attempt", String.valueOf(trace.attempt()));
+        if (failure != null) {
+            attributes.put("test.failure", String.valueOf(failure));
+        }
+        exporter.export(context.getDisplayName(), attributes, trace, failure != null);
+    }
+
+    private synchronized void export(String name, Map<String, String> attributes, InvocationTrace trace, boolean failed) {
+        StringBuilder spans = new StringBuilder();
+        appendSpan(spans, trace.correlationId(), trace.rootSpanId(), null, name,
+                trace.startEpochNanos(), epochNanos(), attributes, failed);
+        List<Span> finishedSpans = trace.finishedSpans();
+        for (Span span : finishedSpans) {
+            spans.append(',');
+            appendSpan(spans, trace.correlationId(), span.spanId(), span.parentSpanId(), span.name(),
+                    span.startEpochNanos(), span.endEpochNanos(), span.attributes(), span.isFailed());
+        }
+
+        String line = "{\"resourceSpans\":[{\"resource\":{\"attributes\":["
+                + attribute("service.name", "optivem-testing")
+                + "]},\"scopeSpans\":[{\"scope\":{\"name\":\"com.optivem.testing\"},\"spans\":["
+                + spans
+                + "]}]}]}\n";
+        try {
+            if (channel == null) {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            // Written straight to the file, so that the traces of a run that crashes are kept
+            ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            // File locks are held by the JVM, so exporters of nested runs in the same JVM take turns first
+            synchronized (TraceExporter.class) {
+                FileLock lock = channel.lock();
+                try {
+                    while (bytes.hasRemaining()) {
+                        channel.write(bytes);
+                    }
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write trace: " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private static void appendSpan(StringBuilder json, String traceId, String spanId, String parentSpanId, String name,
+                                   long startEpochNanos, long endEpochNanos, Map<String, String> attributes,
+                                   boolean failed) {
+        json.append("{\"traceId\":\"").append(traceId)
+                .append("\",\"spanId\":\"").append(spanId).append('"');
+        if (parentSpanId != null) {
+            json.append(",\"parentSpanId\":\"").append(parentSpanId).append('"');
+        }
+        json.append(",\"name\":").append(ExecutionPlan.quote(name))
+                .append(",\"kind\":").append(KIND_INTERNAL)
+                .append(",\"startTimeUnixNano\":\"").append(startEpochNanos)
+                .append("\",\"endTimeUnixNano\":\"").append(endEpochNanos)
+                .append("\",\"attributes\":[");
+        boolean first = true;
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            json.append(first ? "" : ",").append(attribute(attribute.getKey(), attribute.getValue()));
+            first = false;
+        }
+        json.append("],\"status\":{\"code\":").append(failed ? STATUS_ERROR : STATUS_OK).append("}}");
+    }
+
+    private static String attribute(String key, String value) {
+        return "{\"key\":" + ExecutionPlan.quote(key) + ",\"value\":{\"stringValue\":" + ExecutionPlan.quote(value) + "}}";
+    }
+
+    private static long epochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+}
@@ -0,0 +1,163 @@
+package com.optivem.testing.journal;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Command line tool that exports event journals to CSV or JSON, for spreadsheets and analysis scripts.
+ * <p>
+ * Usage: {@code java -cp optivem-testing.jar com.optivem.testing.journal.JournalExport
+ * [--format csv|json] [--output <file>] <journal>...}
+ * <p>
+ * The records of several journals, e.g. the journals of parallel lanes, are exported one journal after the other.
+ * Without {@code --output}, the export is written to standard output.
+ */
+public final class JournalExport {
+
+    private static final String CSV_HEADER = "type,run,invocation,test,channel,rowIndex,epochNanos,outcome,"
+            + "attempts,setupNanos,bodyNanos,teardownNanos,totalNanos,threadId";
+
+    private JournalExport() {
+    }
+
+    /**
+     * Writes records as CSV, with a header line.
+     * @param records the records
+     * @param out where to write the CSV
+     * @throws IOException if writing fails
+     */
+    public static void writeCsv(Stream<JournalRecord> records, Appendable out) throws IOException {
+        out.append(CSV_HEADER).append('\n');
+        Iterator<JournalRecord> iterator = records.iterator();
+        while (iterator.hasNext()) {
+            JournalRecord record = iterator.next();
+            out.append(record.type().name()).append(',')
+                    .append(String.valueOf(record.run())).append(',')
+                    .append(String.valueOf(record.invocation())).append(',')
+                    .append(csv(record.test())).append(',')
+                    .append(csv(record.channel())).append(',')
+                    .append(String.valueOf(record.rowIndex())).append(',')
+                    .append(String.valueOf(record.epochNanos())).append(',')
+                    .append(record.outcome().name()).append(',')
+                    .append(String.valueOf(record.attempts())).append(',')
+                    .append(String.valueOf(record.setupNanos())).append(',')
+                    .append(String.valueOf(record.bodyNanos())).append(',')
+                    .append(String.valueOf(record.teardownNanos())).append(',')
+                    .append(String.valueOf(record.totalNanos())).append(',')
+                    .append(String.valueOf(record.threadId())).append('\n');
+        }
+    }
+
+    /**
+     * Writes records as a JSON array, with one record object per line.
+     * @param records the records
+     * @param out where to write the JSON
+     * @throws IOException if writing fails
+     */
+    public static void writeJson(Stream<JournalRecord> records, Appendable out) throws IOException {
+        out.append('[');
+        boolean first = true;
+        Iterator<JournalRecord> iterator = records.iterator();
+        while (iterator.hasNext()) {
+            JournalRecord record = iterator.next();
+            out.append(first ? "\n" : ",\n")
+                    .append("{\"type\":\"").append(record.type().name())
+                    .append("\",\"run\":").append(String.valueOf(record.run()))
+                    .append(",\"invocation\":").append(String.valueOf(record.invocation()))
+                    .append(",\"test\":").append(json(record.test()))
+                    .append(",\"channel\":").append(json(record.channel()))
+                    .append(",\"rowIndex\":").append(String.valueOf(record.rowIndex()))
+                    .append(",\"epochNanos\":").append(String.valueOf(record.epochNanos()))
+                    .append(",\"outcome\":\"").append(record.outcome().name())
+                    .append("\",\"attempts\":").append(String.valueOf(record.attempts()))
+                    .append(",\"setupNanos\":").append(String.valueOf(record.setupNanos()))
+                    .append(",\"bodyNanos\":").append(String.valueOf(record.bodyNanos()))
+                    .append(",\"teardownNanos\":").append(String.valueOf(record.teardownNanos()))
+                    .append(",\"totalNanos\":").append(String.valueOf(record.totalNanos()))
+                    .append(",\"threadId\":").append(String.valueOf(record.threadId()))
+                    .append('}');
+            first = false;
+        }
+        out.append(first ? "]\n" : "\n]\n");
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Exports the journals given on the command line, see the usage above.
+     * @param args {@code --format csv|json} (CSV by default), {@code --output <file>} (standard output by default),
+     *             followed by the paths of the journals
+     * @throws IOException if a journal cannot be read or the export cannot be written
+     * @throws IllegalArgumentException if no journal is given or the format is unknown
+     */
+    public static void main(String[] args) throws IOException {
+        String format = "csv";
+        Path output = null;
+        List<Path> journals = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format" -> format = args[++i];
+                case "--output" -> output = Path.of(args[++i]);
+                default -> journals.add(Path.of(args[i]));
+            }
+        }
+        if (journals.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Usage: JournalExport [--format csv|json] [--output <file>] <journal>...");
+        }
+        if (!format.equals("csv") && !format.equals("json")) {
+            throw new IllegalArgumentException("Unknown format: " + format);
+        }
+
+        List<JournalReader> readers = new ArrayList<>();
+        try (Writer out = output != null
+                ? Files.newBufferedWriter(output, StandardCharsets.UTF_8)
+                : new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) {
+            for (Path journal : journals) {
+                readers.add(JournalReader.open(journal));
+            }
+            Stream<JournalRecord> records = readers.stream().flatMap(JournalReader::records);
+            if (format.equals("json")) {
+                writeJson(records, out);
+            } else {
+                writeCsv(records, out);
+            }
+        } finally {
+            for (JournalReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.optivem.testing.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reader of the binary event journal written with {@code -Doptivem.journal}, see {@link JournalWriter}.
+ * <p>
+ * Example usage, finding the slowest test methods over all runs in the journal:
+ * <pre>
+ * try (JournalReader journal = JournalReader.open(Path.of("build/optivem-journal.bin"))) {
+ *     journal.records()
+ *             .filter(record -&gt; record.type() == JournalRecord.Type.END)
+ *             .sorted(Comparator.comparingLong(JournalRecord::bodyNanos).reversed())
+ *             .limit(10)
+ *             .forEach(System.out::println);
+ * }
+ * </pre>
+ * The records the journal held when it was opened are read, even while a running test suite appends to it.
+ */
+public final class JournalReader implements Closeable {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final List<String> strings;
+    private final long size;
+    private final int runs;
+
+    private JournalReader(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        if (channel.size() < JournalWriter.HEADER_SIZE) {
+            throw new IllegalStateException("Not an event journal: " + file);
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, JournalWriter.HEADER_SIZE);
+        JournalWriter.checkHeader(header, file);
+        this.size = header.getLong(JournalWriter.COUNT_OFFSET);
+        this.runs = header.getInt(JournalWriter.RUNS_OFFSET);
+        // Names are written before the records that refer to them, so the names of all counted records are known
+        this.strings = Files.readAllLines(JournalWriter.stringsOf(file), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a journal for reading.
+     * @param file the journal file
+     * @return the reader
+     * @throws IOException if the journal or its strings file cannot be read
+     */
+    public static JournalReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new JournalReader(file, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of records in the journal.
+     * @return the number of start and end records
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of runs that appended to the journal.
+     * @return the number of runs
+     */
+    public int runs() {
+        return runs;
+    }
+
+    /**
+     * Streams the records of the journal in the order they were written.
+     * The file is mapped a window at a time as the stream is consumed, so journals of any size can be streamed.
+     * @return the records
+     */
+    public Stream<JournalRecord> records() {
+        Spliterator<JournalRecord> records = new Spliterators.AbstractSpliterator<>(size,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED) {
+            private long index;
+            private MappedByteBuffer window;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super JournalRecord> action) {
+                if (index >= size) {
+                    return false;
+                }
+                if (window == null || !window.hasRemaining()) {
+                    long records = Math.min(size - index, JournalWriter.WINDOW_RECORDS);
+                    try {
+                        window = channel.map(FileChannel.MapMode.READ_ONLY,
+                                JournalWriter.HEADER_SIZE + index * JournalWriter.RECORD_SIZE,
+                                records * JournalWriter.RECORD_SIZE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed to read journal: " + file, e);
+                    }
+                }
+                action.accept(read(window, index));
+                index++;
+                return true;
+            }
+        };
+        return StreamSupport.stream(records, false);
+    }
+
+    private JournalRecord read(MappedByteBuffer window, long index) {
+        int type = window.get();
+        int outcome = window.get();
+        int attempts = window.getShort();
+        int run = window.getInt();
+        int invocation = window.getInt();
+        int testId = window.getInt();
+        int channelId = window.getInt();
+        int rowIndex = window.getInt();
+        long epochNanos = window.getLong();
+        long setupNanos = window.getLong();
+        long bodyNanos = window.getLong();
+        long teardownNanos = window.getLong();
+        long threadId = window.getLong();
+
+        JournalRecord.Type[] types = JournalRecord.Type.values();
+        JournalRecord.Outcome[] outcomes = JournalRecord.Outcome.values();
+        if (type < 0 || type >= types.length || outcome < 0 || outcome >= outcomes.length) {
+            throw new IllegalStateException("Corrupt record " + index + " in journal: " + file);
+        }
+        return new JournalRecord(types[type], run, invocation, stringOf(testId, index), stringOf(channelId, index),
+                rowIndex, epochNanos, outcomes[outcome], attempts, setupNanos, bodyNanos, teardownNanos, threadId);
+    }
+
+    private String stringOf(int id, long index) {
+        if (id < 0 || id >= strings.size()) {
+            throw new IllegalStateException("Unknown name " + id + " in record " + index + " of journal: " + file);
+        }
+        return strings.get(id);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
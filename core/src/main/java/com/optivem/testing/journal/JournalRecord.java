@@ -0,0 +1,54 @@
+package com.optivem.testing.journal;
+
+/**
+ * Record of the event journal: the start or the end of a channel invocation.
+ * <p>
+ * End records carry the outcome of the invocation and the time spent in each of its phases: the setup before
+ * the test method (the {@code @BeforeChannel} hooks, extensions and {@code @BeforeEach} methods), the test method
+ * itself, and the teardown after it. The test method of a retried invocation includes its retries, with the
+ * {@code @AfterEach} and {@code @BeforeEach} methods they run again.
+ *
+ * @param type whether the invocation started or ended
+ * @param run the number of the run that wrote the record, counting the runs that appended to the journal
+ * @param invocation the number of the invocation within its run, shared by its start and end records
+ * @param test the test template, as {@code <class>#<method>}
+ * @param channel the channel of the invocation
+ * @param rowIndex the index of the data row in the data pipeline, the first row of a batch, or -1 without data
+ * @param epochNanos the time of the event, in nanoseconds since the epoch
+ * @param outcome the outcome of the invocation, {@link Outcome#NONE} for start records
+ * @param attempts the number of attempts of the invocation, more than 1 if it was retried, 0 for start records
+ * @param setupNanos the time spent before the test method, 0 for start records
+ * @param bodyNanos the time spent in the test method, 0 for start records
+ * @param teardownNanos the time spent after the test method, 0 for start records
+ * @param threadId the ID of the thread that ran the invocation
+ */
+public record JournalRecord(Type type, int run, int invocation, String test, String channel, int rowIndex,
+                            long epochNanos, Outcome outcome, int attempts, long setupNanos, long bodyNanos,
+                            long teardownNanos, long threadId) {
+
+    /**
+     * Type of a journal record. The journal stores the ordinal, so constants are only ever appended.
+     */
+    public enum Type {
+        START,
+        END
+    }
+
+    /**
+     * Outcome of an invocation. The journal stores the ordinal, so constants are only ever appended.
+     */
+    public enum Outcome {
+        NONE,
+        PASSED,
+        FAILED,
+        ABORTED
+    }
+
+    /**
+     * Returns the total time of the invocation.
+     * @return the sum of the phase timings, in nanoseconds
+     */
+    public long totalNanos() {
+        return setupNanos + bodyNanos + teardownNanos;
+    }
+}
@@ -0,0 +1,226 @@
+package com.optivem.testing.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only writer of the binary event journal of channel invocations.
+ * <p>
+ * The journal is a 64-byte header followed by fixed-size 64-byte records, written through a memory-mapped window
+ * of the file, so appending a record is a handful of stores into memory that survive a crash of the JVM.
+ * The header holds the number of records and the number of runs that appended to the journal, so the same journal
+ * keeps growing over many runs. Test and channel names are stored once in a {@code <journal>.strings} file next
+ * to the journal, one per line, and referenced from the records by line number.
+ * <p>
+ * A journal is written by one JVM at a time. When another JVM, e.g. a parallel lane of the same run, already
+ * appends to it, this JVM writes to {@code <journal>-<pid>} instead.
+ */
+public final class JournalWriter implements Closeable {
+
+    static final int MAGIC = 0x4F50544A; // "OPTJ"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 64;
+    static final int COUNT_OFFSET = 8;
+    static final int RUNS_OFFSET = 16;
+    static final String STRINGS_SUFFIX = ".strings";
+
+    /**
+     * Number of records mapped at a time, so the journal can grow beyond what a single mapping can hold.
+     */
+    static final int WINDOW_RECORDS = 65_536;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer header;
+    private final Writer strings;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final int run;
+    private MappedByteBuffer window;
+    private long count;
+    private int invocations;
+
+    private JournalWriter(Path file, FileChannel channel, FileLock lock) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.lock = lock;
+
+        boolean created = channel.size() < HEADER_SIZE;
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (created) {
+            header.putInt(0, MAGIC)
+                    .putShort(4, VERSION)
+                    .putShort(6, (short) RECORD_SIZE)
+                    .putLong(COUNT_OFFSET, 0)
+                    .putInt(RUNS_OFFSET, 0);
+        } else {
+            checkHeader(header, file);
+        }
+        this.count = header.getLong(COUNT_OFFSET);
+        this.run = header.getInt(RUNS_OFFSET) + 1;
+        header.putInt(RUNS_OFFSET, run);
+
+        Path stringsFile = stringsOf(file);
+        if (!created && Files.exists(stringsFile)) {
+            List<String> lines = Files.readAllLines(stringsFile, StandardCharsets.UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                ids.put(lines.get(i), i);
+            }
+        }
+        this.strings = Files.newBufferedWriter(stringsFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, created ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Opens a journal for appending, creating it if it does not exist yet.
+     * @param file the journal file
+     * @return the writer, which starts a new run of the journal
+     * @throws IOException if the journal cannot be opened
+     */
+    public static JournalWriter open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        JournalWriter writer = tryOpen(file);
+        if (writer == null) {
+            Path own = file.resolveSibling(file.getFileName() + "-" + ProcessHandle.current().pid());
+            writer = tryOpen(own);
+            if (writer == null) {
+                throw new IllegalStateException("Journal is locked by another process: " + own);
+            }
+        }
+        return writer;
+    }
+
+    private static JournalWriter tryOpen(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                channel.close();
+                return null;
+            }
+            return new JournalWriter(file, channel, lock);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the journal file this writer appends to.
+     * @return the journal file
+     */
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Returns the number of the run this writer appends.
+     * @return the run number, starting at 1 for the first run of the journal
+     */
+    public int run() {
+        return run;
+    }
+
+    /**
+     * Returns the number of the next invocation of the run, for its start and end records.
+     * @return the invocation number, starting at 1
+     */
+    public synchronized int nextInvocation() {
+        return ++invocations;
+    }
+
+    /**
+     * Appends a record to the journal.
+     * @param record the record, written as given
+     */
+    public synchronized void append(JournalRecord record) {
+        try {
+            if (window == null || !window.hasRemaining()) {
+                window = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + count * RECORD_SIZE,
+                        (long) WINDOW_RECORDS * RECORD_SIZE);
+            }
+            int testId = idOf(record.test());
+            int channelId = idOf(record.channel());
+            window.put((byte) record.type().ordinal())
+                    .put((byte) record.outcome().ordinal())
+                    .putShort((short) record.attempts())
+                    .putInt(record.run())
+                    .putInt(record.invocation())
+                    .putInt(testId)
+                    .putInt(channelId)
+                    .putInt(record.rowIndex())
+                    .putLong(record.epochNanos())
+                    .putLong(record.setupNanos())
+                    .putLong(record.bodyNanos())
+                    .putLong(record.teardownNanos())
+                    .putLong(record.threadId());
+            // The record only counts once it is complete
+            header.putLong(COUNT_OFFSET, ++count);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write journal: " + file, e);
+        }
+    }
+
+    private int idOf(String value) throws IOException {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = ids.size();
+            ids.put(value, id);
+            // Names are written before the records that refer to them
+            strings.write(value.replace('\n', ' ').replace('\r', ' '));
+            strings.write('\n');
+            strings.flush();
+        }
+        return id;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (window != null) {
+                window.force();
+            }
+            header.force();
+            strings.close();
+        } finally {
+            lock.release();
+            channel.close();
+        }
+    }
+
+    static Path stringsOf(Path file) {
+        return file.resolveSibling(file.getFileName() + STRINGS_SUFFIX);
+    }
+
+    static void checkHeader(ByteBuffer header, Path file) {
+        if (header.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not an event journal: " + file);
+        }
+        if (header.getShort(4) != VERSION || header.getShort(6) != RECORD_SIZE) {
+            throw new IllegalStateException("Unsupported event journal version " + header.getShort(4) + ": " + file);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.optivem.testing.processing;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Annotation processor that writes a compact index of all {@code @Channel} test templates,
+ * so that ChannelExtension can look up channels, inline {@code @DataSource} rows, {@code @Combine},
+ * {@code @Batched} and {@code @LoadProfile} at startup instead of reflecting over every test method.
+ * <p>
+ * Register it on the annotation processor path of the test sources, for example in Gradle:
+ * <pre>
+ * testAnnotationProcessor 'com.optivem:optivem-testing:1.0.4'
+ * </pre>
+ * <p>
+ * The index is written to {@value #INDEX_RESOURCE} as a properties file. Each test template is keyed by
+ * {@code <binary class name>#<method name>(<parameter type names>)}, with these entries:
+ * <ul>
+ *   <li>{@code <class>.indexed} - marks the class as indexed</li>
+ *   <li>{@code <key>.channels} - comma-separated channel names</li>
+ *   <li>{@code <key>.mode} - the channel mode</li>
+ *   <li>{@code <key>.rows} - number of inline rows, only present when {@code @DataSource} is the only data source</li>
+ *   <li>{@code <key>.row.<i>} - number of values of row {@code i}, and {@code <key>.row.<i>.<j>} - value {@code j} of row {@code i}</li>
+ *   <li>{@code <key>.row.<i>.channels} - comma-separated channels of row {@code i}, only present when the row is restricted</li>
+ *   <li>{@code <key>.sources} - present when data sources have to be resolved at runtime</li>
+ *   <li>{@code <key>.combine}, {@code .combine.filter}, {@code .combine.distinct} and {@code .combine.limit} - the
+ *       {@code @Combine} mode, comma-separated filter classes, distinct flag and limit</li>
+ *   <li>{@code <key>.batched} - the {@code @Batched} size</li>
+ *   <li>{@code <key>.load} - present when the template declares a {@code @LoadProfile}</li>
+ * </ul>
+ */
+@SupportedAnnotationTypes({
+        ChannelIndexProcessor.CHANNEL,
+        ChannelIndexProcessor.DATA_SOURCE,
+        ChannelIndexProcessor.DATA_SOURCE_CONTAINER
+})
+public class ChannelIndexProcessor extends AbstractProcessor {
+
+    /**
+     * Classpath location of the generated index.
+     */
+    public static final String INDEX_RESOURCE = "META-INF/optivem/channel-index.properties";
+
+    static final String CHANNEL = "com.optivem.testing.Channel";
+    static final String DATA_SOURCE = "com.optivem.testing.DataSource";
+    static final String DATA_SOURCE_CONTAINER = "com.optivem.testing.DataSource.Container";
+    static final String GENERATED_SOURCE = "com.optivem.testing.GeneratedSource";
+    static final String COMBINE = "com.optivem.testing.Combine";
+    static final String BATCHED = "com.optivem.testing.Batched";
+    static final String LOAD_PROFILE = "com.optivem.testing.LoadProfile";
+
+    private static final String PARAMS_PROVIDER_PACKAGE = "org.junit.jupiter.params.provider.";
+
+    private final Map<String, String> index = new TreeMap<>();
+
+    /**
+     * Creates a new ChannelIndexProcessor.
+     */
+    public ChannelIndexProcessor() {
+        // Instantiated by the compiler through the service loader
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement channelType = processingEnv.getElementUtils().getTypeElement(CHANNEL);
+        if (channelType != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(channelType)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    indexMethod((ExecutableElement) element);
+                }
+            }
+        }
+
+        if (roundEnv.processingOver() && !index.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void indexMethod(ExecutableElement method) {
+        TypeElement testClass = (TypeElement) method.getEnclosingElement();
+        String className = processingEnv.getElementUtils().getBinaryName(testClass).toString();
+        String key = className + "#" + signatureOf(method);
+
+        index.put(className + ".indexed", "true");
+
+        AnnotationMirror channel = findAnnotation(method, CHANNEL);
+        List<String> channels = stringValues(channel, "value");
+        index.put(key + ".channels", String.join(",", channels));
+        Object mode = annotationValue(channel, "mode");
+        index.put(key + ".mode", mode != null ? mode.toString() : "PER_CHANNEL");
+
+        if (hasOnlyInlineDataSources(method)) {
+            List<AnnotationMirror> dataSources = dataSources(method);
+            index.put(key + ".rows", String.valueOf(dataSources.size()));
+            for (int i = 0; i < dataSources.size(); i++) {
+                List<String> row = stringValues(dataSources.get(i), "value");
+                index.put(key + ".row." + i, String.valueOf(row.size()));
+                for (int j = 0; j < row.size(); j++) {
+                    index.put(key + ".row." + i + "." + j, row.get(j));
+                }
+                List<String> rowChannels = stringValues(dataSources.get(i), "channels");
+                if (!rowChannels.isEmpty()) {
+                    index.put(key + ".row." + i + ".channels", String.join(",", rowChannels));
+                }
+            }
+        } else if (hasDataSources(method)) {
+            index.put(key + ".sources", "true");
+        }
+
+        AnnotationMirror combine = findAnnotation(method, COMBINE);
+        if (combine != null) {
+            Object combineMode = annotationValue(combine, "value");
+            index.put(key + ".combine", combineMode != null ? combineMode.toString() : "CONCAT");
+            List<String> filters = listValue(combine, "filter").stream().map(value -> typeNameOf((TypeMirror) value)).toList();
+            if (!filters.isEmpty()) {
+                index.put(key + ".combine.filter", String.join(",", filters));
+            }
+            putIfPresent(key + ".combine.distinct", annotationValue(combine, "distinct"));
+            putIfPresent(key + ".combine.limit", annotationValue(combine, "limit"));
+        }
+
+        AnnotationMirror batched = findAnnotation(method, BATCHED);
+        if (batched != null) {
+            index.put(key + ".batched", String.valueOf(annotationValue(batched, "size")));
+        }
+
+        if (findAnnotation(method, LOAD_PROFILE) != null) {
+            index.put(key + ".load", "true");
+        }
+    }
+
+    private void putIfPresent(String key, Object value) {
+        if (value != null) {
+            index.put(key, value.toString());
+        }
+    }
+
+    /**
+     * Returns the method name and erased parameter types, matching the names of {@link Class#getTypeName()}.
+     */
+    private String signatureOf(ExecutableElement method) {
+        List<String> parameterTypes = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            parameterTypes.add(typeNameOf(processingEnv.getTypeUtils().erasure(parameter.asType())));
+        }
+        return method.getSimpleName() + "(" + String.join(",", parameterTypes) + ")";
+    }
+
+    private String typeNameOf(TypeMirror type) {
+        if (type instanceof ArrayType arrayType) {
+            return typeNameOf(arrayType.getComponentType()) + "[]";
+        }
+        if (type instanceof DeclaredType declaredType) {
+            TypeElement element = (TypeElement) declaredType.asElement();
+            return processingEnv.getElementUtils().getBinaryName(element).toString();
+        }
+        return type.toString();
+    }
+
+    /**
+     * Data rows are only indexed when no JUnit argument source or generated source is present,
+     * since those are resolved at runtime.
+     */
+    private boolean hasOnlyInlineDataSources(ExecutableElement method) {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            if (nameOf(annotation).startsWith(PARAMS_PROVIDER_PACKAGE) || nameOf(annotation).equals(GENERATED_SOURCE)) {
+                return false;
+            }
+        }
+        return !dataSources(method).isEmpty();
+    }
+
+    private boolean hasDataSources(ExecutableElement method) {
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            String name = nameOf(annotation);
+            if (name.startsWith(PARAMS_PROVIDER_PACKAGE) || name.equals(GENERATED_SOURCE)
+                    || name.equals(DATA_SOURCE) || name.equals(DATA_SOURCE_CONTAINER)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<AnnotationMirror> dataSources(ExecutableElement method) {
+        List<AnnotationMirror> result = new ArrayList<>();
+        for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+            String name = nameOf(annotation);
+            if (name.equals(DATA_SOURCE)) {
+                result.add(annotation);
+            } else if (name.equals(DATA_SOURCE_CONTAINER)) {
+                for (Object value : listValue(annotation, "value")) {
+                    result.add((AnnotationMirror) value);
+                }
+            }
+        }
+        return result;
+    }
+
+    private void writeIndex() {
+        Properties properties = new Properties();
+        properties.putAll(index);
+        try {
+            StringWriter content = new StringWriter();
+            properties.store(content, null);
+
+            // Drop the timestamp comment and sort the entries so that the index is reproducible
+            List<String> lines = new ArrayList<>(content.toString().lines().filter(line -> !line.startsWith("#")).toList());
+            lines.sort(null);
+
+            FileObject resource = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+            try (Writer writer = resource.openWriter()) {
+                for (String line : lines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write channel index: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String name) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (nameOf(annotation).equals(name)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private static String nameOf(AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static Object annotationValue(AnnotationMirror annotation, String name) {
+        if (annotation == null) {
+            return null;
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private static List<Object> listValue(AnnotationMirror annotation, String name) {
+        Object value = annotationValue(annotation, name);
+        List<Object> result = new ArrayList<>();
+        if (value instanceof List<?> values) {
+            for (Object element : values) {
+                result.add(((AnnotationValue) element).getValue());
+            }
+        } else if (value != null) {
+            // Single values may be written without braces, e.g. @DataSource("value")
+            result.add(value);
+        }
+        return result;
+    }
+
+    private static List<String> stringValues(AnnotationMirror annotation, String name) {
+        return listValue(annotation, name).stream().map(String::valueOf).toList();
+    }
+}
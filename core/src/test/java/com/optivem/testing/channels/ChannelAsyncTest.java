@@ -0,0 +1,195 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Channel;
+import com.optivem.testing.ChannelAsync;
+import com.optivem.testing.ChannelMode;
+import com.optivem.testing.DataSource;
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.extensions.ChannelExtension;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.testkit.engine.EngineExecutionResults;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChannelExtension with a ChannelAsync parameter, where invocations wait for asynchronous stages.
+ */
+@ExtendWith(ChannelExtension.class)
+public class ChannelAsyncTest {
+
+    private static final Map<String, List<String>> CONTINUATIONS = new ConcurrentHashMap<>();
+
+    @AfterAll
+    static void verifyContinuationsKeptTheirChannel() {
+        assertEquals(List.of("1", "2", "3"), CONTINUATIONS.get(TestChannel.CHANNEL_A).stream().sorted().toList(),
+                "Every stage of channel A should have completed on channel A");
+        assertEquals(List.of("1", "2", "3"), CONTINUATIONS.get(TestChannel.CHANNEL_B).stream().sorted().toList(),
+                "Every stage of channel B should have completed on channel B");
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    @DataSource("1")
+    @DataSource("2")
+    @DataSource("3")
+    void shouldWaitForStagesWithChannelContext(String value, ChannelAsync async) {
+        String channel = ChannelContext.get();
+        // The operation completes on a thread without channel context
+        async.await(async.start(() -> CompletableFuture.supplyAsync(() -> value,
+                        CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS)))
+                .thenAccept(result -> {
+                    assertEquals(channel, ChannelContext.get(), "Continuation should keep the channel context");
+                    CONTINUATIONS.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(result);
+                }));
+    }
+
+    @Test
+    void shouldFailWithTheFailureOfAFailingStage() {
+        EngineExecutionResults results = SampleRun.of(FailingSample.class);
+        results.testEvents().assertStatistics(stats -> stats.succeeded(0).failed(2));
+        List<String> failures = results.testEvents().failed().stream()
+                .map(event -> event.getRequiredPayload(TestExecutionResult.class).getThrowable().orElseThrow().getMessage())
+                .sorted()
+                .toList();
+        assertEquals("Stage 2 failed", failures.get(0), "A single failing stage should fail with its own failure");
+        assertTrue(failures.get(1).startsWith("shouldReportEveryFailingStage failed on 2 of 3 asynchronous stages"),
+                "Several failing stages should be reported together: " + failures.get(1));
+    }
+
+    @Test
+    void shouldQueueOperationsBeyondTheConcurrencyLimit() {
+        LimitedSample.IN_FLIGHT.set(0);
+        LimitedSample.MAX_IN_FLIGHT.set(0);
+        LimitedSample.COMPLETED.set(0);
+
+        SampleRun.of(LimitedSample.class, "optivem.async.concurrency", "2", "optivem.async.threads", "1")
+                .testEvents().assertStatistics(stats -> stats.succeeded(1).failed(0));
+
+        assertEquals(2, LimitedSample.MAX_IN_FLIGHT.get(), "No more than two operations should be in flight at once");
+        assertEquals(7, LimitedSample.COMPLETED.get(),
+                "Every operation should complete, including the one started from a continuation on the single pool thread");
+    }
+
+    @Test
+    void shouldWaitForTheStagesOfAFailingTestMethod() {
+        EngineExecutionResults results = SampleRun.of(FailingMethodSample.class);
+        results.testEvents().assertStatistics(stats -> stats.failed(1));
+        Throwable failure = results.testEvents().failed().stream()
+                .map(event -> event.getRequiredPayload(TestExecutionResult.class).getThrowable().orElseThrow())
+                .findFirst().orElseThrow();
+        assertEquals("Test method failed", failure.getMessage(), "The failure of the test method should be reported");
+        assertEquals(List.of("Stage failed"), Stream.of(failure.getSuppressed()).map(Throwable::getMessage).toList(),
+                "The failure of the stage should be added as suppressed, once the invocation has waited for it");
+    }
+
+    @Test
+    void shouldKeepTheChannelOfEveryFanOutBody() {
+        FanOutSample.CONTINUATIONS.clear();
+        SampleRun.of(FanOutSample.class).testEvents().assertStatistics(stats -> stats.succeeded(1).failed(0));
+        assertEquals(List.of(TestChannel.CHANNEL_A + " on " + TestChannel.CHANNEL_A, TestChannel.CHANNEL_B + " on " + TestChannel.CHANNEL_B),
+                FanOutSample.CONTINUATIONS.stream().sorted().toList(),
+                "The stages of every channel body should complete with the channel of that body");
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class FailingSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldFailWithTheFailingStage(ChannelAsync async) {
+            for (int stage = 1; stage <= 3; stage++) {
+                async.start(operation(stage, stage == 2));
+            }
+        }
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldReportEveryFailingStage(ChannelAsync async) {
+            for (int stage = 1; stage <= 3; stage++) {
+                async.start(operation(stage, stage != 2));
+            }
+        }
+
+        private static Supplier<CompletableFuture<Integer>> operation(int stage, boolean fails) {
+            return () -> CompletableFuture.supplyAsync(() -> {
+                if (fails) {
+                    throw new IllegalStateException("Stage " + stage + " failed");
+                }
+                return stage;
+            }, CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class LimitedSample {
+
+        static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+        static final AtomicInteger MAX_IN_FLIGHT = new AtomicInteger();
+        static final AtomicInteger COMPLETED = new AtomicInteger();
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldStartEveryOperation(ChannelAsync async) {
+            for (int operation = 0; operation < 6; operation++) {
+                CompletableFuture<Void> checked = async.start(LimitedSample::operation).thenAccept(value -> COMPLETED.incrementAndGet());
+                if (operation == 0) {
+                    // Starting an operation from a continuation on the pool must not wait for a permit
+                    async.await(checked.thenRunAsync(() -> async.await(async.start(LimitedSample::operation)
+                            .thenAccept(value -> COMPLETED.incrementAndGet())), async.executor()));
+                } else {
+                    async.await(checked);
+                }
+            }
+        }
+
+        private static CompletableFuture<Integer> operation() {
+            MAX_IN_FLIGHT.accumulateAndGet(IN_FLIGHT.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                IN_FLIGHT.decrementAndGet();
+                return 1;
+            }, CompletableFuture.delayedExecutor(20, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class FailingMethodSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldFailAfterStartingAStage(ChannelAsync async) {
+            async.start(() -> CompletableFuture.supplyAsync(() -> {
+                throw new IllegalStateException("Stage failed");
+            }, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS)));
+            fail("Test method failed");
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class FanOutSample {
+
+        static final List<String> CONTINUATIONS = new CopyOnWriteArrayList<>();
+
+        @TestTemplate
+        @Channel(value = {TestChannel.CHANNEL_A, TestChannel.CHANNEL_B}, mode = ChannelMode.FAN_OUT)
+        void shouldWaitForTheStagesOfEveryChannel(ChannelAsync async) {
+            String channel = ChannelContext.get();
+            async.await(async.start(() -> CompletableFuture.supplyAsync(() -> channel,
+                            CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS)))
+                    .thenAccept(body -> CONTINUATIONS.add(body + " on " + ChannelContext.get())));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Await;
+import com.optivem.testing.Channel;
+import com.optivem.testing.extensions.ChannelExtension;
+import com.optivem.testing.contexts.ChannelContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Await, which polls conditions with the wait profile of the current channel.
+ */
+@ExtendWith(ChannelExtension.class)
+public class ChannelAwaitTest {
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void registerProfiles() {
+        Await.profile(TestChannel.CHANNEL_A, new Await.Profile(Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(5)));
+        Await.profile(TestChannel.CHANNEL_B, new Await.Profile(Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(50)));
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    void shouldReturnAsSoonAsConditionHolds() {
+        AtomicInteger polls = new AtomicInteger();
+        int value = Await.until(polls::incrementAndGet, count -> count >= 3);
+        assertEquals(3, value, "Wait should return the first value that matches");
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_B})
+    void shouldFailWhenConditionDoesNotHoldWithinChannelTimeout() {
+        AssertionError error = assertThrows(AssertionError.class, () -> Await.until("never", () -> false));
+        assertTrue(error.getMessage().contains(TestChannel.CHANNEL_B), "Failure should name the channel");
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A})
+    void shouldTreatExceptionsAsNotYetMet() {
+        AtomicInteger polls = new AtomicInteger();
+        Await.until("settles after failures", () -> {
+            if (polls.incrementAndGet() < 3) {
+                throw new IllegalStateException("Not ready yet");
+            }
+            return true;
+        });
+        assertEquals(3, polls.get(), "Condition should be polled until it stops throwing");
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A})
+    void shouldSleepUntilTheSettleTimeOfPastRunsBeforePollingAgain() throws IOException {
+        Path historyFile = directory.resolve("await-history.properties");
+        Files.writeString(historyFile, ChannelContext.get() + "|seeded=100\n");
+        System.setProperty(Await.HISTORY_PROPERTY, historyFile.toString());
+        try {
+            assertEquals(2, pollsUntil("seeded", Duration.ofMillis(80)),
+                    "The wait should sleep the settle time of past runs instead of polling every millisecond");
+        } finally {
+            System.clearProperty(Await.HISTORY_PROPERTY);
+        }
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A})
+    void shouldLearnTheSettleTimeWithinTheRun() {
+        System.setProperty(Await.HISTORY_PROPERTY, directory.resolve("await-history.properties").toString());
+        try {
+            assertTrue(pollsUntil("learned", Duration.ofMillis(100)) > 2, "The first wait has no settle time yet");
+            assertEquals(2, pollsUntil("learned", Duration.ofMillis(60)),
+                    "The second wait should sleep the settle time learned by the first one");
+        } finally {
+            System.clearProperty(Await.HISTORY_PROPERTY);
+        }
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A})
+    void shouldSleepLessOnceTheWaitSettlesSoonerThanItUsedTo() throws IOException {
+        Path historyFile = directory.resolve("await-history.properties");
+        Files.writeString(historyFile, ChannelContext.get() + "|sooner=400\n");
+        System.setProperty(Await.HISTORY_PROPERTY, historyFile.toString());
+        try {
+            long first = millisUntil("sooner", Duration.ofMillis(10));
+            assertTrue(first >= 400, "The first wait should still sleep the settle time of past runs, took " + first);
+            for (int i = 0; i < 4; i++) {
+                millisUntil("sooner", Duration.ofMillis(10));
+            }
+            long last = millisUntil("sooner", Duration.ofMillis(10));
+            assertTrue(last < 100, "The sleep should follow the shorter settle time, took " + last);
+        } finally {
+            System.clearProperty(Await.HISTORY_PROPERTY);
+        }
+    }
+
+    @Test
+    void shouldRejectProfilesThatWouldNotBackOff() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Await.Profile(Duration.ZERO, Duration.ofMillis(5), Duration.ofSeconds(1)),
+                "A zero interval would poll in a busy loop");
+        assertThrows(IllegalArgumentException.class,
+                () -> new Await.Profile(Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(1), 1.0),
+                "A backoff of 1 would never grow the interval");
+        assertThrows(IllegalArgumentException.class,
+                () -> new Await.Profile(Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(1), 0.5),
+                "A backoff below 1 would shrink the interval");
+    }
+
+    /**
+     * Waits for a condition that holds once the given time has passed, but never on the first poll,
+     * and returns how often it was polled.
+     */
+    private static int pollsUntil(String name, Duration settleTime) {
+        AtomicInteger polls = new AtomicInteger();
+        long settled = System.nanoTime() + settleTime.toNanos();
+        Await.until(name, () -> polls.incrementAndGet() > 1 && System.nanoTime() >= settled);
+        return polls.get();
+    }
+
+    /**
+     * Waits for a condition that holds once the given time has passed, and returns how long the wait took.
+     */
+    private static long millisUntil(String name, Duration settleTime) {
+        long start = System.nanoTime();
+        pollsUntil(name, settleTime);
+        return Duration.ofNanos(System.nanoTime() - start).toMillis();
+    }
+}
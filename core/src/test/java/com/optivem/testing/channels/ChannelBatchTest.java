@@ -0,0 +1,51 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Batched;
+import com.optivem.testing.Channel;
+import com.optivem.testing.DataRow;
+import com.optivem.testing.DataSource;
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.extensions.ChannelExtension;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChannelExtension with @Batched templates, where one invocation receives several data rows.
+ */
+@ExtendWith(ChannelExtension.class)
+public class ChannelBatchTest {
+
+    private static final Map<String, List<Integer>> BATCH_SIZES = new ConcurrentHashMap<>();
+
+    @AfterAll
+    static void verifyRowsWereBatchedPerChannel() {
+        assertEquals(List.of(2, 2, 1), BATCH_SIZES.get(TestChannel.CHANNEL_A), "Rows should be batched for channel A");
+        assertEquals(List.of(2, 2, 1), BATCH_SIZES.get(TestChannel.CHANNEL_B), "Rows should be batched for channel B");
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    @DataSource({"1", "true"})
+    @DataSource({"2", "true"})
+    @DataSource({"3", "false"})
+    @DataSource({"4", "true"})
+    @DataSource({"5", "false"})
+    @Batched(size = 2)
+    void shouldReceiveConsecutiveRowsInBatches(List<DataRow> rows) {
+        assertNotNull(ChannelContext.get(), "Channel should be set for the batch");
+        BATCH_SIZES.computeIfAbsent(ChannelContext.get(), channel -> new CopyOnWriteArrayList<>()).add(rows.size());
+
+        for (DataRow row : rows) {
+            row.verify(() -> assertEquals(Integer.valueOf(row.index() + 1), row.get(0, Integer.class), "Row should keep its index"));
+            row.verify(() -> assertNotNull(row.get(1, Boolean.class), "Row should convert its values"));
+        }
+    }
+}
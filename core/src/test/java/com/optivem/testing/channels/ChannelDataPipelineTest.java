@@ -0,0 +1,125 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Channel;
+import com.optivem.testing.Combine;
+import com.optivem.testing.CombineMode;
+import com.optivem.testing.DataSource;
+import com.optivem.testing.extensions.ChannelExtension;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChannelExtension combining several data sources with @Combine.
+ */
+@ExtendWith(ChannelExtension.class)
+public class ChannelDataPipelineTest {
+
+    private static final Map<String, List<String>> INVOCATIONS = new ConcurrentHashMap<>();
+    private static final AtomicInteger PROVIDER_CALLS = new AtomicInteger();
+
+    static Stream<Arguments> numbers() {
+        return IntStream.rangeClosed(1, 3).mapToObj(Arguments::of);
+    }
+
+    static Stream<Arguments> manyNumbers() {
+        // Far more rows than are ever taken, to show that the rows are streamed
+        return IntStream.iterate(1, i -> i + 1).mapToObj(Arguments::of);
+    }
+
+    static Stream<Arguments> countedNumbers() {
+        PROVIDER_CALLS.incrementAndGet();
+        return IntStream.rangeClosed(1, 2).mapToObj(Arguments::of);
+    }
+
+    static class OddNumbers implements Predicate<Object[]> {
+        @Override
+        public boolean test(Object[] row) {
+            return ((Integer) row[0]) % 2 == 1;
+        }
+    }
+
+    @AfterAll
+    static void verifyCombinedRows() {
+        assertEquals(List.of("first", "second", "1", "2", "3"), INVOCATIONS.get("concat"), "Sources should be concatenated");
+        assertEquals(List.of("a1", "a2", "a3", "b1", "b2", "b3"), INVOCATIONS.get("cross"), "Sources should be crossed");
+        assertEquals(List.of("a1", "b2"), INVOCATIONS.get("zip"), "Sources should be zipped up to the shortest");
+        assertEquals(List.of("1", "3", "5"), INVOCATIONS.get("filterAndLimit"), "Rows should be filtered and limited");
+        assertEquals(List.of("x", "y"), INVOCATIONS.get("distinct"), "Duplicate rows should be dropped");
+        assertEquals(List.of("a1", "a2", "b1", "b2", "a1", "a2", "b1", "b2"), INVOCATIONS.get("once"),
+                "Provider rows should be replayed for every channel and left row");
+        assertEquals(1, PROVIDER_CALLS.get(), "The provider method should be invoked once per template");
+    }
+
+    private static void record(String template, String row) {
+        INVOCATIONS.computeIfAbsent(template, key -> new CopyOnWriteArrayList<>()).add(row);
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A})
+    @DataSource("first")
+    @DataSource("second")
+    @MethodSource("numbers")
+    void shouldConcatenateAllSources(Object value) {
+        record("concat", String.valueOf(value));
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A})
+    @ValueSource(strings = {"a", "b"})
+    @MethodSource("numbers")
+    @Combine(CombineMode.CROSS)
+    void shouldCrossSources(String letter, int number) {
+        record("cross", letter + number);
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A})
+    @ValueSource(strings = {"a", "b"})
+    @MethodSource("numbers")
+    @Combine(CombineMode.ZIP)
+    void shouldZipSources(String letter, int number) {
+        record("zip", letter + number);
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A})
+    @MethodSource("manyNumbers")
+    @Combine(filter = OddNumbers.class, limit = 3)
+    void shouldFilterAndLimitStreamedRows(int number) {
+        record("filterAndLimit", String.valueOf(number));
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    @ValueSource(strings = {"a", "b"})
+    @MethodSource("countedNumbers")
+    @Combine(CombineMode.CROSS)
+    void shouldInvokeProvidersOncePerTemplate(String letter, int number) {
+        record("once", letter + number);
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A})
+    @DataSource("x")
+    @DataSource("y")
+    @DataSource("x")
+    @Combine(distinct = true)
+    void shouldDropDuplicateRows(String value) {
+        record("distinct", value);
+    }
+}
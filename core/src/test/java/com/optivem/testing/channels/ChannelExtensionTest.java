@@ -1,7 +1,9 @@
 package com.optivem.testing.channels;
 
 import com.optivem.testing.Channel;
+import com.optivem.testing.ChannelArguments;
 import com.optivem.testing.DataSource;
+import com.optivem.testing.contexts.ChannelContext;
 import com.optivem.testing.extensions.ChannelExtension;
 import org.junit.jupiter.api.TestTemplate;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -315,6 +317,34 @@ public class ChannelExtensionTest {
         assertTrue(expectedError.contains(orderNumber), "Error message should contain order number");
     }
 
+    // ==========================================================================
+    // Channel-targeted Row Tests
+    // ==========================================================================
+
+    static Stream<Arguments> provideChannelTargetedArguments() {
+        return Stream.of(
+                Arguments.of("shared"),
+                ChannelArguments.of(List.of(TestChannel.CHANNEL_B), "channel-b-only")
+        );
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    @DataSource("shared")
+    @DataSource(value = "channel-b-only", channels = {TestChannel.CHANNEL_B})
+    void shouldOnlyExpandDataSourceRowsForTheirChannels(String value) {
+        assertTrue(value.equals("shared") || TestChannel.CHANNEL_B.equals(ChannelContext.get()),
+                "Restricted row should only run on its channel");
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    @MethodSource("provideChannelTargetedArguments")
+    void shouldOnlyExpandProviderRowsForTheirChannels(String value) {
+        assertTrue(value.equals("shared") || TestChannel.CHANNEL_B.equals(ChannelContext.get()),
+                "Restricted row should only run on its channel");
+    }
+
     // ==========================================================================
     // No Data Source Tests (just channels)
     // ==========================================================================
@@ -0,0 +1,65 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Channel;
+import com.optivem.testing.ChannelMode;
+import com.optivem.testing.DataSource;
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.extensions.ChannelExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChannelExtension in fan-out mode, where one invocation runs the body for all channels.
+ */
+@ExtendWith(ChannelExtension.class)
+public class ChannelFanOutTest {
+
+    private final AtomicInteger arrangeCount = new AtomicInteger();
+    private final Set<String> executedChannels = ConcurrentHashMap.newKeySet();
+    private final Set<String> correlationIds = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void arrange() {
+        arrangeCount.incrementAndGet();
+    }
+
+    @AfterEach
+    void verifyAllChannelsExecutedAfterSingleArrange() {
+        assertEquals(1, arrangeCount.get(), "Arrange step should run once per invocation");
+        assertEquals(Set.of(TestChannel.CHANNEL_A, TestChannel.CHANNEL_B), executedChannels,
+                "Body should run for every channel");
+    }
+
+    @TestTemplate
+    @Channel(value = {TestChannel.CHANNEL_A, TestChannel.CHANNEL_B}, mode = ChannelMode.FAN_OUT)
+    void shouldRunBodyForEachChannelInSingleInvocation() {
+        assertNotNull(ChannelContext.get(), "Channel should be bound for each channel");
+        executedChannels.add(ChannelContext.get());
+    }
+
+    @TestTemplate
+    @Channel(value = {TestChannel.CHANNEL_A, TestChannel.CHANNEL_B}, mode = ChannelMode.FAN_OUT)
+    @DataSource("first")
+    @DataSource("second")
+    void shouldFanOutEachDataRow(String value) {
+        assertNotNull(value, "Value should not be null");
+        executedChannels.add(ChannelContext.get());
+    }
+
+    @TestTemplate
+    @Channel(value = {TestChannel.CHANNEL_A, TestChannel.CHANNEL_B}, mode = ChannelMode.FAN_OUT)
+    void shouldGiveEveryChannelATraceOfItsOwn() {
+        String correlationId = ChannelContext.getCorrelationId();
+        assertNotNull(correlationId, "Every channel body should have a correlation ID for its drivers");
+        assertTrue(correlationIds.add(correlationId), "The channel bodies should not share a correlation ID");
+        executedChannels.add(ChannelContext.get());
+    }
+}
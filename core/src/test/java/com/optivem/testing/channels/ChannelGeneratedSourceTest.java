@@ -0,0 +1,141 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Channel;
+import com.optivem.testing.ChannelMode;
+import com.optivem.testing.Combine;
+import com.optivem.testing.CombineMode;
+import com.optivem.testing.GeneratedSource;
+import com.optivem.testing.Generator;
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.extensions.ChannelExtension;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.platform.engine.TestExecutionResult;
+import org.opentest4j.MultipleFailuresError;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChannelExtension with @GeneratedSource, where the data rows are generated lazily.
+ */
+@ExtendWith(ChannelExtension.class)
+public class ChannelGeneratedSourceTest {
+
+    private static final Map<String, List<Integer>> GENERATED = new ConcurrentHashMap<>();
+
+    static class Percentages implements Generator<Integer> {
+        @Override
+        public Integer generate(Random random) {
+            return random.nextInt(101);
+        }
+
+        @Override
+        public Stream<Integer> shrink(Integer value) {
+            return value == 0 ? Stream.empty() : Stream.of(0, value / 2, value - 1);
+        }
+    }
+
+    @AfterAll
+    static void verifyGeneratedRows() {
+        List<Integer> channelA = GENERATED.get(TestChannel.CHANNEL_A);
+        assertEquals(20, channelA.size(), "Every generated row should run");
+        assertEquals(channelA, GENERATED.get(TestChannel.CHANNEL_B), "Channels should get the same rows for a seed");
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    @GeneratedSource(generator = Percentages.class, count = 20, seed = 42)
+    void shouldRunGeneratedRowsOnEachChannel(int percentage) {
+        assertTrue(percentage >= 0 && percentage <= 100, "Percentage should be generated in range");
+        GENERATED.computeIfAbsent(ChannelContext.get(), key -> new CopyOnWriteArrayList<>()).add(percentage);
+    }
+
+    @Test
+    void shouldShrinkAFailingValueToTheMinimalCounterexample() {
+        List<String> failures = failuresOf(ShrinkingSample.class);
+        assertFalse(failures.isEmpty(), "Generated values of 10 and more should fail");
+        for (String failure : failures) {
+            assertTrue(failure.contains("(seed 42)") && failure.endsWith("to: 10"),
+                    "Every failing value should shrink to the smallest failing percentage: " + failure);
+        }
+    }
+
+    @Test
+    void shouldShrinkAGeneratedValueJoinedBehindOtherSources() {
+        List<String> failures = failuresOf(JoinedSample.class);
+        assertFalse(failures.isEmpty(), "Generated values of 10 and more should fail");
+        for (String failure : failures) {
+            assertTrue(failure.endsWith("to: 10"),
+                    "The generated value should be shrunk at its position behind the other source: " + failure);
+        }
+    }
+
+    @Test
+    void shouldShrinkAFailingValueForEveryChannelOfAFanOut() {
+        List<Throwable> failures = SampleRun.of(FanOutSample.class).testEvents().failed().stream()
+                .map(event -> event.getRequiredPayload(TestExecutionResult.class).getThrowable().orElseThrow())
+                .toList();
+        assertFalse(failures.isEmpty(), "Generated values of 10 and more should fail");
+        for (Throwable failure : failures) {
+            List<Throwable> channelFailures = ((MultipleFailuresError) failure).getFailures();
+            assertEquals(2, channelFailures.size(), "Both channels should fail: " + failure.getMessage());
+            for (Throwable channelFailure : channelFailures) {
+                assertTrue(channelFailure.getMessage().contains("(seed 42)") && channelFailure.getMessage().endsWith("to: 10"),
+                        "Every channel should shrink the failing value: " + channelFailure.getMessage());
+            }
+        }
+    }
+
+    private static List<String> failuresOf(Class<?> sampleClass) {
+        return SampleRun.of(sampleClass).testEvents().failed().stream()
+                .map(event -> event.getRequiredPayload(TestExecutionResult.class).getThrowable().orElseThrow().getMessage())
+                .toList();
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class ShrinkingSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @GeneratedSource(generator = Percentages.class, count = 20, seed = 42)
+        void shouldStayBelowTen(int percentage) {
+            assertTrue(percentage < 10, "Percentage should be below 10");
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class JoinedSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @ValueSource(strings = "label")
+        @GeneratedSource(generator = Percentages.class, count = 20, seed = 42)
+        @Combine(CombineMode.CROSS)
+        void shouldStayBelowTen(String label, int percentage) {
+            assertEquals("label", label, "The other source should keep its value while shrinking");
+            assertTrue(percentage < 10, "Percentage should be below 10");
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class FanOutSample {
+
+        @TestTemplate
+        @Channel(value = {TestChannel.CHANNEL_A, TestChannel.CHANNEL_B}, mode = ChannelMode.FAN_OUT)
+        @GeneratedSource(generator = Percentages.class, count = 20, seed = 42)
+        void shouldStayBelowTen(int percentage) {
+            assertNotNull(ChannelContext.get(), "Shrinking should keep the channel context");
+            assertTrue(percentage < 10, "Percentage should be below 10");
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Channel;
+import com.optivem.testing.ChannelMode;
+import com.optivem.testing.DataSource;
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.extensions.ChannelExtension;
+import com.optivem.testing.journal.JournalExport;
+import com.optivem.testing.journal.JournalReader;
+import com.optivem.testing.journal.JournalRecord;
+import com.optivem.testing.journal.JournalWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for writing, reading and exporting the binary event journal of channel invocations.
+ */
+public class ChannelJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackRecordsAppendedOverSeveralRuns() throws IOException {
+        Path file = directory.resolve("journal.bin");
+        try (JournalWriter writer = JournalWriter.open(file)) {
+            int invocation = writer.nextInvocation();
+            writer.append(start(writer.run(), invocation, TestChannel.CHANNEL_A, 3));
+            writer.append(end(writer.run(), invocation, TestChannel.CHANNEL_A, 3, JournalRecord.Outcome.PASSED));
+        }
+        try (JournalWriter writer = JournalWriter.open(file)) {
+            assertEquals(2, writer.run(), "Reopening the journal should start a new run");
+            writer.append(end(writer.run(), writer.nextInvocation(), TestChannel.CHANNEL_B, -1,
+                    JournalRecord.Outcome.FAILED));
+        }
+
+        try (JournalReader reader = JournalReader.open(file)) {
+            assertEquals(3, reader.size());
+            assertEquals(2, reader.runs());
+            List<JournalRecord> records = reader.records().toList();
+            assertEquals(start(1, 1, TestChannel.CHANNEL_A, 3), records.get(0));
+            assertEquals(end(1, 1, TestChannel.CHANNEL_A, 3, JournalRecord.Outcome.PASSED), records.get(1));
+            assertEquals(end(2, 1, TestChannel.CHANNEL_B, -1, JournalRecord.Outcome.FAILED), records.get(2));
+            assertEquals(60, records.get(1).totalNanos());
+        }
+    }
+
+    @Test
+    void shouldReadJournalsLargerThanOneMappedWindow() throws IOException {
+        Path file = directory.resolve("large.bin");
+        int invocations = 70_000;
+        try (JournalWriter writer = JournalWriter.open(file)) {
+            for (int i = 0; i < invocations; i++) {
+                writer.append(end(writer.run(), writer.nextInvocation(), TestChannel.CHANNEL_A, i,
+                        JournalRecord.Outcome.PASSED));
+            }
+        }
+
+        try (JournalReader reader = JournalReader.open(file)) {
+            assertEquals(invocations, reader.size());
+            assertEquals(invocations - 1, reader.records().mapToInt(JournalRecord::rowIndex).max().orElseThrow());
+        }
+    }
+
+    @Test
+    void shouldExportRecordsAsCsvAndJson() throws IOException {
+        List<JournalRecord> records = List.of(
+                start(1, 1, TestChannel.CHANNEL_A, 0),
+                end(1, 1, TestChannel.CHANNEL_A, 0, JournalRecord.Outcome.ABORTED));
+
+        StringBuilder csv = new StringBuilder();
+        JournalExport.writeCsv(records.stream(), csv);
+        String[] lines = csv.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("type,run,invocation,test,channel,rowIndex"));
+        assertTrue(lines[2].startsWith("END,1,1," + ChannelJournalTest.class.getName() + "#test,"
+                + TestChannel.CHANNEL_A + ",0,1000,ABORTED,1,10,20,30,60,"), lines[2]);
+
+        StringBuilder json = new StringBuilder();
+        JournalExport.writeJson(records.stream(), json);
+        assertTrue(json.toString().startsWith("[\n{\"type\":\"START\""), json.toString());
+        assertTrue(json.toString().contains("\"outcome\":\"ABORTED\",\"attempts\":1,\"setupNanos\":10,\"bodyNanos\":20"));
+        assertTrue(json.toString().endsWith("}\n]\n"));
+    }
+
+    @Test
+    void shouldJournalFanOutInvocationsUnderTheirJoinedChannels() throws IOException {
+        Path file = directory.resolve("fan-out.bin");
+        SampleRun.of(FanOutSample.class, "optivem.journal", file.toString())
+                .testEvents().assertStatistics(stats -> stats.succeeded(2));
+
+        try (JournalReader reader = JournalReader.open(file)) {
+            List<JournalRecord> ends = reader.records()
+                    .filter(record -> record.type() == JournalRecord.Type.END)
+                    .toList();
+            assertEquals(2, ends.size());
+            for (JournalRecord end : ends) {
+                assertEquals(TestChannel.CHANNEL_A + "+" + TestChannel.CHANNEL_B, end.channel());
+                assertEquals(JournalRecord.Outcome.PASSED, end.outcome());
+            }
+            assertEquals(List.of(0, 1), ends.stream().map(JournalRecord::rowIndex).sorted().toList());
+        }
+    }
+
+    @Test
+    void shouldJournalTheOutcomeAndPhasesOfEveryChannelInvocation() throws IOException {
+        Path file = directory.resolve("channels.bin");
+        SampleRun.of(ChannelSample.class, "optivem.journal", file.toString())
+                .testEvents().assertStatistics(stats -> stats.succeeded(1).failed(1));
+
+        try (JournalReader reader = JournalReader.open(file)) {
+            List<JournalRecord> records = reader.records().toList();
+            assertEquals(4, records.size(), "Every invocation should be journaled with a start and an end");
+            Map<String, JournalRecord> ends = records.stream()
+                    .filter(record -> record.type() == JournalRecord.Type.END)
+                    .collect(Collectors.toMap(JournalRecord::channel, Function.identity()));
+            assertEquals(JournalRecord.Outcome.PASSED, ends.get(TestChannel.CHANNEL_A).outcome());
+            assertEquals(JournalRecord.Outcome.FAILED, ends.get(TestChannel.CHANNEL_B).outcome());
+            for (JournalRecord end : ends.values()) {
+                assertEquals(ChannelSample.class.getName() + "#shouldRun", end.test());
+                assertTrue(end.setupNanos() >= TimeUnit.MILLISECONDS.toNanos(5), "Setup should include @BeforeEach: " + end);
+                assertTrue(end.bodyNanos() >= TimeUnit.MILLISECONDS.toNanos(5), "Body should include the test method: " + end);
+                assertTrue(records.stream().anyMatch(record -> record.type() == JournalRecord.Type.START
+                                && record.invocation() == end.invocation() && record.channel().equals(end.channel())),
+                        "Every end should have the start of the same invocation: " + end);
+            }
+        }
+
+        Path csv = directory.resolve("channels.csv");
+        JournalExport.main(new String[]{"--format", "csv", "--output", csv.toString(), file.toString()});
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals(5, lines.size(), "The export should hold a header and every record");
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("END,1,") && line.contains(",FAILED,")),
+                "The export should hold the failed invocation: " + lines);
+    }
+
+    private static JournalRecord start(int run, int invocation, String channel, int rowIndex) {
+        return new JournalRecord(JournalRecord.Type.START, run, invocation, ChannelJournalTest.class.getName() + "#test",
+                channel, rowIndex, 1000, JournalRecord.Outcome.NONE, 0, 0, 0, 0, 1);
+    }
+
+    private static JournalRecord end(int run, int invocation, String channel, int rowIndex,
+                                     JournalRecord.Outcome outcome) {
+        return new JournalRecord(JournalRecord.Type.END, run, invocation, ChannelJournalTest.class.getName() + "#test",
+                channel, rowIndex, 1000, outcome, 1, 10, 20, 30, 1);
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class FanOutSample {
+
+        @TestTemplate
+        @Channel(value = {TestChannel.CHANNEL_A, TestChannel.CHANNEL_B}, mode = ChannelMode.FAN_OUT)
+        @DataSource("first")
+        @DataSource("second")
+        void shouldFanOut(String value) {
+            assertNotNull(value);
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class ChannelSample {
+
+        @BeforeEach
+        void setUp() throws InterruptedException {
+            Thread.sleep(5);
+        }
+
+        @TestTemplate
+        @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+        void shouldRun() throws InterruptedException {
+            Thread.sleep(5);
+            assertNotEquals(TestChannel.CHANNEL_B, ChannelContext.get(), "Channel B fails");
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.AfterChannel;
+import com.optivem.testing.BeforeChannel;
+import com.optivem.testing.Channel;
+import com.optivem.testing.ChannelScope;
+import com.optivem.testing.DataSource;
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.extensions.ChannelExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.testkit.engine.EngineExecutionResults;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for @BeforeChannel and @AfterChannel hooks run by ChannelExtension.
+ */
+@ExtendWith(ChannelExtension.class)
+public class ChannelLifecycleTest {
+
+    private static final Map<String, AtomicInteger> classSetups = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> runSetups = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> classTeardowns = new ConcurrentHashMap<>();
+
+    @BeforeChannel
+    static void setUpChannelForClass(String channel) {
+        assertEquals(channel, ChannelContext.get(), "Channel context should be set during setup");
+        classSetups.computeIfAbsent(channel, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    @BeforeChannel(scope = ChannelScope.RUN)
+    static void setUpChannelForRun() {
+        runSetups.computeIfAbsent(ChannelContext.get(), key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    @AfterChannel
+    static void tearDownChannelForClass(String channel) {
+        classTeardowns.computeIfAbsent(channel, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    @DataSource("first")
+    @DataSource("second")
+    @DataSource("third")
+    void shouldRunClassScopedSetupOncePerChannel(String value) {
+        assertEquals(1, classSetups.get(ChannelContext.get()).get(), "Class setup should run once per channel");
+        assertNull(classTeardowns.get(ChannelContext.get()), "Class teardown should not run before the class is done");
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    @DataSource("first")
+    @DataSource("second")
+    void shouldRunRunScopedSetupOncePerChannel(String value) {
+        assertEquals(1, runSetups.get(ChannelContext.get()).get(), "Run setup should run once per channel");
+    }
+
+    @Test
+    void shouldTearDownChannelsWhenTheirScopeEnds() {
+        TeardownSample.EVENTS.clear();
+        SampleRun.of(TeardownSample.class).testEvents().assertStatistics(stats -> stats.succeeded(4).failed(0));
+
+        List<String> events = TeardownSample.EVENTS;
+        for (String channel : List.of(TestChannel.CHANNEL_A, TestChannel.CHANNEL_B)) {
+            assertEquals(1, events.stream().filter(("class teardown " + channel)::equals).count(),
+                    "Class teardown should run once per channel: " + events);
+            assertEquals(1, events.stream().filter(("run teardown " + channel)::equals).count(),
+                    "Run teardown should run once per channel: " + events);
+            assertTrue(events.lastIndexOf("test " + channel) < events.indexOf("class teardown " + channel),
+                    "Class teardown should run after the last test of the channel: " + events);
+            assertTrue(events.indexOf("class teardown " + channel) < events.indexOf("run teardown " + channel),
+                    "Run teardown should run after the class is done: " + events);
+        }
+    }
+
+    @Test
+    void shouldTearDownTheCompletedSetupsWhenASetupFails() {
+        PartialSetupSample.EVENTS.clear();
+        EngineExecutionResults results = SampleRun.of(PartialSetupSample.class);
+        results.testEvents().assertStatistics(stats -> stats.failed(1));
+        assertEquals(List.of("base setup " + TestChannel.CHANNEL_A, "base teardown " + TestChannel.CHANNEL_A),
+                PartialSetupSample.EVENTS, "Only the class whose setup ran should be torn down, right away");
+    }
+
+    @Test
+    void shouldRunAllTeardownsWhenOneFails() {
+        FailingTeardownSample.EVENTS.clear();
+        EngineExecutionResults results = SampleRun.of(FailingTeardownSample.class);
+        results.testEvents().assertStatistics(stats -> stats.succeeded(1));
+        assertEquals(2, FailingTeardownSample.EVENTS.size(), "Both teardowns should run: " + FailingTeardownSample.EVENTS);
+
+        Throwable failure = results.containerEvents().failed().stream()
+                .map(event -> event.getRequiredPayload(TestExecutionResult.class).getThrowable().orElseThrow())
+                .findFirst().orElseThrow();
+        assertEquals(1, failure.getSuppressed().length, "The second teardown failure should be kept as suppressed");
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class TeardownSample {
+
+        static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+
+        @BeforeChannel
+        static void setUpChannelForClass(String channel) {
+            EVENTS.add("class setup " + channel);
+        }
+
+        @AfterChannel
+        static void tearDownChannelForClass(String channel) {
+            EVENTS.add("class teardown " + channel);
+        }
+
+        @BeforeChannel(scope = ChannelScope.RUN)
+        static void setUpChannelForRun(String channel) {
+            EVENTS.add("run setup " + channel);
+        }
+
+        @AfterChannel(scope = ChannelScope.RUN)
+        static void tearDownChannelForRun(String channel) {
+            EVENTS.add("run teardown " + channel);
+        }
+
+        @TestTemplate
+        @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+        @DataSource("first")
+        @DataSource("second")
+        void shouldUseTheChannel(String value) {
+            EVENTS.add("test " + ChannelContext.get());
+        }
+    }
+
+    static class PartialSetupBase {
+
+        static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+
+        @BeforeChannel
+        static void setUpBase(String channel) {
+            EVENTS.add("base setup " + channel);
+        }
+
+        @AfterChannel
+        static void tearDownBase(String channel) {
+            EVENTS.add("base teardown " + channel);
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class PartialSetupSample extends PartialSetupBase {
+
+        @BeforeChannel
+        static void setUpSample() {
+            throw new IllegalStateException("Browser did not start");
+        }
+
+        @AfterChannel
+        static void tearDownSample(String channel) {
+            EVENTS.add("sample teardown " + channel);
+        }
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldNotRun() {
+            EVENTS.add("test " + ChannelContext.get());
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class FailingTeardownSample {
+
+        static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+
+        @AfterChannel
+        static void closeBrowser(String channel) {
+            EVENTS.add("browser teardown " + channel);
+            throw new IllegalStateException("Browser did not close");
+        }
+
+        @AfterChannel
+        static void stopContainer(String channel) {
+            EVENTS.add("container teardown " + channel);
+            throw new IllegalStateException("Container did not stop");
+        }
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldUseTheChannel() {
+            assertEquals(TestChannel.CHANNEL_A, ChannelContext.get());
+        }
+    }
+}
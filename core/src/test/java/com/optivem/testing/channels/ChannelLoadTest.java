@@ -0,0 +1,113 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Channel;
+import com.optivem.testing.LoadProfile;
+import com.optivem.testing.extensions.ChannelExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.platform.engine.TestExecutionResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChannelExtension in load mode, where @LoadProfile templates are run by concurrent virtual users.
+ */
+public class ChannelLoadTest {
+
+    @Test
+    void shouldFailWhenTheLatencyObjectiveIsBreached() {
+        String message = failureOf(SlowSample.class);
+        assertTrue(message.contains("p95"), "The p95 breach should be reported: " + message);
+    }
+
+    @Test
+    void shouldFailWhenTheErrorRateIsBreached() {
+        String message = failureOf(FailingSample.class);
+        assertTrue(message.contains("error rate"), "The error rate breach should be reported: " + message);
+    }
+
+    @Test
+    void shouldRampUpUsersOnInstancesOfTheirOwn() {
+        RampUpSample.STARTS.clear();
+        RampUpSample.TEARDOWNS.set(0);
+        SampleRun.of(RampUpSample.class, "optivem.load", "true")
+                .testEvents().assertStatistics(stats -> stats.succeeded(1).failed(0));
+
+        assertEquals(3, RampUpSample.STARTS.size(), "Every user should run on an instance of its own");
+        List<Long> starts = new ArrayList<>(RampUpSample.STARTS.values());
+        starts.sort(null);
+        long first = starts.get(0);
+        assertTrue(starts.get(1) - first >= 80 && starts.get(2) - first >= 180,
+                "Users should start at even intervals within the ramp-up: " + starts);
+        assertEquals(3, RampUpSample.TEARDOWNS.get(), "The instance of every user should be torn down");
+    }
+
+    private static String failureOf(Class<?> sampleClass) {
+        return SampleRun.of(sampleClass, "optivem.load", "true").testEvents().failed().stream()
+                .map(event -> event.getRequiredPayload(TestExecutionResult.class).getThrowable().orElseThrow().getMessage())
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("The load profile should fail"));
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class SlowSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @LoadProfile(users = 2, duration = "PT0.3S", maxP95Millis = 10)
+        void shouldRespondQuickly() throws InterruptedException {
+            Thread.sleep(30);
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class FailingSample {
+
+        private static final AtomicInteger INVOCATIONS = new AtomicInteger();
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @LoadProfile(users = 2, duration = "PT0.2S", maxErrorRate = 0.1)
+        void shouldRarelyFail() throws InterruptedException {
+            Thread.sleep(5);
+            assertNotEquals(0, INVOCATIONS.incrementAndGet() % 2, "Every other invocation fails");
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class RampUpSample {
+
+        static final Map<RampUpSample, Long> STARTS = new ConcurrentHashMap<>();
+        static final AtomicInteger TEARDOWNS = new AtomicInteger();
+
+        private boolean setUp;
+
+        @BeforeEach
+        void setUp() {
+            setUp = true;
+        }
+
+        @AfterEach
+        void tearDown() {
+            TEARDOWNS.incrementAndGet();
+        }
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @LoadProfile(users = 3, duration = "PT0.5S", rampUp = "PT0.3S")
+        void shouldRunUnderLoad() throws InterruptedException {
+            assertTrue(setUp, "Every instance should be set up before its user starts");
+            STARTS.putIfAbsent(this, System.currentTimeMillis());
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Batched;
+import com.optivem.testing.Channel;
+import com.optivem.testing.DataRow;
+import com.optivem.testing.DataSource;
+import com.optivem.testing.extensions.ChannelExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the invocation history and the dry-run plan of ChannelExtension.
+ */
+public class ChannelPlanTest {
+
+    private static final String SLOW = SlowSample.class.getName();
+    private static final String FAST = FastSample.class.getName();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldKeepTheHistoryOfOverloadedTemplatesApart() throws IOException {
+        Path historyFile = directory.resolve("history.properties");
+        Properties previous = new Properties();
+        previous.setProperty(SLOW + "#shouldRun()[" + TestChannel.CHANNEL_A + "]", "1000");
+        store(previous, historyFile);
+
+        SlowSample.INVOCATIONS.set(0);
+        SampleRun.of(SlowSample.class, "optivem.history", historyFile.toString())
+                .testEvents().assertStatistics(stats -> stats.succeeded(6).failed(0));
+
+        Properties history = load(historyFile);
+        for (String channel : List.of(TestChannel.CHANNEL_A, TestChannel.CHANNEL_B)) {
+            assertNotNull(history.getProperty(SLOW + "#shouldRun()[" + channel + "]"),
+                    "The template without parameters should be recorded: " + history);
+            assertNotNull(history.getProperty(SLOW + "#shouldRun(java.lang.String)[" + channel + "]"),
+                    "The overload with a parameter should be recorded on its own: " + history);
+        }
+        long smoothed = Long.parseLong(history.getProperty(SLOW + "#shouldRun()[" + TestChannel.CHANNEL_A + "]"));
+        assertTrue(smoothed >= 500, "The previous average should be smoothed with the new one, was " + smoothed);
+    }
+
+    @Test
+    void shouldMergeWithTheHistoryOfARunThatEndedMeanwhile() throws IOException {
+        Path historyFile = directory.resolve("history.properties");
+        Properties previous = new Properties();
+        previous.setProperty(FAST + "#shouldRun()[" + TestChannel.CHANNEL_A + "]", "not a number");
+        store(previous, historyFile);
+
+        LaneSample.HISTORY_FILE = historyFile;
+        SampleRun.of(LaneSample.class, "optivem.history", historyFile.toString())
+                .testEvents().assertStatistics(stats -> stats.succeeded(1).failed(0));
+
+        Properties history = load(historyFile);
+        assertEquals("250", history.getProperty(FAST + "#shouldRun()[" + TestChannel.CHANNEL_B + "]"),
+                "The durations of the other lane should be kept: " + history);
+        assertNotNull(history.getProperty(LaneSample.class.getName() + "#shouldRun()[" + TestChannel.CHANNEL_A + "]"),
+                "The durations of this run should be merged into the latest history: " + history);
+    }
+
+    @Test
+    void shouldPlanInvocationsAndShardsWithoutRunningThem() throws IOException {
+        Path historyFile = directory.resolve("history.properties");
+        Properties history = new Properties();
+        for (String channel : List.of(TestChannel.CHANNEL_A, TestChannel.CHANNEL_B)) {
+            history.setProperty(SLOW + "#shouldRun(java.lang.String)[" + channel + "]", "100");
+            history.setProperty(SLOW + "#shouldRun()[" + channel + "]", "50");
+        }
+        history.setProperty(FAST + "#shouldRun()[" + TestChannel.CHANNEL_A + "]", "30");
+        store(history, historyFile);
+        Path planFile = directory.resolve("plan.json");
+
+        SlowSample.INVOCATIONS.set(0);
+        SampleRun.of(List.of(SlowSample.class, FastSample.class),
+                "optivem.plan", "true",
+                "optivem.plan.file", planFile.toString(),
+                "optivem.plan.shards", "2",
+                "optivem.history", historyFile.toString());
+
+        assertEquals(0, SlowSample.INVOCATIONS.get(), "A dry run should not run the templates");
+        String plan = Files.readString(planFile);
+        assertTrue(plan.contains("\"total\": {\"invocations\": 8, \"estimatedMillis\": 530, \"unestimatedInvocations\": 1}"),
+                "Every invocation should be planned once: " + plan);
+        assertTrue(plan.contains("{\"class\": \"" + SLOW + "\", \"method\": \"shouldRun(java.lang.String)\", \"channel\": \""
+                        + TestChannel.CHANNEL_A + "\", \"invocations\": 2, \"estimatedMillis\": 200}"),
+                "Templates should be planned per overload and channel: " + plan);
+        assertTrue(plan.contains("{\"invocations\": 6, \"estimatedMillis\": 500, \"unestimatedInvocations\": 0, \"classes\": [\""
+                        + SLOW + "\"]}"),
+                "The slow class should get a shard of its own: " + plan);
+        assertTrue(plan.contains("{\"invocations\": 2, \"estimatedMillis\": 30, \"unestimatedInvocations\": 1, \"classes\": [\""
+                        + FAST + "\"]}"),
+                "The fast class should go to the other shard: " + plan);
+    }
+
+    @Test
+    void shouldPlanOneInvocationPerBatch() throws IOException {
+        Path planFile = directory.resolve("plan.json");
+
+        SampleRun.of(BatchedSample.class, "optivem.plan", "true", "optivem.plan.file", planFile.toString());
+
+        String plan = Files.readString(planFile);
+        assertTrue(plan.contains("{\"class\": \"" + BatchedSample.class.getName()
+                        + "\", \"method\": \"shouldRunInBatches(java.util.List)\", \"channel\": \""
+                        + TestChannel.CHANNEL_A + "\", \"invocations\": 3, \"estimatedMillis\": null}"),
+                "Five rows in batches of two should be planned as three invocations: " + plan);
+    }
+
+    @Test
+    void shouldFailThePlanOfAnUnboundedSource() {
+        SampleRun.of(UnboundedSample.class, "optivem.plan", "true",
+                        "optivem.plan.file", directory.resolve("plan.json").toString(),
+                        "optivem.plan.maxRows", "10")
+                .containerEvents().assertStatistics(stats -> stats.failed(1));
+    }
+
+    private static void store(Properties properties, Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, null);
+        }
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class SlowSample {
+
+        static final AtomicInteger INVOCATIONS = new AtomicInteger();
+
+        @TestTemplate
+        @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+        @DataSource("first")
+        @DataSource("second")
+        void shouldRun(String value) {
+            INVOCATIONS.incrementAndGet();
+        }
+
+        @TestTemplate
+        @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+        void shouldRun() {
+            INVOCATIONS.incrementAndGet();
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class LaneSample {
+
+        static Path HISTORY_FILE;
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldRun() throws IOException {
+            // Another lane finishes while this run is still going
+            Properties history = load(HISTORY_FILE);
+            history.setProperty(FAST + "#shouldRun()[" + TestChannel.CHANNEL_B + "]", "250");
+            store(history, HISTORY_FILE);
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class BatchedSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @DataSource("1")
+        @DataSource("2")
+        @DataSource("3")
+        @DataSource("4")
+        @DataSource("5")
+        @Batched(size = 2)
+        void shouldRunInBatches(List<DataRow> rows) {
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class UnboundedSample {
+
+        static Stream<Arguments> numbers() {
+            return IntStream.iterate(1, i -> i + 1).mapToObj(Arguments::of);
+        }
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @MethodSource("numbers")
+        void shouldRun(int number) {
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class FastSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldRun() {
+        }
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_B)
+        void shouldRunWithoutHistory() {
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Batched;
+import com.optivem.testing.Channel;
+import com.optivem.testing.ChannelRetry;
+import com.optivem.testing.ChannelTimeout;
+import com.optivem.testing.DataRow;
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.extensions.ChannelExtension;
+import com.optivem.testing.journal.JournalReader;
+import com.optivem.testing.journal.JournalRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.testkit.engine.EngineExecutionResults;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChannelExtension with @ChannelRetry, where failing channel invocations are retried on their own.
+ * Every sample runs with a retry budget of its own, so that the retries of other tests cannot use it up.
+ */
+public class ChannelRetryTest {
+
+    private static final Map<String, AtomicInteger> ATTEMPTS = new ConcurrentHashMap<>();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void resetAttempts() {
+        ATTEMPTS.clear();
+    }
+
+    @Test
+    void shouldRetryOnlyTheFailingInvocations() {
+        // Four retries for the rows, and three for channel A plus one for channel B of the channel-specific test
+        SampleRun.of(RetrySample.class, "optivem.retry.budget", "8")
+                .testEvents().assertStatistics(stats -> stats.succeeded(6).failed(0));
+    }
+
+    @Test
+    void shouldReportFailuresAsTheyAreOnceTheBudgetIsUsedUp() {
+        SampleRun.of(BudgetSample.class, "optivem.retry.budget", "2")
+                .testEvents().assertStatistics(stats -> stats.succeeded(2).failed(1));
+    }
+
+    @Test
+    void shouldQuarantineAnInvocationThatIsFlakyTooOften() throws IOException {
+        Path historyFile = directory.resolve("flakiness.properties");
+        String[] properties = {"optivem.flakiness", historyFile.toString(), "optivem.quarantine.threshold", "1",
+                "optivem.retry.budget", "10"};
+
+        QuarantineSample.ALWAYS_FAILING = false;
+        SampleRun.of(QuarantineSample.class, properties)
+                .testEvents().assertStatistics(stats -> stats.succeeded(1).failed(0));
+
+        QuarantineSample.ALWAYS_FAILING = true;
+        EngineExecutionResults quarantined = SampleRun.of(QuarantineSample.class, properties);
+        quarantined.testEvents().assertStatistics(stats -> stats.aborted(1).failed(0));
+        String reason = quarantined.testEvents().aborted().stream()
+                .map(event -> event.getRequiredPayload(TestExecutionResult.class).getThrowable().orElseThrow().getMessage())
+                .findFirst().orElseThrow();
+        assertTrue(reason.startsWith("Quarantined as flaky in 1 of the last 20 runs"),
+                "The failure of a quarantined invocation should not fail the run: " + reason);
+
+        SampleRun.of(QuarantineSample.class, "optivem.flakiness", historyFile.toString(),
+                        "optivem.quarantine.threshold", "1", "optivem.quarantine", "skip")
+                .testEvents().assertStatistics(stats -> stats.skipped(1).started(0));
+
+        Properties history = new Properties();
+        try (Reader reader = Files.newBufferedReader(historyFile)) {
+            history.load(reader);
+        }
+        assertEquals(List.of("FX"), history.values().stream().map(String::valueOf).toList(),
+                "The history should hold a flaky pass and a failure, and nothing for the skipped run");
+    }
+
+    @Test
+    void shouldFailFastWhenTheFixtureCannotBeSetUpAgain() {
+        EngineExecutionResults results = SampleRun.of(FixtureSample.class, "optivem.retry.budget", "10");
+        results.testEvents().assertStatistics(stats -> stats.failed(1));
+        String failure = results.testEvents().failed().stream()
+                .map(event -> event.getRequiredPayload(TestExecutionResult.class).getThrowable().orElseThrow().getMessage())
+                .findFirst().orElseThrow();
+        assertTrue(failure.contains("@BeforeEach setUp with parameters"),
+                "The failure should name the lifecycle method that a retry cannot run: " + failure);
+        assertNull(ATTEMPTS.get("fixture-" + TestChannel.CHANNEL_A), "The test method should not run at all");
+    }
+
+    @Test
+    void shouldNotRetryBatches() {
+        SampleRun.of(BatchSample.class, "optivem.retry.budget", "10")
+                .testEvents().assertStatistics(stats -> stats.failed(1));
+        assertEquals(1, ATTEMPTS.get("batch-" + TestChannel.CHANNEL_A).get(),
+                "A batch should run once, since a retry could not report the rows of the first attempt again");
+    }
+
+    @Test
+    void shouldNotCacheAPassThatNeededARetry() {
+        String[] properties = {"optivem.cache", directory.resolve("cache").toString(), "optivem.retry.budget", "10"};
+        SampleRun.of(CachedSample.class, properties).testEvents().assertStatistics(stats -> stats.succeeded(2));
+        SampleRun.of(CachedSample.class, properties).testEvents().assertStatistics(stats -> stats.succeeded(2));
+
+        assertEquals(1, ATTEMPTS.get("stable-" + TestChannel.CHANNEL_A).get(), "The stable pass should be cached");
+        assertEquals(4, ATTEMPTS.get("flaky-" + TestChannel.CHANNEL_A).get(),
+                "The flaky pass should run again, failing once and passing on the retry each time");
+    }
+
+    @Test
+    void shouldTraceEveryAttemptOnItsOwnAndJournalTheAttempts() throws IOException {
+        Path traceFile = directory.resolve("traces.jsonl");
+        Path journalFile = directory.resolve("journal.bin");
+        TracedSample.TRACES.clear();
+        SampleRun.of(TracedSample.class, "optivem.retry.budget", "10", "optivem.trace", traceFile.toString(),
+                        "optivem.journal", journalFile.toString())
+                .testEvents().assertStatistics(stats -> stats.succeeded(1).failed(0));
+
+        assertEquals(2, TracedSample.TRACES.size());
+        assertNotEquals(TracedSample.TRACES.get(0), TracedSample.TRACES.get(1),
+                "The retry should get a correlation ID of its own");
+        List<String> lines = Files.readAllLines(traceFile);
+        assertEquals(2, lines.size(), "Every attempt should be exported");
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            String line = lines.get(attempt - 1);
+            assertTrue(line.contains("\"traceId\":\"" + TracedSample.TRACES.get(attempt - 1).split(" ")[0] + "\""), line);
+            assertTrue(line.contains("{\"key\":\"test.attempt\",\"value\":{\"stringValue\":\"" + attempt + "\"}}"), line);
+            assertTrue(line.endsWith("\"status\":{\"code\":" + (attempt == 1 ? 2 : 1) + "}}]}]}]}"),
+                    "Only the first attempt failed: " + line);
+        }
+        assertEquals(List.of("1", "2"), TracedSample.TRACES.stream().map(trace -> trace.split(" ")[1]).toList());
+
+        try (JournalReader reader = JournalReader.open(journalFile)) {
+            JournalRecord end = reader.records()
+                    .filter(record -> record.type() == JournalRecord.Type.END)
+                    .findFirst().orElseThrow();
+            assertEquals(JournalRecord.Outcome.PASSED, end.outcome());
+            assertEquals(2, end.attempts(), "The journal should record the retry");
+        }
+    }
+
+    private static int attemptOf(String test) {
+        return ATTEMPTS.computeIfAbsent(test + "-" + ChannelContext.get(), key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    @ChannelRetry(1)
+    static class RetrySample {
+
+        private int setUps;
+
+        @BeforeEach
+        void setUp() {
+            setUps++;
+        }
+
+        @TestTemplate
+        @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+        @ValueSource(ints = {1, 2})
+        void shouldRetryOnlyTheFailingInvocation(int row) {
+            int attempt = attemptOf("retry-row-" + row);
+            assertEquals(attempt, setUps, "Every attempt should start with its own @BeforeEach");
+            assertNotNull(ChannelContext.get(), "Channel context should be kept for the retry");
+            assertTrue(attempt > 1, "The first attempt of every channel and row fails");
+        }
+
+        @TestTemplate
+        @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+        @ChannelRetry(channel = TestChannel.CHANNEL_A, value = 3)
+        void shouldApplyChannelSpecificRetries() {
+            int attempt = attemptOf("retry-channel");
+            int expected = TestChannel.CHANNEL_A.equals(ChannelContext.get()) ? 4 : 2;
+            assertEquals(expected, attempt, "Channel A should get three retries, the others one from the class");
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    @ChannelRetry(1)
+    static class TracedSample {
+
+        static final List<String> TRACES = new CopyOnWriteArrayList<>();
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @ChannelTimeout(value = "PT10S", threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+        void shouldPassOnTheRetry() {
+            // The retry runs on the thread of the deadline, which the invocation ends without
+            TRACES.add(ChannelContext.getCorrelationId() + " " + ChannelContext.getTrace().attempt());
+            assertTrue(attemptOf("traced") > 1, "The first attempt fails");
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    @ChannelRetry(1)
+    static class BudgetSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @ValueSource(ints = {1, 2, 3})
+        void shouldPassOnTheRetry(int row) {
+            assertTrue(attemptOf("budget-row-" + row) > 1, "The first attempt of every row fails");
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    @ChannelRetry(1)
+    static class QuarantineSample {
+
+        static volatile boolean ALWAYS_FAILING;
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldPassOnTheRetry() {
+            int attempt = attemptOf("quarantine");
+            assertTrue(!ALWAYS_FAILING && attempt % 2 == 0, "Fails on the first attempt, or always");
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    @ChannelRetry(1)
+    static class FixtureSample {
+
+        @BeforeEach
+        void setUp(TestInfo testInfo) {
+            assertNotNull(testInfo);
+        }
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldNotRun() {
+            attemptOf("fixture");
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    @ChannelRetry(1)
+    static class BatchSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @ValueSource(ints = {1, 2})
+        @Batched(size = 2)
+        void shouldFailTheFirstAttempt(List<DataRow> rows) {
+            for (DataRow row : rows) {
+                row.verify(() -> assertNotEquals(Integer.valueOf(2), row.get(0, Integer.class), "Row 2 fails"));
+            }
+            assertTrue(attemptOf("batch") > 1, "The first attempt of the batch fails");
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    @ChannelRetry(1)
+    static class CachedSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldPassStably() {
+            attemptOf("stable");
+        }
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldPassOnTheRetry() {
+            assertEquals(0, attemptOf("flaky") % 2, "The first attempt of every run fails");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Channel;
+import com.optivem.testing.ChannelTimeout;
+import com.optivem.testing.DataSource;
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.extensions.ChannelExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.testkit.engine.EngineExecutionResults;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChannelExtension with @ChannelTimeout, where invocations run under a deadline per channel.
+ */
+@ExtendWith(ChannelExtension.class)
+@ChannelTimeout("PT1M")
+public class ChannelTimeoutTest {
+
+    private static final ThreadLocal<String> FIXTURE = new ThreadLocal<>();
+
+    @BeforeEach
+    void setUp() {
+        FIXTURE.set("set up");
+    }
+
+    @AfterEach
+    void tearDown() {
+        FIXTURE.remove();
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    void shouldRunUnderDeadlineOnTheSameThread() {
+        assertNotNull(ChannelContext.get(), "Channel context should be set under the deadline");
+        assertEquals("set up", FIXTURE.get(), "Thread-locals of the fixture should be kept under the class deadline");
+        assertFalse(Thread.currentThread().getName().startsWith("optivem-deadline-"),
+                "Invocation should run on the test thread by default");
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    @ChannelTimeout(channel = TestChannel.CHANNEL_A, value = "PT10S", threadMode = Timeout.ThreadMode.SEPARATE_THREAD)
+    void shouldApplyChannelSpecificDeadline() {
+        boolean separateThread = TestChannel.CHANNEL_A.equals(ChannelContext.get());
+        assertEquals(separateThread, Thread.currentThread().getName().equals("optivem-deadline-" + ChannelContext.get()),
+                "Only channel A should opt in to a deadline thread of its own");
+    }
+
+    @Test
+    void shouldFailAnInvocationThatOutlivesItsDeadline() {
+        List<String> failures = failuresOf(SampleRun.of(SlowSample.class));
+        assertEquals(1, failures.size(), "The slow invocation should fail");
+        assertTrue(failures.get(0).contains("timed out on channel " + TestChannel.CHANNEL_A + " after PT0.2S"),
+                "The failure should report the deadline: " + failures.get(0));
+    }
+
+    @Test
+    void shouldAbortTheRemainingInvocationsOnceTheBudgetIsUsedUp() {
+        EngineExecutionResults results = SampleRun.of(BudgetSample.class, "optivem.budget." + TestChannel.CHANNEL_A, "PT0.2S");
+        results.testEvents().assertStatistics(stats -> stats.failed(1).aborted(2));
+        String failure = failuresOf(results).get(0);
+        assertTrue(failure.endsWith("(remaining time budget of the channel)"),
+                "The first invocation should time out on the budget: " + failure);
+    }
+
+    private static List<String> failuresOf(EngineExecutionResults results) {
+        return results.testEvents().failed().stream()
+                .map(event -> event.getRequiredPayload(TestExecutionResult.class).getThrowable().orElseThrow().getMessage())
+                .toList();
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class SlowSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @ChannelTimeout("PT0.2S")
+        void shouldBeInterruptedAtTheDeadline() throws InterruptedException {
+            Thread.sleep(5_000);
+        }
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class BudgetSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        @DataSource("1")
+        @DataSource("2")
+        @DataSource("3")
+        void shouldUseUpTheBudget(String row) throws InterruptedException {
+            Thread.sleep(300);
+        }
+    }
+}
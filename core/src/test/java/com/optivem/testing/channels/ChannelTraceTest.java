@@ -0,0 +1,109 @@
+package com.optivem.testing.channels;
+
+import com.optivem.testing.Channel;
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.contexts.Span;
+import com.optivem.testing.extensions.ChannelExtension;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the correlation IDs and spans that ChannelContext exposes for each invocation.
+ */
+@ExtendWith(ChannelExtension.class)
+public class ChannelTraceTest {
+
+    private static final Set<String> CORRELATION_IDS = ConcurrentHashMap.newKeySet();
+
+    private static final Pattern SPAN = Pattern.compile(
+            "\\{\"traceId\":\"([0-9a-f]{32})\",\"spanId\":\"([0-9a-f]{16})\"(?:,\"parentSpanId\":\"([0-9a-f]{16})\")?"
+                    + ",\"name\":\"([^\"]*)\".*?\"status\":\\{\"code\":(\\d)}}");
+
+    @TempDir
+    Path directory;
+
+    @AfterAll
+    static void verifyCorrelationIdsAreUniquePerInvocation() {
+        assertEquals(2, CORRELATION_IDS.size(), "Each invocation should have its own correlation ID");
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A, TestChannel.CHANNEL_B})
+    void shouldExposeCorrelationIdAndTraceparent() {
+        String correlationId = ChannelContext.getCorrelationId();
+        assertNotNull(correlationId, "Correlation ID should be set during an invocation");
+        assertTrue(correlationId.matches("[0-9a-f]{32}"), "Correlation ID should be a W3C trace ID");
+        assertTrue(ChannelContext.getTraceparent().matches("00-" + correlationId + "-[0-9a-f]{16}-01"),
+                "Traceparent should carry the correlation ID");
+        CORRELATION_IDS.add(correlationId);
+    }
+
+    @TestTemplate
+    @Channel({TestChannel.CHANNEL_A})
+    void shouldNestSpansAndRecordThemInTheTrace() {
+        try (Span outer = ChannelContext.span("outer")) {
+            try (Span inner = ChannelContext.span("inner").setAttribute("step", 1)) {
+                assertEquals(outer.spanId(), inner.parentSpanId(), "Inner span should be nested in the outer span");
+                assertTrue(ChannelContext.getTraceparent().contains(inner.spanId()),
+                        "Traceparent should point at the current span");
+            }
+            assertEquals(ChannelContext.getTrace().rootSpanId(), outer.parentSpanId(),
+                    "Outer span should be nested in the invocation");
+            assertTrue(ChannelContext.getTraceparent().contains(outer.spanId()),
+                    "Outer span should be current again after the inner span ends");
+        }
+        assertEquals(2, ChannelContext.getTrace().finishedSpans().size(), "Both spans should be recorded");
+    }
+
+    @Test
+    void shouldExportEveryInvocationAsAnOtlpJsonLine() throws IOException {
+        Path traceFile = directory.resolve("traces.jsonl");
+        SampleRun.of(TracedSample.class, "optivem.trace", traceFile.toString());
+        SampleRun.of(TracedSample.class, "optivem.trace", traceFile.toString());
+
+        List<String> lines = Files.readAllLines(traceFile);
+        assertEquals(2, lines.size(), "Every run should append its invocation instead of overwriting the file");
+        String line = lines.get(0);
+        assertTrue(line.startsWith("{\"resourceSpans\":[{\"resource\":{\"attributes\":[{\"key\":\"service.name\""),
+                "The line should be an OTLP trace export request: " + line);
+
+        List<MatchResult> spans = SPAN.matcher(line).results().toList();
+        assertEquals(2, spans.size(), "The line should hold the invocation and the span timed inside it: " + line);
+        MatchResult invocation = spans.get(0);
+        MatchResult step = spans.get(1);
+        assertNull(invocation.group(3), "The invocation should be the root span");
+        assertEquals(invocation.group(1), step.group(1), "Both spans should belong to the trace of the invocation");
+        assertEquals(invocation.group(2), step.group(3), "The step should be nested in the invocation");
+        assertEquals("place order", step.group(4), "The step should keep its name");
+        assertEquals("2", invocation.group(5), "The failed invocation should have an error status");
+        assertTrue(line.contains("{\"key\":\"test.channel\",\"value\":{\"stringValue\":\"" + TestChannel.CHANNEL_A + "\"}}"),
+                "The invocation should name its channel: " + line);
+    }
+
+    @ExtendWith({SampleRun.OnlyInSampleRuns.class, ChannelExtension.class})
+    static class TracedSample {
+
+        @TestTemplate
+        @Channel(TestChannel.CHANNEL_A)
+        void shouldPlaceOrder() {
+            try (Span span = ChannelContext.span("place order")) {
+                span.setAttribute("sku", "A-1");
+                fail("Order rejected");
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.optivem.testing.channels;
+
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.engine.DiscoverySelector;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.testkit.engine.EngineExecutionResults;
+import org.junit.platform.testkit.engine.EngineTestKit;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs sample test classes in a nested Jupiter execution, to check outcomes such as failures, aborts and
+ * teardowns that cannot be asserted from inside the tests themselves.
+ * <p>
+ * Sample classes are annotated with {@code @ExtendWith(SampleRun.OnlyInSampleRuns.class)}, so that they are
+ * skipped when the regular test run discovers them.
+ */
+public final class SampleRun {
+
+    private static final String SAMPLES_PARAMETER = "optivem.samples";
+
+    private SampleRun() {
+    }
+
+    /**
+     * Runs the sample class with the given system properties, given as alternating names and values.
+     */
+    public static EngineExecutionResults of(Class<?> sampleClass, String... systemProperties) {
+        return of(List.of(sampleClass), systemProperties);
+    }
+
+    /**
+     * Runs the sample classes together with the given system properties, given as alternating names and values.
+     */
+    public static EngineExecutionResults of(List<Class<?>> sampleClasses, String... systemProperties) {
+        Map<String, String> previous = new HashMap<>();
+        for (int i = 0; i < systemProperties.length; i += 2) {
+            previous.put(systemProperties[i], System.getProperty(systemProperties[i]));
+            System.setProperty(systemProperties[i], systemProperties[i + 1]);
+        }
+        try {
+            return EngineTestKit.engine("junit-jupiter")
+                    .selectors(sampleClasses.stream().map(DiscoverySelectors::selectClass).toArray(DiscoverySelector[]::new))
+                    .configurationParameter(SAMPLES_PARAMETER, "true")
+                    .execute();
+        } finally {
+            previous.forEach((name, value) -> {
+                if (value != null) {
+                    System.setProperty(name, value);
+                } else {
+                    System.clearProperty(name);
+                }
+            });
+        }
+    }
+
+    /**
+     * Condition that only enables a sample class when it is run through {@link SampleRun}.
+     */
+    public static class OnlyInSampleRuns implements ExecutionCondition {
+
+        @Override
+        public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+            return context.getConfigurationParameter(SAMPLES_PARAMETER).isPresent()
+                    ? ConditionEvaluationResult.enabled("Sample run")
+                    : ConditionEvaluationResult.disabled("Sample class, only run by SampleRun");
+        }
+    }
+}
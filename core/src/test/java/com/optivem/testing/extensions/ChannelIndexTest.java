@@ -0,0 +1,149 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.ChannelMode;
+import com.optivem.testing.CombineMode;
+import com.optivem.testing.processing.ChannelIndexProcessor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChannelIndexProcessor and the runtime view of the index it generates.
+ */
+public class ChannelIndexTest {
+
+    private static final String SAMPLE = """
+            package sample;
+
+            import com.optivem.testing.*;
+            import org.junit.jupiter.params.provider.ValueSource;
+            import java.util.function.Predicate;
+
+            public class SampleTest {
+
+                public static class NotEmpty implements Predicate<Object[]> {
+                    public boolean test(Object[] values) {
+                        return values.length > 0;
+                    }
+                }
+
+                @Channel({"API", "UI"})
+                @DataSource("first")
+                @DataSource(value = "second", channels = "API")
+                void shouldUseInlineRows(String value) {
+                }
+
+                @Channel(value = "API", mode = ChannelMode.FAN_OUT)
+                @ValueSource(ints = {1, 2})
+                @Combine(value = CombineMode.CROSS, filter = NotEmpty.class, distinct = true, limit = 5)
+                @Batched(size = 2)
+                @LoadProfile(users = 2)
+                void shouldUseRuntimeSources(int value) {
+                }
+
+                void shouldNotBeIndexed() {
+                }
+            }
+            """;
+
+    @TempDir
+    static Path directory;
+
+    private static Properties index;
+    private static URLClassLoader loader;
+
+    @BeforeAll
+    static void compileSample() throws IOException {
+        Path source = directory.resolve("src/sample/SampleTest.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, SAMPLE);
+        Path output = Files.createDirectories(directory.resolve("classes"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int status = compiler.run(null, null, null, "-d", output.toString(),
+                "-cp", System.getProperty("java.class.path"),
+                "-processor", ChannelIndexProcessor.class.getName(),
+                source.toString());
+        assertEquals(0, status, "The sample should compile");
+
+        index = new Properties();
+        try (Reader reader = Files.newBufferedReader(output.resolve(ChannelIndexProcessor.INDEX_RESOURCE))) {
+            index.load(reader);
+        }
+        loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, ChannelIndexTest.class.getClassLoader());
+    }
+
+    @Test
+    void shouldRecordOnlyTheEntriesUsedAtRuntime() {
+        assertEquals("true", index.getProperty("sample.SampleTest.indexed"));
+        assertEquals("API,UI", index.getProperty("sample.SampleTest#shouldUseInlineRows(java.lang.String).channels"));
+        assertTrue(index.stringPropertyNames().stream().noneMatch(name -> name.endsWith(".tags")),
+                "Tags are not used at runtime and should not be indexed: " + index);
+        assertTrue(index.stringPropertyNames().stream().noneMatch(name -> name.contains("shouldNotBeIndexed")),
+                "Methods without @Channel should not be indexed");
+    }
+
+    @Test
+    void shouldLookUpInlineRows() throws Exception {
+        ChannelIndex.IndexedTemplate template = templateOf("shouldUseInlineRows", String.class);
+
+        assertArrayEquals(new String[]{"API", "UI"}, template.channels());
+        assertEquals(ChannelMode.PER_CHANNEL, template.mode());
+        assertEquals(2, template.rows().size());
+        assertArrayEquals(new Object[]{"first"}, template.rows().get(0));
+        assertArrayEquals(new Object[]{"second"}, template.rows().get(1));
+        assertNull(template.rowChannels().get(0));
+        assertEquals(Set.of("API"), template.rowChannels().get(1));
+        assertFalse(template.runtimeSources());
+        assertNull(template.combination());
+        assertNull(template.batchSize());
+        assertFalse(template.loadProfiled());
+    }
+
+    @Test
+    void shouldLookUpCombineBatchedAndLoadProfile() throws Exception {
+        ChannelIndex.IndexedTemplate template = templateOf("shouldUseRuntimeSources", int.class);
+
+        assertEquals(ChannelMode.FAN_OUT, template.mode());
+        assertNull(template.rows(), "Rows of runtime sources should be resolved at runtime");
+        assertTrue(template.runtimeSources());
+        assertEquals(CombineMode.CROSS, template.combination().mode());
+        assertEquals(List.of(loader.loadClass("sample.SampleTest$NotEmpty")), template.combination().filters());
+        assertTrue(template.combination().distinct());
+        assertEquals(5, template.combination().limit());
+        assertEquals(Integer.valueOf(2), template.batchSize());
+        assertTrue(template.loadProfiled());
+    }
+
+    @Test
+    void shouldParseTheIndexOncePerClass() throws Exception {
+        Method method = loader.loadClass("sample.SampleTest").getDeclaredMethod("shouldUseInlineRows", String.class);
+        assertSame(ChannelIndex.of(method), ChannelIndex.of(method));
+        assertSame(ChannelIndex.of(method).get(method), ChannelIndex.of(method).get(method));
+        assertNull(ChannelIndex.of(method).get(method.getDeclaringClass().getDeclaredMethod("shouldNotBeIndexed")));
+    }
+
+    private static ChannelIndex.IndexedTemplate templateOf(String name, Class<?>... parameterTypes) throws Exception {
+        Method method = loader.loadClass("sample.SampleTest").getDeclaredMethod(name, parameterTypes);
+        ChannelIndex channelIndex = ChannelIndex.of(method);
+        assertNotNull(channelIndex, "The sample class should be indexed");
+        ChannelIndex.IndexedTemplate template = channelIndex.get(method);
+        assertNotNull(template, "The method should be indexed: " + method);
+        return template;
+    }
+}
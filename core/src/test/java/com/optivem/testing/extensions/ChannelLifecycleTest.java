@@ -0,0 +1,91 @@
+package com.optivem.testing.extensions;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the warm channels kept by the watch mode, across reloads of the class declaring the hooks.
+ */
+public class ChannelLifecycleTest {
+
+    private static final String EVENTS = "optivem.test.warmEvents";
+
+    private static final String HOOKS = """
+            package sample;
+
+            import com.optivem.testing.*;
+
+            public class WarmHooks {
+
+                @BeforeChannel(scope = ChannelScope.RUN)
+                static void setUp(String channel) {
+                    record("setUp:" + channel + ":%1$s");
+                }
+
+                @AfterChannel(scope = ChannelScope.RUN)
+                static void tearDown(String channel) {
+                    record("tearDown:" + channel + ":%1$s");
+                }
+
+                private static void record(String event) {
+                    System.setProperty("%2$s", System.getProperty("%2$s", "") + event + " ");
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void clearEvents() {
+        System.clearProperty(EVENTS);
+    }
+
+    @Test
+    void shouldKeepTheChannelWarmUntilTheClassIsReloaded() throws IOException {
+        Class<?> first = compileAndLoad("v1");
+        Class<?> reloaded = compileAndLoad("v2");
+        assertNotSame(first, reloaded);
+
+        ChannelLifecycle.startWarm(first, "API");
+        ChannelLifecycle.startWarm(first, "API");
+        assertEquals("setUp:API:v1 ", System.getProperty(EVENTS), "A warm channel should be set up only once");
+
+        ChannelLifecycle.startWarm(reloaded, "API");
+        assertEquals("setUp:API:v1 tearDown:API:v1 setUp:API:v2 ", System.getProperty(EVENTS),
+                "A reloaded class should tear down the previous version and set up the channel with the new one");
+
+        ChannelLifecycle.startWarm(reloaded, "API");
+        assertEquals("setUp:API:v1 tearDown:API:v1 setUp:API:v2 ", System.getProperty(EVENTS));
+    }
+
+    private Class<?> compileAndLoad(String version) throws IOException {
+        Path source = directory.resolve(version + "/src/sample/WarmHooks.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, HOOKS.formatted(version, EVENTS));
+        Path output = Files.createDirectories(directory.resolve(version + "/classes"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int status = compiler.run(null, null, null, "-d", output.toString(),
+                "-cp", System.getProperty("java.class.path"), "-proc:none", source.toString());
+        assertEquals(0, status, "The sample should compile");
+
+        URLClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader());
+        try {
+            return Class.forName("sample.WarmHooks", true, loader);
+        } catch (ClassNotFoundException e) {
+            throw new AssertionError("The sample should load", e);
+        }
+    }
+}
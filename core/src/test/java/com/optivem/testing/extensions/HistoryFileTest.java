@@ -0,0 +1,59 @@
+package com.optivem.testing.extensions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HistoryFile, which merges the updates of concurrent runs into a file kept across runs.
+ */
+public class HistoryFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldKeepTheEntriesOfEveryConcurrentUpdate() throws Exception {
+        Path file = directory.resolve("history/history.properties");
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> updates = IntStream.range(0, 32)
+                    .mapToObj(lane -> executor.submit(() -> HistoryFile.update(file, "history", null,
+                            entries -> entries.merge("count", "1", (previous, one) -> String.valueOf(Long.parseLong(previous) + 1)))))
+                    .<Future<?>>map(future -> future)
+                    .toList();
+            for (Future<?> update : updates) {
+                update.get();
+            }
+        }
+
+        assertEquals(Map.of("count", "32"), HistoryFile.read(file, "history"), "No update should be lost");
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertEquals(List.of("history.properties", "history.properties.lock"),
+                    files.map(path -> path.getFileName().toString()).sorted().toList(),
+                    "No temporary file should be left behind");
+        }
+    }
+
+    @Test
+    void shouldTreatMalformedValuesAsMissing() throws IOException {
+        Path file = directory.resolve("history.properties");
+        Files.writeString(file, "fast=12\nbroken=12ms\n");
+
+        Map<String, String> entries = HistoryFile.read(file, "history");
+        assertEquals(Long.valueOf(12), HistoryFile.parseLong(entries.get("fast")));
+        assertNull(HistoryFile.parseLong(entries.get("broken")), "A malformed value should be left out");
+        assertNull(HistoryFile.parseLong(entries.get("missing")));
+    }
+}
@@ -0,0 +1,70 @@
+package com.optivem.testing.extensions;
+
+import com.optivem.testing.LoadProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the latency histogram and the percentiles of load results.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    void shouldReturnZeroWithoutLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.valueAtPercentile(95));
+    }
+
+    @Test
+    void shouldCountSmallLatenciesExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long latency = 1; latency <= 20; latency++) {
+            histogram.record(latency);
+        }
+        assertEquals(20, histogram.count());
+        assertEquals(10, histogram.valueAtPercentile(50));
+        assertEquals(19, histogram.valueAtPercentile(95));
+        assertEquals(20, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    void shouldKeepPercentilesWithinTheBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+        for (double percentile : new double[]{50, 90, 95, 99}) {
+            long expected = TimeUnit.MILLISECONDS.toNanos((long) percentile * 10);
+            long actual = histogram.valueAtPercentile(percentile);
+            assertTrue(actual >= expected && actual <= expected * 1.04,
+                    "p" + percentile + " should be within 4% above " + expected + " but was " + actual);
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), histogram.valueAtPercentile(100),
+                "The maximum should be exact");
+    }
+
+    @Test
+    void shouldComputePercentilesOfLoadResults() throws NoSuchMethodException {
+        LoadExtension.LoadResult result = new LoadExtension.LoadResult();
+        for (long millis = 1; millis <= 100; millis++) {
+            result.record(TimeUnit.MILLISECONDS.toNanos(millis), millis % 50 == 0 ? new AssertionError() : null);
+        }
+
+        assertEquals(100, result.count());
+        assertTrue(result.percentileMillis(50) >= 50 && result.percentileMillis(50) <= 51);
+        assertTrue(result.percentileMillis(95) >= 95 && result.percentileMillis(95) <= 98);
+        assertEquals(100, result.percentileMillis(100));
+        assertEquals(0.02, result.errorRate());
+
+        LoadProfile profile = LatencyHistogramTest.class.getDeclaredMethod("profiled").getAnnotation(LoadProfile.class);
+        assertEquals(2, result.breaches(profile).size(), "p95 and error rate should breach: " + result.breaches(profile));
+    }
+
+    @LoadProfile(maxP95Millis = 50, maxErrorRate = 0.01)
+    private void profiled() {
+    }
+}
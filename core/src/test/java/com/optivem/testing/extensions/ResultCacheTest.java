@@ -0,0 +1,101 @@
+package com.optivem.testing.extensions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ResultCache, which keys passed invocations by everything that can change their result.
+ */
+public class ResultCacheTest {
+
+    enum Status { OPEN, CLOSED }
+
+    record Order(String sku, int quantity, Status status) {
+    }
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldKeyRowsByTheirValues() throws NoSuchMethodException {
+        ResultCache cache = new ResultCache(directory, List.of(channel -> "v1"));
+        Method method = testMethod();
+
+        String key = keyOf(cache, method, "API", "sku", 2, Status.OPEN, LocalDate.of(2024, 1, 31));
+        assertNotNull(key, "Strings, numbers, enums and java.time values are stable");
+        assertEquals(key, keyOf(cache, method, "API", "sku", 2, Status.OPEN, LocalDate.of(2024, 1, 31)));
+        assertNotEquals(key, keyOf(cache, method, "API", "sku", 3, Status.OPEN, LocalDate.of(2024, 1, 31)));
+        assertNotEquals(key, keyOf(cache, method, "UI", "sku", 2, Status.OPEN, LocalDate.of(2024, 1, 31)));
+        assertNotEquals(key, keyOf(cache, method, "API", "sku", 2L, Status.OPEN, LocalDate.of(2024, 1, 31)),
+                "Values of different types should not share a key");
+    }
+
+    @Test
+    void shouldNotMixUpRowsWithTheSameStringForm() throws NoSuchMethodException {
+        ResultCache cache = new ResultCache(directory, List.of(channel -> "v1"));
+        Method method = testMethod();
+
+        assertNotEquals(keyOf(cache, method, "API", "a, b"), keyOf(cache, method, "API", "a", "b"));
+        assertNotEquals(keyOf(cache, method, "API", (Object) new int[]{1, 2}), keyOf(cache, method, "API", 1, 2));
+        assertNotEquals(keyOf(cache, method, "API", "null"), keyOf(cache, method, "API", (Object) null));
+    }
+
+    @Test
+    void shouldKeyRecordsListsAndBatchesOfStableValues() throws NoSuchMethodException {
+        ResultCache cache = new ResultCache(directory, List.of(channel -> "v1"));
+        Method method = testMethod();
+
+        String key = keyOf(cache, method, "API", new Order("sku", 1, Status.CLOSED), List.of("a", "b"));
+        assertNotNull(key);
+        assertEquals(key, keyOf(cache, method, "API", new Order("sku", 1, Status.CLOSED), List.of("a", "b")));
+        assertNotNull(keyOf(cache, method, "API", new Object[]{"first"}, new Object[]{"second"}),
+                "Batches of rows should be keyed by their rows");
+    }
+
+    @Test
+    void shouldNotCacheRowsWithoutStableValues() throws NoSuchMethodException {
+        ResultCache cache = new ResultCache(directory, List.of(channel -> "v1"));
+        Method method = testMethod();
+
+        assertNull(keyOf(cache, method, "API", new Object()), "An identity hash changes from run to run");
+        assertNull(keyOf(cache, method, "API", List.of(new StringBuilder("mutable"))));
+        assertNull(keyOf(cache, method, "API", new Object[]{"first"}, new Object[]{new Object()}));
+    }
+
+    @Test
+    void shouldNotCacheWithoutAFingerprint() throws NoSuchMethodException {
+        ResultCache cache = new ResultCache(directory, List.of(channel -> "API".equals(channel) ? "v1" : null));
+        Method method = testMethod();
+
+        assertNotNull(keyOf(cache, method, "API", "sku"));
+        assertNull(keyOf(cache, method, "UI", "sku"), "Nothing should be cached for an unidentified build");
+    }
+
+    @Test
+    void shouldRememberPassedInvocations() throws NoSuchMethodException {
+        ResultCache cache = new ResultCache(directory, List.of(channel -> "v1"));
+        String key = keyOf(cache, testMethod(), "API", "sku");
+
+        assertFalse(cache.contains(key));
+        cache.put(key, "[API] sku");
+        assertTrue(cache.contains(key));
+        assertFalse(new ResultCache(directory, List.of(channel -> "v2")).contains(keyOf(
+                new ResultCache(directory, List.of(channel -> "v2")), testMethod(), "API", "sku")),
+                "A new build of the system under test should not be answered from the cache");
+    }
+
+    private static String keyOf(ResultCache cache, Method method, String channel, Object... row) {
+        return cache.keyOf(ResultCacheTest.class, method, channel, row);
+    }
+
+    private static Method testMethod() throws NoSuchMethodException {
+        return ResultCacheTest.class.getDeclaredMethod("shouldKeyRowsByTheirValues");
+    }
+}
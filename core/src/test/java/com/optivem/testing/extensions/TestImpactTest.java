@@ -0,0 +1,115 @@
+package com.optivem.testing.extensions;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TestImpact, which reads JaCoCo execution data and selects the invocations affected by a change.
+ */
+public class TestImpactTest {
+
+    @TempDir
+    Path directory;
+
+    static class Sample {
+        void shouldPlaceOrder() {
+        }
+
+        void shouldCancelOrder() {
+        }
+    }
+
+    @Test
+    void shouldReadTheTopLevelClassesWithExecutedProbes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(0x01);
+        output.writeChar(0xC0C0);
+        output.writeChar(0x1007);
+        output.writeByte(0x10);
+        output.writeUTF("session");
+        output.writeLong(1L);
+        output.writeLong(2L);
+        writeClass(output, "com/example/OrderService", 9, 0x00, 0x00);
+        writeClass(output, "com/example/OrderService$Validator", 3, 0x04);
+        writeClass(output, "com/example/PaymentClient", 200, new int[25]);
+        writeClass(output, "com/example/Unused", 0);
+
+        assertEquals(Set.of("com.example.OrderService"), TestImpact.coveredClassesOf(bytes.toByteArray()),
+                "Only classes with an executed probe should be covered, nested classes by their top-level class");
+    }
+
+    @Test
+    void shouldMapChangedSourcesToClasses() {
+        assertEquals(Set.of("com.example.OrderService", "com.example.OrderTest"), TestImpact.changedClassesOf(Set.of(
+                "app/src/main/java/com/example/OrderService.java",
+                "app/src/test/kotlin/com/example/OrderTest.kt",
+                "README.md")));
+        assertNull(TestImpact.changedClassesOf(Set.of("app/src/main/resources/application.yml")),
+                "A changed resource may affect any class");
+        assertNull(TestImpact.changedClassesOf(Set.of("app/build.gradle")),
+                "A changed build script may affect any class");
+    }
+
+    @Test
+    void shouldSelectTheInvocationsAffectedByTheChanges() throws NoSuchMethodException {
+        Method placeOrder = Sample.class.getDeclaredMethod("shouldPlaceOrder");
+        Method cancelOrder = Sample.class.getDeclaredMethod("shouldCancelOrder");
+        Map<String, Set<String>> covered = Map.of(
+                InvocationKeys.keyOf(Sample.class, placeOrder, "API"), Set.of("com.example.OrderService"),
+                InvocationKeys.keyOf(Sample.class, placeOrder, "UI"), Set.of("com.example.OrderPage"),
+                InvocationKeys.keyOf(Sample.class, cancelOrder, "API"), Set.of("com.example.CancelService"));
+
+        TestImpact impact = new TestImpact(Path.of("impact.properties"), covered, Set.of("com.example.OrderService"));
+        assertTrue(impact.isAffected(Sample.class, placeOrder, "API"), "Covers the changed class");
+        assertFalse(impact.isAffected(Sample.class, placeOrder, "UI"), "Covers other classes only");
+        assertFalse(impact.isAffected(Sample.class, cancelOrder, "API"), "Covers other classes only");
+        assertTrue(impact.isAffected(Sample.class, cancelOrder, "UI"), "Never recorded, so it should run");
+
+        TestImpact testChanged = new TestImpact(Path.of("impact.properties"), covered, Set.of(TestImpactTest.class.getName()));
+        assertTrue(testChanged.isAffected(Sample.class, cancelOrder, "API"), "Declared in a changed test class");
+
+        TestImpact anyChange = new TestImpact(Path.of("impact.properties"), covered, null);
+        assertTrue(anyChange.isAffected(Sample.class, cancelOrder, "API"), "A change may affect any class");
+    }
+
+    @Test
+    void shouldKeepTheCoverageRecordedByAnotherLane() throws IOException {
+        Path file = directory.resolve("impact.properties");
+        TestImpact lane = new TestImpact(file, Map.of(), null);
+        Files.writeString(file, "other=com.example.PaymentClient\n");
+
+        lane.record("placeOrder", Set.of("com.example.OrderService", "com.example.OrderPage"));
+        lane.close();
+
+        assertEquals(Map.of("other", "com.example.PaymentClient", "placeOrder", "com.example.OrderPage,com.example.OrderService"),
+                HistoryFile.read(file, "test impact map"), "The coverage of both lanes should be kept");
+    }
+
+    private static void writeClass(DataOutputStream output, String name, int probes, int... probeBytes)
+            throws IOException {
+        output.writeByte(0x11);
+        output.writeLong(name.hashCode());
+        output.writeUTF(name);
+        int value = probes;
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+        for (int i = 0; i < (probes + 7) / 8; i++) {
+            output.writeByte(i < probeBytes.length ? probeBytes[i] : 0);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.optivem.testing.engine;
+
+import com.optivem.testing.Channel;
+import com.optivem.testing.ChannelMode;
+import com.optivem.testing.extensions.InvocationKeys;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Cost estimates of test methods and classes, from the invocation history of {@code -Doptivem.history}.
+ * <p>
+ * Costs are in milliseconds, or -1 if a method or class has never been recorded. Unknown costs sort first,
+ * like in the multi-JVM launcher, since they may belong to the slowest tests.
+ */
+final class CostHistory {
+
+    private static final String CHANNEL_PROPERTY = "channel";
+    private static final String HISTORY_PROPERTY = "optivem.history";
+
+    private final Map<String, Long> averageMillis;
+
+    private CostHistory(Map<String, Long> averageMillis) {
+        this.averageMillis = averageMillis;
+    }
+
+    static CostHistory load() {
+        Map<String, Long> history = new HashMap<>();
+        String path = System.getProperty(HISTORY_PROPERTY);
+        if (path == null || path.isEmpty() || !Files.exists(Path.of(path))) {
+            return new CostHistory(history);
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Path.of(path))) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read invocation history: " + path, e);
+        }
+        for (String key : properties.stringPropertyNames()) {
+            try {
+                history.put(key, Long.parseLong(properties.getProperty(key).trim()));
+            } catch (NumberFormatException e) {
+                // A value that is not a number, e.g. in a file that was edited by hand, counts as unknown
+            }
+        }
+        return new CostHistory(history);
+    }
+
+    /**
+     * Returns the estimated cost of a test method: the sum of its channels, or -1 if any of them is unknown.
+     * Methods that are not channel templates have no recorded history, and are always unknown.
+     */
+    long costOf(Class<?> testClass, Method testMethod) {
+        Channel channel = testMethod.getAnnotation(Channel.class);
+        if (channel == null) {
+            return -1;
+        }
+        if (channel.mode() == ChannelMode.FAN_OUT) {
+            return averageMillis.getOrDefault(
+                    InvocationKeys.keyOf(testClass, testMethod, InvocationKeys.fanOutChannelOf(channel.value())), -1L);
+        }
+
+        String channelFilter = System.getProperty(CHANNEL_PROPERTY);
+        long cost = 0;
+        for (String channelName : channel.value()) {
+            if (channelFilter != null && !channelFilter.isEmpty() && !channelName.equalsIgnoreCase(channelFilter)) {
+                continue;
+            }
+            Long millis = averageMillis.get(InvocationKeys.keyOf(testClass, testMethod, channelName));
+            if (millis == null) {
+                return -1;
+            }
+            cost += millis;
+        }
+        return cost;
+    }
+
+    /**
+     * Returns the estimated cost of a test class: the sum of its channel templates, including the inherited ones,
+     * or -1 if any of them is unknown.
+     */
+    long costOf(Class<?> testClass) {
+        long cost = 0;
+        for (Method method : templatesOf(testClass)) {
+            long methodCost = costOf(testClass, method);
+            if (methodCost < 0) {
+                return -1;
+            }
+            cost += methodCost;
+        }
+        return cost;
+    }
+
+    /**
+     * Sort key that puts the most expensive tests first, and unknown ones before all others.
+     */
+    static long longestFirst(long cost) {
+        return cost < 0 ? Long.MIN_VALUE : -cost;
+    }
+
+    /**
+     * Returns the channel templates that run in a test class: its own, and those it inherits from its superclasses
+     * and interfaces without overriding them.
+     */
+    private static List<Method> templatesOf(Class<?> testClass) {
+        List<Method> templates = new ArrayList<>();
+        // Signatures of the methods seen so far, which hide the methods they override further up
+        Set<String> signatures = new HashSet<>();
+        List<Class<?>> types = new ArrayList<>();
+        for (Class<?> type = testClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            types.add(type);
+        }
+        for (int i = 0; i < types.size(); i++) {
+            for (Class<?> implemented : types.get(i).getInterfaces()) {
+                if (!types.contains(implemented)) {
+                    types.add(implemented);
+                }
+            }
+        }
+        for (Class<?> type : types) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.isSynthetic() || Modifier.isStatic(method.getModifiers())
+                        || !signatures.add(InvocationKeys.signatureOf(method))) {
+                    continue;
+                }
+                if (method.isAnnotationPresent(Channel.class)) {
+                    templates.add(method);
+                }
+            }
+        }
+        return templates;
+    }
+}
@@ -0,0 +1,24 @@
+package com.optivem.testing.engine;
+
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.ClassOrdererContext;
+
+import java.util.Comparator;
+
+/**
+ * Orders test classes by their estimated cost from the invocation history, longest first,
+ * so that the slowest classes start while the pool still has threads to spare for the rest.
+ * <p>
+ * The {@code optivem} engine uses it as the default class orderer, see {@code junit.jupiter.testclass.order.default}.
+ */
+public class HistoryClassOrderer implements ClassOrderer {
+
+    private final CostHistory history = CostHistory.load();
+
+    @Override
+    public void orderClasses(ClassOrdererContext context) {
+        context.getClassDescriptors().sort(Comparator.comparingLong(
+                (ClassDescriptor descriptor) -> CostHistory.longestFirst(history.costOf(descriptor.getTestClass()))));
+    }
+}
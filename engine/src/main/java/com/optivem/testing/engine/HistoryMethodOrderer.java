@@ -0,0 +1,35 @@
+package com.optivem.testing.engine;
+
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.MethodOrdererContext;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.util.Comparator;
+import java.util.Optional;
+
+/**
+ * Orders the test methods of a class by their estimated cost from the invocation history, longest first.
+ * <p>
+ * The {@code optivem} engine uses it as the default method orderer, see {@code junit.jupiter.testmethod.order.default}.
+ */
+public class HistoryMethodOrderer implements MethodOrderer {
+
+    private final CostHistory history = CostHistory.load();
+
+    @Override
+    public void orderMethods(MethodOrdererContext context) {
+        Class<?> testClass = context.getTestClass();
+        context.getMethodDescriptors().sort(Comparator.comparingLong(
+                (MethodDescriptor descriptor) -> CostHistory.longestFirst(history.costOf(testClass, descriptor.getMethod()))));
+    }
+
+    /**
+     * Keeps the configured execution mode, since ordering is only a scheduling hint here.
+     * Method orderers otherwise make the methods of a class run one after the other.
+     */
+    @Override
+    public Optional<ExecutionMode> getDefaultExecutionMode() {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,56 @@
+package com.optivem.testing.engine;
+
+import org.junit.platform.engine.TestTag;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.support.descriptor.AbstractTestDescriptor;
+import org.junit.platform.launcher.TestIdentifier;
+
+import java.util.Set;
+
+/**
+ * Descriptor of the {@code optivem} engine for a test or container of the embedded Jupiter execution.
+ * Its unique ID is the Jupiter unique ID with the engine segment replaced, so reports and reruns keep working.
+ */
+final class MirroredDescriptor extends AbstractTestDescriptor {
+
+    private final String jupiterId;
+    private final Type type;
+    private final Set<TestTag> tags;
+    private final String legacyReportingName;
+
+    MirroredDescriptor(UniqueId uniqueId, TestIdentifier identifier) {
+        super(uniqueId, identifier.getDisplayName(), identifier.getSource().orElse(null));
+        this.jupiterId = identifier.getUniqueId();
+        this.type = identifier.getType();
+        this.tags = Set.copyOf(identifier.getTags());
+        this.legacyReportingName = identifier.getLegacyReportingName();
+    }
+
+    /**
+     * Returns the unique ID of the mirrored test or container in the embedded Jupiter execution.
+     */
+    String jupiterId() {
+        return jupiterId;
+    }
+
+    @Override
+    public Type getType() {
+        return type;
+    }
+
+    @Override
+    public Set<TestTag> getTags() {
+        return tags;
+    }
+
+    @Override
+    public String getLegacyReportingName() {
+        return legacyReportingName;
+    }
+
+    @Override
+    public boolean mayRegisterTests() {
+        // Test templates and factories only register their invocations while running
+        return type.isContainer();
+    }
+}
@@ -0,0 +1,277 @@
+package com.optivem.testing.engine;
+
+import org.junit.platform.engine.ConfigurationParameters;
+import org.junit.platform.engine.DiscoveryFilter;
+import org.junit.platform.engine.DiscoverySelector;
+import org.junit.platform.engine.EngineDiscoveryRequest;
+import org.junit.platform.engine.EngineExecutionListener;
+import org.junit.platform.engine.ExecutionRequest;
+import org.junit.platform.engine.Filter;
+import org.junit.platform.engine.TestDescriptor;
+import org.junit.platform.engine.TestEngine;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.UniqueId;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.engine.discovery.UniqueIdSelector;
+import org.junit.platform.engine.reporting.ReportEntry;
+import org.junit.platform.engine.support.descriptor.EngineDescriptor;
+import org.junit.platform.launcher.EngineFilter;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import org.junit.platform.launcher.core.LauncherConfig;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JUnit Platform test engine that runs a test suite with a channel-aware scheduler.
+ * <p>
+ * The engine runs the Jupiter tests of the suite, including the {@code @Channel} templates, in a single embedded
+ * Jupiter execution. Every channel × row invocation becomes a task of Jupiter's work-stealing fork-join pool, so
+ * invocations of all templates and channels run side by side. The scheduler respects three inputs at once:
+ * <ul>
+ *   <li>the concurrency caps of the channels, {@code -Doptivem.concurrency.<channel>=N}</li>
+ *   <li>the isolation keys of {@link com.optivem.testing.Isolated @Isolated} tests</li>
+ *   <li>the cost estimates of the invocation history of {@code -Doptivem.history}, which start the slowest
+ *       classes and templates first</li>
+ * </ul>
+ * Invocations that have to wait for their channel or isolation key hand their thread to the pool, so the
+ * remaining invocations keep the CPUs and the channels busy. The size of the pool is set with
+ * {@code optivem.engine.parallelism}, two threads per CPU by default. The pool grows by at most
+ * {@code optivem.concurrency.compensation} threads (one per CPU by default) to make up for waiting invocations;
+ * beyond that, invocations wait on their thread.
+ * <p>
+ * The engine is optional: add {@code optivem-testing-engine} to the test runtime classpath and run only this
+ * engine, since it already runs the Jupiter tests:
+ * <pre>
+ * test {
+ *     useJUnitPlatform {
+ *         includeEngines 'optivem'
+ *     }
+ * }
+ * </pre>
+ */
+public class OptivemTestEngine implements TestEngine {
+
+    /**
+     * ID of the engine, as used with {@code includeEngines}.
+     */
+    public static final String ENGINE_ID = "optivem";
+
+    /**
+     * Configuration parameter with the number of threads of the work-stealing pool.
+     */
+    static final String PARALLELISM_PARAMETER = "optivem.engine.parallelism";
+
+    /**
+     * Configuration parameter with the maximum number of threads added to the pool for waiting invocations.
+     */
+    static final String COMPENSATION_PARAMETER = "optivem.concurrency.compensation";
+
+    private static final String JUPITER_ENGINE_ID = "junit-jupiter";
+
+    @Override
+    public String getId() {
+        return ENGINE_ID;
+    }
+
+    @Override
+    public Optional<String> getGroupId() {
+        return Optional.of("com.optivem");
+    }
+
+    @Override
+    public Optional<String> getArtifactId() {
+        return Optional.of("optivem-testing-engine");
+    }
+
+    @Override
+    public TestDescriptor discover(EngineDiscoveryRequest discoveryRequest, UniqueId uniqueId) {
+        List<DiscoverySelector> selectors = new ArrayList<>();
+        for (DiscoverySelector selector : discoveryRequest.getSelectorsByType(DiscoverySelector.class)) {
+            if (selector instanceof UniqueIdSelector uniqueIdSelector) {
+                // Reruns from reports and IDEs select the unique IDs of this engine, which mirror the Jupiter ones
+                UniqueId selected = uniqueIdSelector.getUniqueId();
+                if (selected.getEngineId().map(segment -> ENGINE_ID.equals(segment.getValue())).orElse(false)) {
+                    selectors.add(DiscoverySelectors.selectUniqueId(
+                            withEngine(selected, UniqueId.forEngine(JUPITER_ENGINE_ID))));
+                }
+            } else {
+                selectors.add(selector);
+            }
+        }
+
+        EngineDescriptor engine = new EngineDescriptor(uniqueId, "Optivem");
+        if (selectors.isEmpty()) {
+            return engine;
+        }
+        TestPlan testPlan = launcher().discover(request(discoveryRequest.getConfigurationParameters(), selectors)
+                .filters(discoveryRequest.getFiltersByType(DiscoveryFilter.class).toArray(new Filter<?>[0]))
+                .build());
+        for (TestIdentifier root : testPlan.getRoots()) {
+            for (TestIdentifier child : testPlan.getChildren(root)) {
+                mirror(testPlan, child, engine, uniqueId);
+            }
+        }
+        return engine;
+    }
+
+    private static void mirror(TestPlan testPlan, TestIdentifier identifier, TestDescriptor parent, UniqueId engineId) {
+        MirroredDescriptor descriptor = new MirroredDescriptor(
+                withEngine(UniqueId.parse(identifier.getUniqueId()), engineId), identifier);
+        parent.addChild(descriptor);
+        for (TestIdentifier child : testPlan.getChildren(identifier)) {
+            mirror(testPlan, child, descriptor, engineId);
+        }
+    }
+
+    @Override
+    public void execute(ExecutionRequest request) {
+        TestDescriptor engine = request.getRootTestDescriptor();
+        EngineExecutionListener listener = request.getEngineExecutionListener();
+
+        // Only the tests that are left after the filters of the outer launcher are run
+        Map<String, TestDescriptor> descriptors = new ConcurrentHashMap<>();
+        descriptors.put(UniqueId.forEngine(JUPITER_ENGINE_ID).toString(), engine);
+        List<DiscoverySelector> selectors = new ArrayList<>();
+        for (TestDescriptor descendant : engine.getDescendants()) {
+            if (descendant instanceof MirroredDescriptor mirrored) {
+                descriptors.put(mirrored.jupiterId(), mirrored);
+                if (mirrored.getChildren().isEmpty()) {
+                    selectors.add(DiscoverySelectors.selectUniqueId(mirrored.jupiterId()));
+                }
+            }
+        }
+        if (selectors.isEmpty()) {
+            listener.executionStarted(engine);
+            listener.executionFinished(engine, TestExecutionResult.successful());
+            return;
+        }
+
+        launcher().execute(request(request.getConfigurationParameters(), selectors).build(),
+                new MirroringListener(engine, listener, descriptors));
+    }
+
+    /**
+     * Builds a request for the embedded Jupiter execution, with parallel execution and the history orderers enabled.
+     * Parameters that are set explicitly for the run take precedence.
+     */
+    private static LauncherDiscoveryRequestBuilder request(ConfigurationParameters configuration,
+                                                           List<DiscoverySelector> selectors) {
+        int parallelism = configuration.get(PARALLELISM_PARAMETER)
+                .map(value -> Integer.parseInt(value.trim()))
+                .orElse(Runtime.getRuntime().availableProcessors() * 2);
+        int compensation = configuration.get(COMPENSATION_PARAMETER)
+                .map(value -> Integer.parseInt(value.trim()))
+                .orElse(Runtime.getRuntime().availableProcessors());
+
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("junit.jupiter.execution.parallel.enabled", "true");
+        parameters.put("junit.jupiter.execution.parallel.mode.default", "concurrent");
+        parameters.put("junit.jupiter.execution.parallel.mode.classes.default", "concurrent");
+        parameters.put("junit.jupiter.execution.parallel.config.strategy", "fixed");
+        parameters.put("junit.jupiter.execution.parallel.config.fixed.parallelism", String.valueOf(Math.max(1, parallelism)));
+        // Bounds the threads the pool adds for invocations waiting for their channel, and waits without them beyond
+        parameters.put("junit.jupiter.execution.parallel.config.fixed.max-pool-size",
+                String.valueOf(Math.max(1, parallelism) + Math.max(0, compensation)));
+        parameters.put("junit.jupiter.execution.parallel.config.fixed.saturate", "true");
+        parameters.put(COMPENSATION_PARAMETER, String.valueOf(Math.max(0, compensation)));
+        parameters.put("junit.jupiter.testclass.order.default", HistoryClassOrderer.class.getName());
+        parameters.put("junit.jupiter.testmethod.order.default", HistoryMethodOrderer.class.getName());
+        for (String key : configuration.keySet()) {
+            configuration.get(key).ifPresent(value -> parameters.put(key, value));
+        }
+
+        return LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectors)
+                .filters(EngineFilter.includeEngines(JUPITER_ENGINE_ID))
+                .configurationParameters(parameters);
+    }
+
+    private static Launcher launcher() {
+        // The outer launcher already has the listeners of the run, so they are not registered twice
+        return LauncherFactory.create(LauncherConfig.builder()
+                .enableTestExecutionListenerAutoRegistration(false)
+                .build());
+    }
+
+    /**
+     * Returns the unique ID with its engine segment replaced by the given engine ID.
+     */
+    private static UniqueId withEngine(UniqueId uniqueId, UniqueId engineId) {
+        UniqueId result = engineId;
+        List<UniqueId.Segment> segments = uniqueId.getSegments();
+        for (UniqueId.Segment segment : segments.subList(1, segments.size())) {
+            result = result.append(segment.getType(), segment.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Reports the events of the embedded Jupiter execution as events of this engine.
+     * Invocations of test templates are registered as dynamic tests of this engine while they are running.
+     */
+    private static class MirroringListener implements TestExecutionListener {
+
+        private final TestDescriptor engine;
+        private final EngineExecutionListener listener;
+        private final Map<String, TestDescriptor> descriptors;
+
+        MirroringListener(TestDescriptor engine, EngineExecutionListener listener, Map<String, TestDescriptor> descriptors) {
+            this.engine = engine;
+            this.listener = listener;
+            this.descriptors = descriptors;
+        }
+
+        @Override
+        public void dynamicTestRegistered(TestIdentifier testIdentifier) {
+            listener.dynamicTestRegistered(register(testIdentifier));
+        }
+
+        @Override
+        public void executionSkipped(TestIdentifier testIdentifier, String reason) {
+            listener.executionSkipped(descriptorOf(testIdentifier), reason);
+        }
+
+        @Override
+        public void executionStarted(TestIdentifier testIdentifier) {
+            listener.executionStarted(descriptorOf(testIdentifier));
+        }
+
+        @Override
+        public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+            listener.executionFinished(descriptorOf(testIdentifier), testExecutionResult);
+        }
+
+        @Override
+        public void reportingEntryPublished(TestIdentifier testIdentifier, ReportEntry entry) {
+            listener.reportingEntryPublished(descriptorOf(testIdentifier), entry);
+        }
+
+        private TestDescriptor descriptorOf(TestIdentifier testIdentifier) {
+            TestDescriptor descriptor = descriptors.get(testIdentifier.getUniqueId());
+            if (descriptor == null) {
+                descriptor = register(testIdentifier);
+                listener.dynamicTestRegistered(descriptor);
+            }
+            return descriptor;
+        }
+
+        private TestDescriptor register(TestIdentifier testIdentifier) {
+            TestDescriptor parent = testIdentifier.getParentId().map(descriptors::get).orElse(engine);
+            MirroredDescriptor descriptor = new MirroredDescriptor(
+                    withEngine(UniqueId.parse(testIdentifier.getUniqueId()), engine.getUniqueId()), testIdentifier);
+            parent.addChild(descriptor);
+            descriptors.put(testIdentifier.getUniqueId(), descriptor);
+            return descriptor;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.optivem.testing.engine;
+
+import com.optivem.testing.Channel;
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrdererContext;
+import org.junit.jupiter.api.MethodDescriptor;
+import org.junit.jupiter.api.MethodOrdererContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the orderers that start the tests with the longest history first.
+ */
+public class HistoryOrdererTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldStartUnknownClassesFirstAndThenTheLongest() throws IOException {
+        List<ClassDescriptor> classes = new ArrayList<>();
+        for (Class<?> testClass : List.of(FastSample.class, SlowSample.class, UnknownSample.class)) {
+            classes.add(proxy(ClassDescriptor.class, Map.of("getTestClass", testClass)));
+        }
+
+        withHistory(Map.of(
+                FastSample.class.getName() + "#shouldRun()[API]", "10",
+                SlowSample.class.getName() + "#shouldRun()[API]", "400",
+                SlowSample.class.getName() + "#shouldRun()[UI]", "100"), () ->
+                new HistoryClassOrderer().orderClasses(proxy(ClassOrdererContext.class, Map.of("getClassDescriptors", classes))));
+
+        assertEquals(List.of(UnknownSample.class, SlowSample.class, FastSample.class),
+                classes.stream().map(ClassDescriptor::getTestClass).toList(),
+                "Classes without history may be the slowest, then the classes should start longest first");
+    }
+
+    @Test
+    void shouldCountTheInheritedTemplatesOfAClass() throws IOException {
+        List<ClassDescriptor> classes = new ArrayList<>();
+        for (Class<?> testClass : List.of(FastSample.class, InheritingSample.class, SlowSample.class)) {
+            classes.add(proxy(ClassDescriptor.class, Map.of("getTestClass", testClass)));
+        }
+
+        withHistory(Map.of(
+                FastSample.class.getName() + "#shouldRun()[API]", "100",
+                SlowSample.class.getName() + "#shouldRun()[API]", "400",
+                SlowSample.class.getName() + "#shouldRun()[UI]", "100",
+                InheritingSample.class.getName() + "#shouldRun()[API]", "300",
+                InheritingSample.class.getName() + "#shouldRunOverridden()[API]", "20"), () ->
+                new HistoryClassOrderer().orderClasses(proxy(ClassOrdererContext.class, Map.of("getClassDescriptors", classes))));
+
+        assertEquals(List.of(SlowSample.class, InheritingSample.class, FastSample.class),
+                classes.stream().map(ClassDescriptor::getTestClass).toList(),
+                "Inherited templates should count under the key of the class that runs them, except the overridden ones");
+    }
+
+    @Test
+    void shouldStartTheLongestMethodsOfAClassFirst() throws Exception {
+        List<MethodDescriptor> methods = new ArrayList<>();
+        for (String name : List.of("shouldRunFast", "shouldRunSlow", "shouldRunPlain")) {
+            methods.add(proxy(MethodDescriptor.class, Map.of("getMethod", MethodSample.class.getDeclaredMethod(name))));
+        }
+
+        withHistory(Map.of(
+                MethodSample.class.getName() + "#shouldRunFast()[API]", "10",
+                MethodSample.class.getName() + "#shouldRunSlow()[API]", "300"), () ->
+                new HistoryMethodOrderer().orderMethods(proxy(MethodOrdererContext.class,
+                        Map.of("getTestClass", MethodSample.class, "getMethodDescriptors", methods))));
+
+        assertEquals(List.of("shouldRunPlain", "shouldRunSlow", "shouldRunFast"),
+                methods.stream().map(descriptor -> descriptor.getMethod().getName()).toList(),
+                "Methods without history should start first, then the longest");
+        assertTrue(new HistoryMethodOrderer().getDefaultExecutionMode().isEmpty(),
+                "Ordering should not make the methods of a class run one after the other");
+    }
+
+    private void withHistory(Map<String, String> averageMillis, Runnable orderer) throws IOException {
+        Path historyFile = directory.resolve("history.properties");
+        Properties history = new Properties();
+        averageMillis.forEach(history::setProperty);
+        try (Writer writer = Files.newBufferedWriter(historyFile)) {
+            history.store(writer, null);
+        }
+        System.setProperty("optivem.history", historyFile.toString());
+        try {
+            orderer.run();
+        } finally {
+            System.clearProperty("optivem.history");
+        }
+    }
+
+    /**
+     * Returns an implementation of a Jupiter interface that answers the given methods, and no others.
+     */
+    private static <T> T proxy(Class<T> type, Map<String, Object> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (!answers.containsKey(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return answers.get(method.getName());
+        }));
+    }
+
+    static class FastSample {
+        @Channel("API")
+        void shouldRun() {
+        }
+    }
+
+    static class SlowSample {
+        @Channel({"API", "UI"})
+        void shouldRun() {
+        }
+    }
+
+    static class UnknownSample {
+        @Channel("API")
+        void shouldRun() {
+        }
+    }
+
+    abstract static class BaseSample {
+        @Channel("API")
+        void shouldRun() {
+        }
+
+        @Channel("UI")
+        void shouldRunOverridden() {
+        }
+    }
+
+    static class InheritingSample extends BaseSample {
+        @Override
+        @Channel("API")
+        void shouldRunOverridden() {
+        }
+    }
+
+    static class MethodSample {
+        @Channel("API")
+        void shouldRunFast() {
+        }
+
+        @Channel("API")
+        void shouldRunSlow() {
+        }
+
+        void shouldRunPlain() {
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.optivem.testing.engine;
+
+import com.optivem.testing.Channel;
+import com.optivem.testing.Isolated;
+import com.optivem.testing.contexts.ChannelContext;
+import com.optivem.testing.extensions.ChannelExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.launcher.EngineFilter;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for running channel templates through the optivem engine and its channel-aware scheduler.
+ */
+public class OptivemTestEngineTest {
+
+    @Test
+    void shouldReportEveryChannelInvocationAsATestOfTheEngine() {
+        Set<String> uniqueIds = ConcurrentHashMap.newKeySet();
+        TestExecutionSummary summary = run(ChannelSample.class, new TestExecutionListener() {
+            @Override
+            public void executionStarted(TestIdentifier testIdentifier) {
+                uniqueIds.add(testIdentifier.getUniqueId());
+            }
+        });
+
+        assertEquals(9, summary.getTestsSucceededCount(), "Two channels with four rows each, and the plain test");
+        assertEquals(0, summary.getTestsFailedCount());
+        assertTrue(uniqueIds.stream().allMatch(id -> id.startsWith("[engine:optivem]")),
+                "All tests should be reported by the optivem engine: " + uniqueIds);
+    }
+
+    @Test
+    void shouldNotRunMoreInvocationsOfAChannelThanItsCap() {
+        ChannelSample.MAX_RUNNING_UI.set(0);
+        System.setProperty("optivem.concurrency.UI", "1");
+        try {
+            TestExecutionSummary summary = run(ChannelSample.class, new TestExecutionListener() {
+            });
+            assertEquals(0, summary.getTestsFailedCount());
+        } finally {
+            System.clearProperty("optivem.concurrency.UI");
+        }
+
+        assertEquals(1, ChannelSample.MAX_RUNNING_UI.get(), "UI invocations should run one at a time");
+    }
+
+    @Test
+    void shouldKeepInvocationsWithTheSameIsolationKeyApart() {
+        IsolationSample.reset();
+        TestExecutionSummary summary = run(IsolationSample.class, new TestExecutionListener() {
+        });
+
+        assertEquals(19, summary.getTestsSucceededCount(), "Every invocation should run");
+        assertEquals(1, IsolationSample.MAX_HOLDING_ORDERS.get(), "Invocations keyed on orders should run one at a time");
+        assertTrue(IsolationSample.MAX_RUNNING.get() > 1, "Invocations without a common key should run side by side");
+    }
+
+    @Test
+    void shouldRunAnExclusiveIsolatedInvocationAlone() {
+        IsolationSample.reset();
+        TestExecutionSummary summary = run(IsolationSample.class, new TestExecutionListener() {
+        });
+
+        assertEquals(0, summary.getTestsFailedCount());
+        assertEquals(List.of(1, 1), IsolationSample.RUNNING_BESIDE_EXCLUSIVE,
+                "No other invocation should run while the exclusive one starts or ends");
+    }
+
+    private static TestExecutionSummary run(Class<?> testClass, TestExecutionListener listener) {
+        SummaryGeneratingListener summary = new SummaryGeneratingListener();
+        LauncherFactory.create().execute(LauncherDiscoveryRequestBuilder.request()
+                .selectors(DiscoverySelectors.selectClass(testClass))
+                .filters(EngineFilter.includeEngines(OptivemTestEngine.ENGINE_ID))
+                .configurationParameter("optivem.engine.parallelism", "4")
+                .build(), summary, listener);
+        return summary.getSummary();
+    }
+
+    @ExtendWith(ChannelExtension.class)
+    static class ChannelSample {
+
+        static final AtomicInteger RUNNING_UI = new AtomicInteger();
+        static final AtomicInteger MAX_RUNNING_UI = new AtomicInteger();
+
+        @TestTemplate
+        @Channel({"API", "UI"})
+        @ValueSource(ints = {1, 2, 3, 4})
+        void shouldRunEveryChannelAndRow(int row) throws InterruptedException {
+            boolean ui = "UI".equals(ChannelContext.get());
+            if (ui) {
+                MAX_RUNNING_UI.accumulateAndGet(RUNNING_UI.incrementAndGet(), Math::max);
+            }
+            try {
+                Thread.sleep(50);
+            } finally {
+                if (ui) {
+                    RUNNING_UI.decrementAndGet();
+                }
+            }
+        }
+
+        @Test
+        void shouldRunPlainTests() {
+            assertNotNull(ChannelSample.class);
+        }
+    }
+
+    @ExtendWith(ChannelExtension.class)
+    static class IsolationSample {
+
+        static final AtomicInteger RUNNING = new AtomicInteger();
+        static final AtomicInteger MAX_RUNNING = new AtomicInteger();
+        static final AtomicInteger HOLDING_ORDERS = new AtomicInteger();
+        static final AtomicInteger MAX_HOLDING_ORDERS = new AtomicInteger();
+        static final List<Integer> RUNNING_BESIDE_EXCLUSIVE = new CopyOnWriteArrayList<>();
+
+        static void reset() {
+            RUNNING.set(0);
+            MAX_RUNNING.set(0);
+            HOLDING_ORDERS.set(0);
+            MAX_HOLDING_ORDERS.set(0);
+            RUNNING_BESIDE_EXCLUSIVE.clear();
+        }
+
+        @TestTemplate
+        @Channel({"API", "UI"})
+        @ValueSource(ints = {1, 2, 3})
+        @Isolated(keys = "orders")
+        void shouldDeleteOrders(int row) throws InterruptedException {
+            holdOrders();
+        }
+
+        @TestTemplate
+        @Channel({"API", "UI"})
+        @ValueSource(ints = {1, 2, 3})
+        @Isolated(keys = {"customers", "orders"})
+        void shouldDeleteCustomersAndTheirOrders(int row) throws InterruptedException {
+            holdOrders();
+        }
+
+        @TestTemplate
+        @Channel({"API", "UI"})
+        @ValueSource(ints = {1, 2, 3})
+        void shouldRunBesideOthers(int row) throws InterruptedException {
+            run(() -> Thread.sleep(30));
+        }
+
+        @TestTemplate
+        @Channel("API")
+        @Isolated("Resets the clock")
+        void shouldRunAlone() throws InterruptedException {
+            run(() -> {
+                RUNNING_BESIDE_EXCLUSIVE.add(RUNNING.get());
+                Thread.sleep(30);
+                RUNNING_BESIDE_EXCLUSIVE.add(RUNNING.get());
+            });
+        }
+
+        private static void holdOrders() throws InterruptedException {
+            run(() -> {
+                MAX_HOLDING_ORDERS.accumulateAndGet(HOLDING_ORDERS.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(30);
+                } finally {
+                    HOLDING_ORDERS.decrementAndGet();
+                }
+            });
+        }
+
+        private static void run(Body body) throws InterruptedException {
+            MAX_RUNNING.accumulateAndGet(RUNNING.incrementAndGet(), Math::max);
+            try {
+                body.run();
+            } finally {
+                RUNNING.decrementAndGet();
+            }
+        }
+
+        interface Body {
+            void run() throws InterruptedException;
+        }
+    }
+}
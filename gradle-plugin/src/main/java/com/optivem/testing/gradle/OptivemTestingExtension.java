@@ -0,0 +1,97 @@
+package com.optivem.testing.gradle;
+
+import org.gradle.api.Action;
+import org.gradle.api.NamedDomainObjectContainer;
+import org.gradle.api.model.ObjectFactory;
+
+import javax.inject.Inject;
+
+/**
+ * The {@code optivemTesting} extension configuring the test lanes.
+ * <p>
+ * Example usage:
+ * <pre>
+ * optivemTesting {
+ *     channels {
+ *         ui {
+ *             maxParallelForks = 2
+ *             maxHeapSize = '2g'
+ *         }
+ *         api {
+ *             maxParallelForks = 4
+ *         }
+ *     }
+ *     isolated {
+ *         maxHeapSize = '1g'
+ *     }
+ *     quarantine {
+ *         maxParallelForks = 1
+ *     }
+ * }
+ * </pre>
+ */
+public abstract class OptivemTestingExtension {
+
+    private final NamedDomainObjectContainer<TestLane> channels;
+    private final TestLane isolated;
+    private final TestLane quarantine;
+
+    /**
+     * Creates a new OptivemTestingExtension.
+     * @param objects the Gradle object factory
+     */
+    @Inject
+    public OptivemTestingExtension(ObjectFactory objects) {
+        this.channels = objects.domainObjectContainer(TestLane.class);
+        this.isolated = objects.newInstance(TestLane.class, OptivemTestingPlugin.ISOLATED_TAG);
+        this.quarantine = objects.newInstance(TestLane.class, OptivemTestingPlugin.QUARANTINE_LANE);
+    }
+
+    /**
+     * The channel lanes, one per channel name.
+     * @return the channel lanes
+     */
+    public NamedDomainObjectContainer<TestLane> getChannels() {
+        return channels;
+    }
+
+    /**
+     * Configures the channel lanes.
+     * @param action the configuration action
+     */
+    public void channels(Action<? super NamedDomainObjectContainer<TestLane>> action) {
+        action.execute(channels);
+    }
+
+    /**
+     * The lane running the tests tagged {@code isolated}, including {@code @TimeDependent} tests.
+     * @return the isolated lane
+     */
+    public TestLane getIsolated() {
+        return isolated;
+    }
+
+    /**
+     * Configures the isolated lane.
+     * @param action the configuration action
+     */
+    public void isolated(Action<? super TestLane> action) {
+        action.execute(isolated);
+    }
+
+    /**
+     * The non-blocking lane running the channel invocations quarantined as flaky, see {@code -Doptivem.flakiness}.
+     * @return the quarantine lane
+     */
+    public TestLane getQuarantine() {
+        return quarantine;
+    }
+
+    /**
+     * Configures the quarantine lane.
+     * @param action the configuration action
+     */
+    public void quarantine(Action<? super TestLane> action) {
+        action.execute(quarantine);
+    }
+}
@@ -0,0 +1,130 @@
+package com.optivem.testing.gradle;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.api.tasks.testing.TestReport;
+
+import java.util.Locale;
+
+/**
+ * Gradle plugin that splits a {@code @Channel} test suite into test lanes that run in forked JVMs.
+ * <p>
+ * For each configured channel, a {@code test<Channel>} task runs the non-isolated tests with
+ * {@code -Dchannel=<channel>}. Tests without {@code @Channel} run only in the lane of the first channel by name,
+ * the other lanes leave them out with {@code -Doptivem.plainTests=skip}. A {@code testIsolated} task runs all tests
+ * tagged {@code isolated} (including {@code @TimeDependent} tests) across all channels, always in a single fork. The channel lanes leave out the invocations
+ * quarantined as flaky in the {@code -Doptivem.flakiness} history, which the {@code testQuarantine} lane runs
+ * without failing the build. The {@code channelTests} task runs all lanes, and {@code channelTestReport}
+ * merges their results into a single HTML report.
+ * <p>
+ * Gradle runs the lanes of a project in parallel when the configuration cache is enabled
+ * ({@code org.gradle.configuration-cache=true}), so that multi-core agents are fully used.
+ * System properties starting with {@code optivem.} are forwarded to every lane.
+ */
+public class OptivemTestingPlugin implements Plugin<Project> {
+
+    static final String ISOLATED_TAG = "isolated";
+    static final String QUARANTINE_LANE = "quarantine";
+
+    private static final String CHANNEL_PROPERTY = "channel";
+    private static final String QUARANTINE_PROPERTY = "optivem.quarantine";
+    private static final String PLAIN_TESTS_PROPERTY = "optivem.plainTests";
+    private static final String FORWARDED_PROPERTY_PREFIX = "optivem.";
+
+    /**
+     * Creates a new OptivemTestingPlugin.
+     */
+    public OptivemTestingPlugin() {
+        // Instantiated by Gradle
+    }
+
+    @Override
+    public void apply(Project project) {
+        OptivemTestingExtension extension = project.getExtensions()
+                .create("optivemTesting", OptivemTestingExtension.class);
+
+        project.getPluginManager().withPlugin("java", plugin -> registerLanes(project, extension));
+    }
+
+    private void registerLanes(Project project, OptivemTestingExtension extension) {
+        SourceSet testSourceSet = project.getExtensions().getByType(SourceSetContainer.class)
+                .getByName(SourceSet.TEST_SOURCE_SET_NAME);
+
+        TaskProvider<TestReport> report = project.getTasks().register("channelTestReport", TestReport.class, task -> {
+            task.setGroup("verification");
+            task.setDescription("Merges the results of all channel test lanes into a single report.");
+            task.getDestinationDirectory().set(project.getLayout().getBuildDirectory().dir("reports/tests/channelTests"));
+        });
+
+        TaskProvider<Task> allLanes = project.getTasks().register("channelTests", task -> {
+            task.setGroup("verification");
+            task.setDescription("Runs all channel test lanes, the isolated test lane and the quarantine lane.");
+            task.finalizedBy(report);
+        });
+
+        TaskProvider<Test> isolatedLane = registerLane(project, testSourceSet, extension.getIsolated(), report, test -> {
+            test.setDescription("Runs the tests tagged '" + ISOLATED_TAG + "' for all channels.");
+            // Isolated tests must not run concurrently with each other, whatever the lane configures
+            test.setMaxParallelForks(1);
+            test.useJUnitPlatform(options -> options.includeTags(ISOLATED_TAG));
+        });
+        allLanes.configure(task -> task.dependsOn(isolatedLane));
+
+        TaskProvider<Test> quarantineLane = registerLane(project, testSourceSet, extension.getQuarantine(), report, test -> {
+            test.setDescription("Runs the channel invocations quarantined as flaky, without failing the build.");
+            test.systemProperty(QUARANTINE_PROPERTY, "only");
+            test.systemProperty(PLAIN_TESTS_PROPERTY, "skip");
+            test.setIgnoreFailures(true);
+            test.useJUnitPlatform(options -> options.excludeTags(ISOLATED_TAG));
+        });
+        allLanes.configure(task -> task.dependsOn(quarantineLane));
+
+        extension.getChannels().all(lane -> {
+            TaskProvider<Test> channelLane = registerLane(project, testSourceSet, lane, report, test -> {
+                test.setDescription("Runs the non-isolated tests for the '" + lane.getName() + "' channel.");
+                test.systemProperty(CHANNEL_PROPERTY, lane.getName());
+                test.systemProperty(QUARANTINE_PROPERTY, "skip");
+                // Lanes are configured once all channels are known, so the first channel is stable
+                if (!lane.getName().equals(extension.getChannels().getNames().first())) {
+                    test.systemProperty(PLAIN_TESTS_PROPERTY, "skip");
+                }
+                test.useJUnitPlatform(options -> options.excludeTags(ISOLATED_TAG));
+            });
+            allLanes.configure(task -> task.dependsOn(channelLane));
+        });
+    }
+
+    private TaskProvider<Test> registerLane(Project project, SourceSet testSourceSet, TestLane lane,
+                                            TaskProvider<TestReport> report,
+                                            org.gradle.api.Action<Test> laneConfiguration) {
+        TaskProvider<Test> laneTask = project.getTasks().register(taskNameOf(lane), Test.class, test -> {
+            test.setGroup("verification");
+            test.setTestClassesDirs(testSourceSet.getOutput().getClassesDirs());
+            test.setClasspath(testSourceSet.getRuntimeClasspath());
+            test.setMaxParallelForks(lane.getMaxParallelForks().get());
+            if (lane.getMaxHeapSize().isPresent()) {
+                test.setMaxHeapSize(lane.getMaxHeapSize().get());
+            }
+            test.jvmArgs(lane.getJvmArgs().get());
+
+            System.getProperties().stringPropertyNames().stream()
+                    .filter(name -> name.startsWith(FORWARDED_PROPERTY_PREFIX))
+                    .forEach(name -> test.systemProperty(name, System.getProperty(name)));
+
+            laneConfiguration.execute(test);
+            test.finalizedBy(report);
+        });
+        report.configure(task -> task.getTestResults().from(laneTask.flatMap(Test::getBinaryResultsDirectory)));
+        return laneTask;
+    }
+
+    private static String taskNameOf(TestLane lane) {
+        String name = lane.getName();
+        return "test" + name.substring(0, 1).toUpperCase(Locale.ROOT) + name.substring(1);
+    }
+}
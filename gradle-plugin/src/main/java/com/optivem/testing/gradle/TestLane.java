@@ -0,0 +1,48 @@
+package com.optivem.testing.gradle;
+
+import org.gradle.api.Named;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+
+import javax.inject.Inject;
+
+/**
+ * Settings of a single test lane, i.e. a forked {@code Test} task running part of the suite.
+ */
+public abstract class TestLane implements Named {
+
+    private final String name;
+
+    /**
+     * Creates a new TestLane.
+     * @param name the lane name, which is the channel name for channel lanes
+     */
+    @Inject
+    public TestLane(String name) {
+        this.name = name;
+        getMaxParallelForks().convention(1);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Maximum number of test JVMs the lane forks in parallel.
+     * @return the fork count, 1 by default
+     */
+    public abstract Property<Integer> getMaxParallelForks();
+
+    /**
+     * Maximum heap size of each forked test JVM, e.g. {@code 1g}.
+     * @return the heap size, the Gradle default if not set
+     */
+    public abstract Property<String> getMaxHeapSize();
+
+    /**
+     * Additional JVM arguments of each forked test JVM.
+     * @return the JVM arguments
+     */
+    public abstract ListProperty<String> getJvmArgs();
+}
@@ -0,0 +1,85 @@
+package com.optivem.testing.gradle;
+
+import org.gradle.api.Project;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.testfixtures.ProjectBuilder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for OptivemTestingPlugin to verify the test lanes it registers.
+ */
+public class OptivemTestingPluginTest {
+
+    @org.junit.jupiter.api.Test
+    void shouldRegisterLanePerChannelAndIsolatedLane() {
+        Project project = createProject();
+
+        assertNotNull(project.getTasks().findByName("testUi"), "UI lane should be registered");
+        assertNotNull(project.getTasks().findByName("testApi"), "API lane should be registered");
+        assertNotNull(project.getTasks().findByName("testIsolated"), "Isolated lane should be registered");
+        assertNotNull(project.getTasks().findByName("testQuarantine"), "Quarantine lane should be registered");
+        assertNotNull(project.getTasks().findByName("channelTests"), "Aggregate task should be registered");
+        assertNotNull(project.getTasks().findByName("channelTestReport"), "Report task should be registered");
+    }
+
+    @org.junit.jupiter.api.Test
+    void shouldConfigureChannelLaneFromExtension() {
+        Project project = createProject();
+
+        Test uiLane = (Test) project.getTasks().getByName("testUi");
+        assertEquals("ui", uiLane.getSystemProperties().get("channel"), "Lane should filter on its channel");
+        assertEquals(2, uiLane.getMaxParallelForks(), "Lane should use configured fork count");
+        assertEquals("2g", uiLane.getMaxHeapSize(), "Lane should use configured heap size");
+    }
+
+    @org.junit.jupiter.api.Test
+    void shouldRunIsolatedLaneInSingleFork() {
+        Project project = createProject();
+
+        Test isolatedLane = (Test) project.getTasks().getByName("testIsolated");
+        assertEquals(1, isolatedLane.getMaxParallelForks(), "Isolated lane should not fork in parallel, even if configured to");
+        assertNull(isolatedLane.getSystemProperties().get("channel"), "Isolated lane should run all channels");
+    }
+
+    @org.junit.jupiter.api.Test
+    void shouldRunQuarantinedInvocationsInNonBlockingLane() {
+        Project project = createProject();
+
+        Test quarantineLane = (Test) project.getTasks().getByName("testQuarantine");
+        assertEquals("only", quarantineLane.getSystemProperties().get("optivem.quarantine"),
+                "Quarantine lane should only run quarantined invocations");
+        assertTrue(quarantineLane.getIgnoreFailures(), "Quarantine lane should not fail the build");
+        assertEquals("skip", ((Test) project.getTasks().getByName("testUi")).getSystemProperties().get("optivem.quarantine"),
+                "Channel lanes should leave out quarantined invocations");
+    }
+
+    @org.junit.jupiter.api.Test
+    void shouldRunPlainTestsInOneLaneOnly() {
+        Project project = createProject();
+
+        assertNull(((Test) project.getTasks().getByName("testApi")).getSystemProperties().get("optivem.plainTests"),
+                "The lane of the first channel should run the plain tests");
+        assertEquals("skip", ((Test) project.getTasks().getByName("testUi")).getSystemProperties().get("optivem.plainTests"),
+                "The other channel lanes should leave out the plain tests");
+        assertEquals("skip", ((Test) project.getTasks().getByName("testQuarantine")).getSystemProperties().get("optivem.plainTests"),
+                "The quarantine lane should leave out the plain tests");
+    }
+
+    private static Project createProject() {
+        Project project = ProjectBuilder.builder().build();
+        project.getPluginManager().apply("java");
+        project.getPluginManager().apply(OptivemTestingPlugin.class);
+
+        OptivemTestingExtension extension = project.getExtensions().getByType(OptivemTestingExtension.class);
+        extension.channels(channels -> {
+            channels.create("ui", lane -> {
+                lane.getMaxParallelForks().set(2);
+                lane.getMaxHeapSize().set("2g");
+            });
+            channels.create("api");
+        });
+        extension.getIsolated().getMaxParallelForks().set(4);
+        return project;
+    }
+}
@@ -0,0 +1,302 @@
+package com.optivem.testing.launcher;
+
+import com.optivem.testing.Channel;
+import com.optivem.testing.ChannelMode;
+import com.optivem.testing.extensions.InvocationKeys;
+import org.junit.platform.engine.DiscoverySelector;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Runs a test suite on several local worker JVMs that pull work from a shared queue.
+ * <p>
+ * The launcher discovers the selected tests and splits every {@code @Channel} test template into one work
+ * item per channel. Other tests become a single work item each. The items are ordered longest first, using the
+ * invocation history of {@code -Doptivem.history} where available. Each worker JVM then pulls the next item
+ * as soon as it has finished the previous one, so the load balances itself and the wall-clock time approaches
+ * the total work divided by the number of workers. Isolated items, tagged {@code isolated} by {@code @Isolated}
+ * and {@code @TimeDependent}, run last and one at a time, with no other item running on any worker.
+ * The results of all workers are merged into one {@link LauncherResult}.
+ * <p>
+ * Example usage:
+ * <pre>
+ * LauncherResult result = new ChannelLauncher(4)
+ *         .execute(List.of(DiscoverySelectors.selectPackage("com.example.acceptance")));
+ * </pre>
+ * <p>
+ * The workers are started with the classpath of the current JVM, and system properties starting
+ * with {@code optivem.} are forwarded to them. Note that run-scoped {@code @BeforeChannel} hooks run
+ * once per work item, since each item is a separate JUnit Platform execution.
+ */
+public class ChannelLauncher {
+
+    private static final String CHANNEL_PROPERTY = "channel";
+    private static final String HISTORY_PROPERTY = "optivem.history";
+    private static final String FORWARDED_PROPERTY_PREFIX = "optivem.";
+    private static final String ISOLATED_TAG = "isolated";
+
+    private final int workers;
+    private final List<String> jvmArgs;
+
+    /**
+     * Creates a launcher with the given number of worker JVMs.
+     * @param workers number of worker JVMs
+     */
+    public ChannelLauncher(int workers) {
+        this(workers, List.of());
+    }
+
+    /**
+     * Creates a launcher with the given number of worker JVMs and JVM arguments.
+     * @param workers number of worker JVMs
+     * @param jvmArgs additional arguments of each worker JVM, e.g. {@code -Xmx1g}
+     */
+    public ChannelLauncher(int workers, List<String> jvmArgs) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is required, got " + workers);
+        }
+        this.workers = workers;
+        this.jvmArgs = List.copyOf(jvmArgs);
+    }
+
+    /**
+     * Runs the selected tests on the worker JVMs and waits until all of them have finished.
+     * @param selectors the JUnit Platform selectors of the tests to run
+     * @return the merged result of all workers
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public LauncherResult execute(List<? extends DiscoverySelector> selectors) throws InterruptedException {
+        WorkQueue queue = new WorkQueue(plan(selectors));
+        LauncherResult result = new LauncherResult();
+
+        long start = System.nanoTime();
+        List<Thread> coordinators = new ArrayList<>();
+        for (int i = 0; i < Math.min(workers, queue.size()); i++) {
+            coordinators.add(Thread.ofPlatform().name("optivem-worker-" + i).start(() -> drive(queue, result)));
+        }
+        for (Thread coordinator : coordinators) {
+            coordinator.join();
+        }
+        if (queue.size() > 0) {
+            result.addFailure("launcher", queue.size() + " work items were not run because all workers exited");
+        }
+        result.setWallClockMillis((System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    /**
+     * Discovers the selected tests and splits them into work items, longest estimated item first.
+     */
+    List<WorkItem> plan(List<? extends DiscoverySelector> selectors) {
+        TestPlan testPlan = LauncherFactory.create().discover(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectors)
+                .build());
+        Map<String, Long> history = loadHistory();
+        String channelFilter = System.getProperty(CHANNEL_PROPERTY);
+
+        List<WorkItem> items = new ArrayList<>();
+        for (TestIdentifier root : testPlan.getRoots()) {
+            for (TestIdentifier identifier : testPlan.getDescendants(root)) {
+                if (!(identifier.getSource().orElse(null) instanceof MethodSource source)) {
+                    continue;
+                }
+                Method method = source.getJavaMethod();
+                Class<?> testClass = source.getJavaClass();
+                Channel channel = method.getAnnotation(Channel.class);
+                boolean isolated = identifier.getTags().stream().anyMatch(tag -> tag.getName().equals(ISOLATED_TAG));
+
+                // Plain tests and fan-out templates cannot be split by channel
+                if (channel == null || channel.mode() == ChannelMode.FAN_OUT) {
+                    String key = channel != null
+                            ? InvocationKeys.keyOf(testClass, method, InvocationKeys.fanOutChannelOf(channel.value()))
+                            : InvocationKeys.keyOf(testClass, method);
+                    items.add(new WorkItem(0, identifier.getUniqueId(), null, key, history.getOrDefault(key, -1L), isolated));
+                    continue;
+                }
+
+                for (String channelName : channel.value()) {
+                    if (channelFilter != null && !channelFilter.isEmpty() && !channelName.equalsIgnoreCase(channelFilter)) {
+                        continue;
+                    }
+                    String key = InvocationKeys.keyOf(testClass, method, channelName);
+                    items.add(new WorkItem(0, identifier.getUniqueId(), channelName, key, history.getOrDefault(key, -1L), isolated));
+                }
+            }
+        }
+
+        // Unknown items go first, since they may be the slowest ones
+        items.sort(Comparator.comparingLong((WorkItem item) -> item.estimatedMillis() < 0 ? Long.MAX_VALUE : item.estimatedMillis())
+                .reversed());
+
+        List<WorkItem> indexed = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            WorkItem item = items.get(i);
+            indexed.add(new WorkItem(i, item.uniqueId(), item.channel(), item.key(), item.estimatedMillis(), item.isolated()));
+        }
+        return indexed;
+    }
+
+    /**
+     * Starts a worker JVM and feeds it work items until the queue is empty.
+     */
+    private void drive(WorkQueue queue, LauncherResult result) {
+        Process process;
+        try {
+            process = startWorker();
+        } catch (IOException e) {
+            result.addFailure("worker", "Failed to start worker JVM: " + e.getMessage());
+            return;
+        }
+
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter input = new PrintWriter(process.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            if (!awaitReady(output)) {
+                result.addFailure("worker", "Worker JVM exited before it was ready");
+                return;
+            }
+
+            WorkItem item;
+            while ((item = queue.take()) != null) {
+                try {
+                    input.println(WorkerProtocol.run(item));
+                    if (!readResult(output, item, result)) {
+                        result.addFailure(item.key(), "Worker JVM exited while running the item");
+                        return;
+                    }
+                } finally {
+                    queue.done(item);
+                }
+            }
+            input.println(WorkerProtocol.EXIT);
+        } catch (IOException e) {
+            result.addFailure("worker", "Lost connection to worker JVM: " + e.getMessage());
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                process.waitFor();
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Process startWorker() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(FORWARDED_PROPERTY_PREFIX))
+                .forEach(name -> command.add("-D" + name + "=" + System.getProperty(name)));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ChannelWorker.class.getName());
+
+        return new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+    }
+
+    private static boolean awaitReady(BufferedReader output) throws IOException {
+        String line;
+        while ((line = output.readLine()) != null) {
+            if (line.equals(WorkerProtocol.READY)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean readResult(BufferedReader output, WorkItem item, LauncherResult result) throws IOException {
+        String line;
+        while ((line = output.readLine()) != null) {
+            String[] parts = line.split(" ");
+            if (parts[0].equals(WorkerProtocol.FAILURE) && parts.length == 4) {
+                result.addFailure(WorkerProtocol.decode(parts[2]) + " [" + item.key() + "]", WorkerProtocol.decode(parts[3]));
+            } else if (parts[0].equals(WorkerProtocol.RESULT) && parts.length == 7) {
+                result.add(Long.parseLong(parts[2]), Long.parseLong(parts[3]), Long.parseLong(parts[4]),
+                        Long.parseLong(parts[5]), Long.parseLong(parts[6]));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, Long> loadHistory() {
+        Map<String, Long> history = new HashMap<>();
+        String path = System.getProperty(HISTORY_PROPERTY);
+        if (path == null || path.isEmpty() || !Files.exists(Path.of(path))) {
+            return history;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Path.of(path))) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read invocation history: " + path, e);
+        }
+        for (String key : properties.stringPropertyNames()) {
+            try {
+                history.put(key, Long.parseLong(properties.getProperty(key).trim()));
+            } catch (NumberFormatException e) {
+                // A value that is not a number, e.g. in a file that was edited by hand, counts as unknown
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Runs the given test classes or packages on worker JVMs.
+     * <p>
+     * Usage: {@code ChannelLauncher [--workers N] [--jvm-arg ARG]... CLASS_OR_PACKAGE...}
+     * @param args the command line arguments
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int workers = Runtime.getRuntime().availableProcessors();
+        List<String> jvmArgs = new ArrayList<>();
+        List<DiscoverySelector> selectors = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--workers" -> workers = Integer.parseInt(args[++i]);
+                case "--jvm-arg" -> jvmArgs.add(args[++i]);
+                default -> selectors.add(selectorOf(args[i]));
+            }
+        }
+
+        LauncherResult result = new ChannelLauncher(workers, jvmArgs).execute(selectors);
+        System.out.println(result);
+        System.exit(result.isSuccessful() ? 0 : 1);
+    }
+
+    private static DiscoverySelector selectorOf(String name) {
+        try {
+            Class.forName(name, false, Thread.currentThread().getContextClassLoader());
+            return DiscoverySelectors.selectClass(name);
+        } catch (ClassNotFoundException e) {
+            return DiscoverySelectors.selectPackage(name);
+        }
+    }
+}
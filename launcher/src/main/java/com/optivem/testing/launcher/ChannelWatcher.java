@@ -0,0 +1,418 @@
+package com.optivem.testing.launcher;
+
+import com.optivem.testing.Channel;
+import org.junit.platform.engine.DiscoverySelector;
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.launcher.LauncherSession;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a warm JVM running and re-runs the affected channel tests whenever the compiled test classes change.
+ * <p>
+ * The JUnit Platform launcher session, the library classes and the run-scoped {@code @BeforeChannel} setup stay
+ * warm across the runs. Changed test classes are reloaded and re-run on their own, together with the tests
+ * inheriting from them, on top of the classes loaded so far. The other classes, and the warm channels declared by
+ * them, are kept. Any other change, e.g. to a shared driver, reloads all classes in a fresh class loader and
+ * re-runs all tests, which also sets up the warm channels again for the reloaded classes.
+ * <p>
+ * Compilation is left to the build tool. Either run {@code gradle -t testClasses} next to the watcher, or pass
+ * the source directories and a compile command, which the watcher then runs whenever a source file changes.
+ * <p>
+ * The test class directories must not be on the classpath of the watcher JVM itself, since the classes
+ * could then not be reloaded:
+ * <pre>
+ * java -cp &lt;test runtime classpath without build/classes/java/test&gt; com.optivem.testing.launcher.ChannelWatcher \
+ *     --classes build/classes/java/test --sources src/test/java --compile "./gradlew testClasses"
+ * </pre>
+ */
+public class ChannelWatcher {
+
+    private static final String WATCH_PROPERTY = "optivem.watch";
+    private static final String CLASS_SUFFIX = ".class";
+    private static final long SETTLE_MILLIS = 300;
+
+    private final List<Path> classDirectories;
+    private final List<Path> sourceDirectories;
+    private final List<String> compileCommand;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private final Set<String> reloaded = new TreeSet<>();
+    private ClassLoader generation;
+    private ClassLoader current;
+
+    /**
+     * Creates a watcher for the given compiled test class directories.
+     * @param classDirectories the directories with the compiled test classes
+     * @param sourceDirectories the test source directories, or an empty list if compilation is done externally
+     * @param compileCommand the command compiling the sources, or an empty list if compilation is done externally
+     */
+    public ChannelWatcher(List<Path> classDirectories, List<Path> sourceDirectories, List<String> compileCommand) {
+        if (classDirectories.isEmpty()) {
+            throw new IllegalArgumentException("At least one test class directory is required");
+        }
+        if (!sourceDirectories.isEmpty() && compileCommand.isEmpty()) {
+            throw new IllegalArgumentException("Source directories require a compile command");
+        }
+        this.classDirectories = classDirectories.stream().map(path -> path.toAbsolutePath().normalize()).toList();
+        this.sourceDirectories = sourceDirectories.stream().map(path -> path.toAbsolutePath().normalize()).toList();
+        this.compileCommand = List.copyOf(compileCommand);
+        checkNotOnClasspath();
+    }
+
+    /**
+     * Runs all tests once, then re-runs the affected tests on every change until the thread is interrupted.
+     * @throws IOException if the directories cannot be watched
+     */
+    public void watch() throws IOException {
+        System.setProperty(WATCH_PROPERTY, "true");
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService();
+             LauncherSession session = LauncherFactory.openSession()) {
+            for (Path directory : classDirectories) {
+                register(watchService, directory);
+            }
+            for (Path directory : sourceDirectories) {
+                register(watchService, directory);
+            }
+
+            run(session, null);
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changes = awaitChanges(watchService);
+                if (changes.stream().anyMatch(this::isSource)) {
+                    compile();
+                }
+                Set<String> changedClasses = classNamesOf(changes);
+                if (!changedClasses.isEmpty()) {
+                    run(session, changedClasses);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reloads the test classes and runs the tests affected by the changed classes, or all tests if null.
+     * <p>
+     * Class loaders of previous runs are not closed, since warm channels may still run the hooks of their classes.
+     * They are released once no warm channel refers to them any more.
+     */
+    private void run(LauncherSession session, Set<String> changedClasses) {
+        Set<String> affected = changedClasses != null && current != null
+                ? affectedBy(loadTestClasses(current), changedClasses)
+                : null;
+        if (affected == null) {
+            generation = new URLClassLoader(urlsOf(classDirectories), ChannelWatcher.class.getClassLoader());
+            reloaded.clear();
+            current = generation;
+        } else {
+            reloaded.addAll(changedClasses);
+            reloaded.addAll(affected);
+            current = new ReloadingClassLoader(urlsOf(classDirectories), reloaded, generation);
+        }
+
+        List<Class<?>> testClasses = loadTestClasses(current);
+        List<Class<?>> selected = affected != null
+                ? testClasses.stream().filter(testClass -> affected.contains(testClass.getName())).toList()
+                : testClasses;
+        if (selected.isEmpty()) {
+            return;
+        }
+
+        List<DiscoverySelector> selectors = selected.stream()
+                .<DiscoverySelector>map(DiscoverySelectors::selectClass)
+                .toList();
+        System.out.println("Running " + selected.size() + " of " + testClasses.size() + " test classes");
+
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(current);
+        try {
+            SummaryGeneratingListener listener = new SummaryGeneratingListener();
+            session.getLauncher().execute(LauncherDiscoveryRequestBuilder.request().selectors(selectors).build(), listener);
+            PrintWriter writer = new PrintWriter(System.out, true);
+            listener.getSummary().printTo(writer);
+            listener.getSummary().printFailuresTo(writer, 10);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    /**
+     * Returns the names of the test classes declaring or inheriting one of the changed classes, or null
+     * if a changed class is not part of any test class hierarchy.
+     */
+    static Set<String> affectedBy(List<Class<?>> testClasses, Set<String> changedClasses) {
+        Set<String> affected = new TreeSet<>();
+        Set<String> matched = new TreeSet<>();
+        for (Class<?> testClass : testClasses) {
+            for (Class<?> type = testClass; type != null && type != Object.class; type = type.getSuperclass()) {
+                String name = outerClassOf(type).getName();
+                if (changedClasses.contains(name)) {
+                    affected.add(testClass.getName());
+                    matched.add(name);
+                }
+            }
+        }
+        return matched.containsAll(changedClasses) ? affected : null;
+    }
+
+    private static Class<?> outerClassOf(Class<?> type) {
+        Class<?> outer = type;
+        while (outer.getEnclosingClass() != null) {
+            outer = outer.getEnclosingClass();
+        }
+        return outer;
+    }
+
+    private List<Class<?>> loadTestClasses(ClassLoader classLoader) {
+        List<Class<?>> testClasses = new ArrayList<>();
+        Set<String> classNames = new LinkedHashSet<>();
+        for (Path directory : classDirectories) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.filter(path -> path.toString().endsWith(CLASS_SUFFIX)).toList()) {
+                    String className = classNameOf(directory, file);
+                    if (!classNames.add(className)) {
+                        continue;
+                    }
+                    try {
+                        Class<?> type = Class.forName(className, false, classLoader);
+                        if (isTestClass(type)) {
+                            testClasses.add(type);
+                        }
+                    } catch (ClassNotFoundException | LinkageError e) {
+                        // Classes deleted or half-written by a running compilation are picked up on the next change
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to scan test classes: " + directory, e);
+            }
+        }
+        return testClasses;
+    }
+
+    /**
+     * Returns whether the class declares or inherits a test method of any visibility, or has a nested class
+     * that does, e.g. a {@code @Nested} class.
+     */
+    static boolean isTestClass(Class<?> type) {
+        if (Modifier.isAbstract(type.getModifiers()) || type.isAnnotation() || type.isInterface()) {
+            return false;
+        }
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            if (declaresTestMethod(current)) {
+                return true;
+            }
+            for (Class<?> testInterface : current.getInterfaces()) {
+                if (declaresTestMethod(testInterface)) {
+                    return true;
+                }
+            }
+        }
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            if (isTestClass(nested)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean declaresTestMethod(Class<?> type) {
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(Channel.class)) {
+                return true;
+            }
+            for (Annotation annotation : method.getAnnotations()) {
+                if (annotation.annotationType().getName().startsWith("org.junit.jupiter.")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits for the next change and for the changes to settle, since a compilation writes many files.
+     */
+    private Set<Path> awaitChanges(WatchService watchService) throws InterruptedException, IOException {
+        Set<Path> changes = new LinkedHashSet<>();
+        WatchKey key = watchService.take();
+        while (key != null) {
+            Path directory = watchedDirectories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                    continue;
+                }
+                Path changed = directory.resolve((Path) event.context());
+                if (Files.isDirectory(changed)) {
+                    register(watchService, changed);
+                } else {
+                    changes.add(changed);
+                }
+            }
+            if (!key.reset()) {
+                watchedDirectories.remove(key);
+            }
+            key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return changes;
+    }
+
+    private void register(WatchService watchService, Path root) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> directories = Files.walk(root)) {
+            for (Path directory : directories.filter(Files::isDirectory).toList()) {
+                WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(key, directory);
+            }
+        }
+    }
+
+    private boolean isSource(Path path) {
+        return sourceDirectories.stream().anyMatch(path::startsWith);
+    }
+
+    private Set<String> classNamesOf(Set<Path> changes) {
+        Set<String> classNames = new TreeSet<>();
+        for (Path change : changes) {
+            for (Path directory : classDirectories) {
+                if (change.startsWith(directory) && change.toString().endsWith(CLASS_SUFFIX)) {
+                    classNames.add(classNameOf(directory, change));
+                }
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * Returns the name of the top-level class of a class file, since nested classes are reloaded with it.
+     */
+    private static String classNameOf(Path directory, Path file) {
+        String relative = directory.relativize(file).toString();
+        String className = relative.substring(0, relative.length() - CLASS_SUFFIX.length())
+                .replace(File.separatorChar, '.');
+        int nested = className.indexOf('$');
+        return nested >= 0 ? className.substring(0, nested) : className;
+    }
+
+    private void compile() throws InterruptedException {
+        System.out.println("Compiling: " + String.join(" ", compileCommand));
+        try {
+            int exitCode = new ProcessBuilder(compileCommand).inheritIO().start().waitFor();
+            if (exitCode != 0) {
+                System.out.println("Compilation failed with exit code " + exitCode);
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to run compile command: " + e.getMessage());
+        }
+    }
+
+    private void checkNotOnClasspath() {
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            Path path = Path.of(entry).toAbsolutePath().normalize();
+            if (classDirectories.contains(path)) {
+                throw new IllegalStateException("Test class directory must not be on the classpath of the watcher, "
+                        + "since its classes could not be reloaded: " + path);
+            }
+        }
+    }
+
+    private static URL[] urlsOf(List<Path> directories) {
+        URL[] urls = new URL[directories.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = directories.get(i).toUri().toURL();
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Invalid test class directory: " + directories.get(i), e);
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Class loader of a run that loads the reloaded top-level classes and their nested classes itself, and all
+     * other classes from the current generation, so that these keep their static state and warm channels.
+     */
+    static class ReloadingClassLoader extends URLClassLoader {
+
+        private final Set<String> reloaded;
+
+        ReloadingClassLoader(URL[] urls, Set<String> reloaded, ClassLoader generation) {
+            super(urls, generation);
+            this.reloaded = Set.copyOf(reloaded);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            int nested = name.indexOf('$');
+            if (!reloaded.contains(nested >= 0 ? name.substring(0, nested) : name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                if (type == null) {
+                    type = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(type);
+                }
+                return type;
+            }
+        }
+    }
+
+    /**
+     * Watches the given test class directories.
+     * <p>
+     * Usage: {@code ChannelWatcher --classes DIR... [--sources DIR... --compile COMMAND]}
+     * @param args the command line arguments
+     * @throws IOException if the directories cannot be watched
+     */
+    public static void main(String[] args) throws IOException {
+        List<Path> classDirectories = new ArrayList<>();
+        List<Path> sourceDirectories = new ArrayList<>();
+        List<String> compileCommand = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--classes" -> classDirectories.add(Path.of(args[++i]));
+                case "--sources" -> sourceDirectories.add(Path.of(args[++i]));
+                case "--compile" -> compileCommand.addAll(List.of(args[++i].trim().split("\\s+")));
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        new ChannelWatcher(classDirectories, sourceDirectories, compileCommand).watch();
+    }
+}
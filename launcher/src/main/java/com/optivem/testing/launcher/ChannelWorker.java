@@ -0,0 +1,79 @@
+package com.optivem.testing.launcher;
+
+import org.junit.platform.engine.discovery.DiscoverySelectors;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Entry point of a worker JVM forked by {@link ChannelLauncher}.
+ * <p>
+ * The worker pulls work items from the coordinator one at a time over its standard input,
+ * runs each of them through the JUnit Platform launcher, and streams the results back over
+ * its standard output. Output of the tests themselves is redirected to standard error.
+ */
+public final class ChannelWorker {
+
+    private static final String CHANNEL_PROPERTY = "channel";
+
+    private ChannelWorker() {
+        // Started through main
+    }
+
+    /**
+     * Runs the worker until the coordinator sends {@code EXIT} or closes the input.
+     * @param args not used
+     * @throws IOException if the protocol streams fail
+     */
+    public static void main(String[] args) throws IOException {
+        PrintStream protocol = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        System.setOut(System.err);
+
+        BufferedReader input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        Launcher launcher = LauncherFactory.create();
+        protocol.println(WorkerProtocol.READY);
+
+        String line;
+        while ((line = input.readLine()) != null && !line.equals(WorkerProtocol.EXIT)) {
+            String[] parts = line.split(" ");
+            if (!parts[0].equals(WorkerProtocol.RUN)) {
+                continue;
+            }
+            int index = Integer.parseInt(parts[1]);
+            String channel = WorkerProtocol.channelOf(parts);
+            String uniqueId = WorkerProtocol.decode(parts[3]);
+
+            if (channel != null) {
+                System.setProperty(CHANNEL_PROPERTY, channel);
+            } else {
+                System.clearProperty(CHANNEL_PROPERTY);
+            }
+
+            LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                    .selectors(DiscoverySelectors.selectUniqueId(uniqueId))
+                    .build();
+            SummaryGeneratingListener listener = new SummaryGeneratingListener();
+            long start = System.nanoTime();
+            launcher.execute(request, listener);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            TestExecutionSummary summary = listener.getSummary();
+            for (TestExecutionSummary.Failure failure : summary.getFailures()) {
+                protocol.println(WorkerProtocol.failure(index,
+                        failure.getTestIdentifier().getDisplayName(), String.valueOf(failure.getException())));
+            }
+            protocol.println(WorkerProtocol.result(index,
+                    summary.getTestsSucceededCount(), summary.getTestsFailedCount(),
+                    summary.getTestsAbortedCount(), summary.getTestsSkippedCount(), millis));
+        }
+    }
+}
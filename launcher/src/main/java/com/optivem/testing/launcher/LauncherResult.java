@@ -0,0 +1,126 @@
+package com.optivem.testing.launcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Merged result of all work items executed by the worker JVMs of a {@link ChannelLauncher}.
+ */
+public class LauncherResult {
+
+    private long succeeded;
+    private long failed;
+    private long aborted;
+    private long skipped;
+    private long workMillis;
+    private long wallClockMillis;
+    private final List<Failure> failures = new ArrayList<>();
+
+    LauncherResult() {
+        // Filled in by the launcher
+    }
+
+    synchronized void add(long succeeded, long failed, long aborted, long skipped, long millis) {
+        this.succeeded += succeeded;
+        this.failed += failed;
+        this.aborted += aborted;
+        this.skipped += skipped;
+        this.workMillis += millis;
+    }
+
+    synchronized void addFailure(String displayName, String message) {
+        failures.add(new Failure(displayName, message));
+    }
+
+    void setWallClockMillis(long wallClockMillis) {
+        this.wallClockMillis = wallClockMillis;
+    }
+
+    /**
+     * Number of tests that succeeded.
+     * @return the succeeded count
+     */
+    public synchronized long getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * Number of tests that failed.
+     * @return the failed count
+     */
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Number of tests that were aborted.
+     * @return the aborted count
+     */
+    public synchronized long getAborted() {
+        return aborted;
+    }
+
+    /**
+     * Number of tests that were skipped.
+     * @return the skipped count
+     */
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Sum of the durations of all work items, i.e. the time a single JVM would have needed.
+     * @return the total work in milliseconds
+     */
+    public synchronized long getWorkMillis() {
+        return workMillis;
+    }
+
+    /**
+     * Elapsed time from starting the workers until the last result came in.
+     * @return the wall-clock time in milliseconds
+     */
+    public long getWallClockMillis() {
+        return wallClockMillis;
+    }
+
+    /**
+     * Failures reported by the workers.
+     * @return the failures
+     */
+    public synchronized List<Failure> getFailures() {
+        return Collections.unmodifiableList(new ArrayList<>(failures));
+    }
+
+    /**
+     * Whether all tests passed.
+     * @return true if no test failed
+     */
+    public synchronized boolean isSuccessful() {
+        return failed == 0 && failures.isEmpty();
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder()
+                .append(succeeded).append(" succeeded, ")
+                .append(failed).append(" failed, ")
+                .append(aborted).append(" aborted, ")
+                .append(skipped).append(" skipped in ")
+                .append(wallClockMillis).append(" ms (").append(workMillis).append(" ms of work)");
+        for (Failure failure : failures) {
+            sb.append(System.lineSeparator()).append("  ").append(failure.displayName()).append(": ").append(failure.message());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A single failed test.
+     *
+     * @param displayName the display name of the test
+     * @param message the failure message
+     */
+    public record Failure(String displayName, String message) {
+    }
+}
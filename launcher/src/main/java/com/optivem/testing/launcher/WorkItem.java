@@ -0,0 +1,14 @@
+package com.optivem.testing.launcher;
+
+/**
+ * A unit of work handed to a worker JVM: a test (or test template) for a single channel.
+ *
+ * @param index position of the item in the work queue, used to correlate results
+ * @param uniqueId JUnit Platform unique ID of the test or test template
+ * @param channel the channel to run, or null for tests that are not channel templates
+ * @param key history key of the item, used to estimate its cost
+ * @param estimatedMillis estimated duration from the invocation history, or -1 if unknown
+ * @param isolated whether the item is tagged {@code isolated} and must run alone
+ */
+record WorkItem(int index, String uniqueId, String channel, String key, long estimatedMillis, boolean isolated) {
+}
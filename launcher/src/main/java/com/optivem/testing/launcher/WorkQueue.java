@@ -0,0 +1,70 @@
+package com.optivem.testing.launcher;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Queue of the work items of a launcher run, shared by the coordinators of the worker JVMs.
+ * <p>
+ * Items are handed out in order, except that isolated items ({@code @Isolated} and {@code @TimeDependent}
+ * tests) are held back until the other items have been handed out. Each isolated item then runs alone: it is
+ * only handed out once no other item is running, and no other item is handed out until it has finished.
+ */
+class WorkQueue {
+
+    private final List<WorkItem> items;
+    private int running;
+    private boolean isolatedRunning;
+
+    WorkQueue(List<WorkItem> items) {
+        this.items = new ArrayList<>(items);
+    }
+
+    /**
+     * Takes the next item to run, waiting while isolated items cannot be run yet.
+     *
+     * @return the next item, or null once all items have been handed out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized WorkItem take() throws InterruptedException {
+        while (!items.isEmpty()) {
+            if (!isolatedRunning) {
+                for (Iterator<WorkItem> iterator = items.iterator(); iterator.hasNext(); ) {
+                    WorkItem item = iterator.next();
+                    if (!item.isolated()) {
+                        iterator.remove();
+                        running++;
+                        return item;
+                    }
+                }
+                // Only isolated items are left, which wait until nothing else is running
+                if (running == 0) {
+                    isolatedRunning = true;
+                    running++;
+                    return items.remove(0);
+                }
+            }
+            wait();
+        }
+        return null;
+    }
+
+    /**
+     * Marks an item returned by {@link #take()} as finished, whether it passed, failed or its worker exited.
+     */
+    synchronized void done(WorkItem item) {
+        running--;
+        if (item.isolated()) {
+            isolatedRunning = false;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Returns the number of items that have not been handed out.
+     */
+    synchronized int size() {
+        return items.size();
+    }
+}
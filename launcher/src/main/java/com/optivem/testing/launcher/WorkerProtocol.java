@@ -0,0 +1,57 @@
+package com.optivem.testing.launcher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Line-based protocol between the coordinator and the worker JVMs, spoken over the worker's standard streams.
+ * <p>
+ * The coordinator sends {@code RUN <index> <channel> <uniqueId>} and finally {@code EXIT}.
+ * The worker announces {@code READY}, and answers every item with any number of
+ * {@code FAILURE <index> <displayName> <message>} lines followed by
+ * {@code RESULT <index> <succeeded> <failed> <aborted> <skipped> <millis>}.
+ * Free text is Base64 encoded so that every message fits on a single line.
+ */
+final class WorkerProtocol {
+
+    static final String READY = "READY";
+    static final String RUN = "RUN";
+    static final String EXIT = "EXIT";
+    static final String FAILURE = "FAILURE";
+    static final String RESULT = "RESULT";
+
+    private static final String NO_CHANNEL = "-";
+
+    private WorkerProtocol() {
+        // Utility class
+    }
+
+    static String run(WorkItem item) {
+        return RUN + " " + item.index() + " " + encode(item.channel() != null ? item.channel() : NO_CHANNEL)
+                + " " + encode(item.uniqueId());
+    }
+
+    static String failure(int index, String displayName, String message) {
+        return FAILURE + " " + index + " " + encode(displayName) + " " + encode(message != null ? message : "");
+    }
+
+    static String result(int index, long succeeded, long failed, long aborted, long skipped, long millis) {
+        return RESULT + " " + index + " " + succeeded + " " + failed + " " + aborted + " " + skipped + " " + millis;
+    }
+
+    /**
+     * Returns the channel of a {@code RUN} line, or null if the item is not a channel template.
+     */
+    static String channelOf(String[] runLine) {
+        String channel = decode(runLine[2]);
+        return channel.equals(NO_CHANNEL) ? null : channel;
+    }
+
+    static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decode(String value) {
+        return new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,126 @@
+package com.optivem.testing.launcher;
+
+import com.optivem.testing.Channel;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the watch mode, which finds the test classes and reloads only the changed ones.
+ */
+public class ChannelWatcherTest {
+
+    static class PackagePrivateTest {
+        @Test
+        void test() {
+        }
+    }
+
+    static class InheritingTest extends PackagePrivateTest {
+    }
+
+    static class ChannelTest {
+        @TestTemplate
+        @Channel("API")
+        private void test() {
+        }
+    }
+
+    static class NestingTest {
+        @Nested
+        class Inner {
+            @Test
+            void test() {
+            }
+        }
+    }
+
+    abstract static class AbstractTest {
+        @Test
+        void test() {
+        }
+    }
+
+    static class Helper {
+        void help() {
+        }
+    }
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldFindTestClassesWithNonPublicInheritedAndNestedTests() {
+        assertTrue(ChannelWatcher.isTestClass(PackagePrivateTest.class), "Package-private test methods count");
+        assertTrue(ChannelWatcher.isTestClass(InheritingTest.class), "Inherited test methods count");
+        assertTrue(ChannelWatcher.isTestClass(ChannelTest.class), "Private @Channel templates count");
+        assertTrue(ChannelWatcher.isTestClass(NestingTest.class), "Tests in @Nested classes count");
+        assertFalse(ChannelWatcher.isTestClass(AbstractTest.class));
+        assertFalse(ChannelWatcher.isTestClass(Helper.class));
+    }
+
+    @Test
+    void shouldReRunTestsOfChangedClassesOrAllTestsForOtherChanges() {
+        List<Class<?>> testClasses = List.of(PackagePrivateTest.class, InheritingTest.class, String.class);
+
+        assertEquals(Set.of(PackagePrivateTest.class.getName(), InheritingTest.class.getName()),
+                ChannelWatcher.affectedBy(testClasses, Set.of(ChannelWatcherTest.class.getName())),
+                "Tests declared in or inheriting from a changed class should be re-run");
+        assertNull(ChannelWatcher.affectedBy(testClasses, Set.of("com.example.Driver")),
+                "A change outside the test classes should re-run all tests");
+    }
+
+    @Test
+    void shouldReloadOnlyTheChangedClasses() throws Exception {
+        Path classes = compile("""
+                package sample;
+
+                public class Changed {
+                    public static class Inner {
+                    }
+                }
+                """, """
+                package sample;
+
+                public class Kept {
+                }
+                """);
+        URL[] urls = {classes.toUri().toURL()};
+
+        try (URLClassLoader generation = new URLClassLoader(urls, getClass().getClassLoader());
+             URLClassLoader reloading = new ChannelWatcher.ReloadingClassLoader(urls, Set.of("sample.Changed"), generation)) {
+            assertNotSame(generation.loadClass("sample.Changed"), reloading.loadClass("sample.Changed"));
+            assertNotSame(generation.loadClass("sample.Changed$Inner"), reloading.loadClass("sample.Changed$Inner"),
+                    "Nested classes should be reloaded with their top-level class");
+            assertSame(generation.loadClass("sample.Kept"), reloading.loadClass("sample.Kept"),
+                    "Unchanged classes should keep their identity, and with it their warm channels");
+        }
+    }
+
+    private Path compile(String... sources) throws IOException {
+        Path output = Files.createDirectories(directory.resolve("classes"));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        for (String source : sources) {
+            String name = source.substring(source.indexOf("class ") + 6, source.indexOf(" {"));
+            Path file = directory.resolve("src/sample/" + name + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source);
+            assertEquals(0, compiler.run(null, null, null, "-d", output.toString(), file.toString()),
+                    "The sample should compile");
+        }
+        return output;
+    }
+}
@@ -0,0 +1,106 @@
+package com.optivem.testing.launcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the scheduling of work items, where isolated items run alone.
+ */
+public class WorkQueueTest {
+
+    @Test
+    void shouldHandOutIsolatedItemsLastAndOneAtATime() throws Exception {
+        WorkItem isolated = item(0, true);
+        WorkItem other = item(1, true);
+        WorkItem first = item(2, false);
+        WorkItem second = item(3, false);
+        WorkQueue queue = new WorkQueue(List.of(isolated, other, first, second));
+
+        assertSame(first, queue.take(), "Items that are not isolated should be handed out first");
+        assertSame(second, queue.take(), "Items that are not isolated should run concurrently");
+
+        CompletableFuture<WorkItem> waiting = CompletableFuture.supplyAsync(() -> take(queue));
+        assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS),
+                "An isolated item should wait while other items are running");
+        queue.done(first);
+        assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS),
+                "An isolated item should wait until all other items have finished");
+        queue.done(second);
+        assertSame(isolated, waiting.get(5, TimeUnit.SECONDS));
+
+        CompletableFuture<WorkItem> next = CompletableFuture.supplyAsync(() -> take(queue));
+        assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS),
+                "No item should be handed out while an isolated item is running");
+        queue.done(isolated);
+        assertSame(other, next.get(5, TimeUnit.SECONDS));
+        queue.done(other);
+
+        assertNull(queue.take(), "The queue should be empty");
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void shouldNeverRunIsolatedItemsConcurrentlyWithOthers() throws Exception {
+        List<WorkItem> items = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            items.add(item(i, i % 4 == 0));
+        }
+        WorkQueue queue = new WorkQueue(items);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+
+        List<Future<?>> workers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int worker = 0; worker < 4; worker++) {
+                workers.add(executor.submit(() -> {
+                    WorkItem item;
+                    while ((item = queue.take()) != null) {
+                        int concurrent = running.incrementAndGet();
+                        if (item.isolated() && concurrent > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        Thread.sleep(2);
+                        if (item.isolated() && running.get() > 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        running.decrementAndGet();
+                        finished.incrementAndGet();
+                        queue.done(item);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        assertEquals(40, finished.get(), "Every item should be run once");
+        assertEquals(0, overlaps.get(), "Isolated items should run alone");
+    }
+
+    private static WorkItem take(WorkQueue queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static WorkItem item(int index, boolean isolated) {
+        return new WorkItem(index, "[engine:junit-jupiter]/[class:com.example.OrderTest]/[method:test" + index + "()]",
+                "API", "com.example.OrderTest#test" + index + "()[API]", -1, isolated);
+    }
+}
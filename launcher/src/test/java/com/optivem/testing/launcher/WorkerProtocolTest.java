@@ -0,0 +1,43 @@
+package com.optivem.testing.launcher;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the line protocol between ChannelLauncher and its worker JVMs.
+ */
+public class WorkerProtocolTest {
+
+    @Test
+    void shouldEncodeRunLineOnSingleLine() {
+        WorkItem item = new WorkItem(7, "[engine:junit-jupiter]/[class:com.example.OrderTest]/[test-template:shouldPlaceOrder(java.lang.String)]",
+                "API", "com.example.OrderTest#shouldPlaceOrder(java.lang.String)[API]", 120, false);
+
+        String[] parts = WorkerProtocol.run(item).split(" ");
+
+        assertEquals(4, parts.length, "Run line should have four fields");
+        assertEquals(WorkerProtocol.RUN, parts[0]);
+        assertEquals("7", parts[1]);
+        assertEquals("API", WorkerProtocol.channelOf(parts));
+        assertEquals(item.uniqueId(), WorkerProtocol.decode(parts[3]));
+    }
+
+    @Test
+    void shouldEncodeMissingChannel() {
+        WorkItem item = new WorkItem(0, "[engine:junit-jupiter]/[class:com.example.OrderTest]/[method:shouldWork()]",
+                null, "com.example.OrderTest#shouldWork()", -1, false);
+
+        assertNull(WorkerProtocol.channelOf(WorkerProtocol.run(item).split(" ")), "Channel should be absent");
+    }
+
+    @Test
+    void shouldEncodeMultiLineFailureMessageOnSingleLine() {
+        String line = WorkerProtocol.failure(3, "shouldPlaceOrder [Channel: UI]", "expected: <1>\nbut was: <2>");
+
+        String[] parts = line.split(" ");
+        assertEquals(4, parts.length, "Failure line should have four fields");
+        assertEquals("shouldPlaceOrder [Channel: UI]", WorkerProtocol.decode(parts[2]));
+        assertEquals("expected: <1>\nbut was: <2>", WorkerProtocol.decode(parts[3]));
+    }
+}
@@ -0,0 +1,68 @@
+package com.optivem.testing.systemtest.scalability;
+
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.support.descriptor.MethodSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the time spent expanding the test templates while the suite runs.
+ * <p>
+ * Jupiter expands a template lazily during execution, providing each invocation right before it runs. The
+ * expansion time is therefore the time from the start of a template, or from the end of its previous invocation,
+ * until its next invocation is registered, plus the time from its last invocation until the template ends.
+ */
+class ExpansionTimer implements TestExecutionListener {
+
+    private final Set<String> templates = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> expandingSince = new ConcurrentHashMap<>();
+    private final AtomicLong expansionNanos = new AtomicLong();
+
+    @Override
+    public void executionStarted(TestIdentifier testIdentifier) {
+        if (isTemplate(testIdentifier)) {
+            templates.add(testIdentifier.getUniqueId());
+            expandingSince.put(testIdentifier.getUniqueId(), System.nanoTime());
+        }
+    }
+
+    @Override
+    public void dynamicTestRegistered(TestIdentifier testIdentifier) {
+        testIdentifier.getParentId().map(expandingSince::remove).ifPresent(this::addSince);
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+        if (templates.remove(testIdentifier.getUniqueId())) {
+            Long since = expandingSince.remove(testIdentifier.getUniqueId());
+            if (since != null) {
+                addSince(since);
+            }
+            return;
+        }
+        testIdentifier.getParentId()
+                .filter(templates::contains)
+                .ifPresent(template -> expandingSince.put(template, System.nanoTime()));
+    }
+
+    /**
+     * Returns the total time spent expanding the templates so far.
+     */
+    long expansionMillis() {
+        return expansionNanos.get() / 1_000_000;
+    }
+
+    private void addSince(long since) {
+        expansionNanos.addAndGet(System.nanoTime() - since);
+    }
+
+    private static boolean isTemplate(TestIdentifier testIdentifier) {
+        return testIdentifier.isContainer()
+                && testIdentifier.getSource().filter(MethodSource.class::isInstance).isPresent();
+    }
+}
@@ -0,0 +1,103 @@
+package com.optivem.testing.systemtest.scalability;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Peak heap usage while a suite runs.
+ * <p>
+ * The heap is fullest right before a garbage collection, so the peak is taken from the heap usage before every
+ * collection, and from samples of the heap usage in between for runs with few collections. The peaks of the
+ * individual memory pools are reached at different times, and would over-state the peak if they were summed.
+ */
+class HeapPeak implements AutoCloseable {
+
+    private static final long SAMPLE_MILLIS = 10;
+
+    private final AtomicLong peak = new AtomicLong();
+    private final Set<String> heapPools;
+    private final List<NotificationEmitter> collectors = new ArrayList<>();
+    private final NotificationListener listener = (notification, handback) -> collected(notification);
+    private final Thread sampler;
+
+    /**
+     * Collects garbage left by earlier suites and starts measuring.
+     */
+    HeapPeak() {
+        System.gc();
+        heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .map(MemoryPoolMXBean::getName)
+                .collect(Collectors.toSet());
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                collectors.add(emitter);
+            }
+        }
+        sampler = Thread.ofPlatform().daemon().name("heap-peak-sampler").start(this::sample);
+    }
+
+    /**
+     * Returns the peak heap usage since the measurement started.
+     */
+    long peakBytes() {
+        return Math.max(peak.get(), ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+    }
+
+    @Override
+    public void close() {
+        sampler.interrupt();
+        for (NotificationEmitter collector : collectors) {
+            try {
+                collector.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException e) {
+                // Already removed
+            }
+        }
+    }
+
+    private void sample() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        while (!Thread.currentThread().isInterrupted()) {
+            peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            try {
+                Thread.sleep(SAMPLE_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void collected(Notification notification) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+            if (heapPools.contains(pool.getKey())) {
+                used += pool.getValue().getUsed();
+            }
+        }
+        peak.accumulateAndGet(used, Math::max);
+    }
+}
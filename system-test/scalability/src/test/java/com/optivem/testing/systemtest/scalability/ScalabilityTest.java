@@ -0,0 +1,114 @@
+package com.optivem.testing.systemtest.scalability;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.TestPlan;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder.request;
+
+/**
+ * Runs synthetic suites of {@code @Channel} invocations against the built library, and fails when discovery time,
+ * template expansion time or peak heap exceed their budgets.
+ * <p>
+ * Budgets can be overridden per suite with system properties, e.g.
+ * {@code -Doptivem.scalability.large.discoveryMillis=30000}, {@code .expansionMillis} and {@code .heapMegabytes}.
+ * Throughput depends on the machine, so it is only reported, unless a minimum is set with
+ * {@code .invocationsPerSecond}.
+ */
+public class ScalabilityTest {
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    @Test
+    public void shouldRunTenThousandInvocationsWithinBudget() throws Exception {
+        // 50 classes * 4 templates * 5 channels * 10 rows
+        assertWithinBudget("medium", 50, 4, 5, 10,
+                new Budget(10_000, 10_000, 512, 0));
+    }
+
+    @Test
+    public void shouldRunHundredThousandInvocationsWithinBudget() throws Exception {
+        // 200 classes * 5 templates * 10 channels * 10 rows
+        assertWithinBudget("large", 200, 5, 10, 10,
+                new Budget(30_000, 30_000, 1536, 0));
+    }
+
+    private void assertWithinBudget(String suiteName, int classes, int templates, int channels, int rows,
+                                    Budget defaultBudget) throws Exception {
+        Budget budget = defaultBudget.overriddenBy(suiteName);
+
+        try (SyntheticSuite suite = SyntheticSuite.generate(classes, templates, channels, rows)) {
+            LauncherDiscoveryRequest discoveryRequest = request()
+                    .selectors(suite.testClasses().stream().map(testClass -> selectClass(testClass)).toList())
+                    .build();
+
+            Thread thread = Thread.currentThread();
+            ClassLoader previousClassLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(suite.classLoader());
+            try (HeapPeak heapPeak = new HeapPeak()) {
+                Launcher launcher = LauncherFactory.create();
+
+                long discoveryStart = System.nanoTime();
+                TestPlan testPlan = launcher.discover(discoveryRequest);
+                long discoveryMillis = (System.nanoTime() - discoveryStart) / 1_000_000;
+
+                // Templates are expanded while they run, so expansion is measured inside the execution
+                SummaryGeneratingListener listener = new SummaryGeneratingListener();
+                ExpansionTimer expansionTimer = new ExpansionTimer();
+                long executionStart = System.nanoTime();
+                launcher.execute(testPlan, listener, expansionTimer);
+                double executionSeconds = (System.nanoTime() - executionStart) / 1_000_000_000.0;
+
+                long expansionMillis = expansionTimer.expansionMillis();
+                long peakHeapMegabytes = heapPeak.peakBytes() / MEGABYTE;
+                TestExecutionSummary summary = listener.getSummary();
+                long invocationsPerSecond = Math.round(summary.getTestsSucceededCount() / executionSeconds);
+
+                System.out.printf("Scalability [%s]: %d invocations, discovery %d ms, expansion %d ms, peak heap %d MB, "
+                                + "%d invocations/s%n", suiteName, suite.invocations(), discoveryMillis, expansionMillis,
+                        peakHeapMegabytes, invocationsPerSecond);
+
+                StringWriter failures = new StringWriter();
+                summary.printFailuresTo(new PrintWriter(failures), 5);
+                assertEquals(suite.invocations(), summary.getTestsSucceededCount(),
+                        "Every synthetic invocation should pass:\n" + failures);
+                assertTrue(discoveryMillis <= budget.discoveryMillis(),
+                        "Discovery took " + discoveryMillis + " ms, budget is " + budget.discoveryMillis() + " ms");
+                assertTrue(expansionMillis <= budget.expansionMillis(),
+                        "Expanding the templates took " + expansionMillis + " ms, budget is " + budget.expansionMillis() + " ms");
+                assertTrue(peakHeapMegabytes <= budget.heapMegabytes(),
+                        "Peak heap was " + peakHeapMegabytes + " MB, budget is " + budget.heapMegabytes() + " MB");
+                if (budget.invocationsPerSecond() > 0) {
+                    assertTrue(invocationsPerSecond >= budget.invocationsPerSecond(),
+                            "Ran " + invocationsPerSecond + " invocations/s, budget is " + budget.invocationsPerSecond());
+                }
+            } finally {
+                thread.setContextClassLoader(previousClassLoader);
+            }
+        }
+    }
+
+    /**
+     * Limits a synthetic suite has to stay within, with a minimum throughput of 0 for reporting only.
+     */
+    private record Budget(long discoveryMillis, long expansionMillis, long heapMegabytes, long invocationsPerSecond) {
+
+        Budget overriddenBy(String suiteName) {
+            String prefix = "optivem.scalability." + suiteName + ".";
+            return new Budget(
+                    Long.getLong(prefix + "discoveryMillis", discoveryMillis),
+                    Long.getLong(prefix + "expansionMillis", expansionMillis),
+                    Long.getLong(prefix + "heapMegabytes", heapMegabytes),
+                    Long.getLong(prefix + "invocationsPerSecond", invocationsPerSecond));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.optivem.testing.systemtest.scalability;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Synthetic suite of {@code @Channel} test classes, generated as source and compiled against the built library.
+ * <p>
+ * Every class declares the same number of templates, cycling through {@code @MethodSource}, {@code @ValueSource},
+ * {@code @DataSource} and {@code @GeneratedSource}, so that a suite expands to
+ * {@code classes * templates * channels * rows} invocations.
+ */
+class SyntheticSuite implements AutoCloseable {
+
+    private static final String PACKAGE = "com.optivem.testing.systemtest.scalability.generated";
+    private static final int DATA_SOURCE_KINDS = 4;
+
+    private final Path directory;
+    private final URLClassLoader classLoader;
+    private final List<Class<?>> testClasses;
+    private final long invocations;
+
+    private SyntheticSuite(Path directory, URLClassLoader classLoader, List<Class<?>> testClasses, long invocations) {
+        this.directory = directory;
+        this.classLoader = classLoader;
+        this.testClasses = testClasses;
+        this.invocations = invocations;
+    }
+
+    /**
+     * Generates and compiles a suite, and loads its test classes.
+     */
+    static SyntheticSuite generate(int classes, int templates, int channels, int rows) throws IOException {
+        Path directory = Files.createTempDirectory("optivem-scalability");
+        Path sources = Files.createDirectories(directory.resolve("src"));
+        Path output = Files.createDirectories(directory.resolve("classes"));
+
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < classes; i++) {
+            String className = "SyntheticTest" + i;
+            Path file = sources.resolve(className + ".java");
+            Files.writeString(file, source(className, templates, channels, rows));
+            files.add(file.toString());
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("Generating the synthetic suite requires a JDK, not a JRE");
+        }
+        List<String> arguments = new ArrayList<>(List.of(
+                "-classpath", System.getProperty("java.class.path"),
+                "-d", output.toString(),
+                // Keep the parameter names, as a real suite built with Gradle's defaults for display names would
+                "-parameters"));
+        arguments.addAll(files);
+        if (compiler.run(null, null, null, arguments.toArray(String[]::new)) != 0) {
+            throw new IllegalStateException("Failed to compile the synthetic suite in " + sources);
+        }
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{output.toUri().toURL()},
+                SyntheticSuite.class.getClassLoader());
+        List<Class<?>> testClasses = new ArrayList<>();
+        for (int i = 0; i < classes; i++) {
+            try {
+                testClasses.add(classLoader.loadClass(PACKAGE + ".SyntheticTest" + i));
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Compiled synthetic test class not found", e);
+            }
+        }
+        long invocations = (long) classes * templates * channels * rows;
+        return new SyntheticSuite(directory, classLoader, testClasses, invocations);
+    }
+
+    List<Class<?>> testClasses() {
+        return testClasses;
+    }
+
+    ClassLoader classLoader() {
+        return classLoader;
+    }
+
+    /**
+     * Returns the number of invocations the suite expands to.
+     */
+    long invocations() {
+        return invocations;
+    }
+
+    @Override
+    public void close() throws IOException {
+        classLoader.close();
+        try (var paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private static String source(String className, int templates, int channels, int rows) {
+        String channelList = IntStream.range(0, channels)
+                .mapToObj(channel -> "\"CHANNEL_" + channel + "\"")
+                .collect(Collectors.joining(", "));
+
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(PACKAGE).append(";\n\n")
+                .append("import com.optivem.testing.*;\n")
+                .append("import com.optivem.testing.contexts.ChannelContext;\n")
+                .append("import com.optivem.testing.extensions.ChannelExtension;\n")
+                .append("import org.junit.jupiter.api.TestTemplate;\n")
+                .append("import org.junit.jupiter.api.extension.ExtendWith;\n")
+                .append("import org.junit.jupiter.params.provider.Arguments;\n")
+                .append("import org.junit.jupiter.params.provider.MethodSource;\n")
+                .append("import org.junit.jupiter.params.provider.ValueSource;\n")
+                .append("import java.util.Random;\n")
+                .append("import java.util.stream.IntStream;\n")
+                .append("import java.util.stream.Stream;\n\n")
+                .append("@ExtendWith(ChannelExtension.class)\n")
+                .append("public class ").append(className).append(" {\n\n")
+                .append("    static Stream<Arguments> rows() {\n")
+                .append("        return IntStream.range(0, ").append(rows).append(").mapToObj(i -> Arguments.of(i, \"row\" + i));\n")
+                .append("    }\n\n")
+                .append("    public static class Numbers implements Generator<Integer> {\n")
+                .append("        public Integer generate(Random random) {\n")
+                .append("            return random.nextInt(1000);\n")
+                .append("        }\n")
+                .append("    }\n\n")
+                .append("    private static void check(Object value) {\n")
+                .append("        if (value == null || ChannelContext.get() == null) {\n")
+                .append("            throw new AssertionError(\"Missing value or channel\");\n")
+                .append("        }\n")
+                .append("    }\n");
+
+        for (int template = 0; template < templates; template++) {
+            source.append("\n    @TestTemplate\n")
+                    .append("    @Channel({").append(channelList).append("})\n");
+            switch (template % DATA_SOURCE_KINDS) {
+                case 0 -> source.append("    @MethodSource(\"rows\")\n")
+                        .append("    void template").append(template).append("(int number, String name) {\n")
+                        .append("        check(name);\n");
+                case 1 -> source.append("    @ValueSource(ints = {")
+                        .append(IntStream.range(0, rows).mapToObj(String::valueOf).collect(Collectors.joining(", ")))
+                        .append("})\n")
+                        .append("    void template").append(template).append("(int number) {\n")
+                        .append("        check(number);\n");
+                case 2 -> {
+                    for (int row = 0; row < rows; row++) {
+                        source.append("    @DataSource({\"").append(row).append("\", \"row").append(row).append("\"})\n");
+                    }
+                    source.append("    void template").append(template).append("(int number, String name) {\n")
+                            .append("        check(name);\n");
+                }
+                default -> source.append("    @GeneratedSource(generator = Numbers.class, count = ").append(rows)
+                        .append(", seed = ").append(template + 1).append(")\n")
+                        .append("    void template").append(template).append("(int number) {\n")
+                        .append("        check(number);\n");
+            }
+            source.append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+}